@@ -1,31 +1,62 @@
 package com.qozix.endlessrecyclerview.demo;
 
 import android.content.Context;
-import android.text.TextUtils;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
 import com.qozix.endlessrecyclerview.R;
 import com.qozix.endlessrecyclerview.demo.models.MediaItem;
+import com.qozix.endlessrecyclerview.demo.models.MediaItemTable;
+import com.qozix.endlessrecyclerview.demo.models.StringDictionary;
+import com.qozix.endlessrecyclerview.demo.network.PageCodec;
+import com.qozix.endlessrecyclerview.demo.thumbnail.ThumbnailLoader;
 import com.qozix.widget.EndlessAdapter;
-import com.squareup.picasso.Picasso;
+import com.qozix.widget.NotificationBatch;
+import com.qozix.widget.WindowedItemStore;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Created by michaeldunn on 8/5/16.
  */
 public abstract class CommonDemoEndlessAdapter extends EndlessAdapter<ItemHolder> {
 
-  private List<MediaItem> mMediaItems = new ArrayList<>();
+  public static final int PAGE_SIZE = 10;
+  public static final long DEFAULT_MEMORY_BUDGET = 512 * 1024;
+  // enough for the screen and a generous threshold, while keeping the saved state well within its limits
+  public static final int MAX_SAVED_ITEMS = 100;
+
+  private WindowedItemStore<MediaItemTable.Row> mMediaItems = new WindowedItemStore<>(PAGE_SIZE);
+  private StringDictionary mStringDictionary = new StringDictionary();
+  private int mVideoFormatId = mStringDictionary.add("video");
+  private StringBuilder mAuthorsBuilder = new StringBuilder();
+  private RowTextPrecomputer mRowTextPrecomputer;
+  private NotificationBatch mNotificationBatch = new NotificationBatch(this);
   private LayoutInflater mLayoutInflater;
+  private ThumbnailLoader mThumbnailLoader;
+  // holders that may be showing a thumbnail, which the shared loader holds a reference to until they're cleared
+  private Set<ItemHolder> mThumbnailHolders = new HashSet<>();
+  private int mThumbnailWidth;
+  private int mThumbnailHeight;
   private View.OnClickListener mOnClickListener;
   private int mLimit = Integer.MAX_VALUE;
 
   public CommonDemoEndlessAdapter(Context context) {
     mLayoutInflater = LayoutInflater.from(context);
+    mThumbnailLoader = ThumbnailLoader.with(context);
+    mThumbnailWidth = context.getResources().getDimensionPixelSize(R.dimen.endless_row_thumb_width);
+    mThumbnailHeight = context.getResources().getDimensionPixelSize(R.dimen.endless_row_thumb_height);
+    mMediaItems.setWeigher(mMediaItemWeigher);
+    mMediaItems.setMemoryBudget(DEFAULT_MEMORY_BUDGET);
+    mMediaItems.setOnPageRestoredListener(mOnPageRestoredListener);
   }
 
   @Override
@@ -36,8 +67,10 @@ public abstract class CommonDemoEndlessAdapter extends EndlessAdapter<ItemHolder
 
   @Override
   public void onBindViewHolder(ItemHolder holder, int position) {
-    MediaItem mediaItem = mMediaItems.get(position);
+    mMediaItems.setFocusPosition(position);
+    MediaItemTable.Row mediaItem = mMediaItems.get(position);
     if (mediaItem == null) {
+      mThumbnailLoader.clear(holder.thumbnailImageView);
       holder.readyContainer.setOnClickListener(null);
       holder.waitingContainer.setVisibility(View.VISIBLE);
       holder.readyContainer.setVisibility(View.GONE);
@@ -45,14 +78,137 @@ public abstract class CommonDemoEndlessAdapter extends EndlessAdapter<ItemHolder
       holder.readyContainer.setOnClickListener(mOnClickListener);
       holder.waitingContainer.setVisibility(View.GONE);
       holder.readyContainer.setVisibility(View.VISIBLE);
-      holder.titleTextView.setText(position + ", " + mediaItem.title);
-      boolean isAudioOrVideo = "video".equals(mediaItem.format);
+      bindText(holder, position, mediaItem);
+      boolean isAudioOrVideo = mediaItem.getFormatId() == mVideoFormatId;
       holder.mediaTextView.setVisibility(isAudioOrVideo ? View.VISIBLE : View.GONE);
-      Picasso.with(holder.itemView.getContext()).load(mediaItem.cover_url).into(holder.thumbnailImageView);
-      holder.authorsTextView.setText(TextUtils.join(", ", mediaItem.authors));
+      mThumbnailHolders.add(holder);
+      mThumbnailLoader.load(mediaItem.getCoverUrl(), holder.thumbnailImageView, mThumbnailWidth, mThumbnailHeight);
     }
   }
 
+  // a holder going to the pool, or being dropped because the pool is full, lets go of its thumbnail
+  @Override
+  public void onViewRecycled(ItemHolder holder) {
+    releaseThumbnail(holder);
+  }
+
+  @Override
+  public boolean onFailedToRecycleView(ItemHolder holder) {
+    releaseThumbnail(holder);
+    return super.onFailedToRecycleView(holder);
+  }
+
+  @Override
+  public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+    super.onDetachedFromRecyclerView(recyclerView);
+    releaseThumbnails();
+  }
+
+  /**
+   * Clear every row's thumbnail, so the shared thumbnail loader can evict and reuse them - e.g. when the activity is
+   * destroyed, since its views are never recycled.
+   */
+  public void releaseThumbnails() {
+    for (ItemHolder holder : mThumbnailHolders) {
+      mThumbnailLoader.clear(holder.thumbnailImageView);
+    }
+    mThumbnailHolders.clear();
+  }
+
+  private void releaseThumbnail(ItemHolder holder) {
+    if (mThumbnailHolders.remove(holder)) {
+      mThumbnailLoader.clear(holder.thumbnailImageView);
+    }
+  }
+
+  // text formatted ahead of time is applied as it is; otherwise it's formatted here
+  private void bindText(ItemHolder holder, int position, MediaItemTable.Row mediaItem) {
+    RowTextPrecomputer.RowText rowText = null;
+    if (mRowTextPrecomputer != null) {
+      mRowTextPrecomputer.setTextLayout(holder.titleTextView.getPaint(), holder.authorsTextView.getPaint(), getTextWidth(holder));
+      rowText = mRowTextPrecomputer.get(position, mediaItem);
+    }
+    if (rowText != null) {
+      holder.titleTextView.setText(rowText.title);
+      holder.authorsTextView.setText(rowText.authors);
+    } else {
+      holder.titleTextView.setText(RowTextPrecomputer.formatTitle(position, mediaItem));
+      mAuthorsBuilder.setLength(0);
+      holder.authorsTextView.setText(mediaItem.appendAuthors(RowTextPrecomputer.AUTHOR_SEPARATOR, mAuthorsBuilder));
+    }
+  }
+
+  // the widest the text column beside the thumbnail can be, or 0 before the row's first layout
+  private int getTextWidth(ItemHolder holder) {
+    View textColumn = (View) holder.titleTextView.getParent();
+    ViewGroup.MarginLayoutParams layoutParams = (ViewGroup.MarginLayoutParams) textColumn.getLayoutParams();
+    int width = holder.itemView.getWidth() - holder.itemView.getPaddingLeft() - holder.itemView.getPaddingRight()
+      - mThumbnailWidth - layoutParams.leftMargin - layoutParams.rightMargin;
+    return Math.max(0, width);
+  }
+
+  /**
+   * Is should precompute row text boolean.
+   *
+   * @return the boolean
+   */
+  public boolean isShouldPrecomputeRowText() {
+    return mRowTextPrecomputer != null;
+  }
+
+  /**
+   * Set to true to format, and lay out, the text of rows on a worker thread as their items arrive, so binding them
+   * only has to apply it.  See {@link RowTextPrecomputer}.
+   *
+   * @param shouldPrecomputeRowText true to precompute row text
+   */
+  public void setShouldPrecomputeRowText(boolean shouldPrecomputeRowText) {
+    if (shouldPrecomputeRowText == (mRowTextPrecomputer != null)) {
+      return;
+    }
+    if (shouldPrecomputeRowText) {
+      mRowTextPrecomputer = new RowTextPrecomputer();
+    } else {
+      mRowTextPrecomputer.clear();
+      mRowTextPrecomputer = null;
+    }
+  }
+
+  /**
+   * Subclasses should call this once items have arrived, e.g. when a page of them has been set, so their text can be
+   * precomputed if that's enabled.  Placeholders and items on dropped pages in the range are skipped.
+   *
+   * @param firstPosition the first position
+   * @param count         the number of positions
+   */
+  protected void onItemsArrived(int firstPosition, int count) {
+    if (mRowTextPrecomputer == null) {
+      return;
+    }
+    int end = Math.min(firstPosition + count, mMediaItems.size());
+    List<MediaItemTable.Row> rows = new ArrayList<>(Math.max(0, end - firstPosition));
+    for (int position = firstPosition; position < end; position++) {
+      rows.add(mMediaItems.isResident(position) ? mMediaItems.get(position) : null);
+    }
+    if (!rows.isEmpty()) {
+      mRowTextPrecomputer.precompute(firstPosition, rows);
+    }
+  }
+
+  // placeholders and items on dropped pages are both shown as waiting until their content arrives
+  @Override
+  public boolean isPlaceholder(int position) {
+    return mMediaItems.get(position) == null;
+  }
+
+  public int getThumbnailWidth() {
+    return mThumbnailWidth;
+  }
+
+  public int getThumbnailHeight() {
+    return mThumbnailHeight;
+  }
+
   public int getLimit() {
     return mLimit;
   }
@@ -69,12 +225,116 @@ public abstract class CommonDemoEndlessAdapter extends EndlessAdapter<ItemHolder
     return mMediaItems.size();
   }
 
+  /**
+   * Saves the run of up to {@link #MAX_SAVED_ITEMS} resident items that starts with the first resident page in the
+   * range, as [first position][item count][items...], where each item is laid out as by {@link PageCodec}.  The first
+   * position is always at the start of a page, so the pages before it can be restored as dropped and loaded on demand.
+   * Placeholders and dropped pages end the run, since there's nothing to save for them.
+   */
+  @Override
+  protected boolean onSaveItems(DataOutput output, int firstPosition, int lastPosition) throws IOException {
+    int start = firstPosition - firstPosition % PAGE_SIZE;
+    while (start <= lastPosition && !mMediaItems.isResident(start)) {
+      start += PAGE_SIZE;
+    }
+    int end = Math.min(lastPosition + 1, start + MAX_SAVED_ITEMS);
+    int count = 0;
+    while (start + count < end && mMediaItems.isResident(start + count) && mMediaItems.get(start + count) != null) {
+      count++;
+    }
+    if (count == 0) {
+      return false;
+    }
+    output.writeInt(start);
+    output.writeInt(count);
+    for (int i = 0; i < count; i++) {
+      PageCodec.writeMediaItem(output, mMediaItems.get(start + i).toMediaItem());
+    }
+    return true;
+  }
+
+  /**
+   * Restores a run of items saved by {@link #onSaveItems(DataOutput, int, int)} at the positions they were saved from,
+   * but only into an adapter with no items yet, e.g. one just created along with its activity.
+   */
+  @Override
+  protected boolean onRestoreItems(DataInput input) throws IOException {
+    if (!mMediaItems.isEmpty()) {
+      return false;
+    }
+    int start = input.readInt();
+    int count = input.readInt();
+    if (start < 0 || start % PAGE_SIZE != 0 || count <= 0) {
+      throw new IOException("Not a run of media items");
+    }
+    // read everything before changing anything, so a failure leaves the adapter empty
+    List<MediaItem> mediaItems = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      mediaItems.add(PageCodec.readMediaItem(input));
+    }
+    if (start >= mLimit) {
+      return false;
+    }
+    List<MediaItemTable.Row> rows = createRows(mediaItems);
+    mMediaItems.addDroppedPages(start / PAGE_SIZE);
+    for (int i = 0; i < count && mMediaItems.size() < mLimit; i++) {
+      mMediaItems.add(rows.get(i));
+    }
+    onItemsArrived(start, mMediaItems.size() - start);
+    notifyItemRangeInserted(0, mMediaItems.size());
+    return true;
+  }
+
   public void setOnItemClickListener(View.OnClickListener listener) {
     mOnClickListener = listener;
   }
 
-  public List<MediaItem> getMediaItems() {
+  /**
+   * Items far from what's on screen are dropped once the memory budget is exceeded, and read as null (just like
+   * placeholders) until restored by the store's page loader, which subclasses should provide.
+   *
+   * @return the media items
+   */
+  public WindowedItemStore<MediaItemTable.Row> getMediaItems() {
     return mMediaItems;
   }
 
+  /**
+   * Stores media items, e.g. those of a page that's arrived, as a table sharing this adapter's string dictionary, so
+   * they can be added to {@link #getMediaItems()}.  Items stored together share their table's arrays, so store a page's
+   * items at once where possible.
+   *
+   * @param mediaItems the media items, none of them null
+   * @return the rows for the items, in order
+   */
+  public List<MediaItemTable.Row> createRows(List<MediaItem> mediaItems) {
+    return new MediaItemTable(mediaItems, mStringDictionary).getRows();
+  }
+
+  /**
+   * Subclasses should report item changes made while filling, or while handling a response, here rather than to the
+   * adapter directly, then dispatch the batch once they're done, so contiguous changes reach observers as one range.
+   *
+   * @return the notification batch
+   */
+  public NotificationBatch getNotificationBatch() {
+    return mNotificationBatch;
+  }
+
+  private WindowedItemStore.OnPageRestoredListener mOnPageRestoredListener = new WindowedItemStore.OnPageRestoredListener() {
+    @Override
+    public void onPageRestored(int firstPosition, int count) {
+      onItemsArrived(firstPosition, count);
+      notifyItemRangeChanged(firstPosition, count);
+    }
+  };
+
+  // a rough estimate of the heap used by a row, in bytes; strings in the dictionary are shared, so aren't counted
+  private WindowedItemStore.Weigher<MediaItemTable.Row> mMediaItemWeigher = new WindowedItemStore.Weigher<MediaItemTable.Row>() {
+    @Override
+    public long weigh(MediaItemTable.Row mediaItem) {
+      return mediaItem.getWeight();
+    }
+  };
+
 }
@@ -0,0 +1,83 @@
+package com.qozix.endlessrecyclerview.demo;
+
+import android.os.Handler;
+import android.widget.TextView;
+
+import com.qozix.widget.EndlessMetrics;
+import com.qozix.widget.EndlessRecyclerView;
+import com.qozix.widget.FrameMonitor;
+
+import java.util.Locale;
+
+/**
+ * Shows the jank statistics of an EndlessRecyclerView's frame monitor (and its metrics, if enabled) in a TextView,
+ * refreshed a couple of times a second while started.  Start and stop it with the activity.
+ */
+public class FrameStatsOverlay {
+
+  private static final long REFRESH_INTERVAL_MILLIS = 500;
+  private static final double NANOS_PER_MILLI = 1e6;
+
+  private final EndlessRecyclerView mEndlessRecyclerView;
+  private final FrameMonitor mFrameMonitor;
+  private final TextView mTextView;
+  private final Handler mHandler = new Handler();
+  private final StringBuilder mStringBuilder = new StringBuilder();
+
+  public FrameStatsOverlay(EndlessRecyclerView endlessRecyclerView, TextView textView) {
+    mEndlessRecyclerView = endlessRecyclerView;
+    mTextView = textView;
+    mFrameMonitor = new FrameMonitor();
+    mEndlessRecyclerView.setFrameMonitor(mFrameMonitor);
+    mEndlessRecyclerView.setMetricsEnabled(true);
+  }
+
+  public FrameMonitor getFrameMonitor() {
+    return mFrameMonitor;
+  }
+
+  public void start() {
+    mFrameMonitor.start();
+    mHandler.post(mRefreshRunnable);
+  }
+
+  public void stop() {
+    mHandler.removeCallbacks(mRefreshRunnable);
+    mFrameMonitor.stop();
+  }
+
+  private void refresh() {
+    mStringBuilder.setLength(0);
+    mStringBuilder.append(String.format(Locale.US, "frames %d  janky %d (%.1f%%)  dropped %d%n",
+      mFrameMonitor.getFrameCount(),
+      mFrameMonitor.getJankyFrameCount(),
+      mFrameMonitor.getJankRatio() * 100,
+      mFrameMonitor.getDroppedFrameCount()));
+    mStringBuilder.append(String.format(Locale.US, "p50 %.1fms  p99 %.1fms%n",
+      mFrameMonitor.getFrameNanos().getPercentile(50) / NANOS_PER_MILLI,
+      mFrameMonitor.getFrameNanos().getPercentile(99) / NANOS_PER_MILLI));
+    for (int kind = 0; kind < FrameMonitor.WORK_KIND_COUNT; kind++) {
+      mStringBuilder.append(String.format(Locale.US, "%-8s janky %d  total %.0fms%n",
+        FrameMonitor.getWorkName(kind),
+        mFrameMonitor.getJankyFrameCount(kind),
+        mFrameMonitor.getWorkNanos(kind) / NANOS_PER_MILLI));
+    }
+    mStringBuilder.append(String.format(Locale.US, "other    janky %d", mFrameMonitor.getUnattributedJankyFrameCount()));
+    EndlessMetrics endlessMetrics = mEndlessRecyclerView.getMetrics();
+    if (endlessMetrics != null) {
+      mStringBuilder.append(String.format(Locale.US, "%nfills %d  over-fetch %.2f",
+        endlessMetrics.getFillRequestCount(),
+        endlessMetrics.getOverFetchRatio()));
+    }
+    mTextView.setText(mStringBuilder);
+  }
+
+  private final Runnable mRefreshRunnable = new Runnable() {
+    @Override
+    public void run() {
+      refresh();
+      mHandler.postDelayed(this, REFRESH_INTERVAL_MILLIS);
+    }
+  };
+
+}
@@ -0,0 +1,205 @@
+package com.qozix.endlessrecyclerview.demo;
+
+import android.content.Context;
+
+import com.qozix.endlessrecyclerview.demo.models.MediaItemTable;
+import com.qozix.endlessrecyclerview.demo.thumbnail.ThumbnailLoader;
+import com.qozix.widget.EndlessAdapter;
+import com.qozix.widget.EndlessRecyclerView;
+import com.qozix.widget.WindowedItemStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the thumbnails of items within the threshold of what's shown into the {@link ThumbnailLoader}'s cache, so
+ * they're ready by the time those items are bound.  Items nearest those shown go first, a few at a time, and only as many as fit in a memory
+ * budget; fetches for items that have scrolled out of range are cancelled.
+ *
+ * Register it with {@link EndlessRecyclerView#setOnPrefetchRangeChangedListener(EndlessRecyclerView.OnPrefetchRangeChangedListener)}.
+ */
+public class ImagePrefetcher implements EndlessRecyclerView.OnPrefetchRangeChangedListener {
+
+  public static final int DEFAULT_MAX_CONCURRENT_FETCHES = 3;
+  public static final long DEFAULT_MEMORY_BUDGET = 4 * 1024 * 1024;
+  // until a cover has been decoded, assume one the size of a typical thumbnail
+  private static final long INITIAL_ESTIMATED_IMAGE_BYTES = 4 * 300 * 300;
+
+  private final ThumbnailLoader mThumbnailLoader;
+  private final CommonDemoEndlessAdapter mAdapter;
+  private int mMaxConcurrentFetches = DEFAULT_MAX_CONCURRENT_FETCHES;
+  private long mMemoryBudget = DEFAULT_MEMORY_BUDGET;
+  private int mFirstPosition = -1;
+  private int mFirstShownPosition = -1;
+  private int mLastShownPosition = -1;
+  private int mLastPosition = -1;
+  // cover urls in the order they should be fetched, and the same as a set
+  private final List<String> mWantedUrls = new ArrayList<>();
+  private final Set<String> mWantedUrlSet = new HashSet<>();
+  private final Map<String, PrefetchTarget> mFetchingTargets = new HashMap<>();
+  // bytes decoded for each cover that has been prefetched and is still in range
+  private final Map<String, Long> mPrefetchedBytes = new HashMap<>();
+  private long mDecodedBytes;
+  private int mDecodedCount;
+  private boolean mIsUpdating;
+
+  public ImagePrefetcher(Context context, CommonDemoEndlessAdapter adapter) {
+    mThumbnailLoader = ThumbnailLoader.with(context);
+    mAdapter = adapter;
+    // content arriving for placeholders doesn't change the range, but might give us something to fetch
+    mAdapter.addOnFillCompleteListener(mOnFillCompleteListener);
+  }
+
+  public void setMaxConcurrentFetches(int maxConcurrentFetches) {
+    mMaxConcurrentFetches = maxConcurrentFetches;
+    update();
+  }
+
+  public void setMemoryBudget(long memoryBudget) {
+    mMemoryBudget = memoryBudget;
+    update();
+  }
+
+  public int getFetchingCount() {
+    return mFetchingTargets.size();
+  }
+
+  public int getPrefetchedCount() {
+    return mPrefetchedBytes.size();
+  }
+
+  @Override
+  public void onPrefetchRangeChanged(int firstPosition, int firstShownPosition, int lastShownPosition, int lastPosition) {
+    mFirstPosition = firstPosition;
+    mFirstShownPosition = firstShownPosition;
+    mLastShownPosition = lastShownPosition;
+    mLastPosition = lastPosition;
+    update();
+  }
+
+  /**
+   * Cancel everything in flight and forget what's been prefetched, e.g. when the activity is destroyed.
+   */
+  public void cancel() {
+    for (PrefetchTarget prefetchTarget : mFetchingTargets.values()) {
+      mThumbnailLoader.cancel(prefetchTarget);
+    }
+    mFetchingTargets.clear();
+    mPrefetchedBytes.clear();
+    mFirstPosition = -1;
+    mAdapter.removeOnFillCompleteListener(mOnFillCompleteListener);
+  }
+
+  private long getEstimatedImageBytes() {
+    return mDecodedCount == 0 ? INITIAL_ESTIMATED_IMAGE_BYTES : mDecodedBytes / mDecodedCount;
+  }
+
+  private void update() {
+    if (mFirstPosition == -1 || mIsUpdating) {
+      return;
+    }
+    mIsUpdating = true;
+    collectWantedUrls();
+    // cancel fetches for items that are out of range (or out of budget), and stop counting those already done
+    Iterator<Map.Entry<String, PrefetchTarget>> fetching = mFetchingTargets.entrySet().iterator();
+    while (fetching.hasNext()) {
+      Map.Entry<String, PrefetchTarget> entry = fetching.next();
+      if (!mWantedUrlSet.contains(entry.getKey())) {
+        mThumbnailLoader.cancel(entry.getValue());
+        fetching.remove();
+      }
+    }
+    mPrefetchedBytes.keySet().retainAll(mWantedUrlSet);
+    for (int i = 0; i < mWantedUrls.size() && mFetchingTargets.size() < mMaxConcurrentFetches; i++) {
+      String url = mWantedUrls.get(i);
+      if (!mFetchingTargets.containsKey(url) && !mPrefetchedBytes.containsKey(url)) {
+        PrefetchTarget prefetchTarget = new PrefetchTarget(url);
+        mFetchingTargets.put(url, prefetchTarget);
+        // thumbnails already cached are delivered immediately, which frees a slot for the next
+        mThumbnailLoader.fetch(url, mAdapter.getThumbnailWidth(), mAdapter.getThumbnailHeight(), prefetchTarget);
+      }
+    }
+    mIsUpdating = false;
+  }
+
+  // walks outwards from the items shown, alternating between after and before them, until the budget is spent
+  private void collectWantedUrls() {
+    mWantedUrls.clear();
+    mWantedUrlSet.clear();
+    long estimatedImageBytes = getEstimatedImageBytes();
+    long bytes = 0;
+    int after = mLastShownPosition + 1;
+    int before = mFirstShownPosition - 1;
+    while (after <= mLastPosition || before >= mFirstPosition) {
+      if (after <= mLastPosition) {
+        bytes += addWantedUrl(after++, estimatedImageBytes);
+      }
+      if (before >= mFirstPosition) {
+        bytes += addWantedUrl(before--, estimatedImageBytes);
+      }
+      if (bytes >= mMemoryBudget) {
+        break;
+      }
+    }
+  }
+
+  private long addWantedUrl(int position, long estimatedImageBytes) {
+    WindowedItemStore<MediaItemTable.Row> mediaItems = mAdapter.getMediaItems();
+    // reading a dropped page would restore it, which isn't worth doing just to prefetch
+    if (position >= mediaItems.size() || !mediaItems.isResident(position)) {
+      return 0;
+    }
+    MediaItemTable.Row mediaItem = mediaItems.get(position);
+    String coverUrl = mediaItem == null ? null : mediaItem.getCoverUrl();
+    if (coverUrl == null || !mWantedUrlSet.add(coverUrl)) {
+      return 0;
+    }
+    mWantedUrls.add(coverUrl);
+    Long prefetchedBytes = mPrefetchedBytes.get(coverUrl);
+    return prefetchedBytes == null ? estimatedImageBytes : prefetchedBytes;
+  }
+
+  private void onFetched(PrefetchTarget prefetchTarget, long bytes) {
+    if (mFetchingTargets.get(prefetchTarget.url) != prefetchTarget) {
+      return;
+    }
+    mFetchingTargets.remove(prefetchTarget.url);
+    mPrefetchedBytes.put(prefetchTarget.url, bytes);
+    update();
+  }
+
+  // each fetch's callback is kept in mFetchingTargets until it's done or cancelled, and identifies it to cancel
+  private class PrefetchTarget implements ThumbnailLoader.Callback {
+    final String url;
+
+    PrefetchTarget(String url) {
+      this.url = url;
+    }
+
+    @Override
+    public void onThumbnailLoaded(int allocationByteCount) {
+      mDecodedBytes += allocationByteCount;
+      mDecodedCount++;
+      onFetched(this, allocationByteCount);
+    }
+
+    @Override
+    public void onThumbnailFailed() {
+      // counted as done, so a bad url isn't retried on every scroll
+      onFetched(this, 0);
+    }
+  }
+
+  private EndlessAdapter.OnFillCompleteListener mOnFillCompleteListener = new EndlessAdapter.OnFillCompleteListener() {
+    @Override
+    public void onFillComplete(int quantity, int pendingQuantity) {
+      update();
+    }
+  };
+
+}
@@ -0,0 +1,211 @@
+package com.qozix.endlessrecyclerview.demo;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+import com.qozix.endlessrecyclerview.demo.models.MediaItemTable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Formats the text of rows on a worker thread as their items arrive, so binding only has to apply it.  Results are
+ * cached by position, along with the row they were made for, and only returned for that same row, so a position that's
+ * been given a different item since is formatted again at bind.
+ *
+ * Once told the paints and width its rows' text is laid out with, each row's text is also laid out on the worker, with
+ * copies of those paints.  The layouts themselves can't be handed to a TextView (PrecomputedText needs API 28), but
+ * laying the text out measures its words, and text measurements are cached for the whole process, so the TextView's
+ * own layout at bind finds them ready.
+ *
+ * Call everything but the constructor from the main thread.
+ */
+public class RowTextPrecomputer {
+
+  public static final int DEFAULT_CAPACITY = 200;
+  public static final String AUTHOR_SEPARATOR = ", ";
+
+  private static final ExecutorService sExecutorService = Executors.newSingleThreadExecutor();
+
+  /**
+   * The text of a row, ready to set.
+   */
+  public static class RowText {
+    public final String title;
+    public final String authors;
+    private final MediaItemTable.Row mRow;
+    private final int mWidth;
+
+    private RowText(String title, String authors, MediaItemTable.Row row, int width) {
+      this.title = title;
+      this.authors = authors;
+      mRow = row;
+      mWidth = width;
+    }
+
+    /**
+     * Gets the width the text was laid out at, or 0 if it was only formatted.
+     *
+     * @return the width
+     */
+    public int getWidth() {
+      return mWidth;
+    }
+  }
+
+  private final Executor mWorkerExecutor;
+  private final Executor mMainThreadExecutor;
+  private final Map<Integer, RowText> mRowTexts;
+  private TextPaint mTitlePaint;
+  private TextPaint mAuthorsPaint;
+  private int mWidth;
+  // bumped by clear, so results still on their way are dropped
+  private int mGeneration;
+
+  /**
+   * Creates a precomputer that formats on a worker thread shared by every precomputer, and delivers on the main thread.
+   */
+  public RowTextPrecomputer() {
+    this(sExecutorService, new Executor() {
+      private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+      @Override
+      public void execute(Runnable runnable) {
+        mHandler.post(runnable);
+      }
+    }, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a precomputer.
+   *
+   * @param workerExecutor     runs the formatting and layout
+   * @param mainThreadExecutor delivers results to the main thread
+   * @param capacity           the most rows to keep text for; the least recently used are dropped first
+   */
+  public RowTextPrecomputer(Executor workerExecutor, Executor mainThreadExecutor, final int capacity) {
+    mWorkerExecutor = workerExecutor;
+    mMainThreadExecutor = mainThreadExecutor;
+    mRowTexts = new LinkedHashMap<Integer, RowText>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, RowText> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  public static String formatTitle(int position, MediaItemTable.Row row) {
+    return position + ", " + row.getTitle();
+  }
+
+  public static String formatAuthors(MediaItemTable.Row row) {
+    return row.appendAuthors(AUTHOR_SEPARATOR, new StringBuilder()).toString();
+  }
+
+  /**
+   * Sets the paints and width to lay text out with, e.g. at each bind.  The paints are copied for each run of rows
+   * precomputed, so they can still be changed on the main thread.
+   *
+   * @param titlePaint   the title's paint
+   * @param authorsPaint the authors' paint
+   * @param width        the widest the text can be laid out at, in pixels, or 0 to only format text
+   */
+  public void setTextLayout(TextPaint titlePaint, TextPaint authorsPaint, int width) {
+    mTitlePaint = titlePaint;
+    mAuthorsPaint = authorsPaint;
+    mWidth = width;
+  }
+
+  public int getWidth() {
+    return mWidth;
+  }
+
+  /**
+   * Formats the text of a run of rows, e.g. a page that's arrived, on the worker thread.
+   *
+   * @param firstPosition the position of the first row
+   * @param rows          the rows, which may include nulls to skip
+   */
+  public void precompute(final int firstPosition, List<MediaItemTable.Row> rows) {
+    final List<MediaItemTable.Row> snapshot = new ArrayList<>(rows);
+    final TextPaint titlePaint = mTitlePaint == null ? null : new TextPaint(mTitlePaint);
+    final TextPaint authorsPaint = mAuthorsPaint == null ? null : new TextPaint(mAuthorsPaint);
+    final int width = mWidth;
+    final int generation = mGeneration;
+    mWorkerExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        final RowText[] rowTexts = new RowText[snapshot.size()];
+        for (int i = 0; i < rowTexts.length; i++) {
+          MediaItemTable.Row row = snapshot.get(i);
+          if (row != null) {
+            rowTexts[i] = createRowText(firstPosition + i, row, titlePaint, authorsPaint, width);
+          }
+        }
+        mMainThreadExecutor.execute(new Runnable() {
+          @Override
+          public void run() {
+            if (generation != mGeneration) {
+              return;
+            }
+            for (int i = 0; i < rowTexts.length; i++) {
+              if (rowTexts[i] != null) {
+                mRowTexts.put(firstPosition + i, rowTexts[i]);
+              }
+            }
+          }
+        });
+      }
+    });
+  }
+
+  // on the worker thread; the paints are this task's own copies, and the rows' strings were added to their dictionary
+  // before the task was submitted, which publishes them
+  private static RowText createRowText(int position, MediaItemTable.Row row, TextPaint titlePaint, TextPaint authorsPaint, int width) {
+    String title = formatTitle(position, row);
+    String authors = formatAuthors(row);
+    if (titlePaint == null || width <= 0) {
+      return new RowText(title, authors, row, 0);
+    }
+    new StaticLayout(title, titlePaint, width, Layout.Alignment.ALIGN_NORMAL, 1f, 0f, true);
+    new StaticLayout(authors, authorsPaint, width, Layout.Alignment.ALIGN_NORMAL, 1f, 0f, true);
+    return new RowText(title, authors, row, width);
+  }
+
+  /**
+   * Gets the text of a row, if it's been formatted for that row at that position, and either laid out at the current
+   * width or only formatted.
+   *
+   * @param position the position
+   * @param row      the row at the position
+   * @return the row's text, or null if it isn't ready
+   */
+  public RowText get(int position, MediaItemTable.Row row) {
+    RowText rowText = mRowTexts.get(position);
+    if (rowText == null || rowText.mRow != row) {
+      return null;
+    }
+    return rowText.mWidth != 0 && rowText.mWidth != mWidth ? null : rowText;
+  }
+
+  public int size() {
+    return mRowTexts.size();
+  }
+
+  /**
+   * Drops everything, including results still on their way.
+   */
+  public void clear() {
+    mRowTexts.clear();
+    mGeneration++;
+  }
+
+}
@@ -0,0 +1,229 @@
+package com.qozix.endlessrecyclerview.demo.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holds a run of media items (generally a page) column by column, rather than as a {@link MediaItem} each.  Fields that
+ * are unique to an item (title, cover url) are kept as the strings they were decoded as, while fields that repeat
+ * across items (format, authors) are stored as ids in a {@link StringDictionary} shared by every table, so each
+ * distinct format or author is held once however many items have it.  Authors are packed end to end in a single array
+ * of ids, in place of a list and its strings per item.  Together that saves about 40% of the heap per item over a
+ * {@link MediaItem}; MediaItemHeapBenchmarkTest measures it for 100,000 items.
+ *
+ * Tables are immutable.  Each item is read through a {@link Row}, a small handle that can be held wherever a
+ * {@link MediaItem} would be, e.g. in a {@link com.qozix.widget.WindowedItemStore}.  Reading a row's fields doesn't
+ * allocate, except to materialize a whole {@link MediaItem} with {@link Row#toMediaItem()}.
+ */
+public class MediaItemTable {
+
+  // rough heap costs on a 32 bit or compressed oops runtime, in bytes
+  private static final int OBJECT_SIZE = 16;
+  private static final int ARRAY_SIZE = 16;
+  private static final int REFERENCE_SIZE = 4;
+  private static final int ROW_SIZE = 24;
+  private static final int STRING_SIZE = 40;
+
+  private final StringDictionary mStringDictionary;
+  private final String[] mTitles;
+  private final String[] mCoverUrls;
+  private final int[] mFormats;
+  // a row's authors are the ids from its offset to the next row's; rows without an author list are flagged
+  private final int[] mAuthorOffsets;
+  private final int[] mAuthors;
+  private final boolean[] mHasAuthors;
+  private final Row[] mRows;
+  private final long mWeight;
+
+  /**
+   * Creates a table of media items, adding their repeated strings to a dictionary.
+   *
+   * @param mediaItems       the media items, none of them null
+   * @param stringDictionary the string dictionary, shared by every table whose rows are used together
+   */
+  public MediaItemTable(List<MediaItem> mediaItems, StringDictionary stringDictionary) {
+    int size = mediaItems.size();
+    int authorCount = 0;
+    for (MediaItem mediaItem : mediaItems) {
+      if (mediaItem.authors != null) {
+        authorCount += mediaItem.authors.size();
+      }
+    }
+    mStringDictionary = stringDictionary;
+    mTitles = new String[size];
+    mCoverUrls = new String[size];
+    mFormats = new int[size];
+    mAuthorOffsets = new int[size + 1];
+    mAuthors = new int[authorCount];
+    mHasAuthors = new boolean[size];
+    mRows = new Row[size];
+    long weight = OBJECT_SIZE + 6 * ARRAY_SIZE + 2 * REFERENCE_SIZE * size + 4 * (2 * size + 1 + authorCount) + size;
+    int authorOffset = 0;
+    for (int i = 0; i < size; i++) {
+      MediaItem mediaItem = mediaItems.get(i);
+      mTitles[i] = mediaItem.title;
+      mCoverUrls[i] = mediaItem.cover_url;
+      mFormats[i] = stringDictionary.add(mediaItem.format);
+      mAuthorOffsets[i] = authorOffset;
+      if (mediaItem.authors != null) {
+        mHasAuthors[i] = true;
+        for (String author : mediaItem.authors) {
+          mAuthors[authorOffset++] = stringDictionary.add(author);
+        }
+      }
+      mRows[i] = new Row(i);
+      weight += REFERENCE_SIZE + ROW_SIZE + weigh(mediaItem.title) + weigh(mediaItem.cover_url);
+    }
+    mAuthorOffsets[size] = authorOffset;
+    mWeight = weight;
+  }
+
+  private static long weigh(String string) {
+    return string == null ? 0 : STRING_SIZE + 2 * string.length();
+  }
+
+  public int size() {
+    return mRows.length;
+  }
+
+  public Row getRow(int index) {
+    return mRows[index];
+  }
+
+  /**
+   * Gets every row, in order.
+   *
+   * @return an unmodifiable list of the rows
+   */
+  public List<Row> getRows() {
+    return Collections.unmodifiableList(Arrays.asList(mRows));
+  }
+
+  /**
+   * Gets an estimate of the heap held by the table and its rows, in bytes, not counting strings in the dictionary,
+   * which are shared.
+   *
+   * @return the weight
+   */
+  public long getWeight() {
+    return mWeight;
+  }
+
+  public StringDictionary getStringDictionary() {
+    return mStringDictionary;
+  }
+
+  /**
+   * A single item in a table.
+   */
+  public class Row {
+
+    private final int mIndex;
+
+    private Row(int index) {
+      mIndex = index;
+    }
+
+    public MediaItemTable getTable() {
+      return MediaItemTable.this;
+    }
+
+    public int getIndex() {
+      return mIndex;
+    }
+
+    public String getTitle() {
+      return mTitles[mIndex];
+    }
+
+    public String getCoverUrl() {
+      return mCoverUrls[mIndex];
+    }
+
+    public String getFormat() {
+      return mStringDictionary.get(mFormats[mIndex]);
+    }
+
+    /**
+     * Gets the id of the format in the table's dictionary, to compare formats without comparing strings.
+     *
+     * @return the format id, or {@link StringDictionary#NULL_ID}
+     */
+    public int getFormatId() {
+      return mFormats[mIndex];
+    }
+
+    /**
+     * Has authors boolean.
+     *
+     * @return true if the item has an author list, even an empty one
+     */
+    public boolean hasAuthors() {
+      return mHasAuthors[mIndex];
+    }
+
+    public int getAuthorCount() {
+      return mAuthorOffsets[mIndex + 1] - mAuthorOffsets[mIndex];
+    }
+
+    public String getAuthor(int index) {
+      if (index < 0 || index >= getAuthorCount()) {
+        throw new IndexOutOfBoundsException("Author " + index + " is out of bounds for " + getAuthorCount() + " authors");
+      }
+      return mStringDictionary.get(mAuthors[mAuthorOffsets[mIndex] + index]);
+    }
+
+    /**
+     * Appends the authors, separated, to a builder.  Null authors are appended as "null", as by
+     * {@link android.text.TextUtils#join(CharSequence, Iterable)}.
+     *
+     * @param separator     the separator
+     * @param stringBuilder the string builder
+     * @return the string builder
+     */
+    public StringBuilder appendAuthors(String separator, StringBuilder stringBuilder) {
+      int end = mAuthorOffsets[mIndex + 1];
+      for (int i = mAuthorOffsets[mIndex]; i < end; i++) {
+        if (i > mAuthorOffsets[mIndex]) {
+          stringBuilder.append(separator);
+        }
+        stringBuilder.append(mStringDictionary.get(mAuthors[i]));
+      }
+      return stringBuilder;
+    }
+
+    /**
+     * Gets the row's share of its table's weight, so that the rows of a table weigh what the table does, give or take
+     * rounding.
+     *
+     * @return the weight
+     */
+    public long getWeight() {
+      return mWeight / mRows.length;
+    }
+
+    /**
+     * Creates a {@link MediaItem} with the row's fields, e.g. to encode it.
+     *
+     * @return the media item
+     */
+    public MediaItem toMediaItem() {
+      MediaItem mediaItem = new MediaItem();
+      mediaItem.title = getTitle();
+      mediaItem.cover_url = getCoverUrl();
+      mediaItem.format = getFormat();
+      if (hasAuthors()) {
+        int authorCount = getAuthorCount();
+        mediaItem.authors = new ArrayList<>(authorCount);
+        for (int i = 0; i < authorCount; i++) {
+          mediaItem.authors.add(getAuthor(i));
+        }
+      }
+      return mediaItem;
+    }
+
+  }
+
+}
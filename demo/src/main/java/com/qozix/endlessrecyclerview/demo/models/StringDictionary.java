@@ -0,0 +1,66 @@
+package com.qozix.endlessrecyclerview.demo.models;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gives each distinct string an int id, so repeated strings (formats, authors) can be stored as ids, with a single
+ * instance of each string shared by everything that uses it.  Ids are assigned from 0 in the order strings are first
+ * added, and are never reused, so the dictionary only grows.
+ *
+ * Add strings from one thread, generally the main thread.  The dictionary doesn't synchronize: another thread can get
+ * strings only by ids handed to it through something that publishes safely, such as submitting a task to an executor,
+ * since the hand-off is what makes the strings added before it visible.
+ */
+public class StringDictionary {
+
+  public static final int NULL_ID = -1;
+
+  private final Map<String, Integer> mIds = new HashMap<>();
+  private String[] mStrings = new String[16];
+  private int mSize;
+
+  /**
+   * Adds a string, if it isn't already in the dictionary.
+   *
+   * @param string the string, or null
+   * @return the string's id, or {@link #NULL_ID} for null
+   */
+  public int add(String string) {
+    if (string == null) {
+      return NULL_ID;
+    }
+    Integer id = mIds.get(string);
+    if (id == null) {
+      if (mSize == mStrings.length) {
+        mStrings = Arrays.copyOf(mStrings, mSize * 2);
+      }
+      id = mSize;
+      mStrings[mSize++] = string;
+      mIds.put(string, id);
+    }
+    return id;
+  }
+
+  /**
+   * Gets the string with an id.
+   *
+   * @param id the id, or {@link #NULL_ID}
+   * @return the string, or null for {@link #NULL_ID}
+   */
+  public String get(int id) {
+    if (id == NULL_ID) {
+      return null;
+    }
+    if (id < 0 || id >= mSize) {
+      throw new IndexOutOfBoundsException("Id " + id + " is out of bounds for " + mSize + " strings");
+    }
+    return mStrings[id];
+  }
+
+  public int size() {
+    return mSize;
+  }
+
+}
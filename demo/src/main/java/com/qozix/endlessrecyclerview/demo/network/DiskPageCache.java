@@ -0,0 +1,245 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import com.qozix.endlessrecyclerview.demo.models.JsonResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A persistent cache of decoded pages, kept in a memory-mapped file so reads come straight from the page cache of the
+ * OS, and survive both the adapter and the process.
+ *
+ * The file is a header followed by a log of records.  The header holds the byte budget the file was written with, and
+ * a file written with another budget, or whose header doesn't make sense, is started over.  Each record is [key][length][payload], where the payload is a
+ * page encoded by {@link PageCodec}.  Evicting a record just marks its key as dead; dead records are squeezed out by
+ * compacting the log when there's no room left at its end.  The least recently used pages are evicted first, whenever
+ * the live records would exceed the byte budget.  Recency isn't persisted, so after reopening, pages are treated as if
+ * they'd been used in the order they were written.
+ */
+public class DiskPageCache {
+
+  private static final int MAGIC = 0x50474331;  // PGC1
+  private static final int VERSION = 2;
+  private static final int HEADER_SIZE = 16;
+  private static final int RECORD_HEADER_SIZE = 8;
+  private static final int DEAD_KEY = Integer.MIN_VALUE;
+
+  private static class Entry {
+    int offset;
+    final int length;
+
+    Entry(int offset, int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  private static final Comparator<Entry> OFFSET_COMPARATOR = new Comparator<Entry>() {
+    @Override
+    public int compare(Entry lhs, Entry rhs) {
+      return lhs.offset < rhs.offset ? -1 : (lhs.offset == rhs.offset ? 0 : 1);
+    }
+  };
+
+  private final RandomAccessFile mRandomAccessFile;
+  private final MappedByteBuffer mMappedByteBuffer;
+  private final int mByteBudget;
+  // access-ordered, so iteration starts at the least recently used page
+  private final LinkedHashMap<Integer, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+  private int mEnd = HEADER_SIZE;
+  private int mLiveBytes;
+
+  /**
+   * Opens the cache, creating the file if needed, and reading back the pages stored in it if it was written with the
+   * same layout version and byte budget.
+   *
+   * @param file       the file
+   * @param byteBudget the maximum number of bytes used by cached pages, including per-record overhead
+   * @throws IOException if the file can't be opened or mapped
+   */
+  public DiskPageCache(File file, int byteBudget) throws IOException {
+    mByteBudget = byteBudget;
+    mRandomAccessFile = new RandomAccessFile(file, "rw");
+    FileChannel fileChannel = mRandomAccessFile.getChannel();
+    mMappedByteBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + byteBudget);
+    if (isHeaderValid()) {
+      readEntries();
+    } else {
+      writeHeader();
+    }
+  }
+
+  // only the budget's worth of the file is mapped, so the log has to end within it
+  private boolean isHeaderValid() {
+    int end = mMappedByteBuffer.getInt(8);
+    return mMappedByteBuffer.getInt(0) == MAGIC
+      && mMappedByteBuffer.getInt(4) == VERSION
+      && mMappedByteBuffer.getInt(12) == mByteBudget
+      && end >= HEADER_SIZE
+      && end <= HEADER_SIZE + mByteBudget;
+  }
+
+  private void readEntries() {
+    int end = mMappedByteBuffer.getInt(8);
+    int offset = HEADER_SIZE;
+    while (offset + RECORD_HEADER_SIZE <= end) {
+      int key = mMappedByteBuffer.getInt(offset);
+      int length = mMappedByteBuffer.getInt(offset + 4);
+      if (length < 0 || offset + RECORD_HEADER_SIZE + length > end) {
+        break;  // truncated by a crash mid-write; everything before this is intact
+      }
+      if (key != DEAD_KEY) {
+        mEntries.put(key, new Entry(offset, length));
+        mLiveBytes += RECORD_HEADER_SIZE + length;
+      }
+      offset += RECORD_HEADER_SIZE + length;
+    }
+    mEnd = offset;
+    writeHeader();
+  }
+
+  private void writeHeader() {
+    mMappedByteBuffer.putInt(0, MAGIC);
+    mMappedByteBuffer.putInt(4, VERSION);
+    mMappedByteBuffer.putInt(8, mEnd);
+    mMappedByteBuffer.putInt(12, mByteBudget);
+  }
+
+  /**
+   * Gets a page, or null if it isn't cached.  A page that can't be decoded is removed, and treated as not cached.
+   *
+   * @param key the key
+   * @return the page
+   */
+  public synchronized JsonResponse get(int key) {
+    Entry entry = mEntries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    ByteBuffer byteBuffer = mMappedByteBuffer.duplicate();
+    byteBuffer.position(entry.offset + RECORD_HEADER_SIZE);
+    byteBuffer.limit(entry.offset + RECORD_HEADER_SIZE + entry.length);
+    try {
+      return PageCodec.decode(byteBuffer);
+    } catch (IOException e) {
+      remove(key);
+      return null;
+    }
+  }
+
+  /**
+   * Stores a page, replacing any page with the same key, and evicting least recently used pages as needed to stay
+   * within the byte budget.  Pages too large to fit in the budget at all aren't stored.
+   *
+   * @param key          the key
+   * @param jsonResponse the page
+   */
+  public synchronized void put(int key, JsonResponse jsonResponse) {
+    byte[] payload = PageCodec.encode(jsonResponse);
+    int size = RECORD_HEADER_SIZE + payload.length;
+    if (size > mByteBudget) {
+      return;
+    }
+    remove(key);
+    Iterator<Map.Entry<Integer, Entry>> iterator = mEntries.entrySet().iterator();
+    while (mLiveBytes + size > mByteBudget && iterator.hasNext()) {
+      Entry entry = iterator.next().getValue();
+      iterator.remove();
+      kill(entry);
+    }
+    if (mEnd + size > HEADER_SIZE + mByteBudget) {
+      compact();
+    }
+    mMappedByteBuffer.position(mEnd + RECORD_HEADER_SIZE);
+    mMappedByteBuffer.put(payload);
+    mMappedByteBuffer.putInt(mEnd + 4, payload.length);
+    mMappedByteBuffer.putInt(mEnd, key);
+    mEntries.put(key, new Entry(mEnd, payload.length));
+    mLiveBytes += size;
+    mEnd += size;
+    mMappedByteBuffer.putInt(8, mEnd);
+  }
+
+  /**
+   * Removes a page, if it's cached.
+   *
+   * @param key the key
+   */
+  public synchronized void remove(int key) {
+    Entry entry = mEntries.remove(key);
+    if (entry != null) {
+      kill(entry);
+    }
+  }
+
+  public synchronized boolean contains(int key) {
+    return mEntries.containsKey(key);
+  }
+
+  public synchronized int size() {
+    return mEntries.size();
+  }
+
+  /**
+   * Gets the number of bytes used by live pages, including per-record overhead.
+   *
+   * @return the live bytes
+   */
+  public synchronized int getLiveBytes() {
+    return mLiveBytes;
+  }
+
+  public int getByteBudget() {
+    return mByteBudget;
+  }
+
+  private void kill(Entry entry) {
+    mMappedByteBuffer.putInt(entry.offset, DEAD_KEY);
+    mLiveBytes -= RECORD_HEADER_SIZE + entry.length;
+  }
+
+  // slides live records down over dead ones, in file order, so all free space is at the end
+  private void compact() {
+    // entries are updated in place, since re-putting them would disturb the recency order
+    Entry[] entries = mEntries.values().toArray(new Entry[mEntries.size()]);
+    Arrays.sort(entries, OFFSET_COMPARATOR);
+    byte[] record = new byte[0];
+    int write = HEADER_SIZE;
+    for (Entry entry : entries) {
+      int size = RECORD_HEADER_SIZE + entry.length;
+      if (entry.offset != write) {
+        if (record.length < size) {
+          record = new byte[size];
+        }
+        mMappedByteBuffer.position(entry.offset);
+        mMappedByteBuffer.get(record, 0, size);
+        mMappedByteBuffer.position(write);
+        mMappedByteBuffer.put(record, 0, size);
+        entry.offset = write;
+      }
+      write += size;
+    }
+    mEnd = write;
+    mMappedByteBuffer.putInt(8, mEnd);
+  }
+
+  /**
+   * Writes any changes through to the file and releases it.
+   *
+   * @throws IOException if the file can't be closed
+   */
+  public synchronized void close() throws IOException {
+    mMappedByteBuffer.force();
+    mRandomAccessFile.close();
+  }
+
+}
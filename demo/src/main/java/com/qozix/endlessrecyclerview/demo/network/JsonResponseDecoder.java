@@ -0,0 +1,182 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.qozix.endlessrecyclerview.demo.models.JsonResponse;
+import com.qozix.endlessrecyclerview.demo.models.MediaItem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+/**
+ * Decodes a page response straight from a stream, without reflection, reading only the fields the app uses and
+ * skipping everything else (descriptions, facets, etc.) without materializing it.
+ *
+ * The byte buffer and UTF-8 decoder are reused from one page to the next, so an instance isn't thread safe - keep one
+ * per thread.
+ */
+public class JsonResponseDecoder {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final ReusableUtf8Reader mReader = new ReusableUtf8Reader();
+
+  public JsonResponse decode(InputStream inputStream) throws IOException {
+    mReader.reset(inputStream);
+    JsonReader jsonReader = new JsonReader(mReader);
+    try {
+      return readJsonResponse(jsonReader);
+    } finally {
+      mReader.reset(null);
+    }
+  }
+
+  private JsonResponse readJsonResponse(JsonReader jsonReader) throws IOException {
+    JsonResponse jsonResponse = new JsonResponse();
+    jsonReader.beginObject();
+    while (jsonReader.hasNext()) {
+      String name = jsonReader.nextName();
+      if ("total".equals(name)) {
+        jsonResponse.total = jsonReader.nextInt();
+      } else if ("page".equals(name)) {
+        jsonResponse.page = jsonReader.nextInt();
+      } else if ("results".equals(name) && jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+        jsonResponse.results = new ArrayList<>();
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+          jsonResponse.results.add(readMediaItem(jsonReader));
+        }
+        jsonReader.endArray();
+      } else {
+        jsonReader.skipValue();
+      }
+    }
+    jsonReader.endObject();
+    return jsonResponse;
+  }
+
+  private MediaItem readMediaItem(JsonReader jsonReader) throws IOException {
+    MediaItem mediaItem = new MediaItem();
+    jsonReader.beginObject();
+    while (jsonReader.hasNext()) {
+      String name = jsonReader.nextName();
+      if ("title".equals(name)) {
+        mediaItem.title = readString(jsonReader);
+      } else if ("cover_url".equals(name)) {
+        mediaItem.cover_url = readString(jsonReader);
+      } else if ("format".equals(name)) {
+        mediaItem.format = readString(jsonReader);
+      } else if ("authors".equals(name) && jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+        mediaItem.authors = new ArrayList<>();
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+          mediaItem.authors.add(readString(jsonReader));
+        }
+        jsonReader.endArray();
+      } else {
+        jsonReader.skipValue();
+      }
+    }
+    jsonReader.endObject();
+    return mediaItem;
+  }
+
+  private String readString(JsonReader jsonReader) throws IOException {
+    if (jsonReader.peek() == JsonToken.NULL) {
+      jsonReader.nextNull();
+      return null;
+    }
+    return jsonReader.nextString();
+  }
+
+  /**
+   * A UTF-8 Reader that can be pointed at a new stream, keeping its buffers and decoder.
+   */
+  private static class ReusableUtf8Reader extends Reader {
+
+    private final CharsetDecoder mCharsetDecoder = Charset.forName("UTF-8").newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final byte[] mBytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer mByteBuffer = ByteBuffer.wrap(mBytes);
+    private final char[] mChars = new char[BUFFER_SIZE];
+    private final CharBuffer mCharBuffer = CharBuffer.wrap(mChars);
+    private InputStream mInputStream;
+    private boolean mIsEndOfInput;
+    private boolean mIsFlushed;
+
+    void reset(InputStream inputStream) {
+      mInputStream = inputStream;
+      mCharsetDecoder.reset();
+      mByteBuffer.clear();
+      mByteBuffer.flip();
+      mCharBuffer.clear();
+      mCharBuffer.flip();
+      mIsEndOfInput = false;
+      mIsFlushed = false;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      while (!mCharBuffer.hasRemaining()) {
+        if (mIsFlushed) {
+          return -1;
+        }
+        decode();
+      }
+      int count = Math.min(length, mCharBuffer.remaining());
+      mCharBuffer.get(buffer, offset, count);
+      return count;
+    }
+
+    // decodes as much as possible into the (empty) char buffer, reading more bytes if needed
+    private void decode() throws IOException {
+      mCharBuffer.clear();
+      if (!mIsEndOfInput && !mByteBuffer.hasRemaining()) {
+        fill();
+      }
+      CoderResult coderResult = mCharsetDecoder.decode(mByteBuffer, mCharBuffer, mIsEndOfInput);
+      if (coderResult.isUnderflow() && !mIsEndOfInput && mCharBuffer.position() == 0) {
+        // a multi-byte character is split across reads
+        fill();
+        mCharsetDecoder.decode(mByteBuffer, mCharBuffer, mIsEndOfInput);
+      }
+      if (mIsEndOfInput && !mByteBuffer.hasRemaining()) {
+        mCharsetDecoder.flush(mCharBuffer);
+        mIsFlushed = true;
+      }
+      mCharBuffer.flip();
+    }
+
+    private void fill() throws IOException {
+      mByteBuffer.compact();
+      int read = mInputStream.read(mBytes, mByteBuffer.position(), mByteBuffer.remaining());
+      if (read == -1) {
+        mIsEndOfInput = true;
+      } else {
+        mByteBuffer.position(mByteBuffer.position() + read);
+      }
+      mByteBuffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (mInputStream != null) {
+        mInputStream.close();
+      }
+    }
+
+  }
+
+}
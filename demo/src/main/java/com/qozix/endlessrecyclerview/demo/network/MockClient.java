@@ -4,88 +4,181 @@ import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
 
-import com.google.gson.Gson;
 import com.qozix.endlessrecyclerview.demo.models.JsonResponse;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Created by michaeldunn on 7/21/16.
+ *
+ * Pages are addressed by index, from 0, and served from the ten bundled mock responses in turn, read from their
+ * binary conversions (see {@link PageConverter}).  Every client shares one small pool of worker threads, however many
+ * pages are requested, and a page requested while it's already on its way joins the request in flight; see
+ * {@link PageFetcher}.
  */
 public class MockClient {
 
+  private static final String PAGE_CACHE_FILE_NAME = "pages.cache";
+  private static final int PAGE_CACHE_BYTE_BUDGET = 1024 * 1024;
+  private static final int MOCK_PAGE_COUNT = 10;
+  private static final int THREAD_COUNT = 3;
+  private static final int BUFFER_SIZE = 8192;
+
+  private static final ExecutorService sExecutorService = Executors.newFixedThreadPool(THREAD_COUNT);
+
+  // one cache per process, shared by every client, so clients of activities being recreated don't write over each other
+  // in the same file; it's open for as long as the process runs
+  private static DiskPageCache sDiskPageCache;
+  private static boolean sIsDiskPageCacheUnavailable;
+
+  // decoders reuse their buffers between pages, so each worker thread gets its own
+  private static final ThreadLocal<JsonResponseDecoder> sJsonResponseDecoders = new ThreadLocal<JsonResponseDecoder>() {
+    @Override
+    protected JsonResponseDecoder initialValue() {
+      return new JsonResponseDecoder();
+    }
+  };
+
   private Random mRandom = new Random();
   private Handler mHandler;
   private Context mContext;
-  private int mPage;
+  private PageFetcher<JsonResponse> mPageFetcher;
 
   public MockClient(Context context) {
-    mContext = context;
+    mContext = context.getApplicationContext();
     mHandler = new Handler(Looper.getMainLooper());
+    mPageFetcher = new PageFetcher<>(sExecutorService, mMainThreadExecutor, mPageLoader);
   }
 
-  private String readAssetFile(String fileName) {
+  private static byte[] readFully(InputStream inputStream) throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(Math.max(inputStream.available(), BUFFER_SIZE));
+    byte[] buffer = new byte[BUFFER_SIZE];
+    int count;
+    while ((count = inputStream.read(buffer)) != -1) {
+      byteArrayOutputStream.write(buffer, 0, count);
+    }
+    return byteArrayOutputStream.toByteArray();
+  }
+
+  private JsonResponse readPageAsset(String fileName) throws IOException {
+    InputStream inputStream = mContext.getAssets().open(fileName);
     try {
-      InputStream inputStream = mContext.getAssets().open(fileName);
-      InputStreamReader inputStreamReader = new InputStreamReader(inputStream);
-      BufferedReader bufferedReader = new BufferedReader(inputStreamReader);
-      StringBuilder stringBuilder = new StringBuilder();
-      String line = bufferedReader.readLine();
-      while (line != null) {
-        stringBuilder.append(line);
-        line = bufferedReader.readLine();
-      }
-      return stringBuilder.toString();
+      return PageCodec.decode(ByteBuffer.wrap(readFully(inputStream)));
+    } finally {
+      inputStream.close();
+    }
+  }
+
+  private JsonResponse readJsonAsset(String fileName) throws IOException {
+    InputStream inputStream = mContext.getAssets().open(fileName);
+    try {
+      return sJsonResponseDecoders.get().decode(inputStream);
+    } finally {
+      inputStream.close();
+    }
+  }
+
+  private int getMockIndex(int page) {
+    return page % MOCK_PAGE_COUNT + 1;
+  }
+
+  // the converted page is read if it's there and of this version, otherwise the JSON it was converted from
+  private JsonResponse getResult(int page) {
+    int mockIndex = getMockIndex(page);
+    try {
+      return readPageAsset("pages/mock-search-" + mockIndex + PageConverter.PAGE_EXTENSION);
+    } catch (IOException e) {
+      // fall back to the JSON
+    }
+    try {
+      return readJsonAsset("json/mock-search-" + mockIndex + PageConverter.JSON_EXTENSION);
     } catch (IOException e) {
       e.printStackTrace();
     }
     return null;
   }
 
-  private void increment() {
-    mPage++;
-    if (mPage > 10) {
-      mPage = 1;
+  // opened lazily, off the main thread; if it can't be opened we just go without
+  private static synchronized DiskPageCache getDiskPageCache(Context context) {
+    if (sDiskPageCache == null && !sIsDiskPageCacheUnavailable) {
+      try {
+        sDiskPageCache = new DiskPageCache(new File(context.getCacheDir(), PAGE_CACHE_FILE_NAME), PAGE_CACHE_BYTE_BUDGET);
+      } catch (IOException | RuntimeException e) {
+        e.printStackTrace();
+        sIsDiskPageCacheUnavailable = true;
+      }
+    }
+    return sDiskPageCache;
+  }
+
+  // pages in the disk cache are served immediately, the rest are "downloaded" and cached
+  private JsonResponse getPage(int page) {
+    DiskPageCache diskPageCache = getDiskPageCache(mContext);
+    if (diskPageCache != null) {
+      JsonResponse cached = diskPageCache.get(page);
+      if (cached != null) {
+        return cached;
+      }
     }
+    int delay = 500 + mRandom.nextInt(700);
+    try {
+      Thread.sleep(delay);
+    } catch (InterruptedException e) {
+      e.printStackTrace();
+    }
+    JsonResponse jsonResponse = getResult(page);
+    if (diskPageCache != null && jsonResponse != null) {
+      diskPageCache.put(page, jsonResponse);
+    }
+    return jsonResponse;
   }
 
-  private String getMockUri() {
-    return "json/mock-search-" + mPage + ".json";
+  /**
+   * Fetch a page, delivering it on the main thread.  Call from the main thread.
+   *
+   * @param page     the page index, from 0
+   * @param callback the callback, which is passed null if the page couldn't be read
+   * @return the request, to cancel it
+   */
+  public PageFetcher<JsonResponse>.Request fetch(int page, PageFetcher.Callback<JsonResponse> callback) {
+    return mPageFetcher.fetch(page, callback);
   }
 
-  private String getNextResult() {
-    return readAssetFile(getMockUri());
+  public PageFetcher<JsonResponse> getPageFetcher() {
+    return mPageFetcher;
   }
 
-  public void fetch(final ResponseReceivedListener responseReceivedListener) {
-    increment();
-    new Thread(new Runnable() {
-      @Override
-      public void run() {
-        int delay = 500 + mRandom.nextInt(700);
-        try {
-          Thread.sleep(delay);
-        } catch (InterruptedException e) {
-          e.printStackTrace();
-        }
-        String json = getNextResult();
-        final JsonResponse jsonResponse = new Gson().fromJson(json, JsonResponse.class);
-        mHandler.post(new Runnable() {
-          @Override
-          public void run() {
-            responseReceivedListener.onResponse(jsonResponse);
-          }
-        });
-      }
-    }).start();
+  public boolean isFetching(int page) {
+    return mPageFetcher.isFetching(page);
   }
 
-  public interface ResponseReceivedListener {
-    void onResponse(JsonResponse jsonResponse);
+  /**
+   * Cancel every request, e.g. when the screen is destroyed.
+   */
+  public void cancelAll() {
+    mPageFetcher.cancelAll();
   }
 
+  private final PageFetcher.Loader<JsonResponse> mPageLoader = new PageFetcher.Loader<JsonResponse>() {
+    @Override
+    public JsonResponse load(int page) {
+      return getPage(page);
+    }
+  };
+
+  private final Executor mMainThreadExecutor = new Executor() {
+    @Override
+    public void execute(Runnable runnable) {
+      mHandler.post(runnable);
+    }
+  };
+
 }
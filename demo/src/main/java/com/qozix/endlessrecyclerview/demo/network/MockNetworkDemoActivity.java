@@ -5,17 +5,30 @@ import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.LinearLayoutManager;
 import android.util.Log;
 import android.view.View;
+import android.widget.TextView;
 
 import com.qozix.endlessrecyclerview.R;
+import com.qozix.endlessrecyclerview.demo.FrameStatsOverlay;
+import com.qozix.endlessrecyclerview.demo.ImagePrefetcher;
 import com.qozix.endlessrecyclerview.demo.MainActivity;
+import com.qozix.widget.EndlessAdapter;
 import com.qozix.widget.EndlessRecyclerView;
 
 /**
+ * Shows items fetched a page at a time, as from a network, through a {@link PageFetcher}, which loads pages by index on
+ * a small executor shared by every client and delivers them on the main thread.  Each fill requests every page its
+ * placeholders fall in, so several pages load at once; a page already in flight is joined rather than fetched again,
+ * and requests for pages whose placeholders are gone are cancelled, along with everything else when the activity is
+ * destroyed.
+ *
  * Created by michaeldunn on 8/5/16.
  */
 public class MockNetworkDemoActivity extends AppCompatActivity {
 
   private EndlessRecyclerView mEndlessRecyclerView;
+  private MockNetworkDemoEndlessAdapter mMockNetworkDemoEndlessAdapter;
+  private FrameStatsOverlay mFrameStatsOverlay;
+  private ImagePrefetcher mImagePrefetcher;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -24,11 +37,17 @@ public class MockNetworkDemoActivity extends AppCompatActivity {
     setContentView(R.layout.endlessrecyclerview);
 
     final MockNetworkDemoEndlessAdapter mockNetworkDemoEndlessAdapter = new MockNetworkDemoEndlessAdapter(this);
+    mMockNetworkDemoEndlessAdapter = mockNetworkDemoEndlessAdapter;
     mockNetworkDemoEndlessAdapter.setOnItemClickListener(mOnItemClickListener);
     mockNetworkDemoEndlessAdapter.setLimit(1000);
-    mockNetworkDemoEndlessAdapter.setOnFillCompleteListener(new MockNetworkDemoEndlessAdapter.OnFillCompleteListener() {
+    mockNetworkDemoEndlessAdapter.setShouldPrecomputeRowText(true);
+    // strangely, if the initial estimated item height is get height
+    // by not providing an estimate, and explicitly disallowing computation from the adapter
+    // the granular notification methods used by the adapter will fail to requestLayout
+    // dispatch it here manually
+    mockNetworkDemoEndlessAdapter.addOnFillCompleteListener(new EndlessAdapter.OnFillCompleteListener() {
       @Override
-      public void onFillComplete(boolean expectsMore) {
+      public void onFillComplete(int quantity, int pendingQuantity) {
         mEndlessRecyclerView.requestLayout();
       }
     });
@@ -39,10 +58,39 @@ public class MockNetworkDemoActivity extends AppCompatActivity {
     mEndlessRecyclerView.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.VERTICAL, false));
     mEndlessRecyclerView.addOnLayoutChangeListener(mOnLayoutChangeListener);
 
+    mImagePrefetcher = new ImagePrefetcher(this, mockNetworkDemoEndlessAdapter);
+    mEndlessRecyclerView.setOnPrefetchRangeChangedListener(mImagePrefetcher);
+    mEndlessRecyclerView.setShouldPrepareViewHoldersWhenIdle(true);
+    mEndlessRecyclerView.setAdaptiveThresholdEnabled(true);
+
+    mFrameStatsOverlay = new FrameStatsOverlay(mEndlessRecyclerView, (TextView) findViewById(R.id.endlessrecyclerview_frame_stats));
+
+  }
+
+  @Override
+  protected void onResume() {
+    super.onResume();
+    mFrameStatsOverlay.start();
+  }
+
+  @Override
+  protected void onPause() {
+    mFrameStatsOverlay.stop();
+    super.onPause();
+  }
+
+  @Override
+  protected void onDestroy() {
+    mImagePrefetcher.cancel();
+    mMockNetworkDemoEndlessAdapter.cancel();
+    mMockNetworkDemoEndlessAdapter.releaseThumbnails();
+    super.onDestroy();
   }
 
+  // at rest, a screen's worth either side; while flinging on a slow network, up to ten
   private void updateEndlessRecyclerViewThreshold() {
-    mEndlessRecyclerView.setVerticalThreshold(mEndlessRecyclerView.getHeight() * 3);
+    int height = mEndlessRecyclerView.getHeight();
+    mEndlessRecyclerView.setVerticalThresholdBounds(height, height * 10);
   }
 
   private View.OnClickListener mOnItemClickListener = new View.OnClickListener() {
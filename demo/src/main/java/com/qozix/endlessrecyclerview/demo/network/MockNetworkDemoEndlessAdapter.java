@@ -1,99 +1,152 @@
 package com.qozix.endlessrecyclerview.demo.network;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 
 import com.qozix.endlessrecyclerview.demo.CommonDemoEndlessAdapter;
 import com.qozix.endlessrecyclerview.demo.models.JsonResponse;
-import com.qozix.endlessrecyclerview.demo.models.MediaItem;
+import com.qozix.endlessrecyclerview.demo.models.MediaItemTable;
+import com.qozix.widget.PlaceholderSlots;
+import com.qozix.widget.WindowedItemStore;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.List;
 
 /**
  * Created by michaeldunn on 7/21/16.
  */
 public class MockNetworkDemoEndlessAdapter extends CommonDemoEndlessAdapter {
 
-  public interface OnFillCompleteListener {
-    void onFillComplete(boolean expectsMore);
-  }
-
   private MockClient mMockClient;
-  private Queue<Integer> mNullPositions = new LinkedList<>();
-  private boolean mIsFetching;
-  private OnFillCompleteListener mOnFillCompleteListener;
+  private PlaceholderSlots mPlaceholderSlots = new PlaceholderSlots();
+  private PlaceholderPageRequests<JsonResponse> mPlaceholderPageRequests;
+  // runs retries of failed pages, and nothing else, so they can all be cancelled at once
+  private Handler mRetryHandler = new Handler(Looper.getMainLooper());
 
   public MockNetworkDemoEndlessAdapter(Context context) {
     super(context);
     mMockClient = new MockClient(context);
+    mPlaceholderPageRequests = new PlaceholderPageRequests<>(mMockClient.getPageFetcher(), mPlaceholderSlots, PAGE_SIZE, mPlaceholderPageCallback);
+    getMediaItems().setPageLoader(mPageLoader);
   }
 
-  public void setOnFillCompleteListener(OnFillCompleteListener onFillCompleteListener) {
-    mOnFillCompleteListener = onFillCompleteListener;
-  }
-
-  private boolean canUseMoreDataFromServer() {
-    return getMediaItems().size() < getLimit() || !mNullPositions.isEmpty();
+  @Override
+  public void setLimit(int limit) {
+    // placeholders past the new limit are truncated along with everything else
+    int size = getMediaItems().size();
+    if (limit < size) {
+      mPlaceholderSlots.onItemRangeRemoved(limit, size - limit);
+    }
+    super.setLimit(limit);
+    // pages that no longer have placeholders waiting on them aren't needed
+    mPlaceholderPageRequests.retainPagesWithPlaceholders(getMediaItems().size());
   }
 
   /**
+   * Placeholders are shown immediately for the quantity requested, so they already count towards the threshold, and
+   * are reported as pending placeholders until the server provides the real items, so fills are timed to their arrival.
    *
    * @param quantity
    */
   @Override
   public void fill(int quantity) {
+    int reserved = 0;
     for (int i = 0; i < quantity; i++) {
       if (getMediaItems().size() < getLimit()) {
         int position = getMediaItems().size();
-        mNullPositions.add(position);
+        mPlaceholderSlots.reserve(position);
         getMediaItems().add(null);
-        notifyItemInserted(position);
+        getNotificationBatch().notifyItemInserted(position);
+        reserved++;
       }
     }
-    fetch(quantity);
+    getNotificationBatch().dispatch();
+    notifyPlaceholderFillStarted(reserved);
+    fetchPlaceholderPages();
   }
 
   /**
-   * Since our API only returns 10 at a time, we can't take advantage of the quantity param and have to keep requesting
-   * items until we've met our total debt.
-   *
-   * @param quantity
+   * Our API returns pages of 10, so request every page with placeholders waiting on it that isn't already on its way -
+   * which also retries any page that failed, whose placeholders are pending again.
    */
-  public void fetch(int quantity) {
-    if (!mIsFetching && canUseMoreDataFromServer()) {
-      mIsFetching = true;
-      mMockClient.fetch(mResponseReceivedListener);
+  public void fetchPlaceholderPages() {
+    notifyPlaceholderFillStarted(mPlaceholderPageRequests.fetch(getMediaItems().size()));
+  }
+
+  /**
+   * Cancel everything on its way, e.g. when the screen is destroyed.
+   */
+  public void cancel() {
+    mMockClient.cancelAll();
+    mRetryHandler.removeCallbacksAndMessages(null);
+    mPlaceholderPageRequests.clear();
+  }
+
+  // pages dropped from memory are fetched again when the user scrolls back to them
+  private WindowedItemStore.PageLoader<MediaItemTable.Row> mPageLoader = new WindowedItemStore.PageLoader<MediaItemTable.Row>() {
+    @Override
+    public void loadPage(int pageIndex, int firstPosition, int count) {
+      mMockClient.fetch(pageIndex, mRestoredPageCallback);
     }
+  };
+
+  // a page that fails is requested again the next time it's bound or comes near the focus
+  private PageFetcher.Callback<JsonResponse> mRestoredPageCallback = new PageFetcher.Callback<JsonResponse>() {
+    @Override
+    public void onPageFetched(int page, JsonResponse jsonResponse) {
+      if (jsonResponse == null) {
+        getMediaItems().onPageLoadFailed(page);
+      } else {
+        getMediaItems().onPageLoaded(page, createRows(jsonResponse.results));
+      }
+    }
+  };
+
+  // a page that failed is fetched again after a delay that grows with each failure in a row, unless a fill gets to it
+  // first; its placeholders stay, but aren't pending in the meantime
+  private void scheduleRetry(final int page) {
+    mRetryHandler.postDelayed(new Runnable() {
+      @Override
+      public void run() {
+        notifyPlaceholderFillStarted(mPlaceholderPageRequests.retry(page, getMediaItems().size()));
+      }
+    }, mPlaceholderPageRequests.getRetryDelay(page));
   }
 
-  private MockClient.ResponseReceivedListener mResponseReceivedListener = new MockClient.ResponseReceivedListener() {
+  // each page's items go to that page's positions
+  private PageFetcher.Callback<JsonResponse> mPlaceholderPageCallback = new PageFetcher.Callback<JsonResponse>() {
     @Override
-    public void onResponse(JsonResponse jsonResponse) {
-      for (MediaItem mediaItem : jsonResponse.results) {
-        if (mNullPositions.size() > 0) {
-          int position = mNullPositions.poll();
-          getMediaItems().set(position, mediaItem);
-          notifyItemChanged(position);
-        } else {
-          if (getMediaItems().size() < getLimit()) {
-            int position = getMediaItems().size();
-            getMediaItems().add(mediaItem);
-            notifyItemInserted(position);
-          }
+    public void onPageFetched(int page, JsonResponse jsonResponse) {
+      if (jsonResponse == null) {
+        int released = mPlaceholderPageRequests.onPageFailed(page, getMediaItems().size());
+        if (released > 0) {
+          scheduleRetry(page);
         }
+        notifyPlaceholderFillCompleted(released);
+        return;
       }
-      mIsFetching = false;
-      // strangely, if the initial estimated item height is get height
-      // by not providing an estimate, and explicitly disallowing computation from the adapter
-      // the granular notification methods commented out in this method will fail to requestLayout
-      // dispatch it here manually
-      boolean expectAnotherFetch = mNullPositions.size() > 0;
-      if (mOnFillCompleteListener != null) {
-        mOnFillCompleteListener.onFillComplete(expectAnotherFetch);
-      }
-      if (expectAnotherFetch) {  // TODO: probably should not have this here
-        fetch(mNullPositions.size());
+      mPlaceholderPageRequests.onPageLoaded(page);
+      int resolved = 0;
+      int position = page * PAGE_SIZE;
+      List<MediaItemTable.Row> mediaItems = createRows(jsonResponse.results);
+      for (MediaItemTable.Row mediaItem : mediaItems) {
+        if (position >= getLimit()) {
+          break;
+        }
+        if (mPlaceholderSlots.resolve(position)) {
+          getMediaItems().set(position, mediaItem);
+          getNotificationBatch().notifyItemChanged(position);
+          resolved++;
+        } else if (position == getMediaItems().size()) {
+          getMediaItems().add(mediaItem);
+          getNotificationBatch().notifyItemInserted(position);
+        }
+        position++;
       }
+      onItemsArrived(page * PAGE_SIZE, position - page * PAGE_SIZE);
+      getNotificationBatch().dispatch();
+      // listeners (including the EndlessRecyclerView itself) hear about this before anything else is fetched
+      notifyPlaceholderFillCompleted(resolved);
     }
   };
 
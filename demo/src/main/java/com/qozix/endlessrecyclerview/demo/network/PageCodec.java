@@ -0,0 +1,211 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import com.qozix.endlessrecyclerview.demo.models.JsonResponse;
+import com.qozix.endlessrecyclerview.demo.models.MediaItem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes a decoded page to a compact, versioned binary layout, holding only the fields the app uses, and back again.
+ * Pages are read with a {@link PageReader}, which can decode records one at a time, as they're needed.
+ *
+ * All numbers are big-endian ints.  A page is a header, then two tables of offsets from the start of the page, then
+ * the strings and records those offsets point to:
+ *
+ * [magic][version][page length][total][page][string count][record count]
+ * [offset of each string][offset of each record]
+ * [each string, as its byte length then that many bytes of UTF-8]
+ * [each record, as its byte length then [title][cover url][format][author count][authors...]]
+ *
+ * Record fields that are strings hold an index into the string table, or -1 for null, so a string that appears in
+ * many records (an author, a format) is stored and decoded once per page.  The author count is -1 for no list.  Every
+ * string and record is prefixed with its length, so a reader can bounds-check it, and a later version can append
+ * fields to records that this version's reader skips.
+ *
+ * The mock responses are bundled both as JSON and in this layout, which the demo reads and its disk cache stores; run
+ * {@link PageConverter} again after changing the JSON.  PageDecodeBenchmarkTest compares decoding the two.
+ */
+public class PageCodec {
+
+  /* package-private */ static final int MAGIC = 0x51504147;  // QPAG
+  /* package-private */ static final int VERSION = 1;
+  /* package-private */ static final int HEADER_SIZE = 28;
+  /* package-private */ static final int NULL_INDEX = -1;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int NULL_LENGTH = -1;
+
+  private PageCodec() {
+  }
+
+  public static byte[] encode(JsonResponse jsonResponse) {
+    List<MediaItem> results = jsonResponse.results;
+    int recordCount = results == null ? 0 : results.size();
+    // records are written first, to their own buffer, so the string table is complete before it's written
+    Map<String, Integer> stringIndices = new HashMap<>();
+    List<byte[]> strings = new ArrayList<>();
+    ByteArrayOutputStream records = new ByteArrayOutputStream(32 * recordCount);
+    DataOutputStream recordsOutputStream = new DataOutputStream(records);
+    int[] recordOffsets = new int[recordCount];
+    try {
+      for (int i = 0; i < recordCount; i++) {
+        MediaItem mediaItem = results.get(i);
+        int authorCount = mediaItem.authors == null ? NULL_INDEX : mediaItem.authors.size();
+        recordOffsets[i] = records.size();
+        recordsOutputStream.writeInt(16 + 4 * Math.max(0, authorCount));
+        recordsOutputStream.writeInt(indexOf(mediaItem.title, stringIndices, strings));
+        recordsOutputStream.writeInt(indexOf(mediaItem.cover_url, stringIndices, strings));
+        recordsOutputStream.writeInt(indexOf(mediaItem.format, stringIndices, strings));
+        recordsOutputStream.writeInt(authorCount);
+        for (int j = 0; j < authorCount; j++) {
+          recordsOutputStream.writeInt(indexOf(mediaItem.authors.get(j), stringIndices, strings));
+        }
+      }
+      int stringsOffset = HEADER_SIZE + 4 * (strings.size() + recordCount);
+      int stringsLength = 0;
+      for (byte[] string : strings) {
+        stringsLength += 4 + string.length;
+      }
+      int recordsOffset = stringsOffset + stringsLength;
+      int length = recordsOffset + records.size();
+      ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(length);
+      DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
+      dataOutputStream.writeInt(MAGIC);
+      dataOutputStream.writeInt(VERSION);
+      dataOutputStream.writeInt(length);
+      dataOutputStream.writeInt(jsonResponse.total);
+      dataOutputStream.writeInt(jsonResponse.page);
+      dataOutputStream.writeInt(strings.size());
+      dataOutputStream.writeInt(recordCount);
+      int stringOffset = stringsOffset;
+      for (byte[] string : strings) {
+        dataOutputStream.writeInt(stringOffset);
+        stringOffset += 4 + string.length;
+      }
+      for (int recordOffset : recordOffsets) {
+        dataOutputStream.writeInt(recordsOffset + recordOffset);
+      }
+      for (byte[] string : strings) {
+        dataOutputStream.writeInt(string.length);
+        dataOutputStream.write(string);
+      }
+      records.writeTo(dataOutputStream);
+      dataOutputStream.flush();
+      return byteArrayOutputStream.toByteArray();
+    } catch (IOException e) {
+      // writing to memory doesn't fail
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static int indexOf(String string, Map<String, Integer> stringIndices, List<byte[]> strings) {
+    if (string == null) {
+      return NULL_INDEX;
+    }
+    Integer index = stringIndices.get(string);
+    if (index == null) {
+      index = strings.size();
+      stringIndices.put(string, index);
+      strings.add(string.getBytes(UTF_8));
+    }
+    return index;
+  }
+
+  /**
+   * Decodes a whole page from the buffer's current position, leaving the position after the page.
+   *
+   * @param byteBuffer the byte buffer
+   * @return the decoded page
+   * @throws IOException if the buffer doesn't hold a page of this version, or the page is truncated or malformed
+   */
+  public static JsonResponse decode(ByteBuffer byteBuffer) throws IOException {
+    PageReader pageReader = new PageReader(byteBuffer);
+    JsonResponse jsonResponse;
+    try {
+      jsonResponse = pageReader.toJsonResponse();
+    } catch (IllegalStateException e) {
+      throw new IOException(e.getMessage());
+    }
+    byteBuffer.position(byteBuffer.position() + pageReader.getLength());
+    return jsonResponse;
+  }
+
+  /**
+   * Writes a single item on its own, outside of any page and its string table, e.g. to save it in an instance state.
+   * Fields are in the same order as in a page's records, but strings are written in place, as an int byte length (-1
+   * for null) followed by that many bytes of UTF-8.
+   *
+   * @param dataOutput the data output
+   * @param mediaItem  the media item
+   * @throws IOException if the output fails
+   */
+  public static void writeMediaItem(DataOutput dataOutput, MediaItem mediaItem) throws IOException {
+    writeString(dataOutput, mediaItem.title);
+    writeString(dataOutput, mediaItem.cover_url);
+    writeString(dataOutput, mediaItem.format);
+    int authorCount = mediaItem.authors == null ? NULL_LENGTH : mediaItem.authors.size();
+    dataOutput.writeInt(authorCount);
+    for (int i = 0; i < authorCount; i++) {
+      writeString(dataOutput, mediaItem.authors.get(i));
+    }
+  }
+
+  /**
+   * Reads a single item written by {@link #writeMediaItem(DataOutput, MediaItem)}.
+   *
+   * @param dataInput the data input
+   * @return the media item
+   * @throws IOException if the input fails or holds something else
+   */
+  public static MediaItem readMediaItem(DataInput dataInput) throws IOException {
+    MediaItem mediaItem = new MediaItem();
+    mediaItem.title = readString(dataInput);
+    mediaItem.cover_url = readString(dataInput);
+    mediaItem.format = readString(dataInput);
+    int authorCount = dataInput.readInt();
+    if (authorCount < NULL_LENGTH) {
+      throw new IOException("Not a media item");
+    }
+    if (authorCount != NULL_LENGTH) {
+      mediaItem.authors = new ArrayList<>(authorCount);
+      for (int i = 0; i < authorCount; i++) {
+        mediaItem.authors.add(readString(dataInput));
+      }
+    }
+    return mediaItem;
+  }
+
+  private static void writeString(DataOutput dataOutput, String string) throws IOException {
+    if (string == null) {
+      dataOutput.writeInt(NULL_LENGTH);
+      return;
+    }
+    byte[] bytes = string.getBytes(UTF_8);
+    dataOutput.writeInt(bytes.length);
+    dataOutput.write(bytes);
+  }
+
+  private static String readString(DataInput dataInput) throws IOException {
+    int length = dataInput.readInt();
+    if (length == NULL_LENGTH) {
+      return null;
+    }
+    if (length < 0) {
+      throw new IOException("Not a string");
+    }
+    byte[] bytes = new byte[length];
+    dataInput.readFully(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+}
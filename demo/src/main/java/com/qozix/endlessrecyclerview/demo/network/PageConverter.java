@@ -0,0 +1,77 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Converts JSON page responses to the binary layout of {@link PageCodec}, e.g. to regenerate the bundled pages after
+ * the mock responses change:
+ *
+ * java com.qozix.endlessrecyclerview.demo.network.PageConverter demo/src/main/assets/json demo/src/main/assets/pages
+ *
+ * converts every .json file in the first directory to a .page file of the same name in the second.
+ */
+public class PageConverter {
+
+  public static final String JSON_EXTENSION = ".json";
+  public static final String PAGE_EXTENSION = ".page";
+
+  private PageConverter() {
+  }
+
+  /**
+   * Converts a JSON page response.
+   *
+   * @param inputStream the JSON, which isn't closed
+   * @return the encoded page
+   * @throws IOException if the stream can't be read or isn't a page response
+   */
+  public static byte[] convert(InputStream inputStream) throws IOException {
+    return PageCodec.encode(new JsonResponseDecoder().decode(inputStream));
+  }
+
+  public static void convert(File jsonFile, File pageFile) throws IOException {
+    byte[] bytes;
+    InputStream inputStream = new FileInputStream(jsonFile);
+    try {
+      bytes = convert(inputStream);
+    } finally {
+      inputStream.close();
+    }
+    OutputStream outputStream = new FileOutputStream(pageFile);
+    try {
+      outputStream.write(bytes);
+    } finally {
+      outputStream.close();
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: PageConverter <json directory> <page directory>");
+      System.exit(1);
+    }
+    File jsonDirectory = new File(args[0]);
+    File pageDirectory = new File(args[1]);
+    File[] jsonFiles = jsonDirectory.listFiles();
+    if (jsonFiles == null) {
+      throw new IOException("Can't list " + jsonDirectory);
+    }
+    if (!pageDirectory.isDirectory() && !pageDirectory.mkdirs()) {
+      throw new IOException("Can't create " + pageDirectory);
+    }
+    for (File jsonFile : jsonFiles) {
+      String name = jsonFile.getName();
+      if (name.endsWith(JSON_EXTENSION)) {
+        File pageFile = new File(pageDirectory, name.substring(0, name.length() - JSON_EXTENSION.length()) + PAGE_EXTENSION);
+        convert(jsonFile, pageFile);
+        System.out.println(jsonFile + " (" + jsonFile.length() + " bytes) -> " + pageFile + " (" + pageFile.length() + " bytes)");
+      }
+    }
+  }
+
+}
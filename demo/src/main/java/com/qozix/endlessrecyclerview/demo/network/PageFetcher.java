@@ -0,0 +1,209 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Fetches pages by index on a worker executor, and delivers them on a callback executor (the main thread, in the app).
+ * A page that's already being fetched isn't fetched again: later requests for it join the one in flight, and all are
+ * delivered the same result.  Each request can be cancelled; the fetch itself is abandoned once no request wants it,
+ * and skipped if it hasn't started yet.
+ *
+ * Everything other than {@link Loader#load(int)} happens on the callback executor's thread, which is the only thread
+ * {@link #fetch(int, Callback)} and {@link Request#cancel()} may be called from, so there's nothing to synchronize.
+ *
+ * @param <T> the type of page
+ */
+public class PageFetcher<T> {
+
+  /**
+   * Loads pages, on a worker thread.
+   *
+   * @param <T> the type of page
+   */
+  public interface Loader<T> {
+    /**
+     * Load a page.
+     *
+     * @param page the page index
+     * @return the page, or null if it couldn't be loaded
+     */
+    T load(int page);
+  }
+
+  /**
+   * Receives a fetched page, on the callback executor's thread.
+   *
+   * @param <T> the type of page
+   */
+  public interface Callback<T> {
+    /**
+     * Called when a page has been fetched.
+     *
+     * @param page   the page index
+     * @param result the page, or null if it couldn't be loaded
+     */
+    void onPageFetched(int page, T result);
+  }
+
+  private final Executor mWorkerExecutor;
+  private final Executor mCallbackExecutor;
+  private final Loader<T> mLoader;
+  private final Map<Integer, Call> mCalls = new HashMap<>();
+  private long mLoadCount;
+
+  /**
+   * Instantiates a new Page fetcher.
+   *
+   * @param workerExecutor   the executor pages are loaded on, which can be shared, and should be bounded
+   * @param callbackExecutor the executor pages are delivered on
+   * @param loader           the loader
+   */
+  public PageFetcher(Executor workerExecutor, Executor callbackExecutor, Loader<T> loader) {
+    mWorkerExecutor = workerExecutor;
+    mCallbackExecutor = callbackExecutor;
+    mLoader = loader;
+  }
+
+  /**
+   * Fetch a page, joining a fetch of the same page that's already in flight if there is one.
+   *
+   * @param page     the page index
+   * @param callback the callback
+   * @return the request, to cancel it
+   */
+  public Request fetch(int page, Callback<T> callback) {
+    Call call = mCalls.get(page);
+    if (call == null) {
+      call = new Call(page);
+      mCalls.put(page, call);
+      mWorkerExecutor.execute(call);
+    }
+    Request request = new Request(call, callback);
+    call.requests.add(request);
+    return request;
+  }
+
+  /**
+   * Is fetching boolean.
+   *
+   * @param page the page index
+   * @return true if a fetch of the page is in flight
+   */
+  public boolean isFetching(int page) {
+    return mCalls.containsKey(page);
+  }
+
+  /**
+   * Gets the number of pages being fetched.
+   *
+   * @return the in flight count
+   */
+  public int getInFlightCount() {
+    return mCalls.size();
+  }
+
+  /**
+   * Gets the number of pages actually loaded, as opposed to requested - those joined or cancelled before they started
+   * aren't counted.
+   *
+   * @return the load count
+   */
+  public long getLoadCount() {
+    return mLoadCount;
+  }
+
+  /**
+   * Cancel every request.
+   */
+  public void cancelAll() {
+    for (Call call : mCalls.values()) {
+      call.isCancelled = true;
+      call.requests.clear();
+    }
+    mCalls.clear();
+  }
+
+  private void onCallComplete(Call call, T result) {
+    if (call.isLoaded) {
+      mLoadCount++;
+    }
+    if (call.isCancelled || mCalls.get(call.page) != call) {
+      return;
+    }
+    mCalls.remove(call.page);
+    // a callback may fetch again, so deliver from a copy
+    List<Request> requests = new ArrayList<>(call.requests);
+    call.requests.clear();
+    for (Request request : requests) {
+      request.mCallback.onPageFetched(call.page, result);
+    }
+  }
+
+  /**
+   * A request for a page, which can be cancelled until it's delivered.
+   */
+  public final class Request {
+    private final Call mCall;
+    private final Callback<T> mCallback;
+
+    private Request(Call call, Callback<T> callback) {
+      mCall = call;
+      mCallback = callback;
+    }
+
+    /**
+     * Gets the page index requested.
+     *
+     * @return the page
+     */
+    public int getPage() {
+      return mCall.page;
+    }
+
+    /**
+     * Cancel the request, so its callback won't be called.  The page is still fetched if other requests want it.
+     */
+    public void cancel() {
+      if (!mCall.requests.remove(this) || !mCall.requests.isEmpty()) {
+        return;
+      }
+      mCall.isCancelled = true;
+      if (mCalls.get(mCall.page) == mCall) {
+        mCalls.remove(mCall.page);
+      }
+    }
+  }
+
+  // one fetch of a page, shared by every request for it while in flight
+  private class Call implements Runnable {
+    final int page;
+    final List<Request> requests = new ArrayList<>();
+    volatile boolean isCancelled;
+    volatile boolean isLoaded;
+
+    Call(int page) {
+      this.page = page;
+    }
+
+    @Override
+    public void run() {
+      T result = null;
+      if (!isCancelled) {
+        result = mLoader.load(page);
+        isLoaded = true;
+      }
+      final T loaded = result;
+      mCallbackExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          onCallComplete(Call.this, loaded);
+        }
+      });
+    }
+  }
+
+}
@@ -0,0 +1,200 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import com.qozix.endlessrecyclerview.demo.models.JsonResponse;
+import com.qozix.endlessrecyclerview.demo.models.MediaItem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a page encoded by {@link PageCodec}, decoding records, and the strings they refer to, only as they're asked
+ * for.  Opening a page reads just its header and checks its tables are in bounds, so the first record can be shown
+ * without decoding the rest.  Each string is decoded once, however many records share it, and each record is decoded
+ * once, however many times it's asked for.
+ *
+ * A reader caches what it's decoded, so isn't thread safe, and reads the buffer it was given in place, so the buffer
+ * mustn't change while the reader's in use.
+ */
+public class PageReader {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final ByteBuffer mByteBuffer;
+  private final int mLength;
+  private final int mTotal;
+  private final int mPage;
+  private final int mStringCount;
+  private final int mRecordCount;
+  private final String[] mStrings;
+  private final MediaItem[] mMediaItems;
+
+  /**
+   * Opens the page at the buffer's current position.  The buffer's position isn't changed.
+   *
+   * @param byteBuffer the byte buffer
+   * @throws IOException if the buffer doesn't hold a page of this version, or the page is truncated
+   */
+  public PageReader(ByteBuffer byteBuffer) throws IOException {
+    mByteBuffer = byteBuffer.slice();
+    if (mByteBuffer.remaining() < PageCodec.HEADER_SIZE || mByteBuffer.getInt(0) != PageCodec.MAGIC) {
+      throw new IOException("Not a page");
+    }
+    int version = mByteBuffer.getInt(4);
+    if (version != PageCodec.VERSION) {
+      throw new IOException("Unsupported page version " + version);
+    }
+    mLength = mByteBuffer.getInt(8);
+    mTotal = mByteBuffer.getInt(12);
+    mPage = mByteBuffer.getInt(16);
+    mStringCount = mByteBuffer.getInt(20);
+    mRecordCount = mByteBuffer.getInt(24);
+    if (mLength > mByteBuffer.remaining() || mStringCount < 0 || mRecordCount < 0
+      || PageCodec.HEADER_SIZE + 4L * (mStringCount + mRecordCount) > mLength) {
+      throw new IOException("Page is truncated");
+    }
+    mByteBuffer.limit(mLength);
+    for (int i = 0; i < mStringCount + mRecordCount; i++) {
+      int offset = mByteBuffer.getInt(PageCodec.HEADER_SIZE + 4 * i);
+      if (offset < 0 || offset + 4L > mLength || mByteBuffer.getInt(offset) < 0 || offset + 4L + mByteBuffer.getInt(offset) > mLength) {
+        throw new IOException("Page is truncated");
+      }
+    }
+    mStrings = new String[mStringCount];
+    mMediaItems = new MediaItem[mRecordCount];
+  }
+
+  /**
+   * Gets the length of the page, in bytes.
+   *
+   * @return the length
+   */
+  public int getLength() {
+    return mLength;
+  }
+
+  public int getTotal() {
+    return mTotal;
+  }
+
+  public int getPage() {
+    return mPage;
+  }
+
+  public int getRecordCount() {
+    return mRecordCount;
+  }
+
+  public int getStringCount() {
+    return mStringCount;
+  }
+
+  /**
+   * Gets a record, decoding it the first time it's asked for.
+   *
+   * @param index the index of the record within the page
+   * @return the media item
+   */
+  public MediaItem getMediaItem(int index) {
+    if (index < 0 || index >= mRecordCount) {
+      throw new IndexOutOfBoundsException("Record " + index + " is out of bounds for " + mRecordCount + " records");
+    }
+    MediaItem mediaItem = mMediaItems[index];
+    if (mediaItem == null) {
+      mediaItem = readMediaItem(index);
+      mMediaItems[index] = mediaItem;
+    }
+    return mediaItem;
+  }
+
+  /**
+   * Gets a list of the page's records, each decoded when it's first read.
+   *
+   * @return the list
+   */
+  public List<MediaItem> asList() {
+    return new AbstractList<MediaItem>() {
+      @Override
+      public MediaItem get(int index) {
+        return getMediaItem(index);
+      }
+
+      @Override
+      public int size() {
+        return mRecordCount;
+      }
+    };
+  }
+
+  /**
+   * Decodes the whole page.
+   *
+   * @return the page
+   */
+  public JsonResponse toJsonResponse() {
+    JsonResponse jsonResponse = new JsonResponse();
+    jsonResponse.total = mTotal;
+    jsonResponse.page = mPage;
+    jsonResponse.results = new ArrayList<>(mRecordCount);
+    for (int i = 0; i < mRecordCount; i++) {
+      jsonResponse.results.add(getMediaItem(i));
+    }
+    return jsonResponse;
+  }
+
+  // fields are read in order; a later version's fields after those known here are within the length, and skipped
+  private MediaItem readMediaItem(int index) {
+    int offset = mByteBuffer.getInt(PageCodec.HEADER_SIZE + 4 * (mStringCount + index));
+    int end = offset + 4 + mByteBuffer.getInt(offset);
+    int position = offset + 4;
+    if (position + 16 > end) {
+      throw new IllegalStateException("Record " + index + " is malformed");
+    }
+    MediaItem mediaItem = new MediaItem();
+    mediaItem.title = getString(mByteBuffer.getInt(position));
+    mediaItem.cover_url = getString(mByteBuffer.getInt(position + 4));
+    mediaItem.format = getString(mByteBuffer.getInt(position + 8));
+    int authorCount = mByteBuffer.getInt(position + 12);
+    position += 16;
+    if (authorCount != PageCodec.NULL_INDEX) {
+      if (authorCount < 0 || position + 4L * authorCount > end) {
+        throw new IllegalStateException("Record " + index + " is malformed");
+      }
+      mediaItem.authors = new ArrayList<>(authorCount);
+      for (int i = 0; i < authorCount; i++) {
+        mediaItem.authors.add(getString(mByteBuffer.getInt(position)));
+        position += 4;
+      }
+    }
+    return mediaItem;
+  }
+
+  private String getString(int index) {
+    if (index == PageCodec.NULL_INDEX) {
+      return null;
+    }
+    if (index < 0 || index >= mStringCount) {
+      throw new IllegalStateException("String " + index + " is out of bounds for " + mStringCount + " strings");
+    }
+    String string = mStrings[index];
+    if (string == null) {
+      int offset = mByteBuffer.getInt(PageCodec.HEADER_SIZE + 4 * index);
+      int length = mByteBuffer.getInt(offset);
+      if (mByteBuffer.hasArray()) {
+        string = new String(mByteBuffer.array(), mByteBuffer.arrayOffset() + offset + 4, length, UTF_8);
+      } else {
+        byte[] bytes = new byte[length];
+        ByteBuffer duplicate = mByteBuffer.duplicate();
+        duplicate.position(offset + 4);
+        duplicate.get(bytes);
+        string = new String(bytes, UTF_8);
+      }
+      mStrings[index] = string;
+    }
+    return string;
+  }
+
+}
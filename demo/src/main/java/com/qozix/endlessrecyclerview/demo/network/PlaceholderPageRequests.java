@@ -0,0 +1,205 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import com.qozix.widget.PlaceholderSlots;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the pages that placeholders are waiting on: which are being fetched, and which have failed.  A page
+ * that fails keeps its placeholders, but the adapter should stop reporting them as pending (with the quantity
+ * {@link #onPageFailed(int, int)} returns), and schedule {@link #retry(int, int)} after {@link #getRetryDelay(int)},
+ * which doubles with each failure in a row.  A failed page is also requested again by the next {@link #fetch(int)}, if
+ * that comes first.  Either returns the quantity that's pending once more.
+ *
+ * Call everything from the main thread.
+ *
+ * @param <T> the type of page
+ */
+public class PlaceholderPageRequests<T> {
+
+  public static final long FIRST_RETRY_DELAY = 1000;
+  public static final long MAX_RETRY_DELAY = 60 * 1000;
+
+  private final PageFetcher<T> mPageFetcher;
+  private final PlaceholderSlots mPlaceholderSlots;
+  private final int mPageSize;
+  private final PageFetcher.Callback<T> mCallback;
+  // requests for the pages placeholders are waiting on, by page index
+  private final Map<Integer, PageFetcher<T>.Request> mRequests = new HashMap<>();
+  private final Set<Integer> mFailedPages = new HashSet<>();
+  // failures in a row, by page index, until the page loads or is no longer needed
+  private final Map<Integer, Integer> mFailureCounts = new HashMap<>();
+
+  /**
+   * Instantiates a new Placeholder page requests.
+   *
+   * @param pageFetcher      the page fetcher
+   * @param placeholderSlots the placeholder slots
+   * @param pageSize         the number of items on each page
+   * @param callback         receives each page fetched, which should then call {@link #onPageLoaded(int)} or
+   *                         {@link #onPageFailed(int, int)}
+   */
+  public PlaceholderPageRequests(PageFetcher<T> pageFetcher, PlaceholderSlots placeholderSlots, int pageSize, PageFetcher.Callback<T> callback) {
+    mPageFetcher = pageFetcher;
+    mPlaceholderSlots = placeholderSlots;
+    mPageSize = pageSize;
+    mCallback = callback;
+  }
+
+  /**
+   * Request every page with placeholders waiting on it that isn't already on its way, including pages that failed.
+   *
+   * @param itemCount the number of items, placeholders included
+   * @return the quantity of placeholders on pages that had failed, which are pending again
+   */
+  public int fetch(int itemCount) {
+    if (mPlaceholderSlots.isEmpty()) {
+      return 0;
+    }
+    int retried = 0;
+    int firstPage = mPlaceholderSlots.getFirst() / mPageSize;
+    int lastPage = (itemCount - 1) / mPageSize;
+    for (int page = firstPage; page <= lastPage; page++) {
+      if (mRequests.containsKey(page)) {
+        continue;
+      }
+      int placeholderCount = countPlaceholders(page, itemCount);
+      if (placeholderCount > 0) {
+        if (mFailedPages.remove(page)) {
+          retried += placeholderCount;
+        }
+        mRequests.put(page, mPageFetcher.fetch(page, mCallback));
+      }
+    }
+    return retried;
+  }
+
+  /**
+   * Request a page that failed again, if it's still waiting to be.
+   *
+   * @param page      the page index
+   * @param itemCount the number of items, placeholders included
+   * @return the quantity of placeholders on the page, which are pending again, or 0 if it wasn't requested
+   */
+  public int retry(int page, int itemCount) {
+    if (!mFailedPages.remove(page) || mRequests.containsKey(page)) {
+      return 0;
+    }
+    int placeholderCount = countPlaceholders(page, itemCount);
+    if (placeholderCount > 0) {
+      mRequests.put(page, mPageFetcher.fetch(page, mCallback));
+    }
+    return placeholderCount;
+  }
+
+  /**
+   * Gets how long to wait before retrying a page: {@link #FIRST_RETRY_DELAY} after its first failure in a row, doubling
+   * with each further failure up to {@link #MAX_RETRY_DELAY}.
+   *
+   * @param page the page index
+   * @return the delay, in milliseconds, or 0 if the page hasn't failed
+   */
+  public long getRetryDelay(int page) {
+    Integer failureCount = mFailureCounts.get(page);
+    if (failureCount == null) {
+      return 0;
+    }
+    long delay = FIRST_RETRY_DELAY;
+    for (int i = 1; i < failureCount && delay < MAX_RETRY_DELAY; i++) {
+      delay *= 2;
+    }
+    return Math.min(delay, MAX_RETRY_DELAY);
+  }
+
+  public void onPageLoaded(int page) {
+    mRequests.remove(page);
+    mFailedPages.remove(page);
+    mFailureCounts.remove(page);
+  }
+
+  /**
+   * Note that a page couldn't be fetched.  Its placeholders stay where they are until it's fetched again.
+   *
+   * @param page      the page index
+   * @param itemCount the number of items, placeholders included
+   * @return the quantity of placeholders on the page, which are no longer pending
+   */
+  public int onPageFailed(int page, int itemCount) {
+    mRequests.remove(page);
+    int placeholderCount = countPlaceholders(page, itemCount);
+    if (placeholderCount > 0) {
+      mFailedPages.add(page);
+      Integer failureCount = mFailureCounts.get(page);
+      mFailureCounts.put(page, failureCount == null ? 1 : failureCount + 1);
+    }
+    return placeholderCount;
+  }
+
+  /**
+   * Cancel requests for, and forget failures of, pages that no longer have placeholders waiting on them, e.g. after
+   * items have been truncated.
+   *
+   * @param itemCount the number of items, placeholders included
+   */
+  public void retainPagesWithPlaceholders(int itemCount) {
+    Iterator<Map.Entry<Integer, PageFetcher<T>.Request>> requests = mRequests.entrySet().iterator();
+    while (requests.hasNext()) {
+      Map.Entry<Integer, PageFetcher<T>.Request> entry = requests.next();
+      if (countPlaceholders(entry.getKey(), itemCount) == 0) {
+        entry.getValue().cancel();
+        requests.remove();
+      }
+    }
+    Iterator<Integer> failedPages = mFailedPages.iterator();
+    while (failedPages.hasNext()) {
+      if (countPlaceholders(failedPages.next(), itemCount) == 0) {
+        failedPages.remove();
+      }
+    }
+    Iterator<Integer> failureCounts = mFailureCounts.keySet().iterator();
+    while (failureCounts.hasNext()) {
+      if (countPlaceholders(failureCounts.next(), itemCount) == 0) {
+        failureCounts.remove();
+      }
+    }
+  }
+
+  public boolean isRequested(int page) {
+    return mRequests.containsKey(page);
+  }
+
+  /**
+   * Is failed boolean.
+   *
+   * @param page the page index
+   * @return true if the page failed and hasn't been requested again since
+   */
+  public boolean isFailed(int page) {
+    return mFailedPages.contains(page);
+  }
+
+  /**
+   * Forget every request and failure, without cancelling them - e.g. once the page fetcher has cancelled everything.
+   */
+  public void clear() {
+    mRequests.clear();
+    mFailedPages.clear();
+    mFailureCounts.clear();
+  }
+
+  private int countPlaceholders(int page, int itemCount) {
+    int count = 0;
+    int end = Math.min((page + 1) * mPageSize, itemCount);
+    for (int position = page * mPageSize; position < end; position++) {
+      if (mPlaceholderSlots.isPlaceholder(position)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+}
@@ -5,8 +5,11 @@ import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.LinearLayoutManager;
 import android.util.Log;
 import android.view.View;
+import android.widget.TextView;
 
 import com.qozix.endlessrecyclerview.R;
+import com.qozix.endlessrecyclerview.demo.FrameStatsOverlay;
+import com.qozix.endlessrecyclerview.demo.ImagePrefetcher;
 import com.qozix.endlessrecyclerview.demo.MainActivity;
 import com.qozix.widget.EndlessRecyclerView;
 
@@ -16,6 +19,9 @@ import com.qozix.widget.EndlessRecyclerView;
 public class SimpleDemoActivity extends AppCompatActivity {
 
   private EndlessRecyclerView mEndlessRecyclerView;
+  private FrameStatsOverlay mFrameStatsOverlay;
+  private ImagePrefetcher mImagePrefetcher;
+  private SimpleDemoEndlessAdapter mSimpleDemoEndlessAdapter;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -24,8 +30,10 @@ public class SimpleDemoActivity extends AppCompatActivity {
     setContentView(R.layout.endlessrecyclerview);
 
     SimpleDemoEndlessAdapter simpleDemoEndlessAdapter = new SimpleDemoEndlessAdapter(this);
+    mSimpleDemoEndlessAdapter = simpleDemoEndlessAdapter;
     simpleDemoEndlessAdapter.setOnItemClickListener(mOnItemClickListener);
     simpleDemoEndlessAdapter.setLimit(5000);
+    simpleDemoEndlessAdapter.setShouldPrecomputeRowText(true);
 
     mEndlessRecyclerView = (EndlessRecyclerView) findViewById(R.id.endlessrecyclerview_main);
     mEndlessRecyclerView.setCanExpectConsistentItemSize(true);
@@ -33,10 +41,38 @@ public class SimpleDemoActivity extends AppCompatActivity {
     mEndlessRecyclerView.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.VERTICAL, false));
     mEndlessRecyclerView.addOnLayoutChangeListener(mOnLayoutChangeListener);
 
+    mImagePrefetcher = new ImagePrefetcher(this, simpleDemoEndlessAdapter);
+    mEndlessRecyclerView.setOnPrefetchRangeChangedListener(mImagePrefetcher);
+    mEndlessRecyclerView.setShouldPrepareViewHoldersWhenIdle(true);
+    mEndlessRecyclerView.setAdaptiveThresholdEnabled(true);
+
+    mFrameStatsOverlay = new FrameStatsOverlay(mEndlessRecyclerView, (TextView) findViewById(R.id.endlessrecyclerview_frame_stats));
+
+  }
+
+  @Override
+  protected void onResume() {
+    super.onResume();
+    mFrameStatsOverlay.start();
+  }
+
+  @Override
+  protected void onPause() {
+    mFrameStatsOverlay.stop();
+    super.onPause();
+  }
+
+  @Override
+  protected void onDestroy() {
+    mImagePrefetcher.cancel();
+    mSimpleDemoEndlessAdapter.releaseThumbnails();
+    super.onDestroy();
   }
 
+  // at rest, a screen's worth either side; while flinging on a slow network, up to ten
   private void updateEndlessRecyclerViewThreshold() {
-    mEndlessRecyclerView.setVerticalThreshold(mEndlessRecyclerView.getHeight() * 3);
+    int height = mEndlessRecyclerView.getHeight();
+    mEndlessRecyclerView.setVerticalThresholdBounds(height, height * 10);
   }
 
   private View.OnClickListener mOnItemClickListener = new View.OnClickListener() {
@@ -1,9 +1,13 @@
 package com.qozix.endlessrecyclerview.demo.simple;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 
 import com.qozix.endlessrecyclerview.demo.CommonDemoEndlessAdapter;
 import com.qozix.endlessrecyclerview.demo.models.MediaItem;
+import com.qozix.endlessrecyclerview.demo.models.MediaItemTable;
+import com.qozix.widget.WindowedItemStore;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,18 +17,31 @@ import java.util.List;
  */
 public class SimpleDemoEndlessAdapter extends CommonDemoEndlessAdapter {
 
+  private Handler mHandler = new Handler(Looper.getMainLooper());
+
   public SimpleDemoEndlessAdapter(Context context) {
     super(context);
+    getMediaItems().setPageLoader(mPageLoader);
   }
 
   @Override
   public void fill(int quantity) {
-    for (int i = 0; i < quantity; i++) {
-      if (getMediaItems().size() < getLimit()) {
-        getMediaItems().add(getDummyMediaItem(getMediaItems().size()));  // TODO
-        notifyItemInserted(getMediaItems().size() - 1);
-      }
+    int count = Math.min(quantity, getLimit() - getMediaItems().size());
+    if (count <= 0) {
+      return;
+    }
+    // items filled together are stored together
+    List<MediaItem> mediaItems = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      mediaItems.add(getDummyMediaItem(getMediaItems().size() + i));  // TODO
+    }
+    int firstPosition = getMediaItems().size();
+    for (MediaItemTable.Row mediaItem : createRows(mediaItems)) {
+      getMediaItems().add(mediaItem);
+      getNotificationBatch().notifyItemInserted(getMediaItems().size() - 1);
     }
+    onItemsArrived(firstPosition, count);
+    getNotificationBatch().dispatch();
   }
 
   private List<String> mDummyAuthorsList = new ArrayList<>();
@@ -33,6 +50,23 @@ public class SimpleDemoEndlessAdapter extends CommonDemoEndlessAdapter {
     mDummyAuthorsList.add("Author B");
   }
 
+  // dummy items can be rebuilt from their position, but pages have to be delivered after binding has finished
+  private WindowedItemStore.PageLoader<MediaItemTable.Row> mPageLoader = new WindowedItemStore.PageLoader<MediaItemTable.Row>() {
+    @Override
+    public void loadPage(final int pageIndex, final int firstPosition, final int count) {
+      mHandler.post(new Runnable() {
+        @Override
+        public void run() {
+          List<MediaItem> mediaItems = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            mediaItems.add(getDummyMediaItem(firstPosition + i));
+          }
+          getMediaItems().onPageLoaded(pageIndex, createRows(mediaItems));
+        }
+      });
+    }
+  };
+
   private MediaItem getDummyMediaItem(int position){
     MediaItem mediaItem = new MediaItem();
     mediaItem.title = "Item #" + position;
@@ -0,0 +1,68 @@
+package com.qozix.endlessrecyclerview.demo.thumbnail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thumbnails that are no longer cached or shown, kept so their bitmaps can be decoded into (as
+ * BitmapFactory.Options.inBitmap) rather than allocating new ones.  Bounded in bytes; the oldest are dropped first.
+ * Thread safe, since decodes happen on worker threads.
+ */
+public class BitmapPool {
+
+  private final long mMaxBytes;
+  private long mBytes;
+  private final List<Thumbnail> mThumbnails = new ArrayList<>();
+
+  public BitmapPool(long maxBytes) {
+    mMaxBytes = maxBytes;
+  }
+
+  /**
+   * Offer a thumbnail for reuse.  Its bitmap mustn't be used by anything else afterwards.
+   *
+   * @param thumbnail the thumbnail
+   */
+  public synchronized void put(Thumbnail thumbnail) {
+    if (!thumbnail.bitmap.isMutable() || thumbnail.allocationByteCount > mMaxBytes) {
+      return;
+    }
+    mThumbnails.add(thumbnail);
+    mBytes += thumbnail.allocationByteCount;
+    while (mBytes > mMaxBytes) {
+      mBytes -= mThumbnails.remove(0).allocationByteCount;
+    }
+  }
+
+  /**
+   * Take the smallest pooled thumbnail with at least the given bytes allocated.
+   *
+   * @param byteCount the byte count needed
+   * @return the thumbnail, or null if none is large enough
+   */
+  public synchronized Thumbnail get(int byteCount) {
+    int best = -1;
+    for (int i = 0; i < mThumbnails.size(); i++) {
+      int allocationByteCount = mThumbnails.get(i).allocationByteCount;
+      if (allocationByteCount >= byteCount && (best == -1 || allocationByteCount < mThumbnails.get(best).allocationByteCount)) {
+        best = i;
+      }
+    }
+    if (best == -1) {
+      return null;
+    }
+    Thumbnail thumbnail = mThumbnails.remove(best);
+    mBytes -= thumbnail.allocationByteCount;
+    return thumbnail;
+  }
+
+  public synchronized long getBytes() {
+    return mBytes;
+  }
+
+  public synchronized void clear() {
+    mThumbnails.clear();
+    mBytes = 0;
+  }
+
+}
@@ -0,0 +1,225 @@
+package com.qozix.endlessrecyclerview.demo.thumbnail;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache bounded by the total weight of its values, that also counts references to values in use
+ * (e.g., shown in a view).  A value is only handed to the {@link OnReleasedListener} - and so may be reused - once it's
+ * both out of the cache and unreferenced; a value evicted while in use is released when its last reference is.
+ *
+ * Not thread safe.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class RefCountedLruCache<K, V> {
+
+  /**
+   * The interface Weigher.
+   *
+   * @param <V> the value type
+   */
+  public interface Weigher<V> {
+    /**
+     * Weigh a value.
+     *
+     * @param value the value
+     * @return the weight
+     */
+    long weigh(V value);
+  }
+
+  /**
+   * The interface On released listener.
+   *
+   * @param <V> the value type
+   */
+  public interface OnReleasedListener<V> {
+    /**
+     * Called when a value is neither cached nor referenced.
+     *
+     * @param value the value
+     */
+    void onReleased(V value);
+  }
+
+  private static class Entry<K, V> {
+    final K key;
+    final V value;
+    final long weight;
+    int referenceCount;
+    boolean isCached;
+
+    Entry(K key, V value, long weight) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  private final long mMaxWeight;
+  private final Weigher<V> mWeigher;
+  private long mWeight;
+  private OnReleasedListener<V> mOnReleasedListener;
+  private final LinkedHashMap<K, Entry<K, V>> mCachedEntries = new LinkedHashMap<>(16, 0.75f, true);
+  // every value that's cached or referenced
+  private final Map<V, Entry<K, V>> mEntriesByValue = new IdentityHashMap<>();
+
+  /**
+   * Instantiates a new Ref counted lru cache.
+   *
+   * @param maxWeight the max weight
+   * @param weigher   the weigher
+   */
+  public RefCountedLruCache(long maxWeight, Weigher<V> weigher) {
+    mMaxWeight = maxWeight;
+    mWeigher = weigher;
+  }
+
+  /**
+   * Sets on released listener.
+   *
+   * @param onReleasedListener the on released listener
+   */
+  public void setOnReleasedListener(OnReleasedListener<V> onReleasedListener) {
+    mOnReleasedListener = onReleasedListener;
+  }
+
+  /**
+   * Gets a value, marking it most recently used.
+   *
+   * @param key the key
+   * @return the value, or null
+   */
+  public V get(K key) {
+    Entry<K, V> entry = mCachedEntries.get(key);
+    return entry == null ? null : entry.value;
+  }
+
+  /**
+   * Put a value, replacing any cached for the same key, and evict the least recently used values as needed to stay
+   * within the max weight.
+   *
+   * @param key   the key
+   * @param value the value
+   */
+  public void put(K key, V value) {
+    Entry<K, V> entry = mEntriesByValue.get(value);
+    if (entry == null) {
+      entry = new Entry<>(key, value, mWeigher.weigh(value));
+      mEntriesByValue.put(value, entry);
+    } else if (entry.isCached) {
+      return;
+    }
+    Entry<K, V> previous = mCachedEntries.put(key, entry);
+    entry.isCached = true;
+    mWeight += entry.weight;
+    if (previous != null) {
+      uncache(previous);
+    }
+    trimToWeight(mMaxWeight);
+  }
+
+  /**
+   * Count a reference to a value, which keeps it from being released.  Values that aren't known to the cache are
+   * tracked until their last reference is released.
+   *
+   * @param key   the key the value was cached with
+   * @param value the value
+   */
+  public void acquire(K key, V value) {
+    Entry<K, V> entry = mEntriesByValue.get(value);
+    if (entry == null) {
+      entry = new Entry<>(key, value, mWeigher.weigh(value));
+      mEntriesByValue.put(value, entry);
+    }
+    entry.referenceCount++;
+  }
+
+  /**
+   * Release a reference to a value.
+   *
+   * @param value the value
+   */
+  public void release(V value) {
+    Entry<K, V> entry = mEntriesByValue.get(value);
+    if (entry == null || entry.referenceCount == 0) {
+      return;
+    }
+    entry.referenceCount--;
+    releaseIfUnused(entry);
+  }
+
+  /**
+   * Gets the number of references to a value.
+   *
+   * @param value the value
+   * @return the reference count
+   */
+  public int getReferenceCount(V value) {
+    Entry<K, V> entry = mEntriesByValue.get(value);
+    return entry == null ? 0 : entry.referenceCount;
+  }
+
+  private void uncache(Entry<K, V> entry) {
+    entry.isCached = false;
+    mWeight -= entry.weight;
+    releaseIfUnused(entry);
+  }
+
+  private void releaseIfUnused(Entry<K, V> entry) {
+    if (entry.referenceCount == 0 && !entry.isCached) {
+      mEntriesByValue.remove(entry.value);
+      if (mOnReleasedListener != null) {
+        mOnReleasedListener.onReleased(entry.value);
+      }
+    }
+  }
+
+  /**
+   * Evict least recently used values until the total weight is no more than given.
+   *
+   * @param maxWeight the max weight
+   */
+  public void trimToWeight(long maxWeight) {
+    Iterator<Entry<K, V>> iterator = mCachedEntries.values().iterator();
+    while (mWeight > maxWeight && iterator.hasNext()) {
+      Entry<K, V> entry = iterator.next();
+      iterator.remove();
+      uncache(entry);
+    }
+  }
+
+  /**
+   * Evict all values.
+   */
+  public void evictAll() {
+    trimToWeight(-1);
+  }
+
+  /**
+   * Gets the total weight of cached values.
+   *
+   * @return the weight
+   */
+  public long getWeight() {
+    return mWeight;
+  }
+
+  public long getMaxWeight() {
+    return mMaxWeight;
+  }
+
+  /**
+   * Gets the number of values cached.
+   *
+   * @return the size
+   */
+  public int size() {
+    return mCachedEntries.size();
+  }
+
+}
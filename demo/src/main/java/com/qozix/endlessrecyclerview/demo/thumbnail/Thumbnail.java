@@ -0,0 +1,19 @@
+package com.qozix.endlessrecyclerview.demo.thumbnail;
+
+import android.graphics.Bitmap;
+
+/**
+ * A decoded bitmap, and the bytes allocated for it - which can be more than its content needs when it was decoded into
+ * a larger pooled bitmap.
+ */
+public class Thumbnail {
+
+  public final Bitmap bitmap;
+  public final int allocationByteCount;
+
+  public Thumbnail(Bitmap bitmap, int allocationByteCount) {
+    this.bitmap = bitmap;
+    this.allocationByteCount = allocationByteCount;
+  }
+
+}
@@ -0,0 +1,376 @@
+package com.qozix.endlessrecyclerview.demo.thumbnail;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.widget.ImageView;
+
+import com.squareup.picasso.Downloader;
+import com.squareup.picasso.UrlConnectionDownloader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads thumbnails decoded at (about) the size they're shown at, rather than at full resolution.  Decoded thumbnails
+ * are kept in an LRU cache bounded in bytes and keyed by url and size bucket; thumbnails that leave the cache and are no
+ * longer shown go to a {@link BitmapPool}, and later decodes reuse their memory.  Downloads go through Picasso's
+ * downloader, so they share its HTTP cache; assets, files and content uris are read locally.
+ *
+ * Call from the main thread only.
+ */
+public class ThumbnailLoader {
+
+  private static final int THREAD_COUNT = 2;
+  // fractions of the heap for decoded thumbnails, and for bitmaps waiting to be reused
+  private static final int CACHE_HEAP_DIVISOR = 8;
+  private static final int POOL_HEAP_DIVISOR = 32;
+  private static final int BUFFER_SIZE = 16 * 1024;
+  private static final String ASSET_PREFIX = "file:///android_asset/";
+
+  private static ThumbnailLoader sThumbnailLoader;
+
+  // undecoded image bytes are read into a buffer per worker, which is reused between images
+  private static final ThreadLocal<ExposedByteArrayOutputStream> sBuffers = new ThreadLocal<ExposedByteArrayOutputStream>() {
+    @Override
+    protected ExposedByteArrayOutputStream initialValue() {
+      return new ExposedByteArrayOutputStream();
+    }
+  };
+
+  /**
+   * The interface Callback.
+   */
+  public interface Callback {
+    /**
+     * Called when a fetched thumbnail has been decoded and cached.
+     *
+     * @param allocationByteCount the bytes allocated for the thumbnail
+     */
+    void onThumbnailLoaded(int allocationByteCount);
+
+    /**
+     * Called when a fetched thumbnail couldn't be downloaded or decoded.
+     */
+    void onThumbnailFailed();
+  }
+
+  private final Context mContext;
+  private final Downloader mDownloader;
+  private final ExecutorService mExecutorService = Executors.newFixedThreadPool(THREAD_COUNT);
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+  private final RefCountedLruCache<String, Thumbnail> mCache;
+  private final BitmapPool mBitmapPool;
+  private final Map<String, Task> mTasks = new HashMap<>();
+  // what each view shows, and the key of what it's waiting for
+  private final Map<ImageView, Thumbnail> mShownThumbnails = new WeakHashMap<>();
+  private final Map<ImageView, String> mPendingKeys = new WeakHashMap<>();
+
+  /**
+   * Gets the shared thumbnail loader, sized from the heap.
+   *
+   * @param context the context
+   * @return the thumbnail loader
+   */
+  public static ThumbnailLoader with(Context context) {
+    if (sThumbnailLoader == null) {
+      long maxMemory = Runtime.getRuntime().maxMemory();
+      Context applicationContext = context.getApplicationContext();
+      sThumbnailLoader = new ThumbnailLoader(applicationContext, new UrlConnectionDownloader(applicationContext), maxMemory / CACHE_HEAP_DIVISOR, maxMemory / POOL_HEAP_DIVISOR);
+    }
+    return sThumbnailLoader;
+  }
+
+  public ThumbnailLoader(Context context, Downloader downloader, long cacheBytes, long poolBytes) {
+    mContext = context;
+    mDownloader = downloader;
+    mBitmapPool = new BitmapPool(poolBytes);
+    mCache = new RefCountedLruCache<>(cacheBytes, mThumbnailWeigher);
+    mCache.setOnReleasedListener(mOnThumbnailReleasedListener);
+  }
+
+  /**
+   * Show a thumbnail in an ImageView, decoded for the size given.  The view is cleared until it arrives.
+   *
+   * @param url       the url
+   * @param imageView the image view
+   * @param width     the width it's shown at, in pixels
+   * @param height    the height it's shown at, in pixels
+   */
+  public void load(String url, ImageView imageView, int width, int height) {
+    int bucketWidth = ThumbnailSizing.getBucketSize(width);
+    int bucketHeight = ThumbnailSizing.getBucketSize(height);
+    String key = ThumbnailSizing.getKey(url, bucketWidth, bucketHeight);
+    Thumbnail thumbnail = mCache.get(key);
+    if (thumbnail != null) {
+      mPendingKeys.remove(imageView);
+      show(imageView, key, thumbnail);
+      return;
+    }
+    clear(imageView);
+    mPendingKeys.put(imageView, key);
+    enqueue(key, url, bucketWidth, bucketHeight);
+  }
+
+  /**
+   * Clear an ImageView, and stop waiting for anything it was waiting for.  A thumbnail shown in a view stays referenced
+   * until the view is cleared or shows another, so clear views that are recycled or thrown away.
+   *
+   * @param imageView the image view
+   */
+  public void clear(ImageView imageView) {
+    mPendingKeys.remove(imageView);
+    Thumbnail thumbnail = mShownThumbnails.remove(imageView);
+    if (thumbnail != null) {
+      imageView.setImageDrawable(null);
+      mCache.release(thumbnail);
+    }
+  }
+
+  /**
+   * Decode a thumbnail into the cache without showing it, e.g. for an item that's about to be shown.
+   *
+   * @param url      the url
+   * @param width    the width it will be shown at, in pixels
+   * @param height   the height it will be shown at, in pixels
+   * @param callback the callback, which also identifies the fetch to {@link #cancel(Callback)}
+   */
+  public void fetch(String url, int width, int height, Callback callback) {
+    int bucketWidth = ThumbnailSizing.getBucketSize(width);
+    int bucketHeight = ThumbnailSizing.getBucketSize(height);
+    String key = ThumbnailSizing.getKey(url, bucketWidth, bucketHeight);
+    Thumbnail thumbnail = mCache.get(key);
+    if (thumbnail != null) {
+      callback.onThumbnailLoaded(thumbnail.allocationByteCount);
+      return;
+    }
+    enqueue(key, url, bucketWidth, bucketHeight).callbacks.add(callback);
+  }
+
+  /**
+   * Cancel a fetch.  The decode itself is cancelled too unless something else is waiting for it.
+   *
+   * @param callback the callback the fetch was made with
+   */
+  public void cancel(Callback callback) {
+    Iterator<Task> iterator = mTasks.values().iterator();
+    while (iterator.hasNext()) {
+      Task task = iterator.next();
+      if (task.callbacks.remove(callback) && task.callbacks.isEmpty() && !mPendingKeys.containsValue(task.key)) {
+        task.isCancelled = true;
+        task.future.cancel(false);
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Drop every cached thumbnail that isn't shown, and every pooled bitmap - e.g., when memory is low.
+   */
+  public void trimMemory() {
+    mCache.evictAll();
+    mBitmapPool.clear();
+  }
+
+  private void show(ImageView imageView, String key, Thumbnail thumbnail) {
+    Thumbnail shownThumbnail = mShownThumbnails.get(imageView);
+    if (shownThumbnail == thumbnail) {
+      return;
+    }
+    // acquire first, so the thumbnail isn't released between the two
+    mCache.acquire(key, thumbnail);
+    mShownThumbnails.put(imageView, thumbnail);
+    imageView.setImageBitmap(thumbnail.bitmap);
+    if (shownThumbnail != null) {
+      mCache.release(shownThumbnail);
+    }
+  }
+
+  private Task enqueue(String key, String url, int bucketWidth, int bucketHeight) {
+    Task task = mTasks.get(key);
+    if (task == null) {
+      task = new Task(key, url, bucketWidth, bucketHeight);
+      mTasks.put(key, task);
+      task.future = mExecutorService.submit(task);
+    }
+    return task;
+  }
+
+  private void onTaskComplete(Task task, Thumbnail thumbnail) {
+    if (task.isCancelled || mTasks.get(task.key) != task) {
+      if (thumbnail != null) {
+        mBitmapPool.put(thumbnail);
+      }
+      return;
+    }
+    mTasks.remove(task.key);
+    List<ImageView> imageViews = new ArrayList<>();
+    for (Map.Entry<ImageView, String> entry : mPendingKeys.entrySet()) {
+      if (task.key.equals(entry.getValue())) {
+        imageViews.add(entry.getKey());
+      }
+    }
+    for (ImageView imageView : imageViews) {
+      mPendingKeys.remove(imageView);
+    }
+    if (thumbnail == null) {
+      for (Callback callback : task.callbacks) {
+        callback.onThumbnailFailed();
+      }
+      return;
+    }
+    for (ImageView imageView : imageViews) {
+      show(imageView, task.key, thumbnail);
+    }
+    mCache.put(task.key, thumbnail);
+    for (Callback callback : task.callbacks) {
+      callback.onThumbnailLoaded(thumbnail.allocationByteCount);
+    }
+  }
+
+  private InputStream openInputStream(String url) throws IOException {
+    if (url.startsWith(ASSET_PREFIX)) {
+      return mContext.getAssets().open(url.substring(ASSET_PREFIX.length()));
+    }
+    Uri uri = Uri.parse(url);
+    String scheme = uri.getScheme();
+    if (ContentResolver.SCHEME_FILE.equals(scheme) || ContentResolver.SCHEME_CONTENT.equals(scheme) || ContentResolver.SCHEME_ANDROID_RESOURCE.equals(scheme)) {
+      return mContext.getContentResolver().openInputStream(uri);
+    }
+    return mDownloader.load(uri, 0).getInputStream();
+  }
+
+  // runs on a worker thread
+  private Thumbnail decode(String url, int bucketWidth, int bucketHeight) throws IOException {
+    InputStream inputStream = openInputStream(url);
+    if (inputStream == null) {
+      return null;
+    }
+    ExposedByteArrayOutputStream buffer = sBuffers.get();
+    try {
+      buffer.readFrom(inputStream);
+    } finally {
+      inputStream.close();
+    }
+    BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inJustDecodeBounds = true;
+    BitmapFactory.decodeByteArray(buffer.getBytes(), 0, buffer.size(), options);
+    if (options.outWidth <= 0 || options.outHeight <= 0) {
+      return null;
+    }
+    options.inSampleSize = ThumbnailSizing.computeSampleSize(options.outWidth, options.outHeight, bucketWidth, bucketHeight);
+    options.inJustDecodeBounds = false;
+    options.inMutable = true;
+    // before KitKat, a bitmap can only be reused by a decode of exactly the same size, without subsampling
+    Thumbnail reusable = null;
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      reusable = mBitmapPool.get(ThumbnailSizing.computeDecodedByteCount(options.outWidth, options.outHeight, options.inSampleSize));
+      if (reusable != null) {
+        options.inBitmap = reusable.bitmap;
+      }
+    }
+    Bitmap bitmap;
+    try {
+      bitmap = BitmapFactory.decodeByteArray(buffer.getBytes(), 0, buffer.size(), options);
+    } catch (IllegalArgumentException e) {
+      // the pooled bitmap couldn't be reused after all; it's dropped, rather than offered again
+      options.inBitmap = null;
+      reusable = null;
+      bitmap = BitmapFactory.decodeByteArray(buffer.getBytes(), 0, buffer.size(), options);
+    }
+    if (bitmap == null) {
+      if (reusable != null) {
+        mBitmapPool.put(reusable);
+      }
+      return null;
+    }
+    int allocationByteCount = reusable != null ? reusable.allocationByteCount : bitmap.getRowBytes() * bitmap.getHeight();
+    return new Thumbnail(bitmap, allocationByteCount);
+  }
+
+  private class Task implements Runnable {
+    final String key;
+    final String url;
+    final int bucketWidth;
+    final int bucketHeight;
+    final List<Callback> callbacks = new ArrayList<>();
+    Future<?> future;
+    volatile boolean isCancelled;
+
+    Task(String key, String url, int bucketWidth, int bucketHeight) {
+      this.key = key;
+      this.url = url;
+      this.bucketWidth = bucketWidth;
+      this.bucketHeight = bucketHeight;
+    }
+
+    @Override
+    public void run() {
+      Thumbnail thumbnail = null;
+      if (!isCancelled) {
+        try {
+          thumbnail = decode(url, bucketWidth, bucketHeight);
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
+      }
+      final Thumbnail result = thumbnail;
+      mHandler.post(new Runnable() {
+        @Override
+        public void run() {
+          onTaskComplete(Task.this, result);
+        }
+      });
+    }
+  }
+
+  private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+    private final byte[] mChunk = new byte[BUFFER_SIZE];
+
+    ExposedByteArrayOutputStream() {
+      super(BUFFER_SIZE);
+    }
+
+    void readFrom(InputStream inputStream) throws IOException {
+      reset();
+      int read;
+      while ((read = inputStream.read(mChunk)) != -1) {
+        write(mChunk, 0, read);
+      }
+    }
+
+    byte[] getBytes() {
+      return buf;
+    }
+  }
+
+  private RefCountedLruCache.Weigher<Thumbnail> mThumbnailWeigher = new RefCountedLruCache.Weigher<Thumbnail>() {
+    @Override
+    public long weigh(Thumbnail thumbnail) {
+      return thumbnail.allocationByteCount;
+    }
+  };
+
+  private RefCountedLruCache.OnReleasedListener<Thumbnail> mOnThumbnailReleasedListener = new RefCountedLruCache.OnReleasedListener<Thumbnail>() {
+    @Override
+    public void onReleased(Thumbnail thumbnail) {
+      mBitmapPool.put(thumbnail);
+    }
+  };
+
+}
@@ -0,0 +1,88 @@
+package com.qozix.endlessrecyclerview.demo.thumbnail;
+
+/**
+ * Works out what size to decode thumbnails at.  Target sizes are rounded up to a small set of buckets, so views of
+ * slightly different sizes (e.g., across densities or layouts) share cache entries and pooled bitmaps.
+ */
+public final class ThumbnailSizing {
+
+  /**
+   * The smallest bucket.
+   */
+  public static final int MIN_BUCKET_SIZE = 32;
+  /**
+   * Bytes per pixel of an ARGB_8888 bitmap.
+   */
+  public static final int BYTES_PER_PIXEL = 4;
+
+  private ThumbnailSizing() {
+
+  }
+
+  /**
+   * Gets the bucket a target size falls in: the next power of two, or one and a half times the previous power of two,
+   * at or above it - 32, 48, 64, 96, 128, 192 and so on.
+   *
+   * @param size the target size, in pixels
+   * @return the bucket size
+   */
+  public static int getBucketSize(int size) {
+    if (size <= MIN_BUCKET_SIZE) {
+      return MIN_BUCKET_SIZE;
+    }
+    int power = Integer.highestOneBit(size);
+    if (size == power) {
+      return size;
+    }
+    int middle = power + power / 2;
+    return size <= middle ? middle : power * 2;
+  }
+
+  /**
+   * Compute the largest power of two to subsample a source image by that still leaves both dimensions at least as
+   * large as the target.
+   *
+   * @param sourceWidth  the source width
+   * @param sourceHeight the source height
+   * @param targetWidth  the target width
+   * @param targetHeight the target height
+   * @return the sample size, at least 1
+   */
+  public static int computeSampleSize(int sourceWidth, int sourceHeight, int targetWidth, int targetHeight) {
+    int sampleSize = 1;
+    if (targetWidth <= 0 || targetHeight <= 0) {
+      return sampleSize;
+    }
+    while (sourceWidth / (sampleSize * 2) >= targetWidth && sourceHeight / (sampleSize * 2) >= targetHeight) {
+      sampleSize *= 2;
+    }
+    return sampleSize;
+  }
+
+  /**
+   * Compute the bytes a decode will need, rounding subsampled dimensions up so a reused bitmap is never too small.
+   *
+   * @param sourceWidth  the source width
+   * @param sourceHeight the source height
+   * @param sampleSize   the sample size
+   * @return the byte count
+   */
+  public static int computeDecodedByteCount(int sourceWidth, int sourceHeight, int sampleSize) {
+    int width = (sourceWidth + sampleSize - 1) / sampleSize;
+    int height = (sourceHeight + sampleSize - 1) / sampleSize;
+    return width * height * BYTES_PER_PIXEL;
+  }
+
+  /**
+   * Gets the cache key for a url decoded for a bucket.
+   *
+   * @param url          the url
+   * @param bucketWidth  the bucket width
+   * @param bucketHeight the bucket height
+   * @return the key
+   */
+  public static String getKey(String url, int bucketWidth, int bucketHeight) {
+    return url + '#' + bucketWidth + 'x' + bucketHeight;
+  }
+
+}
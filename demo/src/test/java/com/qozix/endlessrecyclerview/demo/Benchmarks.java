@@ -0,0 +1,41 @@
+package com.qozix.endlessrecyclerview.demo;
+
+import org.junit.Assume;
+import org.junit.AssumptionViolatedException;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Support for the benchmark tests, which measure time and allocation on the desktop JVM.  They're slow, and what they
+ * measure depends on the machine and the JVM, so they're skipped unless asked for:
+ *
+ * ./gradlew :demo:testDebugUnitTest -Pbenchmarks
+ */
+public class Benchmarks {
+
+  public static final String PROPERTY = "benchmarks";
+
+  private Benchmarks() {
+  }
+
+  /**
+   * Skip the calling test unless benchmarks were asked for.
+   */
+  public static void assumeEnabled() {
+    Assume.assumeTrue("Benchmarks only run with -P" + PROPERTY, Boolean.getBoolean(PROPERTY));
+  }
+
+  /**
+   * Gets the bytes allocated by the current thread so far, skipping the calling test on JVMs that don't count them.
+   *
+   * @return the allocated bytes
+   */
+  public static long getAllocatedBytes() {
+    try {
+      return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    } catch (ClassCastException | NoClassDefFoundError e) {
+      throw new AssumptionViolatedException("Allocation isn't counted per thread on this JVM");
+    }
+  }
+
+}
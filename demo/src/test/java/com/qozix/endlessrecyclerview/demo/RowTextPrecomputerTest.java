@@ -0,0 +1,141 @@
+package com.qozix.endlessrecyclerview.demo;
+
+import com.qozix.endlessrecyclerview.demo.models.MediaItem;
+import com.qozix.endlessrecyclerview.demo.models.MediaItemTable;
+import com.qozix.endlessrecyclerview.demo.models.StringDictionary;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class RowTextPrecomputerTest {
+
+  private ManualExecutor mWorkerExecutor;
+  private ManualExecutor mMainThreadExecutor;
+  private RowTextPrecomputer mRowTextPrecomputer;
+  private StringDictionary mStringDictionary;
+
+  @Before
+  public void setUp() throws Exception {
+    mWorkerExecutor = new ManualExecutor();
+    mMainThreadExecutor = new ManualExecutor();
+    mRowTextPrecomputer = new RowTextPrecomputer(mWorkerExecutor, mMainThreadExecutor, 4);
+    mStringDictionary = new StringDictionary();
+  }
+
+  private List<MediaItemTable.Row> createRows(String... titles) {
+    List<MediaItem> mediaItems = new ArrayList<>();
+    for (String title : titles) {
+      MediaItem mediaItem = new MediaItem();
+      mediaItem.title = title;
+      mediaItem.format = "book";
+      mediaItem.authors = Arrays.asList("Author A", "Author B");
+      mediaItems.add(mediaItem);
+    }
+    return new MediaItemTable(mediaItems, mStringDictionary).getRows();
+  }
+
+  private void runAll() {
+    mWorkerExecutor.runAll();
+    mMainThreadExecutor.runAll();
+  }
+
+  @Test
+  public void text_isReadyOnceDelivered() throws Exception {
+    List<MediaItemTable.Row> rows = createRows("first", "second");
+    mRowTextPrecomputer.precompute(10, rows);
+    assertNull(mRowTextPrecomputer.get(10, rows.get(0)));
+    mWorkerExecutor.runAll();
+    // nothing is cached until it's delivered to the main thread
+    assertNull(mRowTextPrecomputer.get(10, rows.get(0)));
+    mMainThreadExecutor.runAll();
+    RowTextPrecomputer.RowText rowText = mRowTextPrecomputer.get(11, rows.get(1));
+    assertEquals("11, second", rowText.title);
+    assertEquals("Author A, Author B", rowText.authors);
+    assertEquals(0, rowText.getWidth());
+    assertEquals(RowTextPrecomputer.formatTitle(10, rows.get(0)), mRowTextPrecomputer.get(10, rows.get(0)).title);
+    assertEquals(RowTextPrecomputer.formatAuthors(rows.get(0)), mRowTextPrecomputer.get(10, rows.get(0)).authors);
+  }
+
+  @Test
+  public void textForOtherRows_isntReturned() throws Exception {
+    List<MediaItemTable.Row> rows = createRows("first", "second");
+    mRowTextPrecomputer.precompute(0, rows);
+    runAll();
+    assertNull(mRowTextPrecomputer.get(0, rows.get(1)));
+    assertNull(mRowTextPrecomputer.get(0, createRows("first").get(0)));
+    assertNull(mRowTextPrecomputer.get(2, rows.get(0)));
+  }
+
+  @Test
+  public void formattedText_isReturnedAtAnyWidth() throws Exception {
+    List<MediaItemTable.Row> rows = createRows("first");
+    mRowTextPrecomputer.precompute(0, rows);
+    runAll();
+    // only laid out text is tied to a width
+    mRowTextPrecomputer.setTextLayout(null, null, 480);
+    assertEquals("0, first", mRowTextPrecomputer.get(0, rows.get(0)).title);
+  }
+
+  @Test
+  public void nullRows_areSkipped() throws Exception {
+    List<MediaItemTable.Row> rows = new ArrayList<>(createRows("first", "third"));
+    rows.add(1, null);
+    mRowTextPrecomputer.precompute(0, rows);
+    runAll();
+    assertEquals(2, mRowTextPrecomputer.size());
+    assertEquals("2, third", mRowTextPrecomputer.get(2, rows.get(2)).title);
+  }
+
+  @Test
+  public void clear_dropsResultsOnTheirWay() throws Exception {
+    List<MediaItemTable.Row> rows = createRows("first");
+    mRowTextPrecomputer.precompute(0, rows);
+    mWorkerExecutor.runAll();
+    mRowTextPrecomputer.clear();
+    mMainThreadExecutor.runAll();
+    assertEquals(0, mRowTextPrecomputer.size());
+    assertNull(mRowTextPrecomputer.get(0, rows.get(0)));
+  }
+
+  @Test
+  public void leastRecentlyUsed_areDroppedPastCapacity() throws Exception {
+    List<MediaItemTable.Row> rows = createRows("a", "b", "c", "d");
+    mRowTextPrecomputer.precompute(0, rows);
+    runAll();
+    assertNotNull(mRowTextPrecomputer.get(0, rows.get(0)));
+    List<MediaItemTable.Row> more = createRows("e");
+    mRowTextPrecomputer.precompute(4, more);
+    runAll();
+    assertEquals(4, mRowTextPrecomputer.size());
+    assertNotNull(mRowTextPrecomputer.get(0, rows.get(0)));
+    assertNull(mRowTextPrecomputer.get(1, rows.get(1)));
+    assertNotNull(mRowTextPrecomputer.get(4, more.get(0)));
+  }
+
+  // queues runnables until told to run them
+  private static class ManualExecutor implements Executor {
+    private final Queue<Runnable> mRunnables = new ArrayDeque<>();
+
+    @Override
+    public void execute(Runnable runnable) {
+      mRunnables.add(runnable);
+    }
+
+    void runAll() {
+      Runnable runnable;
+      while ((runnable = mRunnables.poll()) != null) {
+        runnable.run();
+      }
+    }
+  }
+
+}
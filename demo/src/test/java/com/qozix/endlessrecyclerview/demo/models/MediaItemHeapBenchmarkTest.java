@@ -0,0 +1,91 @@
+package com.qozix.endlessrecyclerview.demo.models;
+
+import com.qozix.endlessrecyclerview.demo.Benchmarks;
+import com.qozix.endlessrecyclerview.demo.network.MockAssets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the heap held by 100,000 items from the bundled pages, as {@link MediaItem}s and as the rows of
+ * {@link MediaItemTable}s of a page each.  Strings are copied for each item, as they would be decoded for each page.
+ * Numbers are from the desktop JVM, whose object layout differs a little from ART's, so they're only indicative, and
+ * depend on the collector, so this only runs when benchmarks are asked for; see {@link Benchmarks}.
+ */
+public class MediaItemHeapBenchmarkTest {
+
+  private static final int ITEM_COUNT = 100000;
+  private static final int PAGE_SIZE = 10;
+
+  private static String copy(String string) {
+    return string == null ? null : new String(string.toCharArray());
+  }
+
+  private static List<MediaItem> createMediaItems() throws Exception {
+    List<MediaItem> templates = new ArrayList<>();
+    for (int page = 1; page <= MockAssets.PAGE_COUNT; page++) {
+      templates.addAll(MockAssets.readPage(page).results);
+    }
+    List<MediaItem> mediaItems = new ArrayList<>(ITEM_COUNT);
+    for (int i = 0; i < ITEM_COUNT; i++) {
+      MediaItem template = templates.get(i % templates.size());
+      MediaItem mediaItem = new MediaItem();
+      mediaItem.title = copy(template.title);
+      mediaItem.cover_url = copy(template.cover_url);
+      mediaItem.format = copy(template.format);
+      if (template.authors != null) {
+        mediaItem.authors = new ArrayList<>();
+        for (String author : template.authors) {
+          mediaItem.authors.add(copy(author));
+        }
+      }
+      mediaItems.add(mediaItem);
+    }
+    return mediaItems;
+  }
+
+  private static long getUsedHeap() throws InterruptedException {
+    Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    // the lowest of a few collections is the closest we get to what's reachable
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      Thread.sleep(20);
+      used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+    }
+    return used;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    Benchmarks.assumeEnabled();
+  }
+
+  @Test
+  public void tables_holdLessThanMediaItems() throws Exception {
+    long base = getUsedHeap();
+    List<MediaItem> mediaItems = createMediaItems();
+    long mediaItemBytes = getUsedHeap() - base;
+    StringDictionary stringDictionary = new StringDictionary();
+    List<MediaItemTable.Row> rows = new ArrayList<>(ITEM_COUNT);
+    long estimatedBytes = 0;
+    for (int i = 0; i < ITEM_COUNT; i += PAGE_SIZE) {
+      MediaItemTable mediaItemTable = new MediaItemTable(mediaItems.subList(i, i + PAGE_SIZE), stringDictionary);
+      rows.addAll(mediaItemTable.getRows());
+      estimatedBytes += mediaItemTable.getWeight();
+    }
+    mediaItems = null;
+    long rowBytes = getUsedHeap() - base;
+    System.out.println(String.format("Heap for %d items, %d distinct formats and authors:", rows.size(), stringDictionary.size()));
+    System.out.println(String.format("  MediaItems:       %10d bytes, %4d per item", mediaItemBytes, mediaItemBytes / ITEM_COUNT));
+    System.out.println(String.format("  MediaItemTables:  %10d bytes, %4d per item (%d estimated)", rowBytes, rowBytes / ITEM_COUNT, estimatedBytes / ITEM_COUNT));
+    assertEquals(ITEM_COUNT, rows.size());
+    assertTrue(rowBytes < mediaItemBytes);
+  }
+
+}
@@ -0,0 +1,139 @@
+package com.qozix.endlessrecyclerview.demo.models;
+
+import com.qozix.endlessrecyclerview.demo.network.MockAssets;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class MediaItemTableTest {
+
+  private static MediaItem createMediaItem(String title, String format, String... authors) {
+    MediaItem mediaItem = new MediaItem();
+    mediaItem.title = title;
+    mediaItem.cover_url = title == null ? null : "http://example.com/" + title + ".png";
+    mediaItem.format = format;
+    mediaItem.authors = authors == null ? null : new ArrayList<>(Arrays.asList(authors));
+    return mediaItem;
+  }
+
+  @Test
+  public void rows_readBackTheirItems() throws Exception {
+    List<MediaItem> mediaItems = Arrays.asList(
+      createMediaItem("first", "book", "Author A", null, "Author B"),
+      createMediaItem(null, null, (String[]) null),
+      createMediaItem("third", "video"));
+    MediaItemTable mediaItemTable = new MediaItemTable(mediaItems, new StringDictionary());
+    assertEquals(3, mediaItemTable.size());
+    for (int i = 0; i < mediaItems.size(); i++) {
+      MediaItem expected = mediaItems.get(i);
+      MediaItemTable.Row row = mediaItemTable.getRow(i);
+      assertEquals(i, row.getIndex());
+      assertSame(mediaItemTable, row.getTable());
+      assertEquals(expected.title, row.getTitle());
+      assertEquals(expected.cover_url, row.getCoverUrl());
+      assertEquals(expected.format, row.getFormat());
+      assertEquals(expected.authors != null, row.hasAuthors());
+      MediaItem mediaItem = row.toMediaItem();
+      assertEquals(expected.title, mediaItem.title);
+      assertEquals(expected.cover_url, mediaItem.cover_url);
+      assertEquals(expected.format, mediaItem.format);
+      assertEquals(expected.authors, mediaItem.authors);
+    }
+    assertEquals(3, mediaItemTable.getRow(0).getAuthorCount());
+    assertNull(mediaItemTable.getRow(0).getAuthor(1));
+    assertEquals(0, mediaItemTable.getRow(1).getAuthorCount());
+    assertEquals(0, mediaItemTable.getRow(2).getAuthorCount());
+    assertEquals(StringDictionary.NULL_ID, mediaItemTable.getRow(1).getFormatId());
+  }
+
+  @Test
+  public void repeatedStrings_areSharedAcrossTables() throws Exception {
+    StringDictionary stringDictionary = new StringDictionary();
+    // distinct instances, as decoding produces
+    MediaItemTable first = new MediaItemTable(Collections.singletonList(createMediaItem("a", new String("book"), new String("Author"))), stringDictionary);
+    MediaItemTable second = new MediaItemTable(Collections.singletonList(createMediaItem("b", new String("book"), new String("Author"))), stringDictionary);
+    assertEquals(2, stringDictionary.size());
+    assertEquals(first.getRow(0).getFormatId(), second.getRow(0).getFormatId());
+    assertSame(first.getRow(0).getFormat(), second.getRow(0).getFormat());
+    assertSame(first.getRow(0).getAuthor(0), second.getRow(0).getAuthor(0));
+  }
+
+  @Test
+  public void authors_areAppendedAsJoined() throws Exception {
+    MediaItemTable mediaItemTable = new MediaItemTable(Arrays.asList(
+      createMediaItem("a", "book", "Author A", "Author B", "Author C"),
+      createMediaItem("b", "book", "Author D")), new StringDictionary());
+    StringBuilder stringBuilder = new StringBuilder("> ");
+    assertEquals("> Author A, Author B, Author C", mediaItemTable.getRow(0).appendAuthors(", ", stringBuilder).toString());
+    assertEquals("Author D", mediaItemTable.getRow(1).appendAuthors(", ", new StringBuilder()).toString());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void authorsOfOtherRows_areOutOfBounds() throws Exception {
+    MediaItemTable mediaItemTable = new MediaItemTable(Arrays.asList(
+      createMediaItem("a", "book", "Author A"),
+      createMediaItem("b", "book", "Author B")), new StringDictionary());
+    mediaItemTable.getRow(0).getAuthor(1);
+  }
+
+  @Test
+  public void rows_shareTheirTablesWeight() throws Exception {
+    List<MediaItem> mediaItems = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      mediaItems.add(createMediaItem("title " + i, "book", "Author"));
+    }
+    MediaItemTable mediaItemTable = new MediaItemTable(mediaItems, new StringDictionary());
+    long weight = 0;
+    for (MediaItemTable.Row row : mediaItemTable.getRows()) {
+      weight += row.getWeight();
+    }
+    assertTrue(weight > 0);
+    assertTrue(mediaItemTable.getWeight() - weight < mediaItemTable.size());
+  }
+
+  @Test
+  public void weight_doesntCountFormatsOrAuthors() throws Exception {
+    StringDictionary stringDictionary = new StringDictionary();
+    MediaItemTable shortStrings = new MediaItemTable(Arrays.asList(createMediaItem("a", "book", "A", "B")), stringDictionary);
+    MediaItemTable longStrings = new MediaItemTable(Arrays.asList(createMediaItem("a", "audiobook", "Author with a long name", "Another author")), stringDictionary);
+    assertEquals(shortStrings.getWeight(), longStrings.getWeight());
+  }
+
+  @Test
+  public void mockPages_storeEachFormatAndAuthorOnce() throws Exception {
+    StringDictionary stringDictionary = new StringDictionary();
+    Set<String> distinct = new HashSet<>();
+    long firstWeight = 0;
+    long secondWeight = 0;
+    for (int round = 0; round < 2; round++) {
+      for (int page = 1; page <= MockAssets.PAGE_COUNT; page++) {
+        List<MediaItem> mediaItems = MockAssets.readPage(page).results;
+        for (MediaItem mediaItem : mediaItems) {
+          distinct.add(mediaItem.format);
+          if (mediaItem.authors != null) {
+            distinct.addAll(mediaItem.authors);
+          }
+        }
+        long weight = new MediaItemTable(mediaItems, stringDictionary).getWeight();
+        if (round == 0) {
+          firstWeight += weight;
+        } else {
+          secondWeight += weight;
+        }
+      }
+    }
+    distinct.remove(null);
+    // the second round of the same items adds nothing to the dictionary, and weighs the same
+    assertEquals(distinct.size(), stringDictionary.size());
+    assertEquals(firstWeight, secondWeight);
+  }
+
+}
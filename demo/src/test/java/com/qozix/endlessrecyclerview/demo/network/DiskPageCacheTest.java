@@ -0,0 +1,160 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import com.qozix.endlessrecyclerview.demo.models.JsonResponse;
+import com.qozix.endlessrecyclerview.demo.models.MediaItem;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class DiskPageCacheTest {
+
+  private File mFile;
+  private DiskPageCache mDiskPageCache;
+
+  @Before
+  public void setUp() throws Exception {
+    mFile = File.createTempFile("pages", ".cache");
+    mFile.delete();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (mDiskPageCache != null) {
+      mDiskPageCache.close();
+    }
+    mFile.delete();
+  }
+
+  private static void assertPagesEqual(JsonResponse expected, JsonResponse actual) {
+    assertNotNull(actual);
+    assertEquals(expected.total, actual.total);
+    assertEquals(expected.page, actual.page);
+    assertEquals(expected.results.size(), actual.results.size());
+    for (int i = 0; i < expected.results.size(); i++) {
+      MediaItem expectedItem = expected.results.get(i);
+      MediaItem actualItem = actual.results.get(i);
+      assertEquals(expectedItem.title, actualItem.title);
+      assertEquals(expectedItem.cover_url, actualItem.cover_url);
+      assertEquals(expectedItem.format, actualItem.format);
+      assertEquals(expectedItem.authors, actualItem.authors);
+    }
+  }
+
+  private static int encodedSize(JsonResponse jsonResponse) {
+    return 8 + PageCodec.encode(jsonResponse).length;
+  }
+
+  @Test
+  public void pages_roundTrip() throws Exception {
+    mDiskPageCache = new DiskPageCache(mFile, 1024 * 1024);
+    for (int page = 1; page <= MockAssets.PAGE_COUNT; page++) {
+      mDiskPageCache.put(page, MockAssets.readPage(page));
+    }
+    for (int page = 1; page <= MockAssets.PAGE_COUNT; page++) {
+      assertPagesEqual(MockAssets.readPage(page), mDiskPageCache.get(page));
+    }
+    assertNull(mDiskPageCache.get(MockAssets.PAGE_COUNT + 1));
+  }
+
+  @Test
+  public void encodedPages_areFarSmallerThanJson() throws Exception {
+    for (int page = 1; page <= MockAssets.PAGE_COUNT; page++) {
+      long jsonSize = MockAssets.getPageFile(page).length();
+      assertTrue(encodedSize(MockAssets.readPage(page)) * 4 < jsonSize);
+    }
+  }
+
+  @Test
+  public void pages_surviveReopening() throws Exception {
+    mDiskPageCache = new DiskPageCache(mFile, 1024 * 1024);
+    mDiskPageCache.put(3, MockAssets.readPage(3));
+    mDiskPageCache.put(7, MockAssets.readPage(7));
+    mDiskPageCache.remove(3);
+    mDiskPageCache.close();
+    mDiskPageCache = new DiskPageCache(mFile, 1024 * 1024);
+    assertEquals(1, mDiskPageCache.size());
+    assertFalse(mDiskPageCache.contains(3));
+    assertPagesEqual(MockAssets.readPage(7), mDiskPageCache.get(7));
+  }
+
+  @Test
+  public void reopeningWithASmallerBudget_startsOver() throws Exception {
+    mDiskPageCache = new DiskPageCache(mFile, 1024 * 1024);
+    for (int page = 1; page <= MockAssets.PAGE_COUNT; page++) {
+      mDiskPageCache.put(page, MockAssets.readPage(page));
+    }
+    mDiskPageCache.close();
+    int budget = encodedSize(MockAssets.readPage(1));
+    mDiskPageCache = new DiskPageCache(mFile, budget);
+    assertEquals(0, mDiskPageCache.size());
+    mDiskPageCache.put(1, MockAssets.readPage(1));
+    assertPagesEqual(MockAssets.readPage(1), mDiskPageCache.get(1));
+  }
+
+  @Test
+  public void corruptHeaders_startOver() throws Exception {
+    mDiskPageCache = new DiskPageCache(mFile, 1024 * 1024);
+    mDiskPageCache.put(1, MockAssets.readPage(1));
+    mDiskPageCache.close();
+    RandomAccessFile randomAccessFile = new RandomAccessFile(mFile, "rw");
+    randomAccessFile.seek(8);
+    randomAccessFile.writeInt(Integer.MAX_VALUE);
+    randomAccessFile.close();
+    mDiskPageCache = new DiskPageCache(mFile, 1024 * 1024);
+    assertEquals(0, mDiskPageCache.size());
+  }
+
+  @Test
+  public void leastRecentlyUsedPages_areEvictedToStayWithinBudget() throws Exception {
+    int budget = encodedSize(MockAssets.readPage(1)) + encodedSize(MockAssets.readPage(2)) + encodedSize(MockAssets.readPage(3));
+    mDiskPageCache = new DiskPageCache(mFile, budget);
+    mDiskPageCache.put(1, MockAssets.readPage(1));
+    mDiskPageCache.put(2, MockAssets.readPage(2));
+    mDiskPageCache.put(3, MockAssets.readPage(3));
+    assertEquals(3, mDiskPageCache.size());
+    mDiskPageCache.get(1);
+    mDiskPageCache.put(4, MockAssets.readPage(4));
+    assertTrue(mDiskPageCache.getLiveBytes() <= budget);
+    assertTrue(mDiskPageCache.contains(1));
+    assertFalse(mDiskPageCache.contains(2));
+    assertTrue(mDiskPageCache.contains(4));
+  }
+
+  @Test
+  public void compaction_keepsLivePagesIntact() throws Exception {
+    int budget = 0;
+    for (int page = 1; page <= 4; page++) {
+      budget = Math.max(budget, encodedSize(MockAssets.readPage(page)));
+    }
+    mDiskPageCache = new DiskPageCache(mFile, budget * 3);
+    // cycle through far more data than fits, so the log has to be compacted repeatedly
+    for (int round = 0; round < 5; round++) {
+      for (int page = 1; page <= MockAssets.PAGE_COUNT; page++) {
+        JsonResponse jsonResponse = MockAssets.readPage(page);
+        if (encodedSize(jsonResponse) <= budget) {
+          mDiskPageCache.put(page, jsonResponse);
+        }
+        mDiskPageCache.get(1);
+      }
+    }
+    assertTrue(mDiskPageCache.getLiveBytes() <= budget * 3);
+    assertPagesEqual(MockAssets.readPage(1), mDiskPageCache.get(1));
+    mDiskPageCache.close();
+    mDiskPageCache = new DiskPageCache(mFile, budget * 3);
+    assertPagesEqual(MockAssets.readPage(1), mDiskPageCache.get(1));
+  }
+
+  @Test
+  public void oversizedPages_areNotStored() throws Exception {
+    mDiskPageCache = new DiskPageCache(mFile, 64);
+    mDiskPageCache.put(1, MockAssets.readPage(1));
+    assertFalse(mDiskPageCache.contains(1));
+  }
+
+}
@@ -0,0 +1,99 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import com.google.gson.Gson;
+import com.qozix.endlessrecyclerview.demo.Benchmarks;
+import com.qozix.endlessrecyclerview.demo.models.JsonResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the streaming decoder against the original path (read every line into a String, then parse it with a new
+ * Gson), reporting bytes allocated and time taken per page.  Numbers are from the desktop JVM, so they're only
+ * indicative of what ART will see, but the difference in allocation is structural.  Only runs when benchmarks are asked
+ * for; see {@link Benchmarks}.
+ */
+public class JsonDecodeBenchmarkTest {
+
+  private static final int WARM_UP_ROUNDS = 20;
+  private static final int MEASURED_ROUNDS = 50;
+
+  private interface PageDecoder {
+    JsonResponse decode(InputStream inputStream) throws IOException;
+  }
+
+  private static final PageDecoder LEGACY = new PageDecoder() {
+    @Override
+    public JsonResponse decode(InputStream inputStream) throws IOException {
+      BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream));
+      StringBuilder stringBuilder = new StringBuilder();
+      String line = bufferedReader.readLine();
+      while (line != null) {
+        stringBuilder.append(line);
+        line = bufferedReader.readLine();
+      }
+      return new Gson().fromJson(stringBuilder.toString(), JsonResponse.class);
+    }
+  };
+
+  private static PageDecoder streaming() {
+    final JsonResponseDecoder decoder = new JsonResponseDecoder();
+    return new PageDecoder() {
+      @Override
+      public JsonResponse decode(InputStream inputStream) throws IOException {
+        return decoder.decode(inputStream);
+      }
+    };
+  }
+
+  // [bytes allocated per page, nanoseconds per page]
+  private static long[] measure(PageDecoder pageDecoder, byte[][] pages) throws IOException {
+    for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+      for (byte[] page : pages) {
+        pageDecoder.decode(new ByteArrayInputStream(page));
+      }
+    }
+    long allocatedBytes = Benchmarks.getAllocatedBytes();
+    long start = System.nanoTime();
+    for (int round = 0; round < MEASURED_ROUNDS; round++) {
+      for (byte[] page : pages) {
+        pageDecoder.decode(new ByteArrayInputStream(page));
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    long allocated = Benchmarks.getAllocatedBytes() - allocatedBytes;
+    int decodes = MEASURED_ROUNDS * pages.length;
+    return new long[]{allocated / decodes, elapsed / decodes};
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    Benchmarks.assumeEnabled();
+  }
+
+  @Test
+  public void streaming_allocatesLessPerPage() throws Exception {
+    byte[][] pages = new byte[MockAssets.PAGE_COUNT][];
+    long totalBytes = 0;
+    for (int page = 1; page <= MockAssets.PAGE_COUNT; page++) {
+      pages[page - 1] = Files.readAllBytes(MockAssets.getPageFile(page).toPath());
+      totalBytes += pages[page - 1].length;
+    }
+    long[] legacy = measure(LEGACY, pages);
+    long[] streaming = measure(streaming(), pages);
+    System.out.println(String.format("JSON decode, average page of %d bytes:", totalBytes / pages.length));
+    System.out.println(String.format("  readLine + new Gson: %8d bytes allocated, %6d us", legacy[0], legacy[1] / 1000));
+    System.out.println(String.format("  streaming decoder:   %8d bytes allocated, %6d us", streaming[0], streaming[1] / 1000));
+    assertTrue(streaming[0] < legacy[0]);
+  }
+
+}
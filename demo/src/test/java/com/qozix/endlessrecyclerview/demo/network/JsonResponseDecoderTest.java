@@ -0,0 +1,84 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import com.qozix.endlessrecyclerview.demo.models.JsonResponse;
+import com.qozix.endlessrecyclerview.demo.models.MediaItem;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+public class JsonResponseDecoderTest {
+
+  private static void assertPagesEqual(JsonResponse expected, JsonResponse actual) {
+    assertEquals(expected.total, actual.total);
+    assertEquals(expected.page, actual.page);
+    assertEquals(expected.results.size(), actual.results.size());
+    for (int i = 0; i < expected.results.size(); i++) {
+      MediaItem expectedItem = expected.results.get(i);
+      MediaItem actualItem = actual.results.get(i);
+      assertEquals(expectedItem.title, actualItem.title);
+      assertEquals(expectedItem.cover_url, actualItem.cover_url);
+      assertEquals(expectedItem.format, actualItem.format);
+      assertEquals(expectedItem.authors, actualItem.authors);
+    }
+  }
+
+  // hands out a byte at a time, so multi-byte characters are always split across reads
+  private static class TrickleInputStream extends FilterInputStream {
+    TrickleInputStream(InputStream inputStream) {
+      super(inputStream);
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      return super.read(buffer, offset, Math.min(1, length));
+    }
+  }
+
+  @Test
+  public void decode_matchesGsonForEveryPage() throws Exception {
+    JsonResponseDecoder decoder = new JsonResponseDecoder();
+    for (int page = 1; page <= MockAssets.PAGE_COUNT; page++) {
+      InputStream inputStream = MockAssets.openPage(page);
+      try {
+        assertPagesEqual(MockAssets.readPage(page), decoder.decode(inputStream));
+      } finally {
+        inputStream.close();
+      }
+    }
+  }
+
+  @Test
+  public void decode_handlesCharactersSplitAcrossReads() throws Exception {
+    String json = "{\"page\":2,\"total\":40,\"results\":[{\"title\":\"Caf\u00e9 \u2603 \ud83d\udcda\",\"authors\":[\"M\u00fcller\"],"
+      + "\"format\":null,\"ignored\":{\"nested\":[1,2,3]}}],\"facets\":{}}";
+    InputStream inputStream = new TrickleInputStream(new ByteArrayInputStream(json.getBytes("UTF-8")));
+    JsonResponse jsonResponse = new JsonResponseDecoder().decode(inputStream);
+    assertEquals(2, jsonResponse.page);
+    assertEquals(40, jsonResponse.total);
+    MediaItem mediaItem = jsonResponse.results.get(0);
+    assertEquals("Caf\u00e9 \u2603 \ud83d\udcda", mediaItem.title);
+    assertEquals("M\u00fcller", mediaItem.authors.get(0));
+    assertNull(mediaItem.format);
+    assertNull(mediaItem.cover_url);
+  }
+
+  @Test
+  public void decoder_isReusable() throws Exception {
+    JsonResponseDecoder decoder = new JsonResponseDecoder();
+    for (int round = 0; round < 3; round++) {
+      InputStream inputStream = MockAssets.openPage(2);
+      try {
+        assertPagesEqual(MockAssets.readPage(2), decoder.decode(inputStream));
+      } finally {
+        inputStream.close();
+      }
+    }
+  }
+
+}
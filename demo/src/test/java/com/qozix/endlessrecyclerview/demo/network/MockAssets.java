@@ -0,0 +1,56 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import com.google.gson.Gson;
+import com.qozix.endlessrecyclerview.demo.models.JsonResponse;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * Reads the bundled mock responses straight from the source tree, so tests can run offline on the JVM.
+ */
+public class MockAssets {
+
+  public static final int PAGE_COUNT = 10;
+
+  private static final String[] ASSET_DIRECTORIES = {"src/main/assets", "demo/src/main/assets"};
+
+  private MockAssets() {
+  }
+
+  public static File getAssetFile(String fileName) {
+    for (String directory : ASSET_DIRECTORIES) {
+      File file = new File(directory, fileName);
+      if (file.exists()) {
+        return file;
+      }
+    }
+    throw new IllegalStateException("Can't find asset " + fileName + " from " + new File("").getAbsolutePath());
+  }
+
+  public static File getPageFile(int page) {
+    return getAssetFile("json/mock-search-" + page + ".json");
+  }
+
+  public static File getBinaryPageFile(int page) {
+    return getAssetFile("pages/mock-search-" + page + ".page");
+  }
+
+  public static InputStream openPage(int page) throws IOException {
+    return new FileInputStream(getPageFile(page));
+  }
+
+  public static JsonResponse readPage(int page) throws IOException {
+    Reader reader = new InputStreamReader(openPage(page), "UTF-8");
+    try {
+      return new Gson().fromJson(reader, JsonResponse.class);
+    } finally {
+      reader.close();
+    }
+  }
+
+}
@@ -0,0 +1,55 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import com.qozix.endlessrecyclerview.demo.models.MediaItem;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PageCodecTest {
+
+  private static byte[] write(MediaItem... mediaItems) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream dataOutputStream = new DataOutputStream(bytes);
+    for (MediaItem mediaItem : mediaItems) {
+      PageCodec.writeMediaItem(dataOutputStream, mediaItem);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Test
+  public void mediaItems_surviveBeingWrittenAndRead() throws Exception {
+    MediaItem full = new MediaItem();
+    full.title = "\u00dcn\u00efcode \u2603";
+    full.cover_url = "http://example.com/cover.png";
+    full.format = "video";
+    full.authors = Arrays.asList("Author A", null, "Author B");
+    MediaItem empty = new MediaItem();
+    DataInputStream dataInputStream = new DataInputStream(new ByteArrayInputStream(write(full, empty)));
+    MediaItem readFull = PageCodec.readMediaItem(dataInputStream);
+    MediaItem readEmpty = PageCodec.readMediaItem(dataInputStream);
+    assertEquals(full.title, readFull.title);
+    assertEquals(full.cover_url, readFull.cover_url);
+    assertEquals(full.format, readFull.format);
+    assertEquals(full.authors, readFull.authors);
+    assertNull(readEmpty.title);
+    assertNull(readEmpty.authors);
+    assertEquals(-1, dataInputStream.read());
+  }
+
+  @Test(expected = IOException.class)
+  public void truncatedMediaItems_areRejected() throws Exception {
+    MediaItem mediaItem = new MediaItem();
+    mediaItem.title = "title";
+    byte[] bytes = write(mediaItem);
+    PageCodec.readMediaItem(new DataInputStream(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 2))));
+  }
+
+}
@@ -0,0 +1,141 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import com.google.gson.Gson;
+import com.qozix.endlessrecyclerview.demo.Benchmarks;
+import com.qozix.endlessrecyclerview.demo.models.JsonResponse;
+import com.qozix.endlessrecyclerview.demo.models.MediaItem;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares decoding the bundled pages from JSON, with Gson and with the streaming decoder, against reading their binary
+ * conversions, reporting bytes allocated and time taken per page both to decode the whole page and to get its first
+ * record, which is what the first frame after a page arrives needs.  Numbers are from the desktop JVM, so they're only
+ * indicative of what ART will see, but the differences in allocation are structural.  Only runs when benchmarks are
+ * asked for; see {@link Benchmarks}.
+ */
+public class PageDecodeBenchmarkTest {
+
+  private static final int WARM_UP_ROUNDS = 20;
+  private static final int MEASURED_ROUNDS = 50;
+
+  private interface PageDecoder {
+    // returns the first record, so nothing can be optimized away
+    MediaItem decode(byte[] page, boolean isFirstRecordOnly) throws IOException;
+  }
+
+  private static final PageDecoder GSON = new PageDecoder() {
+    private final Gson mGson = new Gson();
+
+    @Override
+    public MediaItem decode(byte[] page, boolean isFirstRecordOnly) throws IOException {
+      return mGson.fromJson(new InputStreamReader(new ByteArrayInputStream(page), "UTF-8"), JsonResponse.class).results.get(0);
+    }
+  };
+
+  private static final PageDecoder STREAMING = new PageDecoder() {
+    private final JsonResponseDecoder mJsonResponseDecoder = new JsonResponseDecoder();
+
+    @Override
+    public MediaItem decode(byte[] page, boolean isFirstRecordOnly) throws IOException {
+      return mJsonResponseDecoder.decode(new ByteArrayInputStream(page)).results.get(0);
+    }
+  };
+
+  private static final PageDecoder BINARY = new PageDecoder() {
+    @Override
+    public MediaItem decode(byte[] page, boolean isFirstRecordOnly) throws IOException {
+      ByteBuffer byteBuffer = ByteBuffer.wrap(page);
+      if (isFirstRecordOnly) {
+        return new PageReader(byteBuffer).getMediaItem(0);
+      }
+      return PageCodec.decode(byteBuffer).results.get(0);
+    }
+  };
+
+  // [bytes allocated per page, nanoseconds per page]
+  private static long[] measure(PageDecoder pageDecoder, byte[][] pages, boolean isFirstRecordOnly) throws IOException {
+    for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+      for (byte[] page : pages) {
+        pageDecoder.decode(page, isFirstRecordOnly);
+      }
+    }
+    long allocatedBytes = Benchmarks.getAllocatedBytes();
+    long start = System.nanoTime();
+    for (int round = 0; round < MEASURED_ROUNDS; round++) {
+      for (byte[] page : pages) {
+        pageDecoder.decode(page, isFirstRecordOnly);
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    long allocated = Benchmarks.getAllocatedBytes() - allocatedBytes;
+    int decodes = MEASURED_ROUNDS * pages.length;
+    return new long[]{allocated / decodes, elapsed / decodes};
+  }
+
+  // the first page decoded by each path, before anything's warmed up, as at startup
+  private static long measureCold(PageDecoder pageDecoder, byte[] page) throws IOException {
+    long start = System.nanoTime();
+    pageDecoder.decode(page, true);
+    return System.nanoTime() - start;
+  }
+
+  private static byte[][] readPages(boolean isBinary) throws IOException {
+    byte[][] pages = new byte[MockAssets.PAGE_COUNT][];
+    for (int page = 1; page <= MockAssets.PAGE_COUNT; page++) {
+      pages[page - 1] = Files.readAllBytes((isBinary ? MockAssets.getBinaryPageFile(page) : MockAssets.getPageFile(page)).toPath());
+    }
+    return pages;
+  }
+
+  private static long getAverageLength(byte[][] pages) {
+    long totalBytes = 0;
+    for (byte[] page : pages) {
+      totalBytes += page.length;
+    }
+    return totalBytes / pages.length;
+  }
+
+  private static void report(String name, long cold, long[] page, long[] firstRecord) {
+    System.out.println(String.format("  %-10s %6d us cold, %8d bytes %6d us per page, %8d bytes %6d us to first record",
+      name, cold / 1000, page[0], page[1] / 1000, firstRecord[0], firstRecord[1] / 1000));
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    Benchmarks.assumeEnabled();
+  }
+
+  @Test
+  public void binary_allocatesLessPerPage() throws Exception {
+    byte[][] jsonPages = readPages(false);
+    byte[][] binaryPages = readPages(true);
+    long binaryCold = measureCold(BINARY, binaryPages[0]);
+    long streamingCold = measureCold(STREAMING, jsonPages[0]);
+    long gsonCold = measureCold(GSON, jsonPages[0]);
+    long[] gson = measure(GSON, jsonPages, false);
+    long[] streaming = measure(STREAMING, jsonPages, false);
+    long[] binary = measure(BINARY, binaryPages, false);
+    long[] gsonFirstRecord = measure(GSON, jsonPages, true);
+    long[] streamingFirstRecord = measure(STREAMING, jsonPages, true);
+    long[] binaryFirstRecord = measure(BINARY, binaryPages, true);
+    System.out.println(String.format("Page decode, average page of %d bytes of JSON, %d bytes binary:",
+      getAverageLength(jsonPages), getAverageLength(binaryPages)));
+    report("Gson", gsonCold, gson, gsonFirstRecord);
+    report("streaming", streamingCold, streaming, streamingFirstRecord);
+    report("binary", binaryCold, binary, binaryFirstRecord);
+    assertTrue(binary[0] < gson[0]);
+    assertTrue(binary[0] < streaming[0]);
+    assertTrue(binaryFirstRecord[0] < binary[0]);
+  }
+
+}
@@ -0,0 +1,232 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PageFetcherTest {
+
+  private ManualExecutor mWorkerExecutor;
+  private ManualExecutor mCallbackExecutor;
+  private List<Integer> mLoadedPages;
+  private PageFetcher<String> mPageFetcher;
+
+  @Before
+  public void setUp() throws Exception {
+    mWorkerExecutor = new ManualExecutor();
+    mCallbackExecutor = new ManualExecutor();
+    mLoadedPages = new ArrayList<>();
+    mPageFetcher = new PageFetcher<>(mWorkerExecutor, mCallbackExecutor, new PageFetcher.Loader<String>() {
+      @Override
+      public String load(int page) {
+        mLoadedPages.add(page);
+        return page < 0 ? null : "page " + page;
+      }
+    });
+  }
+
+  // runs everything queued on the worker, then everything it delivered
+  private void runAll() {
+    mWorkerExecutor.runAll();
+    mCallbackExecutor.runAll();
+  }
+
+  @Test
+  public void fetch_deliversThePageAsked() throws Exception {
+    RecordingCallback callback = new RecordingCallback();
+    mPageFetcher.fetch(7, callback);
+    mPageFetcher.fetch(3, callback);
+    assertTrue(mPageFetcher.isFetching(7));
+    assertEquals(2, mPageFetcher.getInFlightCount());
+    runAll();
+    assertEquals("[7: page 7, 3: page 3]", callback.results.toString());
+    assertFalse(mPageFetcher.isFetching(7));
+    assertEquals(0, mPageFetcher.getInFlightCount());
+  }
+
+  @Test
+  public void requestsInFlight_areMerged() throws Exception {
+    RecordingCallback first = new RecordingCallback();
+    RecordingCallback second = new RecordingCallback();
+    mPageFetcher.fetch(2, first);
+    mPageFetcher.fetch(2, second);
+    assertEquals(1, mWorkerExecutor.size());
+    runAll();
+    assertEquals("[2]", mLoadedPages.toString());
+    assertEquals("[2: page 2]", first.results.toString());
+    assertEquals("[2: page 2]", second.results.toString());
+    assertEquals(1, mPageFetcher.getLoadCount());
+  }
+
+  @Test
+  public void completedPages_areFetchedAgain() throws Exception {
+    RecordingCallback callback = new RecordingCallback();
+    mPageFetcher.fetch(2, callback);
+    runAll();
+    mPageFetcher.fetch(2, callback);
+    runAll();
+    assertEquals("[2, 2]", mLoadedPages.toString());
+  }
+
+  @Test
+  public void cancel_stopsDeliveryToThatRequestOnly() throws Exception {
+    RecordingCallback first = new RecordingCallback();
+    RecordingCallback second = new RecordingCallback();
+    PageFetcher<String>.Request request = mPageFetcher.fetch(4, first);
+    mPageFetcher.fetch(4, second);
+    request.cancel();
+    assertTrue(mPageFetcher.isFetching(4));
+    runAll();
+    assertTrue(first.results.isEmpty());
+    assertEquals("[4: page 4]", second.results.toString());
+  }
+
+  @Test
+  public void cancellingEveryRequest_skipsTheLoad() throws Exception {
+    RecordingCallback callback = new RecordingCallback();
+    PageFetcher<String>.Request request = mPageFetcher.fetch(5, callback);
+    request.cancel();
+    assertFalse(mPageFetcher.isFetching(5));
+    runAll();
+    assertTrue(mLoadedPages.isEmpty());
+    assertTrue(callback.results.isEmpty());
+    assertEquals(0, mPageFetcher.getLoadCount());
+  }
+
+  @Test
+  public void fetchAfterCancel_isntDeliveredTheCancelledResult() throws Exception {
+    RecordingCallback first = new RecordingCallback();
+    RecordingCallback second = new RecordingCallback();
+    PageFetcher<String>.Request request = mPageFetcher.fetch(6, first);
+    // the first load has started by the time it's cancelled
+    mWorkerExecutor.runAll();
+    request.cancel();
+    mPageFetcher.fetch(6, second);
+    runAll();
+    assertTrue(first.results.isEmpty());
+    assertEquals("[6: page 6]", second.results.toString());
+    assertEquals("[6, 6]", mLoadedPages.toString());
+  }
+
+  @Test
+  public void cancelAll_dropsEverything() throws Exception {
+    RecordingCallback callback = new RecordingCallback();
+    mPageFetcher.fetch(1, callback);
+    mPageFetcher.fetch(2, callback);
+    mPageFetcher.cancelAll();
+    assertEquals(0, mPageFetcher.getInFlightCount());
+    runAll();
+    assertTrue(callback.results.isEmpty());
+    assertTrue(mLoadedPages.isEmpty());
+  }
+
+  @Test
+  public void failures_areDeliveredAsNull() throws Exception {
+    RecordingCallback callback = new RecordingCallback();
+    mPageFetcher.fetch(-1, callback);
+    runAll();
+    assertEquals("[-1: null]", callback.results.toString());
+  }
+
+  @Test
+  public void callbacks_canFetchAgain() throws Exception {
+    final RecordingCallback callback = new RecordingCallback();
+    mPageFetcher.fetch(1, new PageFetcher.Callback<String>() {
+      @Override
+      public void onPageFetched(int page, String result) {
+        mPageFetcher.fetch(page + 1, callback);
+      }
+    });
+    runAll();
+    runAll();
+    assertEquals("[2: page 2]", callback.results.toString());
+  }
+
+  @Test
+  public void threads_areBoundedByTheExecutor() throws Exception {
+    final int threadCount = 3;
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger mostRunning = new AtomicInteger();
+    final CountDownLatch loaded = new CountDownLatch(20);
+    ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+    PageFetcher<String> pageFetcher = new PageFetcher<>(executorService, mCallbackExecutor, new PageFetcher.Loader<String>() {
+      @Override
+      public String load(int page) {
+        int now = running.incrementAndGet();
+        while (true) {
+          int most = mostRunning.get();
+          if (now <= most || mostRunning.compareAndSet(most, now)) {
+            break;
+          }
+        }
+        try {
+          Thread.sleep(5);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        running.decrementAndGet();
+        loaded.countDown();
+        return "page " + page;
+      }
+    });
+    RecordingCallback callback = new RecordingCallback();
+    for (int page = 0; page < 20; page++) {
+      pageFetcher.fetch(page, callback);
+    }
+    assertTrue(loaded.await(10, TimeUnit.SECONDS));
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+    mCallbackExecutor.runAll();
+    assertEquals(20, callback.results.size());
+    assertTrue(mostRunning.get() <= threadCount);
+  }
+
+  // queues runnables until told to run them, from any thread
+  private static class ManualExecutor implements Executor {
+    private final Queue<Runnable> mRunnables = new ArrayDeque<>();
+
+    @Override
+    public synchronized void execute(Runnable runnable) {
+      mRunnables.add(runnable);
+    }
+
+    synchronized int size() {
+      return mRunnables.size();
+    }
+
+    void runAll() {
+      while (true) {
+        Runnable runnable;
+        synchronized (this) {
+          runnable = mRunnables.poll();
+        }
+        if (runnable == null) {
+          return;
+        }
+        runnable.run();
+      }
+    }
+  }
+
+  private static class RecordingCallback implements PageFetcher.Callback<String> {
+    final List<String> results = new ArrayList<>();
+
+    @Override
+    public void onPageFetched(int page, String result) {
+      results.add(page + ": " + result);
+    }
+  }
+
+}
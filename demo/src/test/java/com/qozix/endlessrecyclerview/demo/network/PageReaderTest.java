@@ -0,0 +1,160 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import com.qozix.endlessrecyclerview.demo.models.JsonResponse;
+import com.qozix.endlessrecyclerview.demo.models.MediaItem;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PageReaderTest {
+
+  private static MediaItem createMediaItem(String title, String format, String... authors) {
+    MediaItem mediaItem = new MediaItem();
+    mediaItem.title = title;
+    mediaItem.cover_url = title == null ? null : "http://example.com/" + title + ".png";
+    mediaItem.format = format;
+    mediaItem.authors = authors == null ? null : Arrays.asList(authors);
+    return mediaItem;
+  }
+
+  private static JsonResponse createJsonResponse(MediaItem... mediaItems) {
+    JsonResponse jsonResponse = new JsonResponse();
+    jsonResponse.total = 1234;
+    jsonResponse.page = 3;
+    jsonResponse.results = new ArrayList<>(Arrays.asList(mediaItems));
+    return jsonResponse;
+  }
+
+  private static void assertSameMediaItem(MediaItem expected, MediaItem actual) {
+    assertEquals(expected.title, actual.title);
+    assertEquals(expected.cover_url, actual.cover_url);
+    assertEquals(expected.format, actual.format);
+    assertEquals(expected.authors, actual.authors);
+  }
+
+  private static void assertSameJsonResponse(JsonResponse expected, JsonResponse actual) {
+    assertEquals(expected.total, actual.total);
+    assertEquals(expected.page, actual.page);
+    assertEquals(expected.results.size(), actual.results.size());
+    for (int i = 0; i < expected.results.size(); i++) {
+      assertSameMediaItem(expected.results.get(i), actual.results.get(i));
+    }
+  }
+
+  @Test
+  public void pages_surviveBeingEncodedAndDecoded() throws Exception {
+    JsonResponse jsonResponse = createJsonResponse(
+      createMediaItem("\u00dcn\u00efcode \u2603", "book", "Author A", null, "Author B"),
+      createMediaItem(null, null, (String[]) null),
+      createMediaItem("empty", "video"));
+    ByteBuffer byteBuffer = ByteBuffer.wrap(PageCodec.encode(jsonResponse));
+    assertSameJsonResponse(jsonResponse, PageCodec.decode(byteBuffer));
+    assertFalse(byteBuffer.hasRemaining());
+  }
+
+  @Test
+  public void emptyPages_surviveBeingEncodedAndDecoded() throws Exception {
+    JsonResponse jsonResponse = createJsonResponse();
+    PageReader pageReader = new PageReader(ByteBuffer.wrap(PageCodec.encode(jsonResponse)));
+    assertEquals(0, pageReader.getRecordCount());
+    assertEquals(1234, pageReader.getTotal());
+    assertEquals(3, pageReader.getPage());
+    assertTrue(pageReader.asList().isEmpty());
+  }
+
+  @Test
+  public void records_areDecodedWhenFirstAskedForOnly() throws Exception {
+    JsonResponse jsonResponse = createJsonResponse(
+      createMediaItem("first", "book", "Author"),
+      createMediaItem("second", "book", "Author"));
+    PageReader pageReader = new PageReader(ByteBuffer.wrap(PageCodec.encode(jsonResponse)));
+    MediaItem second = pageReader.getMediaItem(1);
+    assertSameMediaItem(jsonResponse.results.get(1), second);
+    assertSame(second, pageReader.getMediaItem(1));
+    assertSame(second, pageReader.asList().get(1));
+    // strings shared between records are decoded once
+    assertSame(second.format, pageReader.getMediaItem(0).format);
+    assertSame(second.authors.get(0), pageReader.getMediaItem(0).authors.get(0));
+  }
+
+  @Test
+  public void strings_areStoredOncePerPage() throws Exception {
+    JsonResponse jsonResponse = createJsonResponse(
+      createMediaItem("a", "book", "Author", "Other"),
+      createMediaItem("b", "book", "Author"),
+      createMediaItem("c", "book", "Other"));
+    PageReader pageReader = new PageReader(ByteBuffer.wrap(PageCodec.encode(jsonResponse)));
+    // three titles, three urls, one format, two authors
+    assertEquals(9, pageReader.getStringCount());
+  }
+
+  @Test
+  public void pagesAfterOthers_areReadFromTheBuffersPosition() throws Exception {
+    byte[] first = PageCodec.encode(createJsonResponse(createMediaItem("first", "book")));
+    byte[] second = PageCodec.encode(createJsonResponse(createMediaItem("second", "book")));
+    ByteBuffer byteBuffer = ByteBuffer.allocate(first.length + second.length);
+    byteBuffer.put(first).put(second).flip();
+    assertEquals("first", PageCodec.decode(byteBuffer).results.get(0).title);
+    assertEquals("second", PageCodec.decode(byteBuffer).results.get(0).title);
+    assertFalse(byteBuffer.hasRemaining());
+  }
+
+  @Test(expected = IOException.class)
+  public void otherData_isRejected() throws Exception {
+    byte[] bytes = PageCodec.encode(createJsonResponse(createMediaItem("title", "book")));
+    bytes[0] ^= 1;
+    new PageReader(ByteBuffer.wrap(bytes));
+  }
+
+  @Test(expected = IOException.class)
+  public void otherVersions_areRejected() throws Exception {
+    byte[] bytes = PageCodec.encode(createJsonResponse(createMediaItem("title", "book")));
+    ByteBuffer.wrap(bytes).putInt(4, PageCodec.VERSION + 1);
+    new PageReader(ByteBuffer.wrap(bytes));
+  }
+
+  @Test
+  public void truncatedPages_areRejected() throws Exception {
+    byte[] bytes = PageCodec.encode(createJsonResponse(createMediaItem("title", "book", "Author")));
+    for (int length = 0; length < bytes.length; length++) {
+      try {
+        new PageReader(ByteBuffer.wrap(Arrays.copyOf(bytes, length)));
+        fail("Page of " + length + " bytes was accepted");
+      } catch (IOException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void offsetsOutOfBounds_areRejected() throws Exception {
+    byte[] bytes = PageCodec.encode(createJsonResponse(createMediaItem("title", "book")));
+    ByteBuffer.wrap(bytes).putInt(PageCodec.HEADER_SIZE, bytes.length - 2);
+    new PageReader(ByteBuffer.wrap(bytes));
+  }
+
+  @Test
+  public void mockPages_matchTheirConversions() throws Exception {
+    for (int page = 1; page <= MockAssets.PAGE_COUNT; page++) {
+      byte[] converted;
+      InputStream inputStream = MockAssets.openPage(page);
+      try {
+        converted = PageConverter.convert(inputStream);
+      } finally {
+        inputStream.close();
+      }
+      byte[] bundled = Files.readAllBytes(MockAssets.getBinaryPageFile(page).toPath());
+      assertArrayEquals("Page " + page + " is out of date; run PageConverter", converted, bundled);
+      assertSameJsonResponse(MockAssets.readPage(page), PageCodec.decode(ByteBuffer.wrap(bundled)));
+    }
+  }
+
+}
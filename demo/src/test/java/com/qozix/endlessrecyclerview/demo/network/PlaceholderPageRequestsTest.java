@@ -0,0 +1,173 @@
+package com.qozix.endlessrecyclerview.demo.network;
+
+import com.qozix.widget.PlaceholderSlots;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class PlaceholderPageRequestsTest {
+
+  private static final int PAGE_SIZE = 10;
+
+  private ManualExecutor mWorkerExecutor;
+  private ManualExecutor mCallbackExecutor;
+  private List<Integer> mLoadedPages;
+  private Set<Integer> mFailingPages;
+  private List<String> mDelivered;
+  private PlaceholderSlots mPlaceholderSlots;
+  private PlaceholderPageRequests<String> mPlaceholderPageRequests;
+  private int mItemCount;
+  private int mReleased;
+
+  @Before
+  public void setUp() throws Exception {
+    mWorkerExecutor = new ManualExecutor();
+    mCallbackExecutor = new ManualExecutor();
+    mLoadedPages = new ArrayList<>();
+    mFailingPages = new HashSet<>();
+    mDelivered = new ArrayList<>();
+    mPlaceholderSlots = new PlaceholderSlots();
+    PageFetcher<String> pageFetcher = new PageFetcher<>(mWorkerExecutor, mCallbackExecutor, new PageFetcher.Loader<String>() {
+      @Override
+      public String load(int page) {
+        mLoadedPages.add(page);
+        return mFailingPages.contains(page) ? null : "page " + page;
+      }
+    });
+    mPlaceholderPageRequests = new PlaceholderPageRequests<>(pageFetcher, mPlaceholderSlots, PAGE_SIZE, new PageFetcher.Callback<String>() {
+      @Override
+      public void onPageFetched(int page, String result) {
+        if (result == null) {
+          mReleased += mPlaceholderPageRequests.onPageFailed(page, mItemCount);
+          return;
+        }
+        mPlaceholderPageRequests.onPageLoaded(page);
+        mPlaceholderSlots.resolve(page * PAGE_SIZE, Math.min(PAGE_SIZE, mItemCount - page * PAGE_SIZE));
+        mDelivered.add(result);
+      }
+    });
+  }
+
+  private void reserve(int quantity) {
+    mPlaceholderSlots.reserve(mItemCount, quantity);
+    mItemCount += quantity;
+  }
+
+  private void runAll() {
+    mWorkerExecutor.runAll();
+    mCallbackExecutor.runAll();
+  }
+
+  @Test
+  public void fetch_requestsEachPageWithPlaceholdersOnce() throws Exception {
+    reserve(15);
+    assertEquals(0, mPlaceholderPageRequests.fetch(mItemCount));
+    assertTrue(mPlaceholderPageRequests.isRequested(0));
+    assertTrue(mPlaceholderPageRequests.isRequested(1));
+    mPlaceholderPageRequests.fetch(mItemCount);
+    runAll();
+    assertEquals("[0, 1]", mLoadedPages.toString());
+    assertEquals("[page 0, page 1]", mDelivered.toString());
+    assertFalse(mPlaceholderPageRequests.isRequested(0));
+    assertTrue(mPlaceholderSlots.isEmpty());
+  }
+
+  @Test
+  public void failedPage_releasesItsPlaceholdersAndIsFetchedAgain() throws Exception {
+    reserve(15);
+    mFailingPages.add(1);
+    mPlaceholderPageRequests.fetch(mItemCount);
+    runAll();
+    // page 1's five placeholders stay, but are no longer pending
+    assertEquals(5, mReleased);
+    assertTrue(mPlaceholderPageRequests.isFailed(1));
+    assertFalse(mPlaceholderPageRequests.isRequested(1));
+    assertEquals(5, mPlaceholderSlots.size());
+    mFailingPages.clear();
+    // the next fetch asks for the failed page again, and they're pending once more
+    assertEquals(5, mPlaceholderPageRequests.fetch(mItemCount));
+    assertFalse(mPlaceholderPageRequests.isFailed(1));
+    runAll();
+    assertEquals("[0, 1, 1]", mLoadedPages.toString());
+    assertEquals("[page 0, page 1]", mDelivered.toString());
+    assertTrue(mPlaceholderSlots.isEmpty());
+  }
+
+  @Test
+  public void failedPage_isRetriedWithGrowingDelays() throws Exception {
+    reserve(10);
+    mFailingPages.add(0);
+    assertEquals(0, mPlaceholderPageRequests.getRetryDelay(0));
+    mPlaceholderPageRequests.fetch(mItemCount);
+    runAll();
+    assertEquals(PlaceholderPageRequests.FIRST_RETRY_DELAY, mPlaceholderPageRequests.getRetryDelay(0));
+    // retried directly, without a fetch for a fill
+    assertEquals(10, mPlaceholderPageRequests.retry(0, mItemCount));
+    assertEquals(0, mPlaceholderPageRequests.retry(0, mItemCount));
+    runAll();
+    assertEquals(PlaceholderPageRequests.FIRST_RETRY_DELAY * 2, mPlaceholderPageRequests.getRetryDelay(0));
+    for (int i = 0; i < 10; i++) {
+      mPlaceholderPageRequests.retry(0, mItemCount);
+      runAll();
+    }
+    assertEquals(PlaceholderPageRequests.MAX_RETRY_DELAY, mPlaceholderPageRequests.getRetryDelay(0));
+    mFailingPages.clear();
+    mPlaceholderPageRequests.retry(0, mItemCount);
+    runAll();
+    assertEquals("[page 0]", mDelivered.toString());
+    assertEquals(0, mPlaceholderPageRequests.getRetryDelay(0));
+    assertEquals(0, mPlaceholderPageRequests.retry(0, mItemCount));
+  }
+
+  @Test
+  public void pagesWithoutPlaceholders_areDropped() throws Exception {
+    reserve(25);
+    mFailingPages.add(2);
+    mPlaceholderPageRequests.fetch(mItemCount);
+    runAll();
+    assertTrue(mPlaceholderPageRequests.isFailed(2));
+    // the failed page is truncated, then another page is truncated while on its way
+    mPlaceholderSlots.onItemRangeRemoved(20, 5);
+    mItemCount = 20;
+    mPlaceholderPageRequests.retainPagesWithPlaceholders(mItemCount);
+    assertFalse(mPlaceholderPageRequests.isFailed(2));
+    reserve(10);
+    mPlaceholderPageRequests.fetch(mItemCount);
+    assertTrue(mPlaceholderPageRequests.isRequested(2));
+    mPlaceholderSlots.onItemRangeRemoved(20, 10);
+    mItemCount = 20;
+    mPlaceholderPageRequests.retainPagesWithPlaceholders(mItemCount);
+    assertFalse(mPlaceholderPageRequests.isRequested(2));
+    runAll();
+    assertEquals("[0, 1, 2]", mLoadedPages.toString());
+    assertEquals(0, mPlaceholderPageRequests.fetch(mItemCount));
+  }
+
+  // queues runnables until told to run them
+  private static class ManualExecutor implements Executor {
+    private final Queue<Runnable> mRunnables = new ArrayDeque<>();
+
+    @Override
+    public void execute(Runnable runnable) {
+      mRunnables.add(runnable);
+    }
+
+    void runAll() {
+      Runnable runnable;
+      while ((runnable = mRunnables.poll()) != null) {
+        runnable.run();
+      }
+    }
+  }
+
+}
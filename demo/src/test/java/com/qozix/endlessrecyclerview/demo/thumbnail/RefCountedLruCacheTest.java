@@ -0,0 +1,113 @@
+package com.qozix.endlessrecyclerview.demo.thumbnail;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RefCountedLruCacheTest {
+
+  private RefCountedLruCache<String, String> mCache;
+  private List<String> mReleased = new ArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    // weighs each value by its length
+    mCache = new RefCountedLruCache<>(10, new RefCountedLruCache.Weigher<String>() {
+      @Override
+      public long weigh(String value) {
+        return value.length();
+      }
+    });
+    mCache.setOnReleasedListener(new RefCountedLruCache.OnReleasedListener<String>() {
+      @Override
+      public void onReleased(String value) {
+        mReleased.add(value);
+      }
+    });
+  }
+
+  @Test
+  public void leastRecentlyUsed_isEvictedFirst() throws Exception {
+    String a = "aaaa";
+    String b = "bbbb";
+    String c = "cccc";
+    mCache.put("a", a);
+    mCache.put("b", b);
+    assertSame(a, mCache.get("a"));
+    mCache.put("c", c);
+    assertNull(mCache.get("b"));
+    assertSame(a, mCache.get("a"));
+    assertEquals(8, mCache.getWeight());
+    assertEquals(1, mReleased.size());
+    assertSame(b, mReleased.get(0));
+  }
+
+  @Test
+  public void referencedValues_areReleasedOnlyOnceUnreferenced() throws Exception {
+    String a = "aaaaaa";
+    mCache.put("a", a);
+    mCache.acquire("a", a);
+    mCache.acquire("a", a);
+    mCache.put("b", "bbbbbb");
+    // evicted, but still in use
+    assertNull(mCache.get("a"));
+    assertTrue(mReleased.isEmpty());
+    mCache.release(a);
+    assertTrue(mReleased.isEmpty());
+    mCache.release(a);
+    assertEquals(1, mReleased.size());
+    assertSame(a, mReleased.get(0));
+    assertEquals(0, mCache.getReferenceCount(a));
+  }
+
+  @Test
+  public void unreferencedCachedValues_arentReleased() throws Exception {
+    String a = "aaaa";
+    mCache.put("a", a);
+    mCache.acquire("a", a);
+    mCache.release(a);
+    assertTrue(mReleased.isEmpty());
+    assertSame(a, mCache.get("a"));
+  }
+
+  @Test
+  public void acquiringBeforePut_protectsOversizedValues() throws Exception {
+    String big = "bigger than the cache";
+    mCache.acquire("big", big);
+    mCache.put("big", big);
+    assertEquals(0, mCache.size());
+    assertTrue(mReleased.isEmpty());
+    mCache.release(big);
+    assertEquals(1, mReleased.size());
+  }
+
+  @Test
+  public void replacing_releasesPreviousValue() throws Exception {
+    String first = "one";
+    String second = "two";
+    mCache.put("k", first);
+    mCache.put("k", second);
+    assertSame(second, mCache.get("k"));
+    assertEquals(3, mCache.getWeight());
+    assertSame(first, mReleased.get(0));
+  }
+
+  @Test
+  public void evictAll_keepsReferencedValues() throws Exception {
+    String a = "aa";
+    String b = "bb";
+    mCache.put("a", a);
+    mCache.put("b", b);
+    mCache.acquire("b", b);
+    mCache.evictAll();
+    assertEquals(0, mCache.size());
+    assertEquals(0, mCache.getWeight());
+    assertEquals(1, mReleased.size());
+    assertSame(a, mReleased.get(0));
+  }
+
+}
@@ -0,0 +1,46 @@
+package com.qozix.endlessrecyclerview.demo.thumbnail;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ThumbnailSizingTest {
+
+  @Test
+  public void buckets_arePowersOfTwoAndHalfwayBetween() throws Exception {
+    assertEquals(32, ThumbnailSizing.getBucketSize(1));
+    assertEquals(32, ThumbnailSizing.getBucketSize(32));
+    assertEquals(48, ThumbnailSizing.getBucketSize(33));
+    assertEquals(48, ThumbnailSizing.getBucketSize(48));
+    assertEquals(64, ThumbnailSizing.getBucketSize(49));
+    assertEquals(64, ThumbnailSizing.getBucketSize(64));
+    // 55dp and 72dp at xxhdpi
+    assertEquals(192, ThumbnailSizing.getBucketSize(165));
+    assertEquals(256, ThumbnailSizing.getBucketSize(216));
+  }
+
+  @Test
+  public void sampleSize_keepsBothDimensionsAtLeastTarget() throws Exception {
+    assertEquals(1, ThumbnailSizing.computeSampleSize(300, 400, 192, 256));
+    assertEquals(2, ThumbnailSizing.computeSampleSize(400, 600, 192, 256));
+    assertEquals(4, ThumbnailSizing.computeSampleSize(800, 1200, 192, 256));
+    assertEquals(8, ThumbnailSizing.computeSampleSize(1600, 2400, 192, 256));
+    // limited by the height
+    assertEquals(2, ThumbnailSizing.computeSampleSize(1600, 600, 192, 256));
+    assertEquals(1, ThumbnailSizing.computeSampleSize(100, 100, 192, 256));
+    assertEquals(1, ThumbnailSizing.computeSampleSize(1600, 2400, 0, 0));
+  }
+
+  @Test
+  public void decodedByteCount_roundsUp() throws Exception {
+    assertEquals(4 * 100 * 150, ThumbnailSizing.computeDecodedByteCount(200, 300, 2));
+    assertEquals(4 * 51 * 76, ThumbnailSizing.computeDecodedByteCount(201, 301, 4));
+  }
+
+  @Test
+  public void keys_includeBucket() throws Exception {
+    assertEquals("http://a/b.jpg#192x256", ThumbnailSizing.getKey("http://a/b.jpg", 192, 256));
+    assertNotEquals(ThumbnailSizing.getKey("u", 192, 256), ThumbnailSizing.getKey("u", 256, 192));
+  }
+
+}
@@ -0,0 +1,125 @@
+package com.qozix.widget;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of populating on each scroll event, and how closely the quantities requested match the items
+ * actually needed, for a vertical list of each {@link ItemSizeDistribution}.
+ *
+ * Run with ./gradlew :engine:jmh - the gc profiler is enabled in the build, so gc.alloc.rate.norm gives the bytes
+ * allocated per populate, which should be 0 once the engine has seen every view type.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class EndlessEngineBenchmark {
+
+  private static final int AXIS = EndlessEngine.AXIS_VERTICAL;
+  private static final int VIEWPORT_SIZE = 1920;
+  private static final int THRESHOLD = 1920;
+  // about what a fast fling moves per frame
+  private static final int SCROLL_STEP = 120;
+  private static final int SIZE_COUNT = 4096;
+  private static final int ITEM_LIMIT = 100000;
+
+  @Param({"CONSTANT", "BIMODAL", "LONG_TAIL"})
+  public ItemSizeDistribution distribution;
+
+  private SyntheticHost mHost;
+  private EndlessEngine mEndlessEngine;
+
+  /**
+   * How far off each fill was: items requested beyond those needed to meet the threshold, and items missing, which
+   * cost another fill on the next scroll event.  Divide each by fills for a per-fill figure.
+   */
+  @AuxCounters
+  @State(Scope.Thread)
+  public static class FillError {
+    public long fills;
+    public long excessItems;
+    public long missingItems;
+
+    @Setup(Level.Iteration)
+    public void clear() {
+      fills = 0;
+      excessItems = 0;
+      missingItems = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    mHost = new SyntheticHost(distribution.generate(SIZE_COUNT), VIEWPORT_SIZE);
+    mEndlessEngine = new EndlessEngine(mHost);
+    mHost.setEndlessEngine(mEndlessEngine);
+    mEndlessEngine.setThreshold(AXIS, THRESHOLD);
+    mEndlessEngine.populate(AXIS);
+  }
+
+  private void scroll() {
+    if (mHost.getItemCount() > ITEM_LIMIT) {
+      mHost.reset();
+    }
+    mHost.scrollBy(SCROLL_STEP);
+  }
+
+  /**
+   * A scroll event during a fling, which fills whenever the threshold is crossed.
+   *
+   * @return the item count, so the work isn't eliminated
+   */
+  @Benchmark
+  public int populateWhileScrolling() {
+    scroll();
+    mEndlessEngine.populate(AXIS);
+    return mHost.getItemCount();
+  }
+
+  /**
+   * A population request with the threshold already met - the common case, e.g. for layouts and small scrolls.
+   *
+   * @return the item count, so the work isn't eliminated
+   */
+  @Benchmark
+  public int populateWithThresholdMet() {
+    mEndlessEngine.populate(AXIS);
+    return mHost.getItemCount();
+  }
+
+  /**
+   * A scroll event during a fling, comparing the quantity computed with the quantity that was actually needed.
+   *
+   * @param fillError the fill error
+   * @return the item count, so the work isn't eliminated
+   */
+  @Benchmark
+  public int fillAccuracy(FillError fillError) {
+    scroll();
+    int space = mEndlessEngine.computeSpaceToMeetThreshold(AXIS);
+    if (space > 0) {
+      int quantity = mEndlessEngine.computeQuantityToFill(AXIS, space);
+      int firstPosition = mHost.getItemCount();
+      int needed = 0;
+      for (int filled = 0; filled < space; needed++) {
+        filled += mHost.getSize(firstPosition + needed);
+      }
+      fillError.fills++;
+      fillError.excessItems += Math.max(0, quantity - needed);
+      fillError.missingItems += Math.max(0, needed - quantity);
+      mHost.fill(AXIS, quantity);
+    }
+    return mHost.getItemCount();
+  }
+
+}
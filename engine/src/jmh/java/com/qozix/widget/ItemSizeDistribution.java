@@ -0,0 +1,58 @@
+package com.qozix.widget;
+
+import java.util.Random;
+
+/**
+ * Synthetic item sizes, in pixels, standing in for the kinds of lists seen in practice.
+ */
+public enum ItemSizeDistribution {
+
+  /**
+   * Every item is the same size, e.g., single-line rows.
+   */
+  CONSTANT {
+    @Override
+    int nextSize(Random random) {
+      return 144;
+    }
+  },
+
+  /**
+   * Mostly small items, with a large one about one time in ten, e.g., rows with an occasional ad or header.
+   */
+  BIMODAL {
+    @Override
+    int nextSize(Random random) {
+      return random.nextInt(10) == 0 ? 600 : 120;
+    }
+  },
+
+  /**
+   * Sizes spread around a typical row, with a long tail of very tall items, e.g., feeds with wrapped text and images.
+   */
+  LONG_TAIL {
+    @Override
+    int nextSize(Random random) {
+      double size = 100 * Math.exp(0.75 * random.nextGaussian());
+      return (int) Math.max(48, Math.min(2400, size));
+    }
+  };
+
+  abstract int nextSize(Random random);
+
+  /**
+   * Generate sizes from a fixed seed, so every run sees the same list.
+   *
+   * @param count the count
+   * @return the sizes
+   */
+  public int[] generate(int count) {
+    Random random = new Random(0x5EED);
+    int[] sizes = new int[count];
+    for (int i = 0; i < count; i++) {
+      sizes[i] = nextSize(random);
+    }
+    return sizes;
+  }
+
+}
@@ -0,0 +1,146 @@
+package com.qozix.widget;
+
+/**
+ * A vertical list of synthetic items, filled synchronously, that lays out and reports the size of each item as soon as
+ * it's added - roughly what an EndlessRecyclerView with an adapter serving local data looks like to the engine.
+ */
+public class SyntheticHost implements EndlessEngine.Host {
+
+  private final int[] mSizes;
+  private final int mViewportSize;
+  private EndlessEngine mEndlessEngine;
+  private int mScrollPosition;
+  private int mContentSize;
+  private int mItemCount;
+  private int mSampledCount;
+  private long mFilledCount;
+
+  /**
+   * Instantiates a new Synthetic host.  Sizes are reused from the start once the list grows past them.
+   *
+   * @param sizes        the item sizes
+   * @param viewportSize the viewport size
+   */
+  public SyntheticHost(int[] sizes, int viewportSize) {
+    mSizes = sizes;
+    mViewportSize = viewportSize;
+  }
+
+  public void setEndlessEngine(EndlessEngine endlessEngine) {
+    mEndlessEngine = endlessEngine;
+  }
+
+  /**
+   * Gets the size of the item at a position.
+   *
+   * @param position the position
+   * @return the size
+   */
+  public int getSize(int position) {
+    return mSizes[position % mSizes.length];
+  }
+
+  /**
+   * Scroll by a distance, as far as the content allows.
+   *
+   * @param distance the distance
+   */
+  public void scrollBy(int distance) {
+    mScrollPosition = Math.max(0, Math.min(mScrollPosition + distance, mContentSize - mViewportSize));
+  }
+
+  /**
+   * Empty the list and return to the top, keeping what the engine has learned.
+   */
+  public void reset() {
+    mScrollPosition = 0;
+    mContentSize = 0;
+    mItemCount = 0;
+    mSampledCount = 0;
+  }
+
+  /**
+   * Gets the total number of items filled since construction, across resets.
+   *
+   * @return the filled count
+   */
+  public long getFilledCount() {
+    return mFilledCount;
+  }
+
+  @Override
+  public int getScrollPosition(int axis) {
+    return mScrollPosition;
+  }
+
+  @Override
+  public int getViewportSize(int axis) {
+    return mViewportSize;
+  }
+
+  @Override
+  public int getContentSize(int axis) {
+    return mContentSize;
+  }
+
+  @Override
+  public int getSpanCount(int axis) {
+    return 1;
+  }
+
+  @Override
+  public int getItemCount() {
+    return mItemCount;
+  }
+
+  @Override
+  public int getPendingFillQuantity() {
+    return 0;
+  }
+
+  @Override
+  public int getPendingPlaceholderQuantity() {
+    return 0;
+  }
+
+  @Override
+  public int getPendingPrependQuantity() {
+    return 0;
+  }
+
+  @Override
+  public int getUpcomingItemViewType(int position) {
+    return ItemSizeModel.UNKNOWN_VIEW_TYPE;
+  }
+
+  @Override
+  public void collectItemSizeSamples() {
+    for (; mSampledCount < mItemCount; mSampledCount++) {
+      mEndlessEngine.addItemSizeSample(0, 0, getSize(mSampledCount));
+    }
+  }
+
+  @Override
+  public int measureItemSize(int axis, int viewType) {
+    return getSize(mItemCount);
+  }
+
+  @Override
+  public void fill(int axis, int quantity) {
+    for (int i = 0; i < quantity; i++) {
+      mContentSize += getSize(mItemCount++);
+    }
+    mFilledCount += quantity;
+  }
+
+  @Override
+  public boolean canPrepend() {
+    return false;
+  }
+
+  @Override
+  public void prepend(int axis, int quantity) {
+
+  }
+
+}
@@ -0,0 +1,266 @@
+package com.qozix.widget;
+
+/**
+ * Sizes the threshold from how long fills take to arrive and how fast the user is scrolling, so that content requested
+ * at the threshold arrives just before it's scrolled into view: the threshold is the distance covered at the current
+ * scroll velocity during one fill, with some lead, kept within a minimum and maximum per axis.
+ *
+ * Velocity is kept per axis, from the distance and time between scroll events, and jumps straight to the velocity of a
+ * fling when one starts, before any of its scroll events arrive.  Fill latency is shared by both axes, since it's a
+ * property of wherever the adapter gets its items.  Times are passed in, in nanoseconds, so the logic can be driven by
+ * any clock; nothing allocates once constructed.
+ */
+public class AdaptiveThreshold {
+
+  /**
+   * The default multiple of the distance covered during a fill to look ahead by.
+   */
+  public static final float DEFAULT_LEAD_FACTOR = 1.5f;
+
+  // scroll events further apart than this start a new gesture, rather than measuring velocity across the gap
+  private static final long MAX_SCROLL_INTERVAL_NANOS = 100000000;
+  private static final float VELOCITY_SMOOTHING = 0.3f;
+  // latency rises quickly, so a slow network is caught on the first slow fill, and falls back slowly
+  private static final float RISING_LATENCY_SMOOTHING = 0.5f;
+  private static final float FALLING_LATENCY_SMOOTHING = 0.1f;
+  private static final int MAX_OUTSTANDING_FILLS = 8;
+  private static final double NANOS_PER_SECOND = 1000000000.0;
+
+  private final int[] mMinThresholds = new int[EndlessEngine.AXIS_COUNT];
+  private final int[] mMaxThresholds = new int[EndlessEngine.AXIS_COUNT];
+  // pixels per second, always positive
+  private final double[] mVelocities = new double[EndlessEngine.AXIS_COUNT];
+  private final long[] mLastScrollNanos = new long[EndlessEngine.AXIS_COUNT];
+  private float mLeadFactor = DEFAULT_LEAD_FACTOR;
+  private double mFillLatencyNanos;
+  private int mFillLatencySampleCount;
+  // fills still outstanding, oldest first, in a ring: when each started (or -1 once its first items arrived), and how
+  // many of its items haven't arrived
+  private final long[] mFillStartNanos = new long[MAX_OUTSTANDING_FILLS];
+  private final int[] mFillQuantities = new int[MAX_OUTSTANDING_FILLS];
+  private int mFillStartIndex;
+  private int mFillStartCount;
+
+  /**
+   * Instantiates a new Adaptive threshold, with bounds of 0 and {@link Integer#MAX_VALUE} until set.
+   */
+  public AdaptiveThreshold() {
+    for (int i = 0; i < EndlessEngine.AXIS_COUNT; i++) {
+      mMaxThresholds[i] = Integer.MAX_VALUE;
+      mLastScrollNanos[i] = -1;
+    }
+  }
+
+  /**
+   * Sets the smallest and largest threshold to use along an axis.
+   *
+   * @param axis         the axis
+   * @param minThreshold the min threshold
+   * @param maxThreshold the max threshold
+   */
+  public void setBounds(int axis, int minThreshold, int maxThreshold) {
+    if (minThreshold < 0 || maxThreshold < minThreshold) {
+      throw new IllegalArgumentException("Bounds must be 0 or more, and the max no less than the min");
+    }
+    mMinThresholds[axis] = minThreshold;
+    mMaxThresholds[axis] = maxThreshold;
+  }
+
+  /**
+   * Gets min threshold.
+   *
+   * @param axis the axis
+   * @return the min threshold
+   */
+  public int getMinThreshold(int axis) {
+    return mMinThresholds[axis];
+  }
+
+  /**
+   * Gets max threshold.
+   *
+   * @param axis the axis
+   * @return the max threshold
+   */
+  public int getMaxThreshold(int axis) {
+    return mMaxThresholds[axis];
+  }
+
+  /**
+   * Sets the multiple of the distance covered during a fill to look ahead by; more than 1 leaves room for variation in
+   * latency and velocity.
+   *
+   * @param leadFactor the lead factor
+   */
+  public void setLeadFactor(float leadFactor) {
+    mLeadFactor = leadFactor;
+  }
+
+  /**
+   * Gets lead factor.
+   *
+   * @return the lead factor
+   */
+  public float getLeadFactor() {
+    return mLeadFactor;
+  }
+
+  /**
+   * Record a scroll event.
+   *
+   * @param axis     the axis
+   * @param distance the distance scrolled, in either direction
+   * @param nanos    the time of the event
+   */
+  public void onScrolled(int axis, int distance, long nanos) {
+    if (distance == 0) {
+      return;
+    }
+    long lastScrollNanos = mLastScrollNanos[axis];
+    mLastScrollNanos[axis] = nanos;
+    if (lastScrollNanos == -1 || nanos <= lastScrollNanos || nanos - lastScrollNanos > MAX_SCROLL_INTERVAL_NANOS) {
+      return;
+    }
+    double velocity = Math.abs(distance) * NANOS_PER_SECOND / (nanos - lastScrollNanos);
+    mVelocities[axis] += (velocity - mVelocities[axis]) * VELOCITY_SMOOTHING;
+  }
+
+  /**
+   * Record the start of a fling.  Its velocity is used as soon as it's known, rather than waiting for it to show in
+   * scroll events.
+   *
+   * @param axis     the axis
+   * @param velocity the velocity, in pixels per second, in either direction
+   */
+  public void onFling(int axis, int velocity) {
+    mVelocities[axis] = Math.max(mVelocities[axis], Math.abs(velocity));
+  }
+
+  /**
+   * Record that scrolling has stopped along both axes.
+   */
+  public void onScrollStopped() {
+    for (int i = 0; i < EndlessEngine.AXIS_COUNT; i++) {
+      mVelocities[i] = 0;
+      mLastScrollNanos[i] = -1;
+    }
+  }
+
+  /**
+   * Gets the current scroll velocity.
+   *
+   * @param axis the axis
+   * @return the velocity, in pixels per second
+   */
+  public double getVelocity(int axis) {
+    return mVelocities[axis];
+  }
+
+  /**
+   * Record that a fill was requested that will complete later, with {@link #onFillCompleted(long, int)}.
+   *
+   * @param nanos    the time of the request
+   * @param quantity the quantity requested
+   */
+  public void onFillStarted(long nanos, int quantity) {
+    if (quantity <= 0) {
+      return;
+    }
+    if (mFillStartCount == MAX_OUTSTANDING_FILLS) {
+      // the oldest is presumably never coming
+      removeOldestFill();
+    }
+    int index = (mFillStartIndex + mFillStartCount) % MAX_OUTSTANDING_FILLS;
+    mFillStartNanos[index] = nanos;
+    mFillQuantities[index] = quantity;
+    mFillStartCount++;
+  }
+
+  /**
+   * Record that items requested by outstanding fills have arrived, oldest fill first.  A fill's latency is the time
+   * until its first items arrive, since that's when there's something to show.
+   *
+   * @param nanos    the time of arrival
+   * @param quantity the quantity that arrived
+   */
+  public void onFillCompleted(long nanos, int quantity) {
+    while (quantity > 0 && mFillStartCount > 0) {
+      int index = mFillStartIndex;
+      if (mFillStartNanos[index] != -1) {
+        addFillLatency(nanos - mFillStartNanos[index]);
+        mFillStartNanos[index] = -1;
+      }
+      int arrived = Math.min(quantity, mFillQuantities[index]);
+      mFillQuantities[index] -= arrived;
+      quantity -= arrived;
+      if (mFillQuantities[index] == 0) {
+        removeOldestFill();
+      }
+    }
+  }
+
+  private void removeOldestFill() {
+    mFillStartIndex = (mFillStartIndex + 1) % MAX_OUTSTANDING_FILLS;
+    mFillStartCount--;
+  }
+
+  /**
+   * Record the latency of a fill directly, e.g. one that completed synchronously.
+   *
+   * @param latencyNanos the latency
+   */
+  public void addFillLatency(long latencyNanos) {
+    if (latencyNanos < 0) {
+      return;
+    }
+    mFillLatencySampleCount++;
+    float smoothing = latencyNanos > mFillLatencyNanos ? RISING_LATENCY_SMOOTHING : FALLING_LATENCY_SMOOTHING;
+    double weight = Math.max(smoothing, 1.0 / mFillLatencySampleCount);
+    mFillLatencyNanos += (latencyNanos - mFillLatencyNanos) * weight;
+  }
+
+  /**
+   * Gets the estimated fill latency.
+   *
+   * @return the fill latency, in nanoseconds, or 0 if no fills have completed
+   */
+  public long getFillLatencyNanos() {
+    return Math.round(mFillLatencyNanos);
+  }
+
+  /**
+   * Gets the number of fills requested that haven't completed.
+   *
+   * @return the outstanding fill count
+   */
+  public int getOutstandingFillCount() {
+    return mFillStartCount;
+  }
+
+  /**
+   * Compute the threshold for an axis: the distance that will be scrolled during one fill at the current velocity,
+   * times the lead factor, within the bounds.
+   *
+   * @param axis the axis
+   * @return the threshold
+   */
+  public int computeThreshold(int axis) {
+    double lookAhead = mVelocities[axis] * (mFillLatencyNanos / NANOS_PER_SECOND) * mLeadFactor;
+    if (lookAhead >= mMaxThresholds[axis]) {
+      return mMaxThresholds[axis];
+    }
+    return Math.max(mMinThresholds[axis], (int) lookAhead);
+  }
+
+  /**
+   * Discards everything measured, keeping the bounds and lead factor.
+   */
+  public void reset() {
+    onScrollStopped();
+    mFillLatencyNanos = 0;
+    mFillLatencySampleCount = 0;
+    mFillStartIndex = 0;
+    mFillStartCount = 0;
+  }
+
+}
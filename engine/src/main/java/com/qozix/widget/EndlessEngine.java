@@ -0,0 +1,486 @@
+package com.qozix.widget;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The sizing and quantity logic behind {@code EndlessRecyclerView}, with no dependency on Android: how much space needs
+ * filling past either end of the content, how large items are likely to be, and how many items that space calls for.
+ *
+ * Everything the engine needs to know about the view, its layout and its adapter comes from a {@link Host}, so it can
+ * be driven by a View on a device, or by a synthetic host in a unit test or benchmark.  Values that differ by scroll
+ * direction are kept per axis, indexed by {@link #AXIS_HORIZONTAL} and {@link #AXIS_VERTICAL}, in primitive arrays, so
+ * {@link #populate(int)} (which runs on every scroll event) doesn't box or allocate.
+ *
+ * When items are laid out side by side in spans (e.g., the columns of a vertical grid, or the lanes of a staggered
+ * grid), several share each line along the axis, so sizes are learned as each item's share of its line - see
+ * {@link #computeSpanShare(int, int, int)} - and space converts to items at that rate.
+ */
+public class EndlessEngine {
+
+  public static final int AXIS_HORIZONTAL = 0;
+  public static final int AXIS_VERTICAL = 1;
+  public static final int AXIS_COUNT = 2;
+
+  /**
+   * Provides the engine with the state of the view and adapter it's populating, and receives its requests for items.
+   */
+  public interface Host extends ItemSizeModel.ViewTypeSource {
+    /**
+     * Gets the distance from the start of the content to the start of the viewport.
+     *
+     * @param axis the axis
+     * @return the scroll position
+     */
+    int getScrollPosition(int axis);
+
+    /**
+     * Gets the size of the viewport.
+     *
+     * @param axis the axis
+     * @return the viewport size
+     */
+    int getViewportSize(int axis);
+
+    /**
+     * Gets the size of all content, laid out or not.
+     *
+     * @param axis the axis
+     * @return the content size
+     */
+    int getContentSize(int axis);
+
+    /**
+     * Gets the number of spans items are laid out in side by side, sharing each line along the axis - e.g., 3 along
+     * the vertical axis of a vertical grid with 3 columns.  A list has 1.
+     *
+     * @param axis the axis
+     * @return the span count
+     */
+    int getSpanCount(int axis);
+
+    /**
+     * Gets item count.
+     *
+     * @return the item count
+     */
+    int getItemCount();
+
+    /**
+     * Gets the quantity of items that have been requested but not yet delivered.
+     *
+     * @return the pending fill quantity
+     */
+    int getPendingFillQuantity();
+
+    /**
+     * Gets the quantity of pending items that are already counted in the item count and content size, e.g. as
+     * placeholders, and so aren't subtracted again.
+     *
+     * @return the pending placeholder quantity
+     */
+    int getPendingPlaceholderQuantity();
+
+    /**
+     * Gets the quantity of items that have been requested before the start of the data set but not yet delivered.
+     *
+     * @return the pending prepend quantity
+     */
+    int getPendingPrependQuantity();
+
+    /**
+     * Add samples for any items measured since the last call, with {@link #addItemSizeSample(int, int, int)}, as
+     * each item's share of its line.  Called just before the engine reads what it's learned.
+     */
+    void collectItemSizeSamples();
+
+    /**
+     * Measure an item of the given view type, without adding it, to estimate item size before any have been laid out.
+     *
+     * @param axis     the axis
+     * @param viewType the view type
+     * @return the size, or 0 if it couldn't be measured
+     */
+    int measureItemSize(int axis, int viewType);
+
+    /**
+     * Add items after the end of the data set.
+     *
+     * @param axis     the axis that needed filling
+     * @param quantity the quantity
+     */
+    void fill(int axis, int quantity);
+
+    /**
+     * Can prepend boolean.
+     *
+     * @return the boolean
+     */
+    boolean canPrepend();
+
+    /**
+     * Add items before the start of the data set.
+     *
+     * @param axis     the axis that needed filling
+     * @param quantity the quantity
+     */
+    void prepend(int axis, int quantity);
+  }
+
+  private final Host mHost;
+  private boolean mCanExpectConsistentItemSize;
+  // 0 means "not set" for each of these
+  private final int[] mThresholds = new int[AXIS_COUNT];
+  private final int[] mExplicitItemSizes = new int[AXIS_COUNT];
+  private final int[] mMeasuredItemSizes = new int[AXIS_COUNT];
+  private final int[] mCachedItemSizes = new int[AXIS_COUNT];
+  private final ItemSizeModel[] mItemSizeModels = new ItemSizeModel[AXIS_COUNT];
+
+  /**
+   * Instantiates a new Endless engine.
+   *
+   * @param host the host
+   */
+  public EndlessEngine(Host host) {
+    mHost = host;
+    for (int i = 0; i < AXIS_COUNT; i++) {
+      mItemSizeModels[i] = new ItemSizeModel();
+    }
+  }
+
+  /**
+   * Gets host.
+   *
+   * @return the host
+   */
+  public Host getHost() {
+    return mHost;
+  }
+
+  /**
+   * Gets threshold.
+   *
+   * @param axis the axis
+   * @return the threshold
+   */
+  public int getThreshold(int axis) {
+    return mThresholds[axis];
+  }
+
+  /**
+   * Sets the distance past either end of the viewport that should be filled with items.
+   *
+   * @param axis      the axis
+   * @param threshold the threshold
+   */
+  public void setThreshold(int axis, int threshold) {
+    mThresholds[axis] = threshold;
+  }
+
+  /**
+   * Gets can expect consistent item size.
+   *
+   * @return the can expect consistent item size
+   */
+  public boolean getCanExpectConsistentItemSize() {
+    return mCanExpectConsistentItemSize;
+  }
+
+  /**
+   * Set this to true to skip re-computation of item size once it's known, if items are a consistent size.
+   *
+   * @param canExpectConsistentItemSize the can expect consistent item size
+   */
+  public void setCanExpectConsistentItemSize(boolean canExpectConsistentItemSize) {
+    mCanExpectConsistentItemSize = canExpectConsistentItemSize;
+  }
+
+  /**
+   * Gets explicit item size.
+   *
+   * @param axis the axis
+   * @return the explicit item size, or 0 if not set
+   */
+  public int getExplicitItemSize(int axis) {
+    return mExplicitItemSizes[axis];
+  }
+
+  /**
+   * Sets an estimate of item size to use until items have been laid out, in place of measuring one.
+   *
+   * @param axis     the axis
+   * @param itemSize the item size
+   */
+  public void setExplicitItemSize(int axis, int itemSize) {
+    mExplicitItemSizes[axis] = itemSize;
+  }
+
+  /**
+   * Gets the item size model for an axis, which learns the size of each view type as items are laid out.
+   *
+   * @param axis the axis
+   * @return the item size model
+   */
+  public ItemSizeModel getItemSizeModel(int axis) {
+    return mItemSizeModels[axis];
+  }
+
+  /**
+   * Computes an item's share of the line it's laid out on along an axis: all of its size if it takes every span, or
+   * proportionally less if it shares the line with others.
+   *
+   * @param size      the item's size along the axis
+   * @param spanSize  the number of spans the item takes
+   * @param spanCount the number of spans across the axis
+   * @return the share, which is at least 1 for an item with any size
+   */
+  public static int computeSpanShare(int size, int spanSize, int spanCount) {
+    if (size <= 0 || spanCount <= 1 || spanSize >= spanCount) {
+      return size;
+    }
+    return Math.max(1, Math.round((float) size * Math.max(1, spanSize) / spanCount));
+  }
+
+  /**
+   * Add an item's laid out size along both axes - or, along an axis it shares a line with other items, its share as
+   * computed by {@link #computeSpanShare(int, int, int)}.
+   *
+   * @param viewType       the view type
+   * @param horizontalSize the horizontal size
+   * @param verticalSize   the vertical size
+   */
+  public void addItemSizeSample(int viewType, int horizontalSize, int verticalSize) {
+    mItemSizeModels[AXIS_HORIZONTAL].addSample(viewType, horizontalSize);
+    mItemSizeModels[AXIS_VERTICAL].addSample(viewType, verticalSize);
+  }
+
+  /**
+   * Discards everything learned about item size along an axis.
+   *
+   * @param axis the axis
+   */
+  public void invalidateItemSize(int axis) {
+    mCachedItemSizes[axis] = 0;
+    mMeasuredItemSizes[axis] = 0;
+    mItemSizeModels[axis].reset();
+  }
+
+  /**
+   * Writes everything learned about item size along both axes, to be read back with {@link #readItemSizes(DataInput)}
+   * - e.g., so a view restored after a configuration change doesn't have to measure and learn again.  Explicit item
+   * sizes are settings rather than something learned, so aren't written.
+   *
+   * @param output the output
+   * @throws IOException if the output fails
+   */
+  public void writeItemSizes(DataOutput output) throws IOException {
+    for (int i = 0; i < AXIS_COUNT; i++) {
+      output.writeInt(mMeasuredItemSizes[i]);
+      output.writeInt(mCachedItemSizes[i]);
+      mItemSizeModels[i].writeTo(output);
+    }
+  }
+
+  /**
+   * Replaces everything learned about item size with what was written by {@link #writeItemSizes(DataOutput)}.  If the
+   * input can't be read, item size is left invalidated along both axes.
+   *
+   * @param input the input
+   * @throws IOException if the input fails or holds something else
+   */
+  public void readItemSizes(DataInput input) throws IOException {
+    try {
+      for (int i = 0; i < AXIS_COUNT; i++) {
+        invalidateItemSize(i);
+        mMeasuredItemSizes[i] = Math.max(0, input.readInt());
+        mCachedItemSizes[i] = Math.max(0, input.readInt());
+        mItemSizeModels[i].readFrom(input);
+      }
+    } catch (IOException e) {
+      for (int i = 0; i < AXIS_COUNT; i++) {
+        invalidateItemSize(i);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Gets cached item size.
+   *
+   * @param axis the axis
+   * @return the cached item size, or 0 if not cached
+   */
+  public int getCachedItemSize(int axis) {
+    return mCachedItemSizes[axis];
+  }
+
+  // measure the kind of item that's coming next, if the host knows, since that's what we're about to fill with
+  private int getYardstickViewType() {
+    int viewType = mHost.getUpcomingItemViewType(mHost.getItemCount());
+    return viewType == ItemSizeModel.UNKNOWN_VIEW_TYPE ? 0 : viewType;
+  }
+
+  /**
+   * Gets the estimated item size for use before any items have been laid out: an explicit estimate if one was
+   * provided, otherwise a measurement of the next item to be added (kept until invalidated), otherwise the size of the
+   * viewport.  Whichever it is, it's taken to be the size of an item taking a single span, and the share of that is
+   * returned.
+   *
+   * @param axis the axis
+   * @return the estimated item size
+   */
+  public int getEstimatedItemSize(int axis) {
+    return computeSpanShare(getEstimatedWholeItemSize(axis), 1, mHost.getSpanCount(axis));
+  }
+
+  private int getEstimatedWholeItemSize(int axis) {
+    int explicitItemSize = mExplicitItemSizes[axis];
+    if (explicitItemSize > 0) {
+      return explicitItemSize;
+    }
+    int measuredItemSize = mMeasuredItemSizes[axis];
+    if (measuredItemSize > 0) {
+      return measuredItemSize;
+    }
+    measuredItemSize = mHost.measureItemSize(axis, getYardstickViewType());
+    if (measuredItemSize > 0) {
+      mMeasuredItemSizes[axis] = measuredItemSize;
+      return measuredItemSize;
+    }
+    return mHost.getViewportSize(axis);
+  }
+
+  /**
+   * Gets the average size of items laid out so far, or 0 if none have been.
+   *
+   * @param axis the axis
+   * @return the average item size
+   */
+  public int getAverageItemSize(int axis) {
+    if (mCanExpectConsistentItemSize) {
+      int cachedItemSize = mCachedItemSizes[axis];
+      if (cachedItemSize > 0) {
+        return cachedItemSize;
+      }
+    }
+    mHost.collectItemSizeSamples();
+    int averageItemSize = mItemSizeModels[axis].getEstimate();
+    if (averageItemSize > 0 && mCanExpectConsistentItemSize) {
+      mCachedItemSizes[axis] = averageItemSize;
+    }
+    return averageItemSize;
+  }
+
+  /**
+   * Gets average or estimated item size.
+   *
+   * @param axis the axis
+   * @return the average or estimated item size
+   */
+  public int getAverageOrEstimatedItemSize(int axis) {
+    int averageItemSize = getAverageItemSize(axis);
+    if (averageItemSize > 0) {
+      return averageItemSize;
+    }
+    return getEstimatedItemSize(axis);
+  }
+
+  /**
+   * Compute the extent of content needed for the threshold after the viewport to be met.
+   *
+   * @param axis the axis
+   * @return the int
+   */
+  public int computeSpaceToBeFilled(int axis) {
+    return mHost.getScrollPosition(axis) + mHost.getViewportSize(axis) + mThresholds[axis];
+  }
+
+  /**
+   * Compute the space after the end of the content that needs filling to meet the threshold.
+   *
+   * @param axis the axis
+   * @return the int
+   */
+  public int computeSpaceToMeetThreshold(int axis) {
+    return computeSpaceToBeFilled(axis) - mHost.getContentSize(axis);
+  }
+
+  /**
+   * Compute the space before the start of the content that needs filling to meet the threshold before the viewport.
+   *
+   * @param axis the axis
+   * @return the int
+   */
+  public int computeSpaceToMeetLeadingThreshold(int axis) {
+    return mThresholds[axis] - mHost.getScrollPosition(axis);
+  }
+
+  /**
+   * Compute the quantity of items needed to fill a space after the end of the content.  Unless item size is expected
+   * to be consistent, this uses the size learned for each view type, and the host's predictions of upcoming view types
+   * when it has any.
+   *
+   * @param axis  the axis
+   * @param space the space to fill
+   * @return the quantity
+   */
+  public int computeQuantityToFill(int axis, int space) {
+    int averageItemSize = getAverageOrEstimatedItemSize(axis);
+    if (mCanExpectConsistentItemSize) {
+      return averageItemSize > 0 ? 1 + (space / averageItemSize) : 0;
+    }
+    return mItemSizeModels[axis].computeQuantity(space, mHost, mHost.getItemCount(), averageItemSize);
+  }
+
+  /**
+   * Compute the quantity of items needed to fill a space before the start of the content.  View types can't be
+   * predicted before the start, so this uses the size learned across all view types.
+   *
+   * @param axis  the axis
+   * @param space the space to fill
+   * @return the quantity
+   */
+  public int computeQuantityToPrepend(int axis, int space) {
+    int averageItemSize = getAverageOrEstimatedItemSize(axis);
+    return averageItemSize > 0 ? 1 + (space / averageItemSize) : 0;
+  }
+
+  /**
+   * Compute the quantity of items that fit within the threshold past either end of the viewport - those that will be
+   * shown next when scrolling that way - using the size learned across all view types.
+   *
+   * @param axis the axis
+   * @return the quantity
+   */
+  public int computeQuantityWithinThreshold(int axis) {
+    return mThresholds[axis] > 0 ? computeQuantityToPrepend(axis, mThresholds[axis]) : 0;
+  }
+
+  /**
+   * Request as many items from the host as needed to meet the threshold past either end of the viewport, less any
+   * already requested for that end and on their way.  Pending items already shown as placeholders take up space in the
+   * content, so they're only counted once.
+   *
+   * @param axis the axis
+   */
+  public void populate(int axis) {
+    int space = computeSpaceToMeetThreshold(axis);
+    if (space > 0) {
+      int quantity = computeQuantityToFill(axis, space) - (mHost.getPendingFillQuantity() - mHost.getPendingPlaceholderQuantity());
+      if (quantity > 0) {
+        mHost.fill(axis, quantity);
+      }
+    }
+    if (mHost.canPrepend()) {
+      int leadingSpace = computeSpaceToMeetLeadingThreshold(axis);
+      if (leadingSpace > 0) {
+        int quantity = computeQuantityToPrepend(axis, leadingSpace) - mHost.getPendingPrependQuantity();
+        if (quantity > 0) {
+          mHost.prepend(axis, quantity);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,122 @@
+package com.qozix.widget;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Maintains a running estimate of item size from observed samples, in constant time and space per sample.
+ *
+ * The estimate is a plain running mean until enough samples have been seen to fill the smoothing window, after which
+ * it becomes an exponentially weighted moving average, so it tracks gradual changes in content without being thrown
+ * off by a single outlier.
+ */
+public class ItemSizeEstimator {
+
+  /**
+   * The default weight given to each new sample once the estimate has warmed up.
+   */
+  public static final float DEFAULT_SMOOTHING = 0.1f;
+
+  private final float mSmoothing;
+  private double mEstimate;
+  private int mSampleCount;
+
+  /**
+   * Instantiates a new Item size estimator with the default smoothing.
+   */
+  public ItemSizeEstimator() {
+    this(DEFAULT_SMOOTHING);
+  }
+
+  /**
+   * Instantiates a new Item size estimator.
+   *
+   * @param smoothing the weight given to each new sample once warmed up, greater than 0 and no greater than 1
+   */
+  public ItemSizeEstimator(float smoothing) {
+    if (!(smoothing > 0 && smoothing <= 1)) {
+      throw new IllegalArgumentException("Smoothing must be greater than 0 and no greater than 1");
+    }
+    mSmoothing = smoothing;
+  }
+
+  /**
+   * Adds an observed item size.  Sizes of 0 or less are ignored.
+   *
+   * @param size the size
+   */
+  public void addSample(int size) {
+    if (size <= 0) {
+      return;
+    }
+    mSampleCount++;
+    double weight = Math.max(mSmoothing, 1.0 / mSampleCount);
+    mEstimate += (size - mEstimate) * weight;
+  }
+
+  /**
+   * Gets the current estimate, or 0 if no samples have been added.
+   *
+   * @return the estimate
+   */
+  public int getEstimate() {
+    return (int) Math.round(mEstimate);
+  }
+
+  /**
+   * Gets the number of samples added since construction or the last reset.
+   *
+   * @return the sample count
+   */
+  public int getSampleCount() {
+    return mSampleCount;
+  }
+
+  /**
+   * Has estimate boolean.
+   *
+   * @return the boolean
+   */
+  public boolean hasEstimate() {
+    return mSampleCount > 0;
+  }
+
+  /**
+   * Writes the estimate and sample count, to be read back with {@link #readFrom(DataInput)} - e.g., to save what's been
+   * learned across a configuration change.
+   *
+   * @param output the output
+   * @throws IOException if the output fails
+   */
+  public void writeTo(DataOutput output) throws IOException {
+    output.writeDouble(mEstimate);
+    output.writeInt(mSampleCount);
+  }
+
+  /**
+   * Replaces the estimate and sample count with those written by {@link #writeTo(DataOutput)}.  The smoothing is this
+   * estimator's own.
+   *
+   * @param input the input
+   * @throws IOException if the input fails or holds something else
+   */
+  public void readFrom(DataInput input) throws IOException {
+    double estimate = input.readDouble();
+    int sampleCount = input.readInt();
+    if (sampleCount < 0 || estimate < 0 || Double.isNaN(estimate)) {
+      throw new IOException("Not an item size estimate");
+    }
+    mEstimate = estimate;
+    mSampleCount = sampleCount;
+  }
+
+  /**
+   * Discards all samples.
+   */
+  public void reset() {
+    mEstimate = 0;
+    mSampleCount = 0;
+  }
+
+}
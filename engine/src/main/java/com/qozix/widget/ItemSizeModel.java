@@ -0,0 +1,255 @@
+package com.qozix.widget;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Learns item size separately for each view type, along with how often each view type occurs, so that the quantity of
+ * items needed to fill a space can be computed accurately for lists that mix items of very different sizes.
+ *
+ * View types are kept in sorted primitive arrays, so recording samples and computing estimates doesn't allocate once
+ * every view type has been seen.
+ */
+public class ItemSizeModel {
+
+  /**
+   * Returned by a {@link ViewTypeSource} when the view type of an upcoming item is not known.
+   */
+  public static final int UNKNOWN_VIEW_TYPE = -1;
+
+  private static final int INITIAL_CAPACITY = 4;
+
+  /**
+   * Provides the view types of items that have not been added to the data set yet.
+   */
+  public interface ViewTypeSource {
+    /**
+     * Gets the view type expected for the item that will be at a position at or beyond the current item count.
+     *
+     * @param position the position
+     * @return the view type, or {@link #UNKNOWN_VIEW_TYPE}
+     */
+    int getUpcomingItemViewType(int position);
+  }
+
+  private final float mSmoothing;
+  private int[] mViewTypes = new int[INITIAL_CAPACITY];
+  private ItemSizeEstimator[] mEstimators = new ItemSizeEstimator[INITIAL_CAPACITY];
+  private double[] mFrequencies = new double[INITIAL_CAPACITY];
+  private int mViewTypeCount;
+  private int mSampleCount;
+
+  /**
+   * Instantiates a new Item size model with the default smoothing.
+   */
+  public ItemSizeModel() {
+    this(ItemSizeEstimator.DEFAULT_SMOOTHING);
+  }
+
+  /**
+   * Instantiates a new Item size model.
+   *
+   * @param smoothing the weight given to each new sample once warmed up, for both sizes and view type frequencies
+   */
+  public ItemSizeModel(float smoothing) {
+    if (!(smoothing > 0 && smoothing <= 1)) {
+      throw new IllegalArgumentException("Smoothing must be greater than 0 and no greater than 1");
+    }
+    mSmoothing = smoothing;
+  }
+
+  private int indexOfViewType(int viewType) {
+    return Arrays.binarySearch(mViewTypes, 0, mViewTypeCount, viewType);
+  }
+
+  private int obtainIndexOfViewType(int viewType) {
+    int index = indexOfViewType(viewType);
+    if (index >= 0) {
+      return index;
+    }
+    index = -(index + 1);
+    if (mViewTypeCount == mViewTypes.length) {
+      int capacity = mViewTypeCount * 2;
+      mViewTypes = Arrays.copyOf(mViewTypes, capacity);
+      mEstimators = Arrays.copyOf(mEstimators, capacity);
+      mFrequencies = Arrays.copyOf(mFrequencies, capacity);
+    }
+    int tail = mViewTypeCount - index;
+    System.arraycopy(mViewTypes, index, mViewTypes, index + 1, tail);
+    System.arraycopy(mEstimators, index, mEstimators, index + 1, tail);
+    System.arraycopy(mFrequencies, index, mFrequencies, index + 1, tail);
+    mViewTypes[index] = viewType;
+    mEstimators[index] = new ItemSizeEstimator(mSmoothing);
+    mFrequencies[index] = 0;
+    mViewTypeCount++;
+    return index;
+  }
+
+  /**
+   * Adds an observed size for an item of the given view type.  Sizes of 0 or less are ignored.
+   *
+   * @param viewType the view type
+   * @param size     the size
+   */
+  public void addSample(int viewType, int size) {
+    if (size <= 0) {
+      return;
+    }
+    int index = obtainIndexOfViewType(viewType);
+    mEstimators[index].addSample(size);
+    mSampleCount++;
+    double weight = Math.max(mSmoothing, 1.0 / mSampleCount);
+    for (int i = 0; i < mViewTypeCount; i++) {
+      mFrequencies[i] *= (1 - weight);
+    }
+    mFrequencies[index] += weight;
+  }
+
+  /**
+   * Gets the estimated size of an item of any view type, weighted by how often each view type has been seen, or 0 if
+   * no samples have been added.
+   *
+   * @return the estimate
+   */
+  public int getEstimate() {
+    double estimate = 0;
+    for (int i = 0; i < mViewTypeCount; i++) {
+      estimate += mFrequencies[i] * mEstimators[i].getEstimate();
+    }
+    return (int) Math.round(estimate);
+  }
+
+  /**
+   * Gets the estimated size of an item of the given view type, falling back to the estimate across all view types if
+   * that view type hasn't been seen.
+   *
+   * @param viewType the view type
+   * @return the estimate
+   */
+  public int getEstimate(int viewType) {
+    int index = indexOfViewType(viewType);
+    if (index >= 0) {
+      return mEstimators[index].getEstimate();
+    }
+    return getEstimate();
+  }
+
+  /**
+   * Gets the relative frequency, between 0 and 1, with which the given view type has been seen recently.
+   *
+   * @param viewType the view type
+   * @return the frequency
+   */
+  public double getFrequency(int viewType) {
+    int index = indexOfViewType(viewType);
+    return index >= 0 ? mFrequencies[index] : 0;
+  }
+
+  /**
+   * Has estimate boolean.
+   *
+   * @return the boolean
+   */
+  public boolean hasEstimate() {
+    return mSampleCount > 0;
+  }
+
+  /**
+   * Gets the number of samples added since construction or the last reset.
+   *
+   * @return the sample count
+   */
+  public int getSampleCount() {
+    return mSampleCount;
+  }
+
+  /**
+   * Computes how many items are needed to fill a space.  If the source knows the view types of upcoming items, each
+   * is counted at the estimated size of its own view type; otherwise the estimate across all view types is used.
+   *
+   * @param space         the space to fill
+   * @param source        the source of upcoming view types, may be null
+   * @param firstPosition the position of the first item that would be added
+   * @param fallbackSize  the size to use for items with no estimate, e.g., before any samples have been added
+   * @return the quantity, or 0 if there is no space or no usable size
+   */
+  public int computeQuantity(int space, ViewTypeSource source, int firstPosition, int fallbackSize) {
+    if (space <= 0) {
+      return 0;
+    }
+    int mixedSize = hasEstimate() ? getEstimate() : fallbackSize;
+    if (mixedSize <= 0) {
+      return 0;
+    }
+    if (source == null || source.getUpcomingItemViewType(firstPosition) == UNKNOWN_VIEW_TYPE) {
+      return 1 + (space / mixedSize);
+    }
+    int quantity = 0;
+    int filled = 0;
+    while (filled < space) {
+      int viewType = source.getUpcomingItemViewType(firstPosition + quantity);
+      int size = viewType == UNKNOWN_VIEW_TYPE ? mixedSize : getEstimate(viewType);
+      filled += size > 0 ? size : mixedSize;
+      quantity++;
+    }
+    return quantity;
+  }
+
+  /**
+   * Writes everything learned - each view type's size estimate and frequency - to be read back with
+   * {@link #readFrom(DataInput)}.
+   *
+   * @param output the output
+   * @throws IOException if the output fails
+   */
+  public void writeTo(DataOutput output) throws IOException {
+    output.writeInt(mSampleCount);
+    output.writeInt(mViewTypeCount);
+    for (int i = 0; i < mViewTypeCount; i++) {
+      output.writeInt(mViewTypes[i]);
+      output.writeDouble(mFrequencies[i]);
+      mEstimators[i].writeTo(output);
+    }
+  }
+
+  /**
+   * Replaces everything learned with what was written by {@link #writeTo(DataOutput)}.  The smoothing is this model's
+   * own.  If the input can't be read, the model is left reset.
+   *
+   * @param input the input
+   * @throws IOException if the input fails or holds something else
+   */
+  public void readFrom(DataInput input) throws IOException {
+    reset();
+    int sampleCount = input.readInt();
+    int viewTypeCount = input.readInt();
+    if (sampleCount < 0 || viewTypeCount < 0 || viewTypeCount > sampleCount) {
+      throw new IOException("Not an item size model");
+    }
+    try {
+      for (int i = 0; i < viewTypeCount; i++) {
+        int index = obtainIndexOfViewType(input.readInt());
+        mFrequencies[index] = input.readDouble();
+        mEstimators[index].readFrom(input);
+      }
+    } catch (IOException e) {
+      reset();
+      throw e;
+    }
+    mSampleCount = sampleCount;
+  }
+
+  /**
+   * Discards all samples and view types.
+   */
+  public void reset() {
+    for (int i = 0; i < mViewTypeCount; i++) {
+      mEstimators[i] = null;
+    }
+    mViewTypeCount = 0;
+    mSampleCount = 0;
+  }
+
+}
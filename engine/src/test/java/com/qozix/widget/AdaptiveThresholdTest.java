@@ -0,0 +1,142 @@
+package com.qozix.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveThresholdTest {
+
+  private static final int AXIS = EndlessEngine.AXIS_VERTICAL;
+  private static final long MILLIS = 1000000;
+
+  private AdaptiveThreshold mAdaptiveThreshold;
+
+  @Before
+  public void setUp() throws Exception {
+    mAdaptiveThreshold = new AdaptiveThreshold();
+    mAdaptiveThreshold.setBounds(AXIS, 1000, 20000);
+    mAdaptiveThreshold.setLeadFactor(1);
+  }
+
+  // scrolls a distance every 16ms, starting at a time
+  private long scroll(long nanos, int distancePerEvent, int events) {
+    for (int i = 0; i < events; i++) {
+      mAdaptiveThreshold.onScrolled(AXIS, distancePerEvent, nanos);
+      nanos += 16 * MILLIS;
+    }
+    return nanos;
+  }
+
+  @Test
+  public void threshold_isMinWhenIdle() throws Exception {
+    mAdaptiveThreshold.addFillLatency(500 * MILLIS);
+    assertEquals(1000, mAdaptiveThreshold.computeThreshold(AXIS));
+  }
+
+  @Test
+  public void threshold_isMinBeforeAnyFillCompletes() throws Exception {
+    scroll(0, 80, 60);
+    assertEquals(1000, mAdaptiveThreshold.computeThreshold(AXIS));
+  }
+
+  @Test
+  public void velocity_isMeasuredFromScrollEvents() throws Exception {
+    // 80px every 16ms is 5000px/s
+    scroll(0, 80, 60);
+    assertEquals(5000, mAdaptiveThreshold.getVelocity(AXIS), 1);
+    assertEquals(0, mAdaptiveThreshold.getVelocity(EndlessEngine.AXIS_HORIZONTAL), 0);
+  }
+
+  @Test
+  public void threshold_coversDistanceScrolledDuringAFill() throws Exception {
+    mAdaptiveThreshold.onFillStarted(0, 10);
+    mAdaptiveThreshold.onFillCompleted(800 * MILLIS, 10);
+    assertEquals(800 * MILLIS, mAdaptiveThreshold.getFillLatencyNanos());
+    scroll(0, 80, 60);
+    // 5000px/s for 0.8s
+    assertEquals(4000, mAdaptiveThreshold.computeThreshold(AXIS), 5);
+    mAdaptiveThreshold.setLeadFactor(2);
+    assertEquals(8000, mAdaptiveThreshold.computeThreshold(AXIS), 10);
+  }
+
+  @Test
+  public void threshold_isBounded() throws Exception {
+    mAdaptiveThreshold.addFillLatency(10000 * MILLIS);
+    scroll(0, 80, 60);
+    assertEquals(20000, mAdaptiveThreshold.computeThreshold(AXIS));
+  }
+
+  @Test
+  public void fling_raisesVelocityImmediately() throws Exception {
+    mAdaptiveThreshold.addFillLatency(1000 * MILLIS);
+    mAdaptiveThreshold.onFling(AXIS, -12000);
+    assertEquals(12000, mAdaptiveThreshold.computeThreshold(AXIS));
+    mAdaptiveThreshold.onScrollStopped();
+    assertEquals(1000, mAdaptiveThreshold.computeThreshold(AXIS));
+  }
+
+  @Test
+  public void gapsBetweenScrolls_arentMeasured() throws Exception {
+    mAdaptiveThreshold.onScrolled(AXIS, 80, 0);
+    mAdaptiveThreshold.onScrolled(AXIS, 80, 1000 * MILLIS);
+    assertEquals(0, mAdaptiveThreshold.getVelocity(AXIS), 0);
+  }
+
+  @Test
+  public void latency_risesFasterThanItFalls() throws Exception {
+    // warm up past the plain mean
+    for (int i = 0; i < 10; i++) {
+      mAdaptiveThreshold.addFillLatency(100 * MILLIS);
+    }
+    mAdaptiveThreshold.addFillLatency(1100 * MILLIS);
+    assertEquals(600, mAdaptiveThreshold.getFillLatencyNanos() / (double) MILLIS, 0.01);
+    mAdaptiveThreshold.addFillLatency(100 * MILLIS);
+    assertEquals(550, mAdaptiveThreshold.getFillLatencyNanos() / (double) MILLIS, 0.01);
+  }
+
+  @Test
+  public void fills_completeInOrder() throws Exception {
+    mAdaptiveThreshold.onFillStarted(0, 10);
+    mAdaptiveThreshold.onFillStarted(300 * MILLIS, 10);
+    assertEquals(2, mAdaptiveThreshold.getOutstandingFillCount());
+    mAdaptiveThreshold.onFillCompleted(400 * MILLIS, 10);
+    assertEquals(400 * MILLIS, mAdaptiveThreshold.getFillLatencyNanos());
+    mAdaptiveThreshold.onFillCompleted(700 * MILLIS, 10);
+    assertEquals(400 * MILLIS, mAdaptiveThreshold.getFillLatencyNanos());
+    assertEquals(0, mAdaptiveThreshold.getOutstandingFillCount());
+    // nothing outstanding to complete
+    mAdaptiveThreshold.onFillCompleted(900 * MILLIS, 10);
+    assertEquals(400 * MILLIS, mAdaptiveThreshold.getFillLatencyNanos());
+  }
+
+  @Test
+  public void latency_isTimeToFirstItems() throws Exception {
+    mAdaptiveThreshold.onFillStarted(0, 10);
+    mAdaptiveThreshold.onFillStarted(100 * MILLIS, 10);
+    mAdaptiveThreshold.onFillCompleted(200 * MILLIS, 4);
+    assertEquals(200 * MILLIS, mAdaptiveThreshold.getFillLatencyNanos());
+    assertEquals(2, mAdaptiveThreshold.getOutstandingFillCount());
+    // the rest of the first, and the start of the second
+    mAdaptiveThreshold.onFillCompleted(900 * MILLIS, 8);
+    assertEquals(1, mAdaptiveThreshold.getOutstandingFillCount());
+    assertEquals(500 * MILLIS, mAdaptiveThreshold.getFillLatencyNanos());
+  }
+
+  @Test
+  public void outstandingFills_areBounded() throws Exception {
+    for (int i = 0; i < 20; i++) {
+      mAdaptiveThreshold.onFillStarted(i * MILLIS, 1);
+    }
+    assertEquals(8, mAdaptiveThreshold.getOutstandingFillCount());
+    // the oldest kept started at 12ms
+    mAdaptiveThreshold.onFillCompleted(112 * MILLIS, 1);
+    assertEquals(100 * MILLIS, mAdaptiveThreshold.getFillLatencyNanos());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void bounds_mustBeOrdered() throws Exception {
+    mAdaptiveThreshold.setBounds(AXIS, 500, 100);
+  }
+
+}
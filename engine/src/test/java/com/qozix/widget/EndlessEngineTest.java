@@ -0,0 +1,368 @@
+package com.qozix.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class EndlessEngineTest {
+
+  private static final int AXIS = EndlessEngine.AXIS_VERTICAL;
+
+  private FakeHost mHost;
+  private EndlessEngine mEngine;
+
+  @Before
+  public void setUp() throws Exception {
+    mHost = new FakeHost();
+    mEngine = new EndlessEngine(mHost);
+    mHost.engine = mEngine;
+    mEngine.setThreshold(AXIS, 500);
+  }
+
+  @Test
+  public void populate_usesMeasuredSizeBeforeItemsAreLaidOut() throws Exception {
+    mEngine.populate(AXIS);
+    // 500 past the end of the content, at 100 each
+    assertEquals(6, mHost.filled);
+    assertEquals(1, mHost.fillCount);
+    assertEquals(0, mHost.prepended);
+  }
+
+  @Test
+  public void populate_subtractsPendingFills() throws Exception {
+    mHost.pendingFillQuantity = 4;
+    mEngine.populate(AXIS);
+    assertEquals(2, mHost.filled);
+    mHost.pendingFillQuantity = 6;
+    mEngine.populate(AXIS);
+    assertEquals(2, mHost.filled);
+    assertEquals(1, mHost.fillCount);
+  }
+
+  @Test
+  public void populate_countsPendingPlaceholdersOnce() throws Exception {
+    // four placeholders are already in the content, 100 each
+    mHost.contentSize = 1400;
+    mHost.pendingFillQuantity = 4;
+    mHost.pendingPlaceholderQuantity = 4;
+    mEngine.populate(AXIS);
+    // 100 past the end of the content, as though they'd been delivered
+    assertEquals(2, mHost.filled);
+    // two more requested, but not yet inserted, are subtracted
+    mHost.filled = 0;
+    mHost.pendingFillQuantity = 6;
+    mEngine.populate(AXIS);
+    assertEquals(0, mHost.filled);
+  }
+
+  @Test
+  public void populate_doesNothingWhenThresholdIsMet() throws Exception {
+    mHost.contentSize = 1500;
+    mEngine.populate(AXIS);
+    assertEquals(0, mHost.fillCount);
+  }
+
+  @Test
+  public void samples_takePrecedenceOverMeasurement() throws Exception {
+    mHost.pendingSampleSize = 250;
+    mEngine.populate(AXIS);
+    assertEquals(3, mHost.filled);
+    assertEquals(250, mEngine.getAverageItemSize(AXIS));
+  }
+
+  @Test
+  public void explicitSize_takesPrecedenceOverMeasurement() throws Exception {
+    mEngine.setExplicitItemSize(AXIS, 50);
+    assertEquals(50, mEngine.getEstimatedItemSize(AXIS));
+    assertEquals(0, mHost.measureCount);
+  }
+
+  @Test
+  public void measurement_isKeptUntilInvalidated() throws Exception {
+    mEngine.getEstimatedItemSize(AXIS);
+    mEngine.getEstimatedItemSize(AXIS);
+    assertEquals(1, mHost.measureCount);
+    mEngine.invalidateItemSize(AXIS);
+    mEngine.getEstimatedItemSize(AXIS);
+    assertEquals(2, mHost.measureCount);
+  }
+
+  @Test
+  public void estimate_fallsBackToViewportSize() throws Exception {
+    mHost.measuredSize = 0;
+    assertEquals(1000, mEngine.getEstimatedItemSize(AXIS));
+  }
+
+  @Test
+  public void consistentSize_isCached() throws Exception {
+    mEngine.setCanExpectConsistentItemSize(true);
+    mEngine.addItemSizeSample(0, 0, 200);
+    assertEquals(200, mEngine.getAverageItemSize(AXIS));
+    mEngine.addItemSizeSample(0, 0, 400);
+    assertEquals(200, mEngine.getAverageItemSize(AXIS));
+    assertEquals(200, mEngine.getCachedItemSize(AXIS));
+    mEngine.invalidateItemSize(AXIS);
+    assertEquals(0, mEngine.getCachedItemSize(AXIS));
+    assertFalse(mEngine.getItemSizeModel(AXIS).hasEstimate());
+  }
+
+  @Test
+  public void quantity_followsUpcomingViewTypes() throws Exception {
+    mEngine.addItemSizeSample(0, 0, 100);
+    mEngine.addItemSizeSample(1, 0, 300);
+    mHost.itemCount = 10;
+    mHost.upcomingViewTypeInterval = 2;
+    // 300 (position 10), 100, 300 - so 700 needs three
+    assertEquals(3, mEngine.computeQuantityToFill(AXIS, 700));
+  }
+
+  @Test
+  public void populate_prependsWhenLeadingThresholdIsUnmet() throws Exception {
+    mHost.contentSize = 3000;
+    mHost.scrollPosition = 100;
+    mEngine.populate(AXIS);
+    assertEquals(0, mHost.prepended);
+    mHost.canPrepend = true;
+    mEngine.populate(AXIS);
+    // 400 before the start of the content, at 100 each
+    assertEquals(5, mHost.prepended);
+    assertEquals(0, mHost.fillCount);
+  }
+
+  @Test
+  public void populate_subtractsPendingPrepends() throws Exception {
+    mHost.contentSize = 3000;
+    mHost.scrollPosition = 100;
+    mHost.canPrepend = true;
+    mHost.pendingPrependQuantity = 3;
+    mEngine.populate(AXIS);
+    assertEquals(2, mHost.prepended);
+    mHost.prepended = 0;
+    mHost.pendingPrependQuantity = 5;
+    mEngine.populate(AXIS);
+    assertEquals(0, mHost.prepended);
+  }
+
+  @Test
+  public void populate_countsPendingItemsPerEdge() throws Exception {
+    // 600 short past the end and 400 before the start
+    mHost.scrollPosition = 100;
+    mHost.canPrepend = true;
+    mHost.pendingFillQuantity = 7;
+    mEngine.populate(AXIS);
+    assertEquals(0, mHost.fillCount);
+    assertEquals(5, mHost.prepended);
+    mHost.prepended = 0;
+    mHost.pendingFillQuantity = 0;
+    mHost.pendingPrependQuantity = 5;
+    mEngine.populate(AXIS);
+    assertEquals(7, mHost.filled);
+    assertEquals(0, mHost.prepended);
+  }
+
+  @Test
+  public void populate_prependQuantityFollowsItemSize() throws Exception {
+    mHost.contentSize = 3000;
+    mHost.scrollPosition = 100;
+    mHost.canPrepend = true;
+    mEngine.addItemSizeSample(0, 0, 200);
+    mEngine.populate(AXIS);
+    // 400 before the start of the content, at 200 each
+    assertEquals(3, mHost.prepended);
+  }
+
+  @Test
+  public void quantityWithinThreshold_usesAverageSize() throws Exception {
+    mEngine.addItemSizeSample(0, 0, 100);
+    mEngine.addItemSizeSample(1, 0, 150);
+    // 500 at an average of 125
+    assertEquals(5, mEngine.computeQuantityWithinThreshold(AXIS));
+    mEngine.setThreshold(AXIS, 0);
+    assertEquals(0, mEngine.computeQuantityWithinThreshold(AXIS));
+  }
+
+  @Test
+  public void spanShare_dividesSizeBetweenSpans() throws Exception {
+    assertEquals(300, EndlessEngine.computeSpanShare(300, 1, 1));
+    assertEquals(100, EndlessEngine.computeSpanShare(300, 1, 3));
+    assertEquals(200, EndlessEngine.computeSpanShare(300, 2, 3));
+    assertEquals(300, EndlessEngine.computeSpanShare(300, 3, 3));
+    assertEquals(1, EndlessEngine.computeSpanShare(1, 1, 4));
+    assertEquals(0, EndlessEngine.computeSpanShare(0, 1, 3));
+  }
+
+  @Test
+  public void populate_fillsEveryColumnOfAGrid() throws Exception {
+    mHost.spanCount = 3;
+    // items measured at 100, three to a row, before any are laid out
+    mEngine.populate(AXIS);
+    // 500 past the end of the content is 5 rows, and a bit, at 33 each
+    assertEquals(16, mHost.filled);
+  }
+
+  @Test
+  public void quantity_countsFullSpanItemsAsWholeLines() throws Exception {
+    mHost.spanCount = 3;
+    // rows of 300 in single-span items, and full-span headers of 300
+    mEngine.addItemSizeSample(0, 0, EndlessEngine.computeSpanShare(300, 1, 3));
+    mEngine.addItemSizeSample(1, 0, EndlessEngine.computeSpanShare(300, 3, 3));
+    mHost.itemCount = 10;
+    mHost.upcomingViewTypeInterval = 4;
+    // a third of a row each for positions 10 and 11, all of one for the header at 12, and a third for 13
+    assertEquals(4, mEngine.computeQuantityToFill(AXIS, 600));
+  }
+
+  @Test
+  public void axes_areIndependent() throws Exception {
+    mEngine.addItemSizeSample(0, 80, 120);
+    assertEquals(80, mEngine.getAverageItemSize(EndlessEngine.AXIS_HORIZONTAL));
+    assertEquals(120, mEngine.getAverageItemSize(EndlessEngine.AXIS_VERTICAL));
+    assertEquals(0, mEngine.getThreshold(EndlessEngine.AXIS_HORIZONTAL));
+  }
+
+  @Test
+  public void itemSizes_surviveBeingWrittenAndRead() throws Exception {
+    mHost.pendingSampleSize = 250;
+    mEngine.populate(AXIS);
+    mEngine.getEstimatedItemSize(EndlessEngine.AXIS_HORIZONTAL);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    mEngine.writeItemSizes(new DataOutputStream(bytes));
+
+    FakeHost host = new FakeHost();
+    EndlessEngine engine = new EndlessEngine(host);
+    host.engine = engine;
+    engine.setThreshold(AXIS, 500);
+    engine.readItemSizes(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(250, engine.getAverageItemSize(AXIS));
+    assertEquals(1, engine.getItemSizeModel(AXIS).getSampleCount());
+    // what was measured isn't measured again
+    assertEquals(100, engine.getEstimatedItemSize(EndlessEngine.AXIS_HORIZONTAL));
+    assertEquals(0, host.measureCount);
+    engine.populate(AXIS);
+    assertEquals(3, host.filled);
+  }
+
+  @Test
+  public void unreadableItemSizes_leaveNothingLearned() throws Exception {
+    mHost.pendingSampleSize = 250;
+    mEngine.populate(AXIS);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    mEngine.writeItemSizes(new DataOutputStream(bytes));
+    byte[] truncated = new byte[bytes.size() - 4];
+    System.arraycopy(bytes.toByteArray(), 0, truncated, 0, truncated.length);
+    try {
+      mEngine.readItemSizes(new DataInputStream(new ByteArrayInputStream(truncated)));
+      fail();
+    } catch (IOException e) {
+      // expected
+    }
+    assertFalse(mEngine.getItemSizeModel(AXIS).hasEstimate());
+    assertEquals(0, mEngine.getAverageItemSize(AXIS));
+  }
+
+  private static class FakeHost implements EndlessEngine.Host {
+    int scrollPosition;
+    int viewportSize = 1000;
+    int contentSize = 1000;
+    int spanCount = 1;
+    int itemCount;
+    int pendingFillQuantity;
+    int pendingPlaceholderQuantity;
+    int pendingPrependQuantity;
+    int measuredSize = 100;
+    int measureCount;
+    int pendingSampleSize;
+    int upcomingViewTypeInterval;
+    boolean canPrepend;
+    int filled;
+    int fillCount;
+    int prepended;
+    EndlessEngine engine;
+
+    @Override
+    public int getScrollPosition(int axis) {
+      return scrollPosition;
+    }
+
+    @Override
+    public int getViewportSize(int axis) {
+      return viewportSize;
+    }
+
+    @Override
+    public int getContentSize(int axis) {
+      return contentSize;
+    }
+
+    @Override
+    public int getSpanCount(int axis) {
+      return spanCount;
+    }
+
+    @Override
+    public int getItemCount() {
+      return itemCount;
+    }
+
+    @Override
+    public int getPendingFillQuantity() {
+      return pendingFillQuantity;
+    }
+
+    @Override
+    public int getPendingPlaceholderQuantity() {
+      return pendingPlaceholderQuantity;
+    }
+
+    @Override
+    public int getPendingPrependQuantity() {
+      return pendingPrependQuantity;
+    }
+
+    @Override
+    public int getUpcomingItemViewType(int position) {
+      if (upcomingViewTypeInterval == 0) {
+        return ItemSizeModel.UNKNOWN_VIEW_TYPE;
+      }
+      return position % upcomingViewTypeInterval == 0 ? 1 : 0;
+    }
+
+    @Override
+    public void collectItemSizeSamples() {
+      if (pendingSampleSize > 0) {
+        engine.addItemSizeSample(0, 0, pendingSampleSize);
+        pendingSampleSize = 0;
+      }
+    }
+
+    @Override
+    public int measureItemSize(int axis, int viewType) {
+      measureCount++;
+      return measuredSize;
+    }
+
+    @Override
+    public void fill(int axis, int quantity) {
+      filled += quantity;
+      fillCount++;
+    }
+
+    @Override
+    public boolean canPrepend() {
+      return canPrepend;
+    }
+
+    @Override
+    public void prepend(int axis, int quantity) {
+      prepended += quantity;
+    }
+  }
+
+}
@@ -0,0 +1,72 @@
+package com.qozix.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ItemSizeEstimatorTest {
+
+  @Test
+  public void estimate_isZeroWithoutSamples() throws Exception {
+    ItemSizeEstimator estimator = new ItemSizeEstimator();
+    assertFalse(estimator.hasEstimate());
+    assertEquals(0, estimator.getEstimate());
+  }
+
+  @Test
+  public void estimate_isRunningMeanWhileWarmingUp() throws Exception {
+    ItemSizeEstimator estimator = new ItemSizeEstimator(0.1f);
+    estimator.addSample(100);
+    estimator.addSample(200);
+    estimator.addSample(300);
+    assertEquals(3, estimator.getSampleCount());
+    assertEquals(200, estimator.getEstimate());
+  }
+
+  @Test
+  public void estimate_ignoresEmptySamples() throws Exception {
+    ItemSizeEstimator estimator = new ItemSizeEstimator();
+    estimator.addSample(120);
+    estimator.addSample(0);
+    estimator.addSample(-5);
+    assertEquals(1, estimator.getSampleCount());
+    assertEquals(120, estimator.getEstimate());
+  }
+
+  @Test
+  public void estimate_convergesOnNewSizeOnceWarm() throws Exception {
+    ItemSizeEstimator estimator = new ItemSizeEstimator(0.25f);
+    for (int i = 0; i < 100; i++) {
+      estimator.addSample(100);
+    }
+    for (int i = 0; i < 50; i++) {
+      estimator.addSample(300);
+    }
+    assertEquals(300, estimator.getEstimate());
+  }
+
+  @Test
+  public void estimate_isNotDominatedBySingleOutlier() throws Exception {
+    ItemSizeEstimator estimator = new ItemSizeEstimator(0.1f);
+    for (int i = 0; i < 100; i++) {
+      estimator.addSample(100);
+    }
+    estimator.addSample(1000);
+    assertEquals(190, estimator.getEstimate());
+  }
+
+  @Test
+  public void reset_discardsSamples() throws Exception {
+    ItemSizeEstimator estimator = new ItemSizeEstimator();
+    estimator.addSample(100);
+    estimator.reset();
+    assertFalse(estimator.hasEstimate());
+    assertEquals(0, estimator.getEstimate());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_rejectsInvalidSmoothing() throws Exception {
+    new ItemSizeEstimator(0);
+  }
+
+}
@@ -0,0 +1,135 @@
+package com.qozix.widget;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class ItemSizeModelTest {
+
+  private static final int ROW = 0;
+  private static final int AD = 1;
+  private static final int HEADER = 7;
+
+  private ItemSizeModel newMixedFeedModel() {
+    ItemSizeModel model = new ItemSizeModel();
+    // nine rows of 100 to every ad of 600
+    for (int i = 0; i < 90; i++) {
+      model.addSample(i % 10 == 9 ? AD : ROW, i % 10 == 9 ? 600 : 100);
+    }
+    return model;
+  }
+
+  @Test
+  public void estimate_isTrackedPerViewType() throws Exception {
+    ItemSizeModel model = newMixedFeedModel();
+    assertEquals(100, model.getEstimate(ROW));
+    assertEquals(600, model.getEstimate(AD));
+  }
+
+  @Test
+  public void estimate_isWeightedByViewTypeFrequency() throws Exception {
+    ItemSizeModel model = newMixedFeedModel();
+    // recent samples carry more weight, so the ad that was seen last counts for a bit more than one in ten
+    double adFrequency = model.getFrequency(AD);
+    assertEquals(0.1, adFrequency, 0.06);
+    assertEquals(1, model.getFrequency(ROW) + adFrequency, 1e-9);
+    assertEquals(Math.round(100 * (1 - adFrequency) + 600 * adFrequency), model.getEstimate());
+  }
+
+  @Test
+  public void estimate_fallsBackToMixForUnseenViewType() throws Exception {
+    ItemSizeModel model = newMixedFeedModel();
+    assertEquals(model.getEstimate(), model.getEstimate(HEADER));
+    assertEquals(0, model.getFrequency(HEADER), 0);
+  }
+
+  @Test
+  public void quantity_usesMixWithoutUpcomingViewTypes() throws Exception {
+    ItemSizeModel model = newMixedFeedModel();
+    int mix = model.getEstimate();
+    assertEquals(1 + 3000 / mix, model.computeQuantity(3000, null, 0, 0));
+  }
+
+  @Test
+  public void quantity_followsUpcomingViewTypes() throws Exception {
+    ItemSizeModel model = newMixedFeedModel();
+    ItemSizeModel.ViewTypeSource allAds = new ItemSizeModel.ViewTypeSource() {
+      @Override
+      public int getUpcomingItemViewType(int position) {
+        return AD;
+      }
+    };
+    ItemSizeModel.ViewTypeSource allRows = new ItemSizeModel.ViewTypeSource() {
+      @Override
+      public int getUpcomingItemViewType(int position) {
+        return ROW;
+      }
+    };
+    assertEquals(5, model.computeQuantity(3000, allAds, 100, 0));
+    assertEquals(30, model.computeQuantity(3000, allRows, 100, 0));
+  }
+
+  @Test
+  public void quantity_usesFallbackBeforeAnySamples() throws Exception {
+    ItemSizeModel model = new ItemSizeModel();
+    assertEquals(11, model.computeQuantity(1000, null, 0, 100));
+    assertEquals(0, model.computeQuantity(1000, null, 0, 0));
+    assertEquals(0, model.computeQuantity(0, null, 0, 100));
+  }
+
+  @Test
+  public void viewTypes_canBeAddedInAnyOrder() throws Exception {
+    ItemSizeModel model = new ItemSizeModel();
+    int[] viewTypes = {9, 3, 7, 1, 5, 0, 8, 2};
+    for (int viewType : viewTypes) {
+      model.addSample(viewType, 10 * (viewType + 1));
+    }
+    for (int viewType : viewTypes) {
+      assertEquals(10 * (viewType + 1), model.getEstimate(viewType));
+    }
+  }
+
+  @Test
+  public void reset_discardsViewTypes() throws Exception {
+    ItemSizeModel model = newMixedFeedModel();
+    model.reset();
+    assertFalse(model.hasEstimate());
+    assertEquals(0, model.getEstimate(AD));
+  }
+
+  @Test
+  public void model_survivesBeingWrittenAndRead() throws Exception {
+    ItemSizeModel model = newMixedFeedModel();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    model.writeTo(new DataOutputStream(bytes));
+    ItemSizeModel restored = new ItemSizeModel();
+    restored.addSample(HEADER, 40);
+    restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(model.getSampleCount(), restored.getSampleCount());
+    assertEquals(model.getEstimate(), restored.getEstimate());
+    assertEquals(model.getFrequency(AD), restored.getFrequency(AD), 0);
+    assertEquals(600, restored.getEstimate(AD));
+    assertEquals(0, restored.getFrequency(HEADER), 0);
+    // and keeps learning where it left off
+    model.addSample(AD, 700);
+    restored.addSample(AD, 700);
+    assertEquals(model.getEstimate(AD), restored.getEstimate(AD));
+    assertEquals(model.getEstimate(), restored.getEstimate());
+  }
+
+  @Test(expected = IOException.class)
+  public void readFrom_rejectsOtherData() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeInt(1);
+    output.writeInt(5);
+    new ItemSizeModel().readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+
+}
@@ -0,0 +1,107 @@
+package com.qozix.widget;
+
+import android.os.Debug;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.test.AndroidTestCase;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Verifies that the scroll-driven populate path does not allocate once item sizes have been learned.
+ */
+public class EndlessRecyclerViewAllocationTest extends AndroidTestCase {
+
+  private static final int WIDTH = 1080;
+  private static final int HEIGHT = 1920;
+  private static final int ITEM_HEIGHT = 100;
+  private static final int WARM_UP_CYCLES = 100;
+  private static final int MEASURED_CYCLES = 1000;
+
+  private EndlessRecyclerView mEndlessRecyclerView;
+  private EndlessListener mEndlessListener;
+  private CountingAdapter mAdapter;
+  private int mPopulationCount;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    mAdapter = new CountingAdapter(50);
+    mEndlessRecyclerView = new EndlessRecyclerView(getContext());
+    mEndlessRecyclerView.setLayoutManager(new LinearLayoutManager(getContext(), LinearLayoutManager.VERTICAL, false));
+    mEndlessRecyclerView.setAdapter(mAdapter);
+    mEndlessRecyclerView.setOnPopulationListener(new EndlessRecyclerView.OnPopulationListener() {
+      @Override
+      public void onPopulation(int quantity, EndlessRecyclerView.Orientation orientation) {
+        mPopulationCount++;
+      }
+    });
+    mEndlessRecyclerView.measure(
+      View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+      View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+    mEndlessRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+    mEndlessRecyclerView.setVerticalThreshold(HEIGHT * 3);
+    mEndlessListener = new EndlessListener(mEndlessRecyclerView);
+  }
+
+  private void scrollAndPopulate() {
+    mEndlessListener.onScrolled(mEndlessRecyclerView, 0, 12);
+    mEndlessRecyclerView.populate();
+  }
+
+  public void testScrollAndPopulateDoesNotAllocateOnceWarm() {
+    for (int i = 0; i < WARM_UP_CYCLES; i++) {
+      scrollAndPopulate();
+    }
+    mPopulationCount = 0;
+    mAdapter.mFilledQuantity = 0;
+    Debug.startAllocCounting();
+    Debug.resetThreadAllocCount();
+    for (int i = 0; i < MEASURED_CYCLES; i++) {
+      scrollAndPopulate();
+    }
+    Debug.stopAllocCounting();
+    int allocations = Debug.getThreadAllocCount();
+    // sanity check that the loop actually exercised fill and the population listener
+    assertEquals(MEASURED_CYCLES * 2, mPopulationCount);
+    assertTrue(mAdapter.mFilledQuantity > 0);
+    assertEquals("populate allocated on the scroll path", 0, allocations);
+  }
+
+  /**
+   * Reports a fixed item count, so every populate finds the same deficit and requests the same fill.
+   */
+  private static class CountingAdapter extends EndlessAdapter<RecyclerView.ViewHolder> {
+
+    private int mItemCount;
+    private int mFilledQuantity;
+
+    CountingAdapter(int itemCount) {
+      mItemCount = itemCount;
+    }
+
+    @Override
+    public void fill(int quantity) {
+      mFilledQuantity += quantity;
+    }
+
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+      View view = new View(parent.getContext());
+      view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+      return new RecyclerView.ViewHolder(view) {
+      };
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+    }
+
+    @Override
+    public int getItemCount() {
+      return mItemCount;
+    }
+
+  }
+
+}
@@ -0,0 +1,110 @@
+package com.qozix.widget;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.test.AndroidTestCase;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Verifies that items prepended at the start of the data set don't move the items on screen, and that pending prepends
+ * are counted apart from pending fills.
+ */
+public class EndlessRecyclerViewPrependTest extends AndroidTestCase {
+
+  private static final int WIDTH = 1080;
+  private static final int HEIGHT = 1920;
+  private static final int ITEM_HEIGHT = 100;
+  private static final int FIRST_POSITION = 10;
+  private static final int FIRST_OFFSET = -30;
+
+  private EndlessRecyclerView mEndlessRecyclerView;
+  private LinearLayoutManager mLinearLayoutManager;
+  private PrependingAdapter mAdapter;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    mAdapter = new PrependingAdapter(50);
+    mLinearLayoutManager = new LinearLayoutManager(getContext(), LinearLayoutManager.VERTICAL, false);
+    mEndlessRecyclerView = new EndlessRecyclerView(getContext());
+    mEndlessRecyclerView.setLayoutManager(mLinearLayoutManager);
+    mEndlessRecyclerView.setAdapter(mAdapter);
+    layout();
+    mLinearLayoutManager.scrollToPositionWithOffset(FIRST_POSITION, FIRST_OFFSET);
+    layout();
+  }
+
+  private void layout() {
+    mEndlessRecyclerView.measure(
+      View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+      View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+    mEndlessRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+  }
+
+  private View findFirstChild() {
+    return mLinearLayoutManager.findViewByPosition(mLinearLayoutManager.findFirstVisibleItemPosition());
+  }
+
+  public void testNotifyItemsPrependedKeepsFirstShownItemInPlace() {
+    assertEquals(FIRST_POSITION, mLinearLayoutManager.findFirstVisibleItemPosition());
+    assertEquals(FIRST_OFFSET, findFirstChild().getTop());
+    mAdapter.addToStart(5);
+    layout();
+    assertEquals(FIRST_POSITION + 5, mLinearLayoutManager.findFirstVisibleItemPosition());
+    assertEquals(FIRST_OFFSET, findFirstChild().getTop());
+  }
+
+  public void testPendingPrependsAreCountedApartFromFills() {
+    mAdapter.notifyFillStarted(4);
+    mAdapter.notifyPrependStarted(3);
+    assertEquals(4, mAdapter.getPendingFillQuantity());
+    assertEquals(3, mAdapter.getPendingPrependQuantity());
+    mAdapter.notifyFillCompleted(4);
+    assertEquals(0, mAdapter.getPendingFillQuantity());
+    assertEquals(3, mAdapter.getPendingPrependQuantity());
+    assertTrue(mAdapter.isFilling());
+    mAdapter.notifyPrependCompleted(3);
+    assertFalse(mAdapter.isFilling());
+  }
+
+  /**
+   * Reports a fixed item count, grown at the start on demand.
+   */
+  private static class PrependingAdapter extends EndlessAdapter<RecyclerView.ViewHolder> {
+
+    private int mItemCount;
+
+    PrependingAdapter(int itemCount) {
+      mItemCount = itemCount;
+    }
+
+    void addToStart(int quantity) {
+      mItemCount += quantity;
+      notifyItemsPrepended(quantity);
+    }
+
+    @Override
+    public void fill(int quantity) {
+    }
+
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+      View view = new View(parent.getContext());
+      view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+      return new RecyclerView.ViewHolder(view) {
+      };
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+    }
+
+    @Override
+    public int getItemCount() {
+      return mItemCount;
+    }
+
+  }
+
+}
@@ -0,0 +1,43 @@
+package com.qozix.widget;
+
+import android.view.Choreographer;
+
+/**
+ * A {@link FrameMonitor.FrameClock} backed by the main thread's Choreographer.  It holds a single callback at a time,
+ * which is all a FrameMonitor needs, so posting doesn't allocate.
+ */
+public class ChoreographerFrameClock implements FrameMonitor.FrameClock {
+
+  private FrameMonitor.FrameCallback mFrameCallback;
+
+  @Override
+  public long nanoTime() {
+    return System.nanoTime();
+  }
+
+  @Override
+  public void postFrameCallback(FrameMonitor.FrameCallback frameCallback) {
+    mFrameCallback = frameCallback;
+    Choreographer.getInstance().postFrameCallback(mChoreographerFrameCallback);
+  }
+
+  @Override
+  public void removeFrameCallback(FrameMonitor.FrameCallback frameCallback) {
+    if (frameCallback == mFrameCallback) {
+      mFrameCallback = null;
+      Choreographer.getInstance().removeFrameCallback(mChoreographerFrameCallback);
+    }
+  }
+
+  private final Choreographer.FrameCallback mChoreographerFrameCallback = new Choreographer.FrameCallback() {
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      FrameMonitor.FrameCallback frameCallback = mFrameCallback;
+      mFrameCallback = null;
+      if (frameCallback != null) {
+        frameCallback.doFrame(frameTimeNanos);
+      }
+    }
+  };
+
+}
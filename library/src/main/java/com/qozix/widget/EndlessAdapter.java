@@ -2,18 +2,363 @@ package com.qozix.widget;
 
 import android.support.v7.widget.RecyclerView;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Created by michaeldunn on 7/20/16.
  *
  * @param <VH> the type parameter
  */
-public abstract class EndlessAdapter<VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> {
+public abstract class EndlessAdapter<VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> implements ItemSizeModel.ViewTypeSource {
+
+  /**
+   * The interface On fill complete listener.
+   */
+  public interface OnFillCompleteListener {
+    /**
+     * Called when some or all of a pending fill has been delivered.
+     *
+     * @param quantity        the quantity delivered
+     * @param pendingQuantity the quantity still pending
+     */
+    void onFillComplete(int quantity, int pendingQuantity);
+  }
+
+  /**
+   * The interface On items prepended listener.
+   */
+  public interface OnItemsPrependedListener {
+    /**
+     * Called just before observers are notified of items inserted at the start of the data set.
+     *
+     * @param quantity the quantity prepended
+     */
+    void onItemsPrepended(int quantity);
+  }
+
+  private int mPendingFillQuantity;
+  private int mPendingPlaceholderQuantity;
+  private int mPendingPrependQuantity;
+  private List<OnFillCompleteListener> mOnFillCompleteListeners = new ArrayList<>();
+  private List<OnItemsPrependedListener> mOnItemsPrependedListeners = new ArrayList<>();
+  private EndlessMetrics mEndlessMetrics;
+  private FrameMonitor mFrameMonitor;
+  private boolean mIsPrebinding;
 
   /**
    * Fill the dataset with enough items to meet the specified threshold.
    *
+   * If items can't be provided immediately (e.g., they're fetched from a server), call {@link #notifyFillStarted(int)}
+   * with the quantity requested, and {@link #notifyFillCompleted(int)} as items arrive.  The pending quantity is
+   * subtracted from the quantity requested by subsequent scrolls, so a slow response doesn't lead to duplicate requests,
+   * and the EndlessRecyclerView populates again once the fill completes in case more is needed by then.  If placeholders
+   * are inserted for the items in the meantime, use {@link #notifyPlaceholderFillStarted(int)} and
+   * {@link #notifyPlaceholderFillCompleted(int)} instead, since placeholders already count towards the threshold.
+   *
    * @param quantity the quantity
    */
   public abstract void fill(int quantity);
 
+  /**
+   * Return true if there are items before the start of the data set that {@link #prepend(int)} can provide, e.g. when
+   * a timeline or chat history was opened in the middle.  An EndlessRecyclerView only populates its leading edge while
+   * this is true.
+   *
+   * @return the boolean
+   */
+  public boolean canPrepend() {
+    return false;
+  }
+
+  /**
+   * Add items to the start of the dataset, to meet the threshold before the first item shown.  Items should be reported
+   * with {@link #notifyItemsPrepended(int)} rather than notifyItemRangeInserted, so what's on screen stays where it is.
+   * Slow prepends should use {@link #notifyPrependStarted(int)} and {@link #notifyPrependCompleted(int)}, which are
+   * counted apart from a pending fill, so neither edge holds back requests for the other.
+   *
+   * Items are only ever added at the leading edge - nothing is dropped from the far end to make room, so a long session
+   * of prepending holds every item it's loaded.  {@link WindowedItemStore} only appends, so it can't back an adapter
+   * that prepends.
+   *
+   * @param quantity the quantity
+   */
+  public void prepend(int quantity) {
+
+  }
+
+  /**
+   * Notify observers that items were inserted at the start of the data set.  An EndlessRecyclerView keeps the items
+   * currently shown anchored in place, rather than letting the new items push them along.
+   *
+   * @param quantity the quantity
+   */
+  public void notifyItemsPrepended(int quantity) {
+    if (quantity <= 0) {
+      return;
+    }
+    if (mEndlessMetrics != null) {
+      mEndlessMetrics.onItemsPrepended(quantity);
+    }
+    for (int i = mOnItemsPrependedListeners.size() - 1; i >= 0; i--) {
+      mOnItemsPrependedListeners.get(i).onItemsPrepended(quantity);
+    }
+    notifyItemRangeInserted(0, quantity);
+  }
+
+  /**
+   * Report that items have been requested but not yet delivered, nor inserted as placeholders - generally called from
+   * {@link #fill(int)}.
+   *
+   * @param quantity the quantity
+   */
+  protected void notifyFillStarted(int quantity) {
+    if (quantity > 0) {
+      mPendingFillQuantity += quantity;
+    }
+  }
+
+  /**
+   * Report that pending items have been delivered.
+   *
+   * @param quantity the quantity
+   */
+  protected void notifyFillCompleted(int quantity) {
+    if (quantity <= 0) {
+      return;
+    }
+    mPendingFillQuantity = Math.max(0, mPendingFillQuantity - quantity);
+    for (int i = mOnFillCompleteListeners.size() - 1; i >= 0; i--) {
+      mOnFillCompleteListeners.get(i).onFillComplete(quantity, mPendingFillQuantity);
+    }
+  }
+
+  /**
+   * Report that items have been requested but not yet delivered, and placeholders have been inserted for them.  They're
+   * pending until delivered with real content, for adaptive thresholds and fill complete listeners, but aren't
+   * subtracted from the quantity populating requests, since the placeholders are already in the data set.
+   *
+   * @param quantity the quantity
+   */
+  protected void notifyPlaceholderFillStarted(int quantity) {
+    if (quantity > 0) {
+      mPendingPlaceholderQuantity += quantity;
+      notifyFillStarted(quantity);
+    }
+  }
+
+  /**
+   * Report that items pending as placeholders have been delivered, or are no longer expected.
+   *
+   * @param quantity the quantity
+   */
+  protected void notifyPlaceholderFillCompleted(int quantity) {
+    if (quantity > 0) {
+      mPendingPlaceholderQuantity = Math.max(0, mPendingPlaceholderQuantity - quantity);
+      notifyFillCompleted(quantity);
+    }
+  }
+
+  /**
+   * Report that items have been requested before the start of the data set but not yet delivered - generally called
+   * from {@link #prepend(int)}.
+   *
+   * @param quantity the quantity
+   */
+  protected void notifyPrependStarted(int quantity) {
+    if (quantity > 0) {
+      mPendingPrependQuantity += quantity;
+    }
+  }
+
+  /**
+   * Report that pending items before the start of the data set have been delivered.  Fill complete listeners are told
+   * as for a fill, with the quantity still pending to prepend.
+   *
+   * @param quantity the quantity
+   */
+  protected void notifyPrependCompleted(int quantity) {
+    if (quantity <= 0) {
+      return;
+    }
+    mPendingPrependQuantity = Math.max(0, mPendingPrependQuantity - quantity);
+    for (int i = mOnFillCompleteListeners.size() - 1; i >= 0; i--) {
+      mOnFillCompleteListeners.get(i).onFillComplete(quantity, mPendingPrependQuantity);
+    }
+  }
+
+  /**
+   * Gets the quantity of items that have been requested but not yet delivered.
+   *
+   * @return the pending fill quantity
+   */
+  public int getPendingFillQuantity() {
+    return mPendingFillQuantity;
+  }
+
+  /**
+   * Gets the quantity of pending items that are in the data set as placeholders.
+   *
+   * @return the pending placeholder quantity
+   */
+  public int getPendingPlaceholderQuantity() {
+    return mPendingPlaceholderQuantity;
+  }
+
+  /**
+   * Gets the quantity of items that have been requested before the start of the data set but not yet delivered.
+   *
+   * @return the pending prepend quantity
+   */
+  public int getPendingPrependQuantity() {
+    return mPendingPrependQuantity;
+  }
+
+  /**
+   * Is filling boolean.
+   *
+   * @return true if items are pending at either edge
+   */
+  public boolean isFilling() {
+    return mPendingFillQuantity > 0 || mPendingPrependQuantity > 0;
+  }
+
+  /**
+   * Add on fill complete listener.
+   *
+   * @param onFillCompleteListener the on fill complete listener
+   */
+  public void addOnFillCompleteListener(OnFillCompleteListener onFillCompleteListener) {
+    if (!mOnFillCompleteListeners.contains(onFillCompleteListener)) {
+      mOnFillCompleteListeners.add(onFillCompleteListener);
+    }
+  }
+
+  /**
+   * Remove on fill complete listener.
+   *
+   * @param onFillCompleteListener the on fill complete listener
+   */
+  public void removeOnFillCompleteListener(OnFillCompleteListener onFillCompleteListener) {
+    mOnFillCompleteListeners.remove(onFillCompleteListener);
+  }
+
+  /**
+   * Add on items prepended listener.
+   *
+   * @param onItemsPrependedListener the on items prepended listener
+   */
+  public void addOnItemsPrependedListener(OnItemsPrependedListener onItemsPrependedListener) {
+    if (!mOnItemsPrependedListeners.contains(onItemsPrependedListener)) {
+      mOnItemsPrependedListeners.add(onItemsPrependedListener);
+    }
+  }
+
+  /**
+   * Remove on items prepended listener.
+   *
+   * @param onItemsPrependedListener the on items prepended listener
+   */
+  public void removeOnItemsPrependedListener(OnItemsPrependedListener onItemsPrependedListener) {
+    mOnItemsPrependedListeners.remove(onItemsPrependedListener);
+  }
+
+  /**
+   * Override this to report which items are placeholders (e.g., shown while their data is on its way), so that metrics
+   * can measure how long placeholders stay on screen before their content is bound.
+   *
+   * @param position the position
+   * @return the boolean
+   */
+  public boolean isPlaceholder(int position) {
+    return false;
+  }
+
+  /**
+   * Override this to save items across a configuration change or the process being killed, so the EndlessRecyclerView
+   * can come back showing them, where it was, without fetching them again.  Write enough to rebuild the positions from
+   * the first to the last given (generally, those shown and those within the threshold either side), to be read back by
+   * {@link #onRestoreItems(DataInput)}.  Keep it compact: it's kept in the saved instance state, which is size limited.
+   *
+   * @param output        the output
+   * @param firstPosition the first position worth saving
+   * @param lastPosition  the last position worth saving
+   * @return true if items were written, false (the default) if not
+   * @throws IOException if the output fails
+   */
+  protected boolean onSaveItems(DataOutput output, int firstPosition, int lastPosition) throws IOException {
+    return false;
+  }
+
+  /**
+   * Override this to rebuild items from what {@link #onSaveItems(DataOutput, int, int)} wrote, and notify observers of
+   * them, before the EndlessRecyclerView next lays out.  The positions saved must come back at the same positions, so
+   * the view can be scrolled back to where it was.
+   *
+   * @param input the input
+   * @return true if the items were restored
+   * @throws IOException if the input fails or holds something else
+   */
+  protected boolean onRestoreItems(DataInput input) throws IOException {
+    return false;
+  }
+
+  // binds are observed here, rather than in onBindViewHolder(VH, int), so subclasses don't need to call through
+  @Override
+  public void onBindViewHolder(VH holder, int position, List<Object> payloads) {
+    // binds done ahead of time, between frames, are recorded when (and if) the item is shown
+    if (mIsPrebinding) {
+      super.onBindViewHolder(holder, position, payloads);
+      return;
+    }
+    if (mFrameMonitor != null) {
+      // a ViewHolder that was just created is bound straight away, so its inflation is over
+      if (mFrameMonitor.getCurrentWork() == FrameMonitor.WORK_INFLATE) {
+        mFrameMonitor.endWork();
+      }
+      mFrameMonitor.beginWork(FrameMonitor.WORK_BIND);
+      super.onBindViewHolder(holder, position, payloads);
+      mFrameMonitor.endWork();
+    } else {
+      super.onBindViewHolder(holder, position, payloads);
+    }
+    if (mEndlessMetrics != null) {
+      mEndlessMetrics.onItemBound(position, isPlaceholder(position));
+    }
+  }
+
+  /* package-private */ void setEndlessMetrics(EndlessMetrics endlessMetrics) {
+    mEndlessMetrics = endlessMetrics;
+  }
+
+  /* package-private */ void setFrameMonitor(FrameMonitor frameMonitor) {
+    mFrameMonitor = frameMonitor;
+  }
+
+  /* package-private */ void setPrebinding(boolean isPrebinding) {
+    mIsPrebinding = isPrebinding;
+  }
+
+  /* package-private */ void onPreboundViewShown(int position) {
+    if (mEndlessMetrics != null) {
+      mEndlessMetrics.onItemBound(position, isPlaceholder(position));
+    }
+  }
+
+  /**
+   * Override this if the view types of items that will be added by {@link #fill(int)} can be predicted (e.g., a header
+   * every 20 items, or an ad every 10th position), so the quantity requested is based on the sizes of those view types
+   * rather than an average across all items.
+   *
+   * @param position the position, at or beyond the current item count
+   * @return the view type expected at that position, or {@link ItemSizeModel#UNKNOWN_VIEW_TYPE} if not known
+   */
+  @Override
+  public int getUpcomingItemViewType(int position) {
+    return ItemSizeModel.UNKNOWN_VIEW_TYPE;
+  }
+
 }
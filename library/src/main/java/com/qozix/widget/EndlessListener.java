@@ -20,7 +20,8 @@ public class EndlessListener extends RecyclerView.OnScrollListener {
 
   @Override
   public final void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-    mEndlessRecyclerView.onEndlessScroll(dx > 0, dy > 0);
+    // either edge may need populating, depending on the direction of the scroll
+    mEndlessRecyclerView.onEndlessScroll(dx != 0, dy != 0);
   }
 
 }
@@ -0,0 +1,308 @@
+package com.qozix.widget;
+
+/**
+ * Counters and histograms describing what an {@link EndlessRecyclerView} has been doing since metrics were enabled, or
+ * since the last {@link #reset()}: how often it populates, how much it asks its adapter for, how much of that is ever
+ * shown, and how long users wait for content.  Read them whenever convenient (e.g., when the screen is left) and ship
+ * them wherever you like.
+ *
+ * Everything is recorded into primitive fields and fixed arrays, so recording never allocates; and nothing is recorded
+ * at all unless metrics are enabled with {@link EndlessRecyclerView#setMetricsEnabled(boolean)}.  Not thread safe - like
+ * the view itself, it should only be used from the main thread.
+ *
+ * Latencies are tracked for a bounded number of outstanding fills and placeholders; if more are outstanding at once,
+ * the oldest are forgotten, so those latencies go unrecorded rather than skewing the histograms.
+ */
+public class EndlessMetrics {
+
+  private static final int NO_POSITION = -1;
+  private static final int MAX_TRACKED_FILLS = 16;
+  private static final int MAX_TRACKED_PLACEHOLDERS = 64;
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  /**
+   * A source of monotonic time.
+   */
+  public interface Clock {
+    /**
+     * Gets the current time.
+     *
+     * @return the time, in nanoseconds
+     */
+    long nanoTime();
+  }
+
+  private static final Clock SYSTEM_CLOCK = new Clock() {
+    @Override
+    public long nanoTime() {
+      return System.nanoTime();
+    }
+  };
+
+  private final Clock mClock;
+  private long mStartNanos;
+  private long mPopulateCount;
+  private long mFillRequestCount;
+  private long mFillQuantity;
+  private long mPrependRequestCount;
+  private long mPrependQuantity;
+  private final Histogram mFillQuantities = new Histogram();
+  private final Histogram mFillToBindNanos = new Histogram();
+  private final Histogram mPlaceholderOnScreenNanos = new Histogram();
+  // the range of positions bound so far, which positions ever shown are counted from
+  private int mFirstShownPosition = NO_POSITION;
+  private int mLastShownPosition = NO_POSITION;
+  // fills whose items haven't been bound with content yet
+  private final int[] mFillPositions = new int[MAX_TRACKED_FILLS];
+  private final int[] mFillQuantitiesOutstanding = new int[MAX_TRACKED_FILLS];
+  private final long[] mFillNanos = new long[MAX_TRACKED_FILLS];
+  private int mFillCount;
+  // placeholders that have been bound, but whose content hasn't been yet
+  private final int[] mPlaceholderPositions = new int[MAX_TRACKED_PLACEHOLDERS];
+  private final long[] mPlaceholderNanos = new long[MAX_TRACKED_PLACEHOLDERS];
+  private int mPlaceholderCount;
+
+  /**
+   * Instantiates a new Endless metrics using the system clock.
+   */
+  public EndlessMetrics() {
+    this(SYSTEM_CLOCK);
+  }
+
+  /**
+   * Instantiates a new Endless metrics.
+   *
+   * @param clock the clock
+   */
+  public EndlessMetrics(Clock clock) {
+    mClock = clock;
+    mStartNanos = clock.nanoTime();
+  }
+
+  /* package-private */ void onPopulate() {
+    mPopulateCount++;
+  }
+
+  /* package-private */ void onFillRequested(int firstPosition, int quantity) {
+    mFillRequestCount++;
+    mFillQuantity += quantity;
+    mFillQuantities.record(quantity);
+    int index = mFillCount < MAX_TRACKED_FILLS ? mFillCount++ : indexOfOldest(mFillNanos, mFillCount);
+    mFillPositions[index] = firstPosition;
+    mFillQuantitiesOutstanding[index] = quantity;
+    mFillNanos[index] = mClock.nanoTime();
+  }
+
+  /* package-private */ void onPrependRequested(int quantity) {
+    mPrependRequestCount++;
+    mPrependQuantity += quantity;
+  }
+
+  /* package-private */ void onItemsPrepended(int quantity) {
+    if (mFirstShownPosition != NO_POSITION) {
+      mFirstShownPosition += quantity;
+      mLastShownPosition += quantity;
+    }
+    for (int i = 0; i < mFillCount; i++) {
+      mFillPositions[i] += quantity;
+    }
+    for (int i = 0; i < mPlaceholderCount; i++) {
+      mPlaceholderPositions[i] += quantity;
+    }
+  }
+
+  /* package-private */ void onItemBound(int position, boolean isPlaceholder) {
+    if (mFirstShownPosition == NO_POSITION) {
+      mFirstShownPosition = position;
+      mLastShownPosition = position;
+    } else if (position < mFirstShownPosition) {
+      mFirstShownPosition = position;
+    } else if (position > mLastShownPosition) {
+      mLastShownPosition = position;
+    }
+    long now = mClock.nanoTime();
+    int placeholderIndex = indexOf(mPlaceholderPositions, mPlaceholderCount, position);
+    if (isPlaceholder) {
+      if (placeholderIndex == -1) {
+        int index = mPlaceholderCount < MAX_TRACKED_PLACEHOLDERS ? mPlaceholderCount++ : indexOfOldest(mPlaceholderNanos, mPlaceholderCount);
+        mPlaceholderPositions[index] = position;
+        mPlaceholderNanos[index] = now;
+      }
+      return;
+    }
+    if (placeholderIndex != -1) {
+      mPlaceholderOnScreenNanos.record(now - mPlaceholderNanos[placeholderIndex]);
+      mPlaceholderCount--;
+      mPlaceholderPositions[placeholderIndex] = mPlaceholderPositions[mPlaceholderCount];
+      mPlaceholderNanos[placeholderIndex] = mPlaceholderNanos[mPlaceholderCount];
+    }
+    // the first of a fill's items to be bound with content tells us how long that fill took to show up
+    for (int i = 0; i < mFillCount; i++) {
+      int start = mFillPositions[i];
+      if (position >= start && position < start + mFillQuantitiesOutstanding[i]) {
+        mFillToBindNanos.record(now - mFillNanos[i]);
+        mFillCount--;
+        mFillPositions[i] = mFillPositions[mFillCount];
+        mFillQuantitiesOutstanding[i] = mFillQuantitiesOutstanding[mFillCount];
+        mFillNanos[i] = mFillNanos[mFillCount];
+        break;
+      }
+    }
+  }
+
+  private static int indexOf(int[] positions, int count, int position) {
+    for (int i = 0; i < count; i++) {
+      if (positions[i] == position) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int indexOfOldest(long[] nanos, int count) {
+    int oldest = 0;
+    for (int i = 1; i < count; i++) {
+      if (nanos[i] < nanos[oldest]) {
+        oldest = i;
+      }
+    }
+    return oldest;
+  }
+
+  /**
+   * Gets the time since metrics were enabled or last reset.
+   *
+   * @return the elapsed nanos
+   */
+  public long getElapsedNanos() {
+    return mClock.nanoTime() - mStartNanos;
+  }
+
+  /**
+   * Gets the number of times population has run, whether or not it requested anything.
+   *
+   * @return the populate count
+   */
+  public long getPopulateCount() {
+    return mPopulateCount;
+  }
+
+  /**
+   * Gets the number of times population has run per second, since metrics were enabled or last reset.
+   *
+   * @return the populate rate
+   */
+  public double getPopulateRate() {
+    long elapsedNanos = getElapsedNanos();
+    return elapsedNanos <= 0 ? 0 : mPopulateCount * NANOS_PER_SECOND / elapsedNanos;
+  }
+
+  /**
+   * Gets the number of times the adapter was asked to fill.
+   *
+   * @return the fill request count
+   */
+  public long getFillRequestCount() {
+    return mFillRequestCount;
+  }
+
+  /**
+   * Gets the total quantity of items the adapter was asked to fill.
+   *
+   * @return the fill quantity
+   */
+  public long getFillQuantity() {
+    return mFillQuantity;
+  }
+
+  /**
+   * Gets the distribution of quantities per fill request.
+   *
+   * @return the fill quantities
+   */
+  public Histogram getFillQuantities() {
+    return mFillQuantities;
+  }
+
+  /**
+   * Gets the number of times the adapter was asked to prepend.
+   *
+   * @return the prepend request count
+   */
+  public long getPrependRequestCount() {
+    return mPrependRequestCount;
+  }
+
+  /**
+   * Gets the total quantity of items the adapter was asked to prepend.
+   *
+   * @return the prepend quantity
+   */
+  public long getPrependQuantity() {
+    return mPrependQuantity;
+  }
+
+  /**
+   * Gets the number of items that have ever been bound, counted as the span of positions bound.
+   *
+   * @return the shown item count
+   */
+  public long getShownItemCount() {
+    if (mFirstShownPosition == NO_POSITION) {
+      return 0;
+    }
+    return mLastShownPosition - mFirstShownPosition + 1;
+  }
+
+  /**
+   * Gets the ratio of items requested (filled or prepended) to items ever shown.  1 means nothing was requested that
+   * wasn't needed; 2 means twice as many items were requested as were ever seen.
+   *
+   * @return the over-fetch ratio, or 0 if nothing has been shown
+   */
+  public double getOverFetchRatio() {
+    long shownItemCount = getShownItemCount();
+    return shownItemCount == 0 ? 0 : (double) (mFillQuantity + mPrependQuantity) / shownItemCount;
+  }
+
+  /**
+   * Gets the distribution of times from a fill request to the first of its items being bound with content, in
+   * nanoseconds.
+   *
+   * @return the fill to bind nanos
+   */
+  public Histogram getFillToBindNanos() {
+    return mFillToBindNanos;
+  }
+
+  /**
+   * Gets the distribution of times from a placeholder first being bound to its content being bound at the same
+   * position, in nanoseconds.  See {@link EndlessAdapter#isPlaceholder(int)}.
+   *
+   * @return the placeholder on screen nanos
+   */
+  public Histogram getPlaceholderOnScreenNanos() {
+    return mPlaceholderOnScreenNanos;
+  }
+
+  /**
+   * Discards everything recorded, and starts a new interval.  Fills and placeholders that are outstanding are
+   * forgotten.
+   */
+  public void reset() {
+    mStartNanos = mClock.nanoTime();
+    mPopulateCount = 0;
+    mFillRequestCount = 0;
+    mFillQuantity = 0;
+    mPrependRequestCount = 0;
+    mPrependQuantity = 0;
+    mFillQuantities.reset();
+    mFillToBindNanos.reset();
+    mPlaceholderOnScreenNanos.reset();
+    mFirstShownPosition = NO_POSITION;
+    mLastShownPosition = NO_POSITION;
+    mFillCount = 0;
+    mPlaceholderCount = 0;
+  }
+
+}
@@ -0,0 +1,90 @@
+package com.qozix.widget;
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * The RecycledViewPool an EndlessRecyclerView installs.  It keeps count of the ViewHolders it holds of each view type,
+ * which RecycledViewPool doesn't expose, so the view knows how many to prepare ahead of time; and it reports misses to
+ * the view's {@link FrameMonitor}, since a miss is followed by the adapter creating a ViewHolder.
+ */
+/* package-private */ class EndlessRecycledViewPool extends RecyclerView.RecycledViewPool {
+
+  // RecycledViewPool's default
+  private static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;
+
+  private final EndlessRecyclerView mEndlessRecyclerView;
+  private final ViewTypeCounts mCounts = new ViewTypeCounts();
+  private final ViewTypeCounts mMaxRecycledViews = new ViewTypeCounts();
+
+  /* package-private */ EndlessRecycledViewPool(EndlessRecyclerView endlessRecyclerView) {
+    mEndlessRecyclerView = endlessRecyclerView;
+  }
+
+  @Override
+  public RecyclerView.ViewHolder getRecycledView(int viewType) {
+    RecyclerView.ViewHolder viewHolder = takeRecycledView(viewType);
+    if (viewHolder == null) {
+      FrameMonitor frameMonitor = mEndlessRecyclerView.getFrameMonitor();
+      if (frameMonitor != null && frameMonitor.getCurrentWork() != FrameMonitor.WORK_INFLATE) {
+        frameMonitor.beginWork(FrameMonitor.WORK_INFLATE);
+      }
+    }
+    return viewHolder;
+  }
+
+  // takes a ViewHolder without reporting a miss, for work done outside of layout
+  /* package-private */ RecyclerView.ViewHolder takeRecycledView(int viewType) {
+    RecyclerView.ViewHolder viewHolder = super.getRecycledView(viewType);
+    if (viewHolder != null) {
+      mCounts.add(viewType, -1);
+    }
+    return viewHolder;
+  }
+
+  @Override
+  public void putRecycledView(RecyclerView.ViewHolder scrap) {
+    super.putRecycledView(scrap);
+    // holders beyond the max are dropped by the pool
+    int viewType = scrap.getItemViewType();
+    mCounts.set(viewType, Math.min(mCounts.get(viewType) + 1, getMaxRecycledViews(viewType)));
+  }
+
+  @Override
+  public void setMaxRecycledViews(int viewType, int max) {
+    super.setMaxRecycledViews(viewType, max);
+    mMaxRecycledViews.set(viewType, max);
+    mCounts.set(viewType, Math.min(mCounts.get(viewType), max));
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    mCounts.clear();
+  }
+
+  /**
+   * Gets the most ViewHolders of a view type the pool will hold.
+   *
+   * @param viewType the view type
+   * @return the max recycled views
+   */
+  public int getMaxRecycledViews(int viewType) {
+    for (int i = 0; i < mMaxRecycledViews.size(); i++) {
+      if (mMaxRecycledViews.getViewTypeAt(i) == viewType) {
+        return mMaxRecycledViews.getCountAt(i);
+      }
+    }
+    return DEFAULT_MAX_RECYCLED_VIEWS;
+  }
+
+  /**
+   * Gets the number of ViewHolders of a view type in the pool.
+   *
+   * @param viewType the view type
+   * @return the recycled view count
+   */
+  public int getRecycledViewCount(int viewType) {
+    return mCounts.get(viewType);
+  }
+
+}
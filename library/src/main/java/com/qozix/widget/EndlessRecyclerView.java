@@ -1,32 +1,73 @@
 package com.qozix.widget;
 
 import android.content.Context;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.annotation.Nullable;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.FrameLayout;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Created by michaeldunn on 7/20/16.
+ *
+ * Sizing and quantity logic is delegated to an {@link EndlessEngine}, which this View hosts.
  */
 public class EndlessRecyclerView extends RecyclerView {
 
+  private static final int ORIENTATION_COUNT = Orientation.values().length;
+  private static final Orientation[] ORIENTATIONS_BY_AXIS = new Orientation[EndlessEngine.AXIS_COUNT];
+  static {
+    ORIENTATIONS_BY_AXIS[EndlessEngine.AXIS_HORIZONTAL] = Orientation.HORIZONTAL;
+    ORIENTATIONS_BY_AXIS[EndlessEngine.AXIS_VERTICAL] = Orientation.VERTICAL;
+  }
+  // written first in each snapshot, and changed whenever the layout of a snapshot does
+  private static final int SNAPSHOT_VERSION = 1;
+
   private EndlessListener mEndlessListener;
   private OnPopulationListener mOnPopulationListener;
+  private OnPrefetchRangeChangedListener mOnPrefetchRangeChangedListener;
+  private EndlessEngine mEndlessEngine;
+  private EndlessMetrics mEndlessMetrics;
+  private FrameMonitor mFrameMonitor;
+  private final AdaptiveThreshold mAdaptiveThreshold = new AdaptiveThreshold();
+  private boolean mIsAdaptiveThresholdEnabled;
+  private EndlessRecycledViewPool mRecycledViewPool;
+  private ViewHolderPreparer mViewHolderPreparer;
   private boolean mIsEndless;
-  private boolean mCanExpectConsistentItemSize;
   private boolean mShouldEstimateFromAdapter = true;
+  private boolean mShouldCoalescePopulation;
+  private boolean mIsPopulationScheduled;
   private Ruler mWidthRuler;
   private Ruler mHeightRuler;
-  private Map<Orientation, Integer> mThresholds = new HashMap<>();
-  private Map<Orientation, Integer> mEstimatedItemDimensionsFromAdapter = new HashMap<>();
-  private Map<Orientation, Integer> mEstimatedItemDimensions = new HashMap<>();
-  private Map<Orientation, Integer> mCachedDimensions = new HashMap<>();
+  // indexed by Orientation.ordinal()
+  private final boolean[] mPendingPopulations = new boolean[ORIENTATION_COUNT];
+  // children that have been attached but not yet laid out, so can't be sampled yet
+  private final List<View> mUnsampledChildren = new ArrayList<>();
+  // the range last reported to the prefetch range listener
+  private int mPrefetchFirstPosition = NO_POSITION;
+  private int mPrefetchFirstShownPosition = NO_POSITION;
+  private int mPrefetchLastShownPosition = NO_POSITION;
+  private int mPrefetchLastPosition = NO_POSITION;
+  // a snapshot restored before an adapter was set, read once one is
+  private byte[] mPendingSnapshot;
+  // the size this View was when the item sizes restored from a snapshot were learned, until it's first sized
+  private int mRestoredWidth;
+  private int mRestoredHeight;
 
   /**
    * The interface On population listener.
@@ -41,6 +82,23 @@ public class EndlessRecyclerView extends RecyclerView {
     void onPopulation(int quantity, Orientation orientation);
   }
 
+  /**
+   * The interface On prefetch range changed listener.
+   */
+  public interface OnPrefetchRangeChangedListener {
+    /**
+     * Called when the range of items shown, or within the threshold before or after them, changes.  Items within the
+     * threshold are those that will be shown next when scrolling, so are worth preparing (e.g., loading images for)
+     * ahead of their binds.
+     *
+     * @param firstPosition      the first position within the threshold before the items shown
+     * @param firstShownPosition the first position shown
+     * @param lastShownPosition  the last position shown
+     * @param lastPosition       the last position within the threshold after the items shown
+     */
+    void onPrefetchRangeChanged(int firstPosition, int firstShownPosition, int lastShownPosition, int lastPosition);
+  }
+
   /**
    * The enum Orientation.
    */
@@ -92,9 +150,25 @@ public class EndlessRecyclerView extends RecyclerView {
    */
   public EndlessRecyclerView(Context context, @Nullable AttributeSet attrs, int defStyle) {
     super(context, attrs, defStyle);
+    mEndlessEngine = new EndlessEngine(mEngineHost);
+    mRecycledViewPool = new EndlessRecycledViewPool(this);
+    setRecycledViewPool(mRecycledViewPool);
+    mViewHolderPreparer = new ViewHolderPreparer(this, mRecycledViewPool);
     mEndlessListener = new EndlessListener(this);
     addOnScrollListener(mEndlessListener);
-    addOnLayoutChangeListener(mOnLayoutChangeListener);
+  }
+
+  private static int getAxis(Orientation orientation) {
+    return orientation == Orientation.VERTICAL ? EndlessEngine.AXIS_VERTICAL : EndlessEngine.AXIS_HORIZONTAL;
+  }
+
+  /**
+   * Gets endless engine.
+   *
+   * @return the endless engine
+   */
+  public EndlessEngine getEndlessEngine() {
+    return mEndlessEngine;
   }
 
   /**
@@ -122,7 +196,23 @@ public class EndlessRecyclerView extends RecyclerView {
     if (!(adapter instanceof EndlessAdapter)) {
       throw new UnsupportedOperationException("EndlessRecyclerView requires an EndlessAdapter");
     }
+    if (getAdapter() != null) {
+      getEndlessAdapter().removeOnFillCompleteListener(mOnFillCompleteListener);
+      getEndlessAdapter().removeOnItemsPrependedListener(mOnItemsPrependedListener);
+      getEndlessAdapter().setEndlessMetrics(null);
+      getEndlessAdapter().setFrameMonitor(null);
+    }
     super.setAdapter(adapter);
+    mViewHolderPreparer.setAdapter(adapter);
+    getEndlessAdapter().addOnFillCompleteListener(mOnFillCompleteListener);
+    getEndlessAdapter().addOnItemsPrependedListener(mOnItemsPrependedListener);
+    getEndlessAdapter().setEndlessMetrics(mEndlessMetrics);
+    getEndlessAdapter().setFrameMonitor(mFrameMonitor);
+    if (mPendingSnapshot != null) {
+      byte[] snapshot = mPendingSnapshot;
+      mPendingSnapshot = null;
+      readSnapshot(snapshot);
+    }
   }
 
   /**
@@ -143,13 +233,131 @@ public class EndlessRecyclerView extends RecyclerView {
     mOnPopulationListener = onPopulationListener;
   }
 
+  /**
+   * Sets on prefetch range changed listener, which is checked each time the view populates.
+   *
+   * @param onPrefetchRangeChangedListener the on prefetch range changed listener
+   */
+  public void setOnPrefetchRangeChangedListener(OnPrefetchRangeChangedListener onPrefetchRangeChangedListener) {
+    mOnPrefetchRangeChangedListener = onPrefetchRangeChangedListener;
+    mPrefetchFirstPosition = NO_POSITION;
+    mPrefetchFirstShownPosition = NO_POSITION;
+    mPrefetchLastShownPosition = NO_POSITION;
+    mPrefetchLastPosition = NO_POSITION;
+  }
+
+  /**
+   * Set this to true to start recording {@link EndlessMetrics}, or false to stop recording and discard them.  Metrics
+   * are off by default, and cost nothing while off.
+   *
+   * @param metricsEnabled the metrics enabled
+   */
+  public void setMetricsEnabled(boolean metricsEnabled) {
+    if (metricsEnabled == isMetricsEnabled()) {
+      return;
+    }
+    mEndlessMetrics = metricsEnabled ? new EndlessMetrics() : null;
+    if (getAdapter() != null) {
+      getEndlessAdapter().setEndlessMetrics(mEndlessMetrics);
+    }
+  }
+
+  /**
+   * Is metrics enabled boolean.
+   *
+   * @return the boolean
+   */
+  public boolean isMetricsEnabled() {
+    return mEndlessMetrics != null;
+  }
+
+  /**
+   * Gets the metrics recorded since they were enabled, or null if they aren't.
+   *
+   * @return the metrics
+   */
+  public EndlessMetrics getMetrics() {
+    return mEndlessMetrics;
+  }
+
+  /**
+   * Sets a frame monitor, to attribute janky frames to population, fills, inflation and binds.  Start and stop the
+   * monitor with the screen's lifecycle (e.g., in onResume and onPause); pass null to stop reporting to it.
+   *
+   * Inflation is observed through misses in the view's own RecycledViewPool; if another pool is set (e.g., to share
+   * one between views), inflations will count towards binds instead.
+   *
+   * @param frameMonitor the frame monitor
+   */
+  public void setFrameMonitor(FrameMonitor frameMonitor) {
+    mFrameMonitor = frameMonitor;
+    if (getAdapter() != null) {
+      getEndlessAdapter().setFrameMonitor(mFrameMonitor);
+    }
+  }
+
+  /**
+   * Gets frame monitor.
+   *
+   * @return the frame monitor
+   */
+  public FrameMonitor getFrameMonitor() {
+    return mFrameMonitor;
+  }
+
+  /**
+   * Set this to true to prepare ViewHolders while the main thread is idle between frames, so that scrolling and fills
+   * don't pay for inflation and binding during a frame.  Each time the view populates, it counts the items of each view
+   * type about to be shown, and inflates whatever the RecycledViewPool is short of; then it binds the next few items in
+   * the direction of scrolling, and hands those to the RecyclerView when it lays them out.  Off by default.
+   *
+   * Preparation uses the view's own RecycledViewPool, so does nothing if another pool is set.
+   *
+   * @param shouldPrepareViewHoldersWhenIdle the should prepare view holders when idle
+   */
+  public void setShouldPrepareViewHoldersWhenIdle(boolean shouldPrepareViewHoldersWhenIdle) {
+    mViewHolderPreparer.setEnabled(shouldPrepareViewHoldersWhenIdle);
+  }
+
+  /**
+   * Is should prepare view holders when idle boolean.
+   *
+   * @return the boolean
+   */
+  public boolean isShouldPrepareViewHoldersWhenIdle() {
+    return mViewHolderPreparer.isEnabled();
+  }
+
   /**
    * Set this to true to skip re-computation of item dimensions, if you expect rows to be a consistent height or width.
    *
    * @param canExpectConsistentItemSize the can expect consistent item size
    */
   public void setCanExpectConsistentItemSize(boolean canExpectConsistentItemSize) {
-    mCanExpectConsistentItemSize = canExpectConsistentItemSize;
+    mEndlessEngine.setCanExpectConsistentItemSize(canExpectConsistentItemSize);
+  }
+
+  /**
+   * Set this to true to defer population requests (from scrolls, layouts and threshold changes) to the next frame,
+   * so that population runs at most once per orientation per frame regardless of how many requests were made.
+   * Explicit calls to {@link #populate()} and {@link #populate(Orientation)} are always immediate.
+   *
+   * @param shouldCoalescePopulation the should coalesce population
+   */
+  public void setShouldCoalescePopulation(boolean shouldCoalescePopulation) {
+    mShouldCoalescePopulation = shouldCoalescePopulation;
+    if (!mShouldCoalescePopulation) {
+      cancelScheduledPopulation();
+    }
+  }
+
+  /**
+   * Is should coalesce population boolean.
+   *
+   * @return the boolean
+   */
+  public boolean isShouldCoalescePopulation() {
+    return mShouldCoalescePopulation;
   }
 
   /**
@@ -159,13 +367,7 @@ public class EndlessRecyclerView extends RecyclerView {
    * @return the threshold from orientation
    */
   protected int getThresholdFromOrientation(Orientation orientation) {
-    if (mThresholds.containsKey(orientation)) {
-      Integer threshold = mThresholds.get(orientation);
-      if (threshold != null) {
-        return threshold;
-      }
-    }
-    return 0;
+    return mEndlessEngine.getThreshold(getAxis(orientation));
   }
 
   /**
@@ -192,7 +394,7 @@ public class EndlessRecyclerView extends RecyclerView {
    * @param threshold the threshold
    */
   public void setVerticalThreshold(int threshold) {
-    mThresholds.put(Orientation.VERTICAL, threshold);
+    mEndlessEngine.setThreshold(EndlessEngine.AXIS_VERTICAL, threshold);
     onEndlessScroll(false, true);
   }
 
@@ -202,17 +404,115 @@ public class EndlessRecyclerView extends RecyclerView {
    * @param threshold the threshold
    */
   public void setHorizontalThreshold(int threshold) {
-    mThresholds.put(Orientation.HORIZONTAL, threshold);
+    mEndlessEngine.setThreshold(EndlessEngine.AXIS_HORIZONTAL, threshold);
     onEndlessScroll(true, false);
   }
 
+  /**
+   * Set this to true to size the thresholds automatically, so items arrive just before they're scrolled into view: each
+   * time the view populates, the threshold is set to the distance that will be scrolled, at the current velocity
+   * (including that of a fling), during the time fills have been taking to arrive - with some lead, and within the
+   * bounds set with {@link #setVerticalThresholdBounds(int, int)} and {@link #setHorizontalThresholdBounds(int, int)}.
+   *
+   * Fills are timed from the call to {@link EndlessAdapter#fill(int)} until the first of the items it reported as
+   * pending (with notifyFillStarted) are delivered; a fill that reports none is timed until it returns.  While adaptive,
+   * thresholds set directly are replaced on the next population; after turning it off, the last computed threshold stays
+   * until another is set.
+   *
+   * @param adaptiveThresholdEnabled the adaptive threshold enabled
+   */
+  public void setAdaptiveThresholdEnabled(boolean adaptiveThresholdEnabled) {
+    if (adaptiveThresholdEnabled == mIsAdaptiveThresholdEnabled) {
+      return;
+    }
+    mIsAdaptiveThresholdEnabled = adaptiveThresholdEnabled;
+    mAdaptiveThreshold.reset();
+    if (mIsAdaptiveThresholdEnabled) {
+      requestPopulation();
+    }
+  }
+
+  /**
+   * Is adaptive threshold enabled boolean.
+   *
+   * @return the boolean
+   */
+  public boolean isAdaptiveThresholdEnabled() {
+    return mIsAdaptiveThresholdEnabled;
+  }
+
+  /**
+   * Gets the adaptive threshold, to read what it's measured or tune its lead factor.
+   *
+   * @return the adaptive threshold
+   */
+  public AdaptiveThreshold getAdaptiveThreshold() {
+    return mAdaptiveThreshold;
+  }
+
+  /**
+   * Sets the smallest and largest vertical threshold to use while the threshold is adaptive.
+   *
+   * @param minThreshold the min threshold
+   * @param maxThreshold the max threshold
+   */
+  public void setVerticalThresholdBounds(int minThreshold, int maxThreshold) {
+    mAdaptiveThreshold.setBounds(EndlessEngine.AXIS_VERTICAL, minThreshold, maxThreshold);
+    if (mIsAdaptiveThresholdEnabled) {
+      onEndlessScroll(false, true);
+    }
+  }
+
+  /**
+   * Sets the smallest and largest horizontal threshold to use while the threshold is adaptive.
+   *
+   * @param minThreshold the min threshold
+   * @param maxThreshold the max threshold
+   */
+  public void setHorizontalThresholdBounds(int minThreshold, int maxThreshold) {
+    mAdaptiveThreshold.setBounds(EndlessEngine.AXIS_HORIZONTAL, minThreshold, maxThreshold);
+    if (mIsAdaptiveThresholdEnabled) {
+      onEndlessScroll(true, false);
+    }
+  }
+
+  @Override
+  public void onScrolled(int dx, int dy) {
+    super.onScrolled(dx, dy);
+    if (mIsAdaptiveThresholdEnabled) {
+      long nanos = System.nanoTime();
+      mAdaptiveThreshold.onScrolled(EndlessEngine.AXIS_HORIZONTAL, dx, nanos);
+      mAdaptiveThreshold.onScrolled(EndlessEngine.AXIS_VERTICAL, dy, nanos);
+    }
+  }
+
+  @Override
+  public void onScrollStateChanged(int state) {
+    super.onScrollStateChanged(state);
+    if (mIsAdaptiveThresholdEnabled && state == SCROLL_STATE_IDLE) {
+      mAdaptiveThreshold.onScrollStopped();
+    }
+  }
+
+  @Override
+  public boolean fling(int velocityX, int velocityY) {
+    boolean isFlinging = super.fling(velocityX, velocityY);
+    if (isFlinging && mIsAdaptiveThresholdEnabled) {
+      mAdaptiveThreshold.onFling(EndlessEngine.AXIS_HORIZONTAL, velocityX);
+      mAdaptiveThreshold.onFling(EndlessEngine.AXIS_VERTICAL, velocityY);
+      // the threshold is probably about to grow, so don't wait for the first scroll event to fill
+      onEndlessScroll(velocityX != 0, velocityY != 0);
+    }
+    return isFlinging;
+  }
+
   /**
    * Gets can expect consistent item size.
    *
    * @return the can expect consistent item size
    */
   public boolean getCanExpectConsistentItemSize() {
-    return mCanExpectConsistentItemSize;
+    return mEndlessEngine.getCanExpectConsistentItemSize();
   }
 
   /**
@@ -233,26 +533,48 @@ public class EndlessRecyclerView extends RecyclerView {
     mShouldEstimateFromAdapter = shouldEstimateFromAdapter;
   }
 
-  private int computeDimensionFromAdapter(Orientation orientation) {
-    if (getAdapter() != null) {
-      ViewGroup dummy = new FrameLayout(getContext());
-      ViewHolder viewHolder = getAdapter().onCreateViewHolder(dummy, 0);
-      View yardstick = viewHolder.itemView;
-      int widthMeasureSpec;
-      int heightMeasureSpec;
-      switch (orientation) {
-        case VERTICAL:
-          widthMeasureSpec = MeasureSpec.makeMeasureSpec(getWidth(), MeasureSpec.AT_MOST);
-          heightMeasureSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
-          yardstick.measure(widthMeasureSpec, heightMeasureSpec);
-          return yardstick.getMeasuredHeight();
-        case HORIZONTAL:
-          widthMeasureSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
-          heightMeasureSpec = MeasureSpec.makeMeasureSpec(getHeight(), MeasureSpec.AT_MOST);
-          yardstick.measure(widthMeasureSpec, heightMeasureSpec);
-          return yardstick.getMeasuredWidth();
+  /**
+   * Measure an unbound item of the given view type.  The ViewHolder used is taken from the RecycledViewPool if one is
+   * available, and is always handed back to the pool afterwards, so measuring doesn't cost an inflation unless the pool
+   * is empty, and an inflation that does happen is reused by the first bind of that view type.
+   *
+   * @param orientation the orientation
+   * @param viewType    the view type
+   * @return the measured dimension
+   */
+  protected int computeDimensionFromAdapter(Orientation orientation, int viewType) {
+    if (getAdapter() == null) {
+      return 0;
+    }
+    RecycledViewPool recycledViewPool = getRecycledViewPool();
+    ViewHolder viewHolder = recycledViewPool.getRecycledView(viewType);
+    if (viewHolder == null) {
+      viewHolder = getAdapter().createViewHolder(this, viewType);
+      if (mFrameMonitor != null && mFrameMonitor.getCurrentWork() == FrameMonitor.WORK_INFLATE) {
+        mFrameMonitor.endWork();
       }
     }
+    int dimension = measureYardstick(viewHolder.itemView, orientation);
+    recycledViewPool.putRecycledView(viewHolder);
+    return dimension;
+  }
+
+  private int measureYardstick(View yardstick, Orientation orientation) {
+    int widthMeasureSpec;
+    int heightMeasureSpec;
+    switch (orientation) {
+      case VERTICAL:
+        // in a grid, an item gets the width of one column
+        widthMeasureSpec = MeasureSpec.makeMeasureSpec(getWidth() / getSpanCount(orientation), MeasureSpec.AT_MOST);
+        heightMeasureSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+        yardstick.measure(widthMeasureSpec, heightMeasureSpec);
+        return yardstick.getMeasuredHeight();
+      case HORIZONTAL:
+        widthMeasureSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+        heightMeasureSpec = MeasureSpec.makeMeasureSpec(getHeight() / getSpanCount(orientation), MeasureSpec.AT_MOST);
+        yardstick.measure(widthMeasureSpec, heightMeasureSpec);
+        return yardstick.getMeasuredWidth();
+    }
     return 0;
   }
 
@@ -263,33 +585,11 @@ public class EndlessRecyclerView extends RecyclerView {
    * @return the estimated item dimension
    */
   public int getEstimatedItemDimension(Orientation orientation) {
-    // if we've been provided explicit estimates, use them
-    if (mEstimatedItemDimensions.containsKey(orientation)) {
-      int estimatedDimension = mEstimatedItemDimensions.get(orientation);
-      if (estimatedDimension > 0) {
-        return estimatedDimension;
-      }
-    }
-    // do we have saved estimates from the adapter?
-    if (mEstimatedItemDimensionsFromAdapter.containsKey(orientation)) {
-      return mEstimatedItemDimensionsFromAdapter.get(orientation);
-    }
-    // if not, let's see what the adapter thinks...
-    int estimatedDimensionFromAdapter = computeDimensionFromAdapter(orientation);
-    // if it looks valid, let's save it so we don't have to reconstruct those views again
-    if (estimatedDimensionFromAdapter > 0) {
-      mEstimatedItemDimensionsFromAdapter.put(orientation, estimatedDimensionFromAdapter);
-      return estimatedDimensionFromAdapter;
-    }
-    // nothing has panned out so far, let's return the width or height of this View
-    return getDimensionFromView(orientation, this);
+    return mEndlessEngine.getEstimatedItemSize(getAxis(orientation));
   }
 
   private int getExplicitlyEstimatedItemDimension(Orientation orientation) {
-    if (!mEstimatedItemDimensions.containsKey(orientation)) {
-      return 0;
-    }
-    return mEstimatedItemDimensions.get(orientation);
+    return mEndlessEngine.getExplicitItemSize(getAxis(orientation));
   }
 
   /**
@@ -298,7 +598,7 @@ public class EndlessRecyclerView extends RecyclerView {
    * @param estimatedItemHeight the estimated item height
    */
   public void setExplicitlyEstimatedItemHeight(int estimatedItemHeight) {
-    mEstimatedItemDimensions.put(Orientation.VERTICAL, estimatedItemHeight);
+    mEndlessEngine.setExplicitItemSize(EndlessEngine.AXIS_VERTICAL, estimatedItemHeight);
   }
 
   /**
@@ -316,7 +616,7 @@ public class EndlessRecyclerView extends RecyclerView {
    * @param estimatedItemWidth the estimated item width
    */
   public void setExplicitlyEstimatedItemWidth(int estimatedItemWidth) {
-    mEstimatedItemDimensions.put(Orientation.HORIZONTAL, estimatedItemWidth);
+    mEndlessEngine.setExplicitItemSize(EndlessEngine.AXIS_HORIZONTAL, estimatedItemWidth);
   }
 
   /**
@@ -438,13 +738,18 @@ public class EndlessRecyclerView extends RecyclerView {
    * @return the cached dimension
    */
   protected int getCachedDimension(Orientation orientation) {
-    if (mCachedDimensions.containsKey(orientation)) {
-      Integer cachedDimension = mCachedDimensions.get(orientation);
-      if (cachedDimension != null) {
-        return cachedDimension;
-      }
-    }
-    return 0;
+    return mEndlessEngine.getCachedItemSize(getAxis(orientation));
+  }
+
+  /**
+   * Gets the item size model for an orientation, which learns the size of each view type as children are attached and
+   * laid out.
+   *
+   * @param orientation the orientation
+   * @return the item size model
+   */
+  protected ItemSizeModel getItemSizeModel(Orientation orientation) {
+    return mEndlessEngine.getItemSizeModel(getAxis(orientation));
   }
 
   /**
@@ -454,17 +759,77 @@ public class EndlessRecyclerView extends RecyclerView {
    * @return the average item size
    */
   protected int getAverageItemSize(Orientation orientation) {
-    if (mCanExpectConsistentItemSize) {
-      int cachedDimension = getCachedDimension(orientation);
-      if (cachedDimension > 0) {
-        return cachedDimension;
+    return mEndlessEngine.getAverageItemSize(getAxis(orientation));
+  }
+
+  // feeds any children that have been laid out since they were attached to the estimators
+  private void sampleAttachedChildren() {
+    for (int i = mUnsampledChildren.size() - 1; i >= 0; i--) {
+      View child = mUnsampledChildren.get(i);
+      if (!child.isLayoutRequested()) {
+        ViewHolder viewHolder = getChildViewHolder(child);
+        int viewType = viewHolder == null ? 0 : viewHolder.getItemViewType();
+        int width = getSpanShare(child, getWidthRuler().get(child), Orientation.HORIZONTAL);
+        int height = getSpanShare(child, getHeightRuler().get(child), Orientation.VERTICAL);
+        mEndlessEngine.addItemSizeSample(viewType, width, height);
+        mUnsampledChildren.remove(i);
       }
     }
-    int computedDimension = computeAverageItemDimension(orientation);
-    if (computedDimension > 0 && mCanExpectConsistentItemSize) {
-      mCachedDimensions.put(orientation, computedDimension);
+  }
+
+  /**
+   * Gets the number of spans items are laid out in side by side, sharing each line along an orientation - the span
+   * count of a GridLayoutManager or StaggeredGridLayoutManager along the orientation it scrolls in, otherwise 1.
+   *
+   * @param orientation the orientation
+   * @return the span count
+   */
+  protected int getSpanCount(Orientation orientation) {
+    LayoutManager layoutManager = getLayoutManager();
+    if (layoutManager instanceof GridLayoutManager) {
+      GridLayoutManager gridLayoutManager = (GridLayoutManager) layoutManager;
+      if (isLayoutOrientation(gridLayoutManager.getOrientation(), orientation)) {
+        return gridLayoutManager.getSpanCount();
+      }
+    } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+      StaggeredGridLayoutManager staggeredGridLayoutManager = (StaggeredGridLayoutManager) layoutManager;
+      if (isLayoutOrientation(staggeredGridLayoutManager.getOrientation(), orientation)) {
+        return staggeredGridLayoutManager.getSpanCount();
+      }
+    }
+    return 1;
+  }
+
+  // GridLayoutManager and StaggeredGridLayoutManager share LinearLayoutManager's orientation constants
+  private static boolean isLayoutOrientation(int layoutOrientation, Orientation orientation) {
+    return (layoutOrientation == LinearLayoutManager.VERTICAL) == (orientation == Orientation.VERTICAL);
+  }
+
+  // the share of its line a child takes up along an orientation, from the spans it was laid out in
+  private int getSpanShare(View child, int size, Orientation orientation) {
+    int spanCount = getSpanCount(orientation);
+    if (spanCount <= 1) {
+      return size;
     }
-    return computedDimension;
+    int spanSize = 1;
+    ViewGroup.LayoutParams layoutParams = child.getLayoutParams();
+    if (layoutParams instanceof GridLayoutManager.LayoutParams) {
+      spanSize = ((GridLayoutManager.LayoutParams) layoutParams).getSpanSize();
+    } else if (layoutParams instanceof StaggeredGridLayoutManager.LayoutParams) {
+      spanSize = ((StaggeredGridLayoutManager.LayoutParams) layoutParams).isFullSpan() ? spanCount : 1;
+    }
+    return EndlessEngine.computeSpanShare(size, spanSize, spanCount);
+  }
+
+  /**
+   * Discards everything learned about item size along an orientation.  This happens automatically when the size of
+   * this View changes along the cross axis (e.g., a width change for a vertical list), since item size generally depends
+   * on it, but can be called directly if item content changes in a way that invalidates previous measurements.
+   *
+   * @param orientation the orientation
+   */
+  public void invalidateItemSize(Orientation orientation) {
+    mEndlessEngine.invalidateItemSize(getAxis(orientation));
   }
 
   /**
@@ -474,11 +839,7 @@ public class EndlessRecyclerView extends RecyclerView {
    * @return the average or estimated item size
    */
   protected int getAverageOrEstimatedItemSize(Orientation orientation) {
-    int averageSize = getAverageItemSize(orientation);
-    if (averageSize > 0) {
-      return averageSize;
-    }
-    return getEstimatedItemDimension(orientation);
+    return mEndlessEngine.getAverageOrEstimatedItemSize(getAxis(orientation));
   }
 
   /**
@@ -488,7 +849,7 @@ public class EndlessRecyclerView extends RecyclerView {
    * @return the int
    */
   protected int computeSpaceToBeFilled(Orientation orientation) {
-    return getScrollPosition(orientation) + getDimensionFromView(orientation, this) + getThresholdFromOrientation(orientation);
+    return mEndlessEngine.computeSpaceToBeFilled(getAxis(orientation));
   }
 
   /**
@@ -498,11 +859,47 @@ public class EndlessRecyclerView extends RecyclerView {
    * @return the int
    */
   protected int computeSpaceToMeetThreshold(Orientation orientation) {
-    return computeSpaceToBeFilled(orientation) - getContentSize(orientation);
+    return mEndlessEngine.computeSpaceToMeetThreshold(getAxis(orientation));
   }
 
   /**
-   * Populate.
+   * Compute space to meet leading threshold int - the space before the start of the content that would need to be
+   * filled for the threshold before the first item shown to be met.
+   *
+   * @param orientation the orientation
+   * @return the int
+   */
+  protected int computeSpaceToMeetLeadingThreshold(Orientation orientation) {
+    return mEndlessEngine.computeSpaceToMeetLeadingThreshold(getAxis(orientation));
+  }
+
+  /**
+   * Compute the quantity of items needed to fill a space.  Unless item size is expected to be consistent, this uses the
+   * size learned for each view type, and the adapter's predictions of upcoming view types when it has any.
+   *
+   * @param orientation the orientation
+   * @param space       the space to fill
+   * @return the quantity
+   */
+  protected int computeQuantityToFill(Orientation orientation, int space) {
+    return mEndlessEngine.computeQuantityToFill(getAxis(orientation), space);
+  }
+
+  /**
+   * Compute the quantity of items needed to fill a space before the first item.  The adapter can't predict the view
+   * types of items before the start, so this uses the size learned across all view types.
+   *
+   * @param orientation the orientation
+   * @param space       the space to fill
+   * @return the quantity
+   */
+  protected int computeQuantityToPrepend(Orientation orientation, int space) {
+    return mEndlessEngine.computeQuantityToPrepend(getAxis(orientation), space);
+  }
+
+  /**
+   * Populate both edges, as needed - the trailing edge with {@link EndlessAdapter#fill(int)}, and the leading edge with
+   * {@link EndlessAdapter#prepend(int)} if the adapter {@link EndlessAdapter#canPrepend() can prepend}.
    *
    * @param orientation the orientation
    */
@@ -510,19 +907,63 @@ public class EndlessRecyclerView extends RecyclerView {
     if (getAdapter() == null) {
       return;
     }
-    int space = computeSpaceToMeetThreshold(orientation);
-    if (space > 0) {
-      int averageItemSize = getAverageOrEstimatedItemSize(orientation);
-      if (averageItemSize > 0) {
-        int quantity = 1 + (space / averageItemSize);
-        if (quantity > 0) {
-          getEndlessAdapter().fill(quantity);
-          if (mOnPopulationListener != null) {
-            mOnPopulationListener.onPopulation(quantity, orientation);
-          }
-        }
+    if (mEndlessMetrics != null) {
+      mEndlessMetrics.onPopulate();
+    }
+    if (mIsAdaptiveThresholdEnabled) {
+      int axis = getAxis(orientation);
+      mEndlessEngine.setThreshold(axis, mAdaptiveThreshold.computeThreshold(axis));
+    }
+    if (mFrameMonitor != null) {
+      mFrameMonitor.beginWork(FrameMonitor.WORK_POPULATE);
+      mEndlessEngine.populate(getAxis(orientation));
+      mFrameMonitor.endWork();
+    } else {
+      mEndlessEngine.populate(getAxis(orientation));
+    }
+    if (mOnPrefetchRangeChangedListener != null || mViewHolderPreparer.isEnabled()) {
+      dispatchShownRange(orientation);
+    }
+  }
+
+  private void dispatchShownRange(Orientation orientation) {
+    int firstShownPosition = NO_POSITION;
+    int lastShownPosition = NO_POSITION;
+    for (int i = 0; i < getChildCount(); i++) {
+      int position = getChildLayoutPosition(getChildAt(i));
+      if (position == NO_POSITION) {
+        continue;
+      }
+      if (firstShownPosition == NO_POSITION || position < firstShownPosition) {
+        firstShownPosition = position;
+      }
+      if (position > lastShownPosition) {
+        lastShownPosition = position;
       }
     }
+    if (firstShownPosition == NO_POSITION) {
+      return;
+    }
+    mViewHolderPreparer.onShownRangeChanged(firstShownPosition, lastShownPosition);
+    if (mOnPrefetchRangeChangedListener != null) {
+      dispatchPrefetchRange(orientation, firstShownPosition, lastShownPosition);
+    }
+  }
+
+  // the threshold already describes how far ahead items are wanted, so it bounds the prefetch range too
+  private void dispatchPrefetchRange(Orientation orientation, int firstShownPosition, int lastShownPosition) {
+    int quantity = mEndlessEngine.computeQuantityWithinThreshold(getAxis(orientation));
+    int firstPosition = Math.max(0, firstShownPosition - quantity);
+    int lastPosition = Math.min(getAdapter().getItemCount() - 1, lastShownPosition + quantity);
+    // the shown positions can move while the clamped bounds don't, e.g. at either end of the adapter
+    if (firstPosition != mPrefetchFirstPosition || firstShownPosition != mPrefetchFirstShownPosition
+      || lastShownPosition != mPrefetchLastShownPosition || lastPosition != mPrefetchLastPosition) {
+      mPrefetchFirstPosition = firstPosition;
+      mPrefetchFirstShownPosition = firstShownPosition;
+      mPrefetchLastShownPosition = lastShownPosition;
+      mPrefetchLastPosition = lastPosition;
+      mOnPrefetchRangeChangedListener.onPrefetchRangeChanged(firstPosition, firstShownPosition, lastShownPosition, lastPosition);
+    }
   }
 
   /**
@@ -539,6 +980,45 @@ public class EndlessRecyclerView extends RecyclerView {
     }
   }
 
+  /**
+   * Request population for the given orientation - immediately, or on the next frame if population is being coalesced.
+   *
+   * @param orientation the orientation
+   */
+  protected void requestPopulation(Orientation orientation) {
+    if (!mShouldCoalescePopulation) {
+      populate(orientation);
+      return;
+    }
+    mPendingPopulations[orientation.ordinal()] = true;
+    if (!mIsPopulationScheduled) {
+      mIsPopulationScheduled = true;
+      Choreographer.getInstance().postFrameCallback(mPopulationFrameCallback);
+    }
+  }
+
+  /**
+   * Request population for each orientation the layout manager can scroll.
+   */
+  protected void requestPopulation() {
+    if (getLayoutManager() != null) {
+      if (getLayoutManager().canScrollVertically()) {
+        requestPopulation(Orientation.VERTICAL);
+      }
+      if (getLayoutManager().canScrollHorizontally()) {
+        requestPopulation(Orientation.HORIZONTAL);
+      }
+    }
+  }
+
+  private void cancelScheduledPopulation() {
+    if (mIsPopulationScheduled) {
+      mIsPopulationScheduled = false;
+      Choreographer.getInstance().removeFrameCallback(mPopulationFrameCallback);
+    }
+    Arrays.fill(mPendingPopulations, false);
+  }
+
   /**
    * On endless scroll.
    *
@@ -547,15 +1027,42 @@ public class EndlessRecyclerView extends RecyclerView {
    */
   /* package-private */ void onEndlessScroll(boolean isScrollingHorizontally, boolean isScrollingVertically) {
     if (isScrollingVertically) {
-      populate(Orientation.VERTICAL);
+      requestPopulation(Orientation.VERTICAL);
     }
     if (isScrollingHorizontally) {
-      populate(Orientation.HORIZONTAL);
+      requestPopulation(Orientation.HORIZONTAL);
     }
   }
 
-  private void recomputeItemHeights() {
-    mCachedDimensions.clear();
+  @Override
+  public void onChildAttachedToWindow(View child) {
+    super.onChildAttachedToWindow(child);
+    mUnsampledChildren.add(child);
+  }
+
+  @Override
+  public void onChildDetachedFromWindow(View child) {
+    super.onChildDetachedFromWindow(child);
+    mUnsampledChildren.remove(child);
+  }
+
+  // item size generally depends on the cross axis, so only a change there invalidates what's been learned
+  @Override
+  protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+    super.onSizeChanged(w, h, oldw, oldh);
+    // sizes restored from a snapshot were learned at the size this View was when it was saved
+    if (oldw == 0 && oldh == 0) {
+      oldw = mRestoredWidth;
+      oldh = mRestoredHeight;
+    }
+    mRestoredWidth = 0;
+    mRestoredHeight = 0;
+    if (w != oldw) {
+      invalidateItemSize(Orientation.VERTICAL);
+    }
+    if (h != oldh) {
+      invalidateItemSize(Orientation.HORIZONTAL);
+    }
   }
 
   // Fires when this ViewGroup's dimensions are changed
@@ -563,17 +1070,401 @@ public class EndlessRecyclerView extends RecyclerView {
   protected void onLayout(boolean changed, int l, int t, int r, int b) {
     super.onLayout(changed, l, t, r, b);
     if (changed) {
-      recomputeItemHeights();  // probably not needed
-      populate();
+      requestPopulation();
+    }
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    cancelScheduledPopulation();
+    mViewHolderPreparer.cancelScheduledPreparation();
+    super.onDetachedFromWindow();
+  }
+
+  /**
+   * Saves what's needed to come back as this View is now, without relearning or refetching: everything learned about
+   * item size, the first item shown and its offset, and whatever the adapter saves of the items shown and within the
+   * threshold either side (see {@link EndlessAdapter#onSaveItems(java.io.DataOutput, int, int)}), in a compact binary
+   * snapshot.
+   *
+   * @return the saved state
+   */
+  @Override
+  protected Parcelable onSaveInstanceState() {
+    EndlessSavedState endlessSavedState = new EndlessSavedState(super.onSaveInstanceState());
+    endlessSavedState.snapshot = writeSnapshot();
+    return endlessSavedState;
+  }
+
+  /**
+   * Restores what {@link #onSaveInstanceState()} saved, before the next layout: item sizes are known straight away, and
+   * if the adapter restores its items, this View is scrolled back to the item that was first shown.  If no adapter has
+   * been set yet, this happens when one is.
+   *
+   * @param state the state
+   */
+  @Override
+  protected void onRestoreInstanceState(Parcelable state) {
+    if (!(state instanceof EndlessSavedState)) {
+      super.onRestoreInstanceState(state);
+      return;
+    }
+    EndlessSavedState endlessSavedState = (EndlessSavedState) state;
+    super.onRestoreInstanceState(endlessSavedState.getSuperState());
+    if (getAdapter() == null) {
+      mPendingSnapshot = endlessSavedState.snapshot;
+    } else {
+      readSnapshot(endlessSavedState.snapshot);
+    }
+  }
+
+  // [version][width][height][item sizes][anchor position], then, unless the position is NO_POSITION,
+  // [vertical offset][horizontal offset][length of the adapter's items][the adapter's items]
+  private byte[] writeSnapshot() {
+    if (getAdapter() == null) {
+      return mPendingSnapshot;
+    }
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
+    try {
+      dataOutputStream.writeInt(SNAPSHOT_VERSION);
+      dataOutputStream.writeInt(getWidth());
+      dataOutputStream.writeInt(getHeight());
+      mEndlessEngine.writeItemSizes(dataOutputStream);
+      writeItems(dataOutputStream);
+      dataOutputStream.flush();
+    } catch (IOException e) {
+      // writing to memory doesn't fail
+      throw new IllegalStateException(e);
+    }
+    return byteArrayOutputStream.toByteArray();
+  }
+
+  private void writeItems(DataOutputStream dataOutputStream) throws IOException {
+    LayoutManager layoutManager = getLayoutManager();
+    View anchor = findFirstShownChild();
+    if (layoutManager == null || anchor == null) {
+      dataOutputStream.writeInt(NO_POSITION);
+      return;
+    }
+    int anchorPosition = getChildLayoutPosition(anchor);
+    int lastShownPosition = anchorPosition;
+    for (int i = 0; i < getChildCount(); i++) {
+      lastShownPosition = Math.max(lastShownPosition, getChildLayoutPosition(getChildAt(i)));
+    }
+    int quantity = 0;
+    if (layoutManager.canScrollVertically()) {
+      quantity = mEndlessEngine.computeQuantityWithinThreshold(EndlessEngine.AXIS_VERTICAL);
+    }
+    if (layoutManager.canScrollHorizontally()) {
+      quantity = Math.max(quantity, mEndlessEngine.computeQuantityWithinThreshold(EndlessEngine.AXIS_HORIZONTAL));
+    }
+    int firstPosition = Math.max(0, anchorPosition - quantity);
+    int lastPosition = Math.min(getAdapter().getItemCount() - 1, lastShownPosition + quantity);
+    ByteArrayOutputStream items = new ByteArrayOutputStream();
+    DataOutputStream itemsOutputStream = new DataOutputStream(items);
+    if (!getEndlessAdapter().onSaveItems(itemsOutputStream, firstPosition, lastPosition)) {
+      dataOutputStream.writeInt(NO_POSITION);
+      return;
+    }
+    itemsOutputStream.flush();
+    dataOutputStream.writeInt(anchorPosition);
+    dataOutputStream.writeInt(layoutManager.getDecoratedTop(anchor) - layoutManager.getPaddingTop());
+    dataOutputStream.writeInt(layoutManager.getDecoratedLeft(anchor) - layoutManager.getPaddingLeft());
+    dataOutputStream.writeInt(items.size());
+    items.writeTo(dataOutputStream);
+  }
+
+  private void readSnapshot(byte[] snapshot) {
+    if (snapshot == null) {
+      return;
+    }
+    DataInputStream dataInputStream = new DataInputStream(new ByteArrayInputStream(snapshot));
+    try {
+      if (dataInputStream.readInt() != SNAPSHOT_VERSION) {
+        return;
+      }
+      int width = dataInputStream.readInt();
+      int height = dataInputStream.readInt();
+      mEndlessEngine.readItemSizes(dataInputStream);
+      onItemSizesRestored(width, height);
+      int anchorPosition = dataInputStream.readInt();
+      if (anchorPosition == NO_POSITION) {
+        return;
+      }
+      int verticalOffset = dataInputStream.readInt();
+      int horizontalOffset = dataInputStream.readInt();
+      int length = dataInputStream.readInt();
+      if (length < 0 || length > dataInputStream.available()) {
+        throw new IOException("Snapshot is truncated");
+      }
+      byte[] items = new byte[length];
+      dataInputStream.readFully(items);
+      boolean isRestored = getEndlessAdapter().onRestoreItems(new DataInputStream(new ByteArrayInputStream(items)));
+      if (isRestored && anchorPosition < getAdapter().getItemCount()) {
+        if (!scrollToPositionWithOffset(anchorPosition, verticalOffset, horizontalOffset) && getLayoutManager() != null) {
+          getLayoutManager().scrollToPosition(anchorPosition);
+        }
+      }
+    } catch (IOException e) {
+      // a snapshot that can't be read is no worse than none; the adapter fills as usual
+    }
+  }
+
+  // what was learned at another size along the cross axis is discarded, as it would be by onSizeChanged
+  private void onItemSizesRestored(int width, int height) {
+    if (getWidth() == 0 && getHeight() == 0) {
+      mRestoredWidth = width;
+      mRestoredHeight = height;
+      return;
+    }
+    if (getWidth() != width) {
+      invalidateItemSize(Orientation.VERTICAL);
+    }
+    if (getHeight() != height) {
+      invalidateItemSize(Orientation.HORIZONTAL);
+    }
+  }
+
+  /**
+   * Keeps the first item shown in place across an insertion of items before it, by scrolling to its new position with
+   * its current offset from the start edge.  Called before the insertion is laid out, while children still have their
+   * old positions.  Supports LinearLayoutManager (and so GridLayoutManager) and StaggeredGridLayoutManager.
+   *
+   * @param quantity the quantity inserted at the start
+   */
+  protected void anchorForPrepend(int quantity) {
+    LayoutManager layoutManager = getLayoutManager();
+    View anchor = findFirstShownChild();
+    if (layoutManager == null || anchor == null) {
+      return;
     }
+    int verticalOffset = layoutManager.getDecoratedTop(anchor) - layoutManager.getPaddingTop();
+    int horizontalOffset = layoutManager.getDecoratedLeft(anchor) - layoutManager.getPaddingLeft();
+    scrollToPositionWithOffset(getChildLayoutPosition(anchor) + quantity, verticalOffset, horizontalOffset);
   }
 
-  // fires when the contents of the ViewGroup change (e.g., children are added)
-  private OnLayoutChangeListener mOnLayoutChangeListener = new OnLayoutChangeListener() {
+  // the child with the lowest adapter position, or null if there are none
+  private View findFirstShownChild() {
+    View anchor = null;
+    int anchorPosition = NO_POSITION;
+    for (int i = 0; i < getChildCount(); i++) {
+      View child = getChildAt(i);
+      int position = getChildLayoutPosition(child);
+      if (position != NO_POSITION && (anchor == null || position < anchorPosition)) {
+        anchor = child;
+        anchorPosition = position;
+      }
+    }
+    return anchor;
+  }
+
+  // false if the layout manager doesn't support scrolling to an offset
+  private boolean scrollToPositionWithOffset(int position, int verticalOffset, int horizontalOffset) {
+    LayoutManager layoutManager = getLayoutManager();
+    if (layoutManager instanceof LinearLayoutManager) {
+      LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+      boolean isVertical = linearLayoutManager.getOrientation() == LinearLayoutManager.VERTICAL;
+      linearLayoutManager.scrollToPositionWithOffset(position, isVertical ? verticalOffset : horizontalOffset);
+      return true;
+    }
+    if (layoutManager instanceof StaggeredGridLayoutManager) {
+      StaggeredGridLayoutManager staggeredGridLayoutManager = (StaggeredGridLayoutManager) layoutManager;
+      boolean isVertical = staggeredGridLayoutManager.getOrientation() == StaggeredGridLayoutManager.VERTICAL;
+      staggeredGridLayoutManager.scrollToPositionWithOffset(position, isVertical ? verticalOffset : horizontalOffset);
+      return true;
+    }
+    return false;
+  }
+
+  private final EndlessAdapter.OnItemsPrependedListener mOnItemsPrependedListener = new EndlessAdapter.OnItemsPrependedListener() {
+    @Override
+    public void onItemsPrepended(int quantity) {
+      anchorForPrepend(quantity);
+    }
+  };
+
+  // adapts this View, its layout manager and its adapter to what the engine needs to know
+  private final EndlessEngine.Host mEngineHost = new EndlessEngine.Host() {
+    @Override
+    public int getScrollPosition(int axis) {
+      return EndlessRecyclerView.this.getScrollPosition(ORIENTATIONS_BY_AXIS[axis]);
+    }
+
+    @Override
+    public int getViewportSize(int axis) {
+      return getDimensionFromView(ORIENTATIONS_BY_AXIS[axis], EndlessRecyclerView.this);
+    }
+
+    @Override
+    public int getContentSize(int axis) {
+      return EndlessRecyclerView.this.getContentSize(ORIENTATIONS_BY_AXIS[axis]);
+    }
+
+    @Override
+    public int getSpanCount(int axis) {
+      return EndlessRecyclerView.this.getSpanCount(ORIENTATIONS_BY_AXIS[axis]);
+    }
+
+    @Override
+    public int getItemCount() {
+      return getAdapter() == null ? 0 : getAdapter().getItemCount();
+    }
+
+    @Override
+    public int getPendingFillQuantity() {
+      return getAdapter() == null ? 0 : getEndlessAdapter().getPendingFillQuantity();
+    }
+
+    @Override
+    public int getPendingPlaceholderQuantity() {
+      return getAdapter() == null ? 0 : getEndlessAdapter().getPendingPlaceholderQuantity();
+    }
+
+    @Override
+    public int getPendingPrependQuantity() {
+      return getAdapter() == null ? 0 : getEndlessAdapter().getPendingPrependQuantity();
+    }
+
+    @Override
+    public int getUpcomingItemViewType(int position) {
+      return getAdapter() == null ? ItemSizeModel.UNKNOWN_VIEW_TYPE : getEndlessAdapter().getUpcomingItemViewType(position);
+    }
+
+    @Override
+    public void collectItemSizeSamples() {
+      sampleAttachedChildren();
+    }
+
+    @Override
+    public int measureItemSize(int axis, int viewType) {
+      return computeDimensionFromAdapter(ORIENTATIONS_BY_AXIS[axis], viewType);
+    }
+
+    @Override
+    public void fill(int axis, int quantity) {
+      if (mEndlessMetrics != null) {
+        mEndlessMetrics.onFillRequested(getAdapter().getItemCount(), quantity);
+      }
+      long startNanos = System.nanoTime();
+      int pendingFillQuantity = getEndlessAdapter().getPendingFillQuantity();
+      if (mFrameMonitor != null) {
+        mFrameMonitor.beginWork(FrameMonitor.WORK_FILL);
+        getEndlessAdapter().fill(quantity);
+        mFrameMonitor.endWork();
+      } else {
+        getEndlessAdapter().fill(quantity);
+      }
+      if (mIsAdaptiveThresholdEnabled) {
+        recordFillStarted(startNanos, getEndlessAdapter().getPendingFillQuantity() - pendingFillQuantity);
+      }
+      if (mOnPopulationListener != null) {
+        mOnPopulationListener.onPopulation(quantity, ORIENTATIONS_BY_AXIS[axis]);
+      }
+    }
+
+    @Override
+    public boolean canPrepend() {
+      return getAdapter() != null && getEndlessAdapter().canPrepend();
+    }
+
+    @Override
+    public void prepend(int axis, int quantity) {
+      if (mEndlessMetrics != null) {
+        mEndlessMetrics.onPrependRequested(quantity);
+      }
+      long startNanos = System.nanoTime();
+      int pendingPrependQuantity = getEndlessAdapter().getPendingPrependQuantity();
+      if (mFrameMonitor != null) {
+        mFrameMonitor.beginWork(FrameMonitor.WORK_FILL);
+        getEndlessAdapter().prepend(quantity);
+        mFrameMonitor.endWork();
+      } else {
+        getEndlessAdapter().prepend(quantity);
+      }
+      if (mIsAdaptiveThresholdEnabled) {
+        recordFillStarted(startNanos, getEndlessAdapter().getPendingPrependQuantity() - pendingPrependQuantity);
+      }
+    }
+
+    // a fill that left items pending completes when they arrive; one that didn't has completed already
+    private void recordFillStarted(long startNanos, int pendingQuantity) {
+      if (pendingQuantity > 0) {
+        mAdaptiveThreshold.onFillStarted(startNanos, pendingQuantity);
+      } else {
+        mAdaptiveThreshold.addFillLatency(System.nanoTime() - startNanos);
+      }
+    }
+  };
+
+  // once a fill is delivered, check whether more is needed - the user may have scrolled further in the meantime
+  private final EndlessAdapter.OnFillCompleteListener mOnFillCompleteListener = new EndlessAdapter.OnFillCompleteListener() {
+    @Override
+    public void onFillComplete(int quantity, int pendingQuantity) {
+      if (mIsAdaptiveThresholdEnabled) {
+        mAdaptiveThreshold.onFillCompleted(System.nanoTime(), quantity);
+      }
+      requestPopulation();
+    }
+  };
+
+  // runs coalesced population requests once per frame
+  private final Choreographer.FrameCallback mPopulationFrameCallback = new Choreographer.FrameCallback() {
     @Override
-    public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft, int oldTop, int oldRight, int oldBottom) {
-      recomputeItemHeights();
+    public void doFrame(long frameTimeNanos) {
+      mIsPopulationScheduled = false;
+      if (mPendingPopulations[Orientation.VERTICAL.ordinal()]) {
+        mPendingPopulations[Orientation.VERTICAL.ordinal()] = false;
+        populate(Orientation.VERTICAL);
+      }
+      if (mPendingPopulations[Orientation.HORIZONTAL.ordinal()]) {
+        mPendingPopulations[Orientation.HORIZONTAL.ordinal()] = false;
+        populate(Orientation.HORIZONTAL);
+      }
     }
   };
 
+  // wraps RecyclerView's own state, which carries the layout manager's, with the snapshot
+  static class EndlessSavedState extends BaseSavedState {
+    byte[] snapshot;
+
+    EndlessSavedState(Parcelable superState) {
+      super(superState);
+    }
+
+    // RecyclerView's state is in the app's class loader, not the framework's, so is read with the one given
+    EndlessSavedState(Parcel source, ClassLoader classLoader) {
+      super(readSuperState(source, classLoader));
+      snapshot = source.createByteArray();
+    }
+
+    // typed as Parcelable, so the super constructor taking one is chosen over the one taking a Parcel
+    private static Parcelable readSuperState(Parcel source, ClassLoader classLoader) {
+      return source.readParcelable(classLoader == null ? EndlessRecyclerView.class.getClassLoader() : classLoader);
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+      super.writeToParcel(dest, flags);
+      dest.writeByteArray(snapshot);
+    }
+
+    public static final Parcelable.ClassLoaderCreator<EndlessSavedState> CREATOR = new Parcelable.ClassLoaderCreator<EndlessSavedState>() {
+      @Override
+      public EndlessSavedState createFromParcel(Parcel source, ClassLoader classLoader) {
+        return new EndlessSavedState(source, classLoader);
+      }
+
+      @Override
+      public EndlessSavedState createFromParcel(Parcel source) {
+        return new EndlessSavedState(source, null);
+      }
+
+      @Override
+      public EndlessSavedState[] newArray(int size) {
+        return new EndlessSavedState[size];
+      }
+    };
+  }
+
 }
@@ -0,0 +1,378 @@
+package com.qozix.widget;
+
+/**
+ * Watches frame times and flags janky frames - those that took longer than about one and a half frame intervals - and
+ * attributes each to the endless work that took the most time during it: population, fills, ViewHolder inflation or
+ * binds.  A frame with no endless work recorded during it is counted as unattributed, so jank caused by something else
+ * (e.g., image decoding, or layout of an expensive row) stands out as such.
+ *
+ * Work is timed exclusively: time spent in work that begins while other work is in progress (e.g., a fill during
+ * population) counts towards the inner work only.
+ *
+ * Frames are observed through a {@link FrameClock}, which by default is the Choreographer's, and can be faked to test
+ * the logic on the JVM.  Statistics cover the session since the monitor was created or last reset.  Recording never
+ * allocates.  Not thread safe - like the view itself, it should only be used from the main thread.
+ */
+public class FrameMonitor {
+
+  /**
+   * No work in progress.
+   */
+  public static final int WORK_NONE = -1;
+  /**
+   * {@link EndlessRecyclerView#populate(EndlessRecyclerView.Orientation)}, excluding any fill it requested.
+   */
+  public static final int WORK_POPULATE = 0;
+  /**
+   * {@link EndlessAdapter#fill(int)} and {@link EndlessAdapter#prepend(int)}.
+   */
+  public static final int WORK_FILL = 1;
+  /**
+   * Creating a ViewHolder, which generally means inflating its layout.
+   */
+  public static final int WORK_INFLATE = 2;
+  /**
+   * Binding a ViewHolder.
+   */
+  public static final int WORK_BIND = 3;
+  /**
+   * The number of kinds of work.
+   */
+  public static final int WORK_KIND_COUNT = 4;
+
+  /**
+   * The frame interval of a 60Hz display.
+   */
+  public static final long DEFAULT_FRAME_INTERVAL_NANOS = 16666667;
+
+  private static final double JANK_FACTOR = 1.5;
+  private static final int MAX_WORK_DEPTH = 8;
+
+  /**
+   * A source of frames and of monotonic time.
+   */
+  public interface FrameClock {
+    /**
+     * Gets the current time.
+     *
+     * @return the time, in nanoseconds
+     */
+    long nanoTime();
+
+    /**
+     * Post a callback to be run once, on the next frame.
+     *
+     * @param frameCallback the frame callback
+     */
+    void postFrameCallback(FrameCallback frameCallback);
+
+    /**
+     * Remove a callback that has been posted but not yet run.
+     *
+     * @param frameCallback the frame callback
+     */
+    void removeFrameCallback(FrameCallback frameCallback);
+  }
+
+  /**
+   * The interface Frame callback.
+   */
+  public interface FrameCallback {
+    /**
+     * Called when a new frame is starting.
+     *
+     * @param frameTimeNanos the time the frame started, in nanoseconds
+     */
+    void doFrame(long frameTimeNanos);
+  }
+
+  private final FrameClock mFrameClock;
+  private long mFrameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+  private boolean mIsRunning;
+  private long mLastFrameTimeNanos = -1;
+  // work in progress, innermost last, and when the innermost began or resumed
+  private final int[] mWorkStack = new int[MAX_WORK_DEPTH];
+  private int mWorkDepth;
+  private long mWorkStartNanos;
+  // time spent in each kind of work since the last frame
+  private final long[] mFrameWorkNanos = new long[WORK_KIND_COUNT];
+  // session statistics
+  private final Histogram mFrameNanos = new Histogram();
+  private final long[] mWorkNanos = new long[WORK_KIND_COUNT];
+  private final long[] mJankyFrameCounts = new long[WORK_KIND_COUNT];
+  private long mJankyFrameCount;
+  private long mUnattributedJankyFrameCount;
+  private long mDroppedFrameCount;
+
+  /**
+   * Instantiates a new Frame monitor driven by the Choreographer.
+   */
+  public FrameMonitor() {
+    this(new ChoreographerFrameClock());
+  }
+
+  /**
+   * Instantiates a new Frame monitor.
+   *
+   * @param frameClock the frame clock
+   */
+  public FrameMonitor(FrameClock frameClock) {
+    mFrameClock = frameClock;
+  }
+
+  /**
+   * Start watching frames.  Work is only timed while running.
+   */
+  public void start() {
+    if (!mIsRunning) {
+      mIsRunning = true;
+      mLastFrameTimeNanos = -1;
+      mFrameClock.postFrameCallback(mFrameCallback);
+    }
+  }
+
+  /**
+   * Stop watching frames, e.g. when the screen is left.  Statistics are kept.
+   */
+  public void stop() {
+    if (mIsRunning) {
+      mIsRunning = false;
+      mFrameClock.removeFrameCallback(mFrameCallback);
+      clearFrameWork();
+    }
+  }
+
+  /**
+   * Is running boolean.
+   *
+   * @return the boolean
+   */
+  public boolean isRunning() {
+    return mIsRunning;
+  }
+
+  /**
+   * Sets the display's frame interval, which is 1/60th of a second by default.
+   *
+   * @param frameIntervalNanos the frame interval nanos
+   */
+  public void setFrameIntervalNanos(long frameIntervalNanos) {
+    mFrameIntervalNanos = frameIntervalNanos;
+  }
+
+  /**
+   * Gets frame interval nanos.
+   *
+   * @return the frame interval nanos
+   */
+  public long getFrameIntervalNanos() {
+    return mFrameIntervalNanos;
+  }
+
+  /**
+   * Begin timing work of the given kind.  Every call must be balanced by a call to {@link #endWork()}; work that's
+   * still in progress when a frame starts is ended then.
+   *
+   * @param kind the kind of work, e.g. {@link #WORK_BIND}
+   */
+  public void beginWork(int kind) {
+    if (!mIsRunning) {
+      return;
+    }
+    long now = mFrameClock.nanoTime();
+    if (mWorkDepth > 0 && mWorkDepth <= MAX_WORK_DEPTH) {
+      mFrameWorkNanos[mWorkStack[mWorkDepth - 1]] += now - mWorkStartNanos;
+    }
+    if (mWorkDepth < MAX_WORK_DEPTH) {
+      mWorkStack[mWorkDepth] = kind;
+    }
+    mWorkDepth++;
+    mWorkStartNanos = now;
+  }
+
+  /**
+   * End timing the innermost work in progress.
+   */
+  public void endWork() {
+    if (!mIsRunning || mWorkDepth == 0) {
+      return;
+    }
+    long now = mFrameClock.nanoTime();
+    if (mWorkDepth <= MAX_WORK_DEPTH) {
+      mFrameWorkNanos[mWorkStack[mWorkDepth - 1]] += now - mWorkStartNanos;
+    }
+    mWorkDepth--;
+    mWorkStartNanos = now;
+  }
+
+  /**
+   * Gets the kind of the innermost work in progress.
+   *
+   * @return the current work, or {@link #WORK_NONE}
+   */
+  public int getCurrentWork() {
+    if (mWorkDepth == 0 || mWorkDepth > MAX_WORK_DEPTH) {
+      return WORK_NONE;
+    }
+    return mWorkStack[mWorkDepth - 1];
+  }
+
+  private void clearFrameWork() {
+    mWorkDepth = 0;
+    for (int i = 0; i < WORK_KIND_COUNT; i++) {
+      mFrameWorkNanos[i] = 0;
+    }
+  }
+
+  /* package-private */ void onFrame(long frameTimeNanos) {
+    // the main thread is between messages, so anything still in progress (e.g., an inflation that was never bound) is over
+    while (mWorkDepth > 0) {
+      endWork();
+    }
+    if (mLastFrameTimeNanos != -1) {
+      long frameNanos = frameTimeNanos - mLastFrameTimeNanos;
+      mFrameNanos.record(frameNanos);
+      int dominantKind = WORK_NONE;
+      for (int i = 0; i < WORK_KIND_COUNT; i++) {
+        mWorkNanos[i] += mFrameWorkNanos[i];
+        if (mFrameWorkNanos[i] > 0 && (dominantKind == WORK_NONE || mFrameWorkNanos[i] > mFrameWorkNanos[dominantKind])) {
+          dominantKind = i;
+        }
+      }
+      if (frameNanos > mFrameIntervalNanos * JANK_FACTOR) {
+        mJankyFrameCount++;
+        mDroppedFrameCount += Math.round((double) frameNanos / mFrameIntervalNanos) - 1;
+        if (dominantKind == WORK_NONE) {
+          mUnattributedJankyFrameCount++;
+        } else {
+          mJankyFrameCounts[dominantKind]++;
+        }
+      }
+    }
+    clearFrameWork();
+    mLastFrameTimeNanos = frameTimeNanos;
+  }
+
+  /**
+   * Gets the number of frames observed.
+   *
+   * @return the frame count
+   */
+  public long getFrameCount() {
+    return mFrameNanos.getCount();
+  }
+
+  /**
+   * Gets the distribution of frame times, in nanoseconds.
+   *
+   * @return the frame nanos
+   */
+  public Histogram getFrameNanos() {
+    return mFrameNanos;
+  }
+
+  /**
+   * Gets the number of janky frames.
+   *
+   * @return the janky frame count
+   */
+  public long getJankyFrameCount() {
+    return mJankyFrameCount;
+  }
+
+  /**
+   * Gets the number of janky frames in which the given kind of work took the most time.
+   *
+   * @param kind the kind of work
+   * @return the janky frame count
+   */
+  public long getJankyFrameCount(int kind) {
+    return mJankyFrameCounts[kind];
+  }
+
+  /**
+   * Gets the number of janky frames during which no endless work was recorded.
+   *
+   * @return the unattributed janky frame count
+   */
+  public long getUnattributedJankyFrameCount() {
+    return mUnattributedJankyFrameCount;
+  }
+
+  /**
+   * Gets the number of vsyncs missed by janky frames - a frame that took three intervals dropped two.
+   *
+   * @return the dropped frame count
+   */
+  public long getDroppedFrameCount() {
+    return mDroppedFrameCount;
+  }
+
+  /**
+   * Gets the fraction of frames that were janky.
+   *
+   * @return the jank ratio, or 0 if no frames have been observed
+   */
+  public double getJankRatio() {
+    long frameCount = getFrameCount();
+    return frameCount == 0 ? 0 : (double) mJankyFrameCount / frameCount;
+  }
+
+  /**
+   * Gets the total time spent in the given kind of work.
+   *
+   * @param kind the kind of work
+   * @return the work nanos
+   */
+  public long getWorkNanos(int kind) {
+    return mWorkNanos[kind];
+  }
+
+  /**
+   * Gets a readable name for a kind of work.
+   *
+   * @param kind the kind of work
+   * @return the work name
+   */
+  public static String getWorkName(int kind) {
+    switch (kind) {
+      case WORK_POPULATE:
+        return "populate";
+      case WORK_FILL:
+        return "fill";
+      case WORK_INFLATE:
+        return "inflate";
+      case WORK_BIND:
+        return "bind";
+    }
+    return "none";
+  }
+
+  /**
+   * Discards all statistics, and starts a new session.
+   */
+  public void reset() {
+    mFrameNanos.reset();
+    for (int i = 0; i < WORK_KIND_COUNT; i++) {
+      mWorkNanos[i] = 0;
+      mJankyFrameCounts[i] = 0;
+    }
+    mJankyFrameCount = 0;
+    mUnattributedJankyFrameCount = 0;
+    mDroppedFrameCount = 0;
+    mLastFrameTimeNanos = -1;
+    clearFrameWork();
+  }
+
+  private final FrameCallback mFrameCallback = new FrameCallback() {
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      if (!mIsRunning) {
+        return;
+      }
+      onFrame(frameTimeNanos);
+      mFrameClock.postFrameCallback(this);
+    }
+  };
+
+}
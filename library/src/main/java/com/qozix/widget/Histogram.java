@@ -0,0 +1,139 @@
+package com.qozix.widget;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative long values in power-of-two buckets - bucket 0 holds 0, and bucket n holds values from
+ * 2^(n-1) up to 2^n - 1 - so recording is a few arithmetic operations, and the whole thing is a fixed array of counts
+ * that never allocates.  Percentiles are approximate, reported as the upper bound of the bucket they fall in.
+ *
+ * Not thread safe; record and read on the same thread (generally, the main thread).
+ */
+public class Histogram {
+
+  private static final int BUCKET_COUNT = 64;
+
+  private final long[] mBuckets = new long[BUCKET_COUNT];
+  private long mCount;
+  private long mSum;
+  private long mMin = Long.MAX_VALUE;
+  private long mMax;
+
+  /**
+   * Record a value.  Negative values are recorded as 0.
+   *
+   * @param value the value
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    mBuckets[getBucketIndex(value)]++;
+    mCount++;
+    mSum += value;
+    if (value < mMin) {
+      mMin = value;
+    }
+    if (value > mMax) {
+      mMax = value;
+    }
+  }
+
+  /**
+   * Gets the index of the bucket a value falls in.
+   *
+   * @param value the value
+   * @return the bucket index
+   */
+  public static int getBucketIndex(long value) {
+    return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(value));
+  }
+
+  /**
+   * Gets the largest value that falls in a bucket.
+   *
+   * @param index the bucket index
+   * @return the bucket upper bound
+   */
+  public static long getBucketUpperBound(int index) {
+    return index >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << index) - 1;
+  }
+
+  public int getBucketCount() {
+    return BUCKET_COUNT;
+  }
+
+  /**
+   * Gets the number of values recorded in a bucket.
+   *
+   * @param index the bucket index
+   * @return the count
+   */
+  public long getCountInBucket(int index) {
+    return mBuckets[index];
+  }
+
+  public long getCount() {
+    return mCount;
+  }
+
+  public long getSum() {
+    return mSum;
+  }
+
+  /**
+   * Gets the smallest value recorded, or 0 if none have been.
+   *
+   * @return the min
+   */
+  public long getMin() {
+    return mCount == 0 ? 0 : mMin;
+  }
+
+  public long getMax() {
+    return mMax;
+  }
+
+  /**
+   * Gets the mean of the values recorded, or 0 if none have been.
+   *
+   * @return the mean
+   */
+  public double getMean() {
+    return mCount == 0 ? 0 : (double) mSum / mCount;
+  }
+
+  /**
+   * Gets an approximate percentile: the upper bound of the bucket the percentile falls in, but no more than the largest
+   * value recorded.
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @return the value, or 0 if none have been recorded
+   */
+  public long getPercentile(double percentile) {
+    if (mCount == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(percentile / 100 * mCount);
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += mBuckets[i];
+      if (seen >= rank && seen > 0) {
+        return Math.min(getBucketUpperBound(i), mMax);
+      }
+    }
+    return mMax;
+  }
+
+  /**
+   * Discards all values recorded.
+   */
+  public void reset() {
+    Arrays.fill(mBuckets, 0);
+    mCount = 0;
+    mSum = 0;
+    mMin = Long.MAX_VALUE;
+    mMax = 0;
+  }
+
+}
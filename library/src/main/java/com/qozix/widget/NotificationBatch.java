@@ -0,0 +1,234 @@
+package com.qozix.widget;
+
+import android.support.v7.widget.RecyclerView;
+
+import java.util.Arrays;
+
+/**
+ * Collects item notifications made while updating an adapter's data (e.g., during {@link EndlessAdapter#fill(int)} or
+ * while handling a response), and dispatches them as few range notifications as possible when {@link #dispatch()} is
+ * called.  Filling 100 items one at a time results in a single notifyItemRangeInserted, rather than 100 separate
+ * notifications, each of which is dispatched to every observer and schedules its own animation work.
+ *
+ * Notifications are recorded in order, and a notification is only merged into the one before it when the two
+ * describe a contiguous range of the same kind, so the dispatched notifications always describe the same changes as
+ * the ones recorded.  A change to an item inserted by the previous notification is dropped, since the insertion
+ * already causes it to be bound.
+ */
+public class NotificationBatch {
+
+  private static final int INSERTED = 0;
+  private static final int CHANGED = 1;
+  private static final int REMOVED = 2;
+
+  /**
+   * Receives dispatched range notifications - generally, an adapter.
+   */
+  public interface Target {
+    /**
+     * Notify item range inserted.
+     *
+     * @param positionStart the position start
+     * @param itemCount     the item count
+     */
+    void notifyItemRangeInserted(int positionStart, int itemCount);
+
+    /**
+     * Notify item range changed.
+     *
+     * @param positionStart the position start
+     * @param itemCount     the item count
+     */
+    void notifyItemRangeChanged(int positionStart, int itemCount);
+
+    /**
+     * Notify item range removed.
+     *
+     * @param positionStart the position start
+     * @param itemCount     the item count
+     */
+    void notifyItemRangeRemoved(int positionStart, int itemCount);
+  }
+
+  private final Target mTarget;
+  // each pending notification is three consecutive ints: type, position start, item count
+  private int[] mOperations = new int[3 * 4];
+  private int mOperationCount;
+
+  /**
+   * Instantiates a new Notification batch that dispatches to an adapter.
+   *
+   * @param adapter the adapter
+   */
+  public NotificationBatch(final RecyclerView.Adapter<?> adapter) {
+    this(new Target() {
+      @Override
+      public void notifyItemRangeInserted(int positionStart, int itemCount) {
+        adapter.notifyItemRangeInserted(positionStart, itemCount);
+      }
+
+      @Override
+      public void notifyItemRangeChanged(int positionStart, int itemCount) {
+        adapter.notifyItemRangeChanged(positionStart, itemCount);
+      }
+
+      @Override
+      public void notifyItemRangeRemoved(int positionStart, int itemCount) {
+        adapter.notifyItemRangeRemoved(positionStart, itemCount);
+      }
+    });
+  }
+
+  /**
+   * Instantiates a new Notification batch.
+   *
+   * @param target the target
+   */
+  public NotificationBatch(Target target) {
+    mTarget = target;
+  }
+
+  /**
+   * Notify item inserted.
+   *
+   * @param position the position
+   */
+  public void notifyItemInserted(int position) {
+    notifyItemRangeInserted(position, 1);
+  }
+
+  /**
+   * Notify item range inserted.
+   *
+   * @param positionStart the position start
+   * @param itemCount     the item count
+   */
+  public void notifyItemRangeInserted(int positionStart, int itemCount) {
+    if (itemCount <= 0) {
+      return;
+    }
+    int last = (mOperationCount - 1) * 3;
+    if (mOperationCount > 0 && mOperations[last] == INSERTED) {
+      int start = mOperations[last + 1];
+      int count = mOperations[last + 2];
+      // inserting anywhere in or at either end of the previous insertion extends it
+      if (positionStart >= start && positionStart <= start + count) {
+        mOperations[last + 2] = count + itemCount;
+        return;
+      }
+    }
+    add(INSERTED, positionStart, itemCount);
+  }
+
+  /**
+   * Notify item changed.
+   *
+   * @param position the position
+   */
+  public void notifyItemChanged(int position) {
+    notifyItemRangeChanged(position, 1);
+  }
+
+  /**
+   * Notify item range changed.
+   *
+   * @param positionStart the position start
+   * @param itemCount     the item count
+   */
+  public void notifyItemRangeChanged(int positionStart, int itemCount) {
+    if (itemCount <= 0) {
+      return;
+    }
+    int last = (mOperationCount - 1) * 3;
+    if (mOperationCount > 0) {
+      int start = mOperations[last + 1];
+      int end = start + mOperations[last + 2];
+      int type = mOperations[last];
+      if (type == INSERTED && positionStart >= start && positionStart + itemCount <= end) {
+        return;
+      }
+      // overlapping or adjacent changes merge into their union
+      if (type == CHANGED && positionStart <= end && positionStart + itemCount >= start) {
+        int mergedStart = Math.min(start, positionStart);
+        mOperations[last + 1] = mergedStart;
+        mOperations[last + 2] = Math.max(end, positionStart + itemCount) - mergedStart;
+        return;
+      }
+    }
+    add(CHANGED, positionStart, itemCount);
+  }
+
+  /**
+   * Notify item removed.
+   *
+   * @param position the position
+   */
+  public void notifyItemRemoved(int position) {
+    notifyItemRangeRemoved(position, 1);
+  }
+
+  /**
+   * Notify item range removed.
+   *
+   * @param positionStart the position start
+   * @param itemCount     the item count
+   */
+  public void notifyItemRangeRemoved(int positionStart, int itemCount) {
+    if (itemCount <= 0) {
+      return;
+    }
+    int last = (mOperationCount - 1) * 3;
+    if (mOperationCount > 0 && mOperations[last] == REMOVED) {
+      int start = mOperations[last + 1];
+      // removing at the same position again, or just before it, extends the previous removal
+      if (positionStart <= start && positionStart + itemCount >= start) {
+        mOperations[last + 1] = positionStart;
+        mOperations[last + 2] += itemCount;
+        return;
+      }
+    }
+    add(REMOVED, positionStart, itemCount);
+  }
+
+  /**
+   * Gets the number of range notifications that would be dispatched.
+   *
+   * @return the pending count
+   */
+  public int getPendingCount() {
+    return mOperationCount;
+  }
+
+  /**
+   * Dispatch all pending notifications to the target, in order, and clear them.
+   */
+  public void dispatch() {
+    int count = mOperationCount;
+    mOperationCount = 0;
+    for (int i = 0; i < count * 3; i += 3) {
+      switch (mOperations[i]) {
+        case INSERTED:
+          mTarget.notifyItemRangeInserted(mOperations[i + 1], mOperations[i + 2]);
+          break;
+        case CHANGED:
+          mTarget.notifyItemRangeChanged(mOperations[i + 1], mOperations[i + 2]);
+          break;
+        case REMOVED:
+          mTarget.notifyItemRangeRemoved(mOperations[i + 1], mOperations[i + 2]);
+          break;
+      }
+    }
+  }
+
+  private void add(int type, int positionStart, int itemCount) {
+    int index = mOperationCount * 3;
+    if (index == mOperations.length) {
+      mOperations = Arrays.copyOf(mOperations, mOperations.length * 2);
+    }
+    mOperations[index] = type;
+    mOperations[index + 1] = positionStart;
+    mOperations[index + 2] = itemCount;
+    mOperationCount++;
+  }
+
+}
@@ -0,0 +1,277 @@
+package com.qozix.widget;
+
+import java.util.Arrays;
+
+/**
+ * Tracks the adapter positions of placeholder items - items shown while their data is on its way - as a sorted set of
+ * ranges held in primitive arrays, so outstanding placeholders cost a few ints per contiguous run rather than an object
+ * per position.
+ *
+ * Slots are reserved when placeholders are inserted (generally, in {@link EndlessAdapter#fill(int)}), and resolved as the
+ * real items replace them.  Positions are kept current as other items are inserted or removed, provided those changes
+ * are reported with {@link #onItemRangeInserted(int, int)} and {@link #onItemRangeRemoved(int, int)}.
+ */
+public class PlaceholderSlots {
+
+  public static final int NO_POSITION = -1;
+
+  private static final int INITIAL_CAPACITY = 4;
+
+  // ranges are sorted, and never overlap or touch, so each run of placeholders is exactly one range
+  private int[] mStarts = new int[INITIAL_CAPACITY];
+  private int[] mEnds = new int[INITIAL_CAPACITY];
+  private int mRangeCount;
+  private int mSize;
+
+  /**
+   * Reserve a slot for a placeholder inserted at the position.
+   *
+   * @param position the position
+   */
+  public void reserve(int position) {
+    reserve(position, 1);
+  }
+
+  /**
+   * Reserve slots for placeholders inserted at the position.  Placeholders and other items at or after the position
+   * are shifted down accordingly.
+   *
+   * @param positionStart the position start
+   * @param itemCount     the item count
+   */
+  public void reserve(int positionStart, int itemCount) {
+    if (itemCount <= 0) {
+      return;
+    }
+    int index = countRangesStartingBefore(positionStart);
+    shift(index, itemCount);
+    mSize += itemCount;
+    if (index > 0 && mEnds[index - 1] >= positionStart) {
+      // inserted within or at the end of a run of placeholders, which just grows
+      mEnds[index - 1] += itemCount;
+      return;
+    }
+    if (index < mRangeCount && mStarts[index] == positionStart + itemCount) {
+      // inserted just before a run of placeholders
+      mStarts[index] = positionStart;
+      return;
+    }
+    insertRange(index, positionStart, positionStart + itemCount);
+  }
+
+  /**
+   * Resolve the first (lowest) outstanding slot.
+   *
+   * @return the position of the slot resolved, or NO_POSITION if there were none
+   */
+  public int poll() {
+    if (mRangeCount == 0) {
+      return NO_POSITION;
+    }
+    int position = mStarts[0]++;
+    mSize--;
+    if (mStarts[0] == mEnds[0]) {
+      removeRanges(0, 1);
+    }
+    return position;
+  }
+
+  /**
+   * Resolve the slot at the position, if there is one.
+   *
+   * @param position the position
+   * @return true if the position was a placeholder
+   */
+  public boolean resolve(int position) {
+    return resolve(position, 1) > 0;
+  }
+
+  /**
+   * Resolve all slots within a range of positions, e.g. when a page of items arrives.  Positions are not shifted.
+   *
+   * @param positionStart the position start
+   * @param itemCount     the item count
+   * @return the number of slots resolved
+   */
+  public int resolve(int positionStart, int itemCount) {
+    return remove(positionStart, itemCount, false);
+  }
+
+  /**
+   * Report that items that aren't placeholders were inserted.  Slots at or after the position are shifted down.
+   *
+   * @param positionStart the position start
+   * @param itemCount     the item count
+   */
+  public void onItemRangeInserted(int positionStart, int itemCount) {
+    if (itemCount <= 0) {
+      return;
+    }
+    int index = countRangesStartingBefore(positionStart);
+    shift(index, itemCount);
+    if (index > 0 && mEnds[index - 1] > positionStart) {
+      // inserted into the middle of a run of placeholders, which is split
+      int end = mEnds[index - 1];
+      mEnds[index - 1] = positionStart;
+      insertRange(index, positionStart + itemCount, end + itemCount);
+    }
+  }
+
+  /**
+   * Report that items were removed.  Slots within the range are dropped, and those after it are shifted up.
+   *
+   * @param positionStart the position start
+   * @param itemCount     the item count
+   * @return the number of slots dropped
+   */
+  public int onItemRangeRemoved(int positionStart, int itemCount) {
+    return remove(positionStart, itemCount, true);
+  }
+
+  /**
+   * Is placeholder boolean.
+   *
+   * @param position the position
+   * @return the boolean
+   */
+  public boolean isPlaceholder(int position) {
+    int index = countRangesStartingBefore(position + 1) - 1;
+    return index >= 0 && mEnds[index] > position;
+  }
+
+  /**
+   * Gets the first outstanding slot, without resolving it.
+   *
+   * @return the position, or NO_POSITION if there are none
+   */
+  public int getFirst() {
+    return mRangeCount == 0 ? NO_POSITION : mStarts[0];
+  }
+
+  /**
+   * Gets the number of contiguous runs of placeholders.
+   *
+   * @return the range count
+   */
+  public int getRangeCount() {
+    return mRangeCount;
+  }
+
+  /**
+   * Gets the number of outstanding slots.
+   *
+   * @return the size
+   */
+  public int size() {
+    return mSize;
+  }
+
+  public boolean isEmpty() {
+    return mSize == 0;
+  }
+
+  public void clear() {
+    mRangeCount = 0;
+    mSize = 0;
+  }
+
+  private int remove(int positionStart, int itemCount, boolean shouldShift) {
+    if (itemCount <= 0) {
+      return 0;
+    }
+    int positionEnd = positionStart + itemCount;
+    if (!shouldShift) {
+      int index = countRangesStartingBefore(positionStart) - 1;
+      if (index >= 0 && mEnds[index] > positionEnd) {
+        // resolving the middle of a run of placeholders splits it, and no other range is touched
+        insertRange(index + 1, positionEnd, mEnds[index]);
+        mEnds[index] = positionStart;
+        mSize -= itemCount;
+        return itemCount;
+      }
+    }
+    int offset = shouldShift ? itemCount : 0;
+    int removed = 0;
+    int write = 0;
+    for (int read = 0; read < mRangeCount; read++) {
+      int start = mStarts[read];
+      int end = mEnds[read];
+      removed += Math.max(0, Math.min(end, positionEnd) - Math.max(start, positionStart));
+      if (end <= positionStart) {
+        write = append(write, start, end);
+      } else if (start >= positionEnd) {
+        write = append(write, start - offset, end - offset);
+      } else {
+        // the range overlaps the positions removed; keep what's on either side
+        if (start < positionStart) {
+          write = append(write, start, positionStart);
+        }
+        if (end > positionEnd) {
+          write = append(write, positionEnd - offset, end - offset);
+        }
+      }
+    }
+    mRangeCount = write;
+    mSize -= removed;
+    return removed;
+  }
+
+  // writes a range over the (already read) ranges in place, merging it into the one before it if they touch; a read
+  // range only ever yields two when removal shifts, in which case they touch and are merged, so writes never overtake reads
+  private int append(int write, int start, int end) {
+    if (write > 0 && mEnds[write - 1] == start) {
+      mEnds[write - 1] = end;
+      return write;
+    }
+    if (write == mStarts.length) {
+      grow();
+    }
+    mStarts[write] = start;
+    mEnds[write] = end;
+    return write + 1;
+  }
+
+  private int countRangesStartingBefore(int position) {
+    int low = 0;
+    int high = mRangeCount;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (mStarts[middle] < position) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private void shift(int fromIndex, int offset) {
+    for (int i = fromIndex; i < mRangeCount; i++) {
+      mStarts[i] += offset;
+      mEnds[i] += offset;
+    }
+  }
+
+  private void insertRange(int index, int start, int end) {
+    if (mRangeCount == mStarts.length) {
+      grow();
+    }
+    System.arraycopy(mStarts, index, mStarts, index + 1, mRangeCount - index);
+    System.arraycopy(mEnds, index, mEnds, index + 1, mRangeCount - index);
+    mStarts[index] = start;
+    mEnds[index] = end;
+    mRangeCount++;
+  }
+
+  private void removeRanges(int index, int count) {
+    System.arraycopy(mStarts, index + count, mStarts, index, mRangeCount - index - count);
+    System.arraycopy(mEnds, index + count, mEnds, index, mRangeCount - index - count);
+    mRangeCount -= count;
+  }
+
+  private void grow() {
+    mStarts = Arrays.copyOf(mStarts, mStarts.length * 2);
+    mEnds = Arrays.copyOf(mEnds, mEnds.length * 2);
+  }
+
+}
@@ -0,0 +1,338 @@
+package com.qozix.widget;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * Does work for an EndlessRecyclerView while the main thread is idle between frames, so it isn't done during a frame
+ * later:
+ *
+ * 1. Inflation: for each view type, the items about to be shown (a screenful past the edge being scrolled towards) are
+ * compared with the ViewHolders already shown and pooled, and any shortfall is created and put in the pool.
+ * 2. Binding: the next few items in the direction of scrolling are bound to pooled ViewHolders, and handed to the
+ * RecyclerView by a ViewCacheExtension when it lays them out.
+ *
+ * Only ViewHolders that RecyclerView has laid out before are pre-bound, since RecyclerView won't accept a view from a
+ * ViewCacheExtension unless it already knows the view's ViewHolder.  Pre-bound items are discarded (back to the pool)
+ * as soon as they fall out of range, or the adapter reports a change at or before them.
+ */
+/* package-private */ class ViewHolderPreparer {
+
+  // the most main-thread time to take per idle period
+  private static final long IDLE_BUDGET_NANOS = 4000000;
+  private static final int MAX_PREPARED_PER_VIEW_TYPE = 8;
+  private static final int MAX_PREBOUND = 2;
+
+  private final EndlessRecyclerView mEndlessRecyclerView;
+  private final EndlessRecycledViewPool mRecycledViewPool;
+  private boolean mIsEnabled;
+  private boolean mIsScheduled;
+  private RecyclerView.Adapter<?> mAdapter;
+  private int mFirstShownPosition = RecyclerView.NO_POSITION;
+  private int mLastShownPosition = RecyclerView.NO_POSITION;
+  private boolean mIsScrollingBackward;
+  private final ViewTypeCounts mShownCounts = new ViewTypeCounts();
+  private final ViewTypeCounts mUpcomingCounts = new ViewTypeCounts();
+  // pre-bound holders, and the positions they're bound to
+  private final RecyclerView.ViewHolder[] mPreboundViewHolders = new RecyclerView.ViewHolder[MAX_PREBOUND];
+  private final int[] mPreboundPositions = new int[MAX_PREBOUND];
+  private int mPreboundCount;
+
+  /* package-private */ ViewHolderPreparer(EndlessRecyclerView endlessRecyclerView, EndlessRecycledViewPool recycledViewPool) {
+    mEndlessRecyclerView = endlessRecyclerView;
+    mRecycledViewPool = recycledViewPool;
+  }
+
+  /* package-private */ void setEnabled(boolean isEnabled) {
+    if (isEnabled == mIsEnabled) {
+      return;
+    }
+    mIsEnabled = isEnabled;
+    mEndlessRecyclerView.setViewCacheExtension(mIsEnabled ? mViewCacheExtension : null);
+    if (!mIsEnabled) {
+      discardPrebound(0);
+      unschedule();
+    }
+  }
+
+  /* package-private */ boolean isEnabled() {
+    return mIsEnabled;
+  }
+
+  /* package-private */ void setAdapter(RecyclerView.Adapter<?> adapter) {
+    if (mAdapter != null) {
+      mAdapter.unregisterAdapterDataObserver(mAdapterDataObserver);
+    }
+    discardPrebound(0);
+    mAdapter = adapter;
+    if (mAdapter != null) {
+      mAdapter.registerAdapterDataObserver(mAdapterDataObserver);
+    }
+  }
+
+  /**
+   * Called when the range of items shown may have changed, e.g. after populating.
+   *
+   * @param firstShownPosition the first shown position
+   * @param lastShownPosition  the last shown position
+   */
+  /* package-private */ void onShownRangeChanged(int firstShownPosition, int lastShownPosition) {
+    if (!mIsEnabled || mAdapter == null) {
+      return;
+    }
+    if (mFirstShownPosition != RecyclerView.NO_POSITION && firstShownPosition != mFirstShownPosition) {
+      mIsScrollingBackward = firstShownPosition < mFirstShownPosition;
+    }
+    mFirstShownPosition = firstShownPosition;
+    mLastShownPosition = lastShownPosition;
+    // pre-bound items that have been passed, or are behind us, won't be asked for
+    for (int i = mPreboundCount - 1; i >= 0; i--) {
+      if (!isUpcoming(mPreboundPositions[i], MAX_PREBOUND)) {
+        discardPreboundAt(i);
+      }
+    }
+    countViewTypes();
+    schedule();
+  }
+
+  private boolean isUpcoming(int position, int distance) {
+    if (mIsScrollingBackward) {
+      return position < mFirstShownPosition && position >= mFirstShownPosition - distance;
+    }
+    return position > mLastShownPosition && position <= mLastShownPosition + distance;
+  }
+
+  private int getUpcomingPosition(int index) {
+    return mIsScrollingBackward ? mFirstShownPosition - 1 - index : mLastShownPosition + 1 + index;
+  }
+
+  private void countViewTypes() {
+    mShownCounts.clear();
+    mUpcomingCounts.clear();
+    int itemCount = mAdapter.getItemCount();
+    int shownCount = mLastShownPosition - mFirstShownPosition + 1;
+    for (int position = mFirstShownPosition; position <= mLastShownPosition; position++) {
+      mShownCounts.add(mAdapter.getItemViewType(position), 1);
+    }
+    for (int i = 0; i < shownCount; i++) {
+      int position = getUpcomingPosition(i);
+      if (position < 0 || position >= itemCount) {
+        break;
+      }
+      mUpcomingCounts.add(mAdapter.getItemViewType(position), 1);
+    }
+  }
+
+  private void schedule() {
+    if (!mIsScheduled) {
+      mIsScheduled = true;
+      Looper.myQueue().addIdleHandler(mIdleHandler);
+    }
+  }
+
+  /* package-private */ void cancelScheduledPreparation() {
+    unschedule();
+  }
+
+  private void unschedule() {
+    if (mIsScheduled) {
+      mIsScheduled = false;
+      Looper.myQueue().removeIdleHandler(mIdleHandler);
+    }
+  }
+
+  // performs one unit of work, returning false if there was none to do
+  private boolean prepareNext() {
+    if (mAdapter == null || mFirstShownPosition == RecyclerView.NO_POSITION) {
+      return false;
+    }
+    // another pool was set, which doesn't count what it holds
+    if (mEndlessRecyclerView.getRecycledViewPool() != mRecycledViewPool) {
+      return false;
+    }
+    return inflateNext() || prebindNext();
+  }
+
+  private boolean inflateNext() {
+    for (int i = 0; i < mUpcomingCounts.size(); i++) {
+      int viewType = mUpcomingCounts.getViewTypeAt(i);
+      int pooled = mRecycledViewPool.getRecycledViewCount(viewType);
+      int shortfall = mUpcomingCounts.getCountAt(i) - mShownCounts.get(viewType) - pooled - countPrebound(viewType);
+      if (shortfall > 0 && pooled < MAX_PREPARED_PER_VIEW_TYPE) {
+        if (mRecycledViewPool.getMaxRecycledViews(viewType) <= pooled) {
+          mRecycledViewPool.setMaxRecycledViews(viewType, pooled + 1);
+        }
+        RecyclerView.ViewHolder viewHolder = mAdapter.createViewHolder(mEndlessRecyclerView, viewType);
+        mRecycledViewPool.putRecycledView(viewHolder);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int countPrebound(int viewType) {
+    int count = 0;
+    for (int i = 0; i < mPreboundCount; i++) {
+      if (mPreboundViewHolders[i].getItemViewType() == viewType) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @SuppressWarnings("unchecked")
+  private boolean prebindNext() {
+    int itemCount = mAdapter.getItemCount();
+    for (int i = 0; i < MAX_PREBOUND; i++) {
+      int position = getUpcomingPosition(i);
+      if (position < 0 || position >= itemCount) {
+        return false;
+      }
+      if (indexOfPrebound(position) != -1) {
+        continue;
+      }
+      if (mPreboundCount == MAX_PREBOUND) {
+        return false;
+      }
+      RecyclerView.ViewHolder viewHolder = mRecycledViewPool.takeRecycledView(mAdapter.getItemViewType(position));
+      if (viewHolder == null) {
+        return false;
+      }
+      // a holder RecyclerView hasn't laid out yet can't be handed to it from a ViewCacheExtension
+      if (mEndlessRecyclerView.getChildViewHolder(viewHolder.itemView) != viewHolder) {
+        mRecycledViewPool.putRecycledView(viewHolder);
+        return false;
+      }
+      setPrebinding(true);
+      bindViewHolder(mAdapter, viewHolder, position);
+      setPrebinding(false);
+      mPreboundViewHolders[mPreboundCount] = viewHolder;
+      mPreboundPositions[mPreboundCount] = position;
+      mPreboundCount++;
+      return true;
+    }
+    return false;
+  }
+
+  private void setPrebinding(boolean isPrebinding) {
+    if (mAdapter instanceof EndlessAdapter) {
+      ((EndlessAdapter<?>) mAdapter).setPrebinding(isPrebinding);
+    }
+  }
+
+  private int indexOfPrebound(int position) {
+    for (int i = 0; i < mPreboundCount; i++) {
+      if (mPreboundPositions[i] == position) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private RecyclerView.ViewHolder removePreboundAt(int index) {
+    RecyclerView.ViewHolder viewHolder = mPreboundViewHolders[index];
+    mPreboundCount--;
+    mPreboundViewHolders[index] = mPreboundViewHolders[mPreboundCount];
+    mPreboundPositions[index] = mPreboundPositions[mPreboundCount];
+    mPreboundViewHolders[mPreboundCount] = null;
+    return viewHolder;
+  }
+
+  private void discardPreboundAt(int index) {
+    RecyclerView.ViewHolder viewHolder = removePreboundAt(index);
+    if (mAdapter != null) {
+      recycleViewHolder(mAdapter, viewHolder);
+    }
+    mRecycledViewPool.putRecycledView(viewHolder);
+  }
+
+  // holders come from the pool, which RecyclerView fills with holders its adapter created, so they're of its type
+  @SuppressWarnings("unchecked")
+  private static <VH extends RecyclerView.ViewHolder> void bindViewHolder(RecyclerView.Adapter<VH> adapter, RecyclerView.ViewHolder viewHolder, int position) {
+    adapter.bindViewHolder((VH) viewHolder, position);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <VH extends RecyclerView.ViewHolder> void recycleViewHolder(RecyclerView.Adapter<VH> adapter, RecyclerView.ViewHolder viewHolder) {
+    adapter.onViewRecycled((VH) viewHolder);
+  }
+
+  // discards pre-bound items at or after a position, which a change there may have invalidated
+  private void discardPrebound(int fromPosition) {
+    for (int i = mPreboundCount - 1; i >= 0; i--) {
+      if (mPreboundPositions[i] >= fromPosition) {
+        discardPreboundAt(i);
+      }
+    }
+  }
+
+  private final MessageQueue.IdleHandler mIdleHandler = new MessageQueue.IdleHandler() {
+    @Override
+    public boolean queueIdle() {
+      long start = System.nanoTime();
+      while (System.nanoTime() - start < IDLE_BUDGET_NANOS) {
+        if (!prepareNext()) {
+          // nothing left to do until the shown range changes again
+          mIsScheduled = false;
+          return false;
+        }
+      }
+      return true;
+    }
+  };
+
+  private final RecyclerView.ViewCacheExtension mViewCacheExtension = new RecyclerView.ViewCacheExtension() {
+    @Override
+    public View getViewForPositionAndType(RecyclerView.Recycler recycler, int position, int type) {
+      int index = indexOfPrebound(position);
+      if (index == -1 || mPreboundViewHolders[index].getItemViewType() != type) {
+        return null;
+      }
+      RecyclerView.ViewHolder viewHolder = removePreboundAt(index);
+      if (mAdapter instanceof EndlessAdapter) {
+        ((EndlessAdapter<?>) mAdapter).onPreboundViewShown(position);
+      }
+      return viewHolder.itemView;
+    }
+  };
+
+  private final RecyclerView.AdapterDataObserver mAdapterDataObserver = new RecyclerView.AdapterDataObserver() {
+    @Override
+    public void onChanged() {
+      discardPrebound(0);
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+      for (int i = mPreboundCount - 1; i >= 0; i--) {
+        int position = mPreboundPositions[i];
+        if (position >= positionStart && position < positionStart + itemCount) {
+          discardPreboundAt(i);
+        }
+      }
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+      onItemRangeChanged(positionStart, itemCount);
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+      discardPrebound(positionStart);
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+      discardPrebound(positionStart);
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+      discardPrebound(Math.min(fromPosition, toPosition));
+    }
+  };
+
+}
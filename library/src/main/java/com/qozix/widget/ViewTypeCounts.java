@@ -0,0 +1,109 @@
+package com.qozix.widget;
+
+import java.util.Arrays;
+
+/**
+ * Counts per view type, in parallel primitive arrays.  Adapters generally have a handful of view types, so lookups are
+ * linear, and nothing is allocated once the arrays have grown to fit every view type seen.
+ */
+public class ViewTypeCounts {
+
+  private static final int INITIAL_CAPACITY = 4;
+
+  private int[] mViewTypes = new int[INITIAL_CAPACITY];
+  private int[] mCounts = new int[INITIAL_CAPACITY];
+  private int mSize;
+
+  private int indexOf(int viewType) {
+    for (int i = 0; i < mSize; i++) {
+      if (mViewTypes[i] == viewType) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int indexOfOrAdd(int viewType) {
+    int index = indexOf(viewType);
+    if (index != -1) {
+      return index;
+    }
+    if (mSize == mViewTypes.length) {
+      mViewTypes = Arrays.copyOf(mViewTypes, mSize * 2);
+      mCounts = Arrays.copyOf(mCounts, mSize * 2);
+    }
+    mViewTypes[mSize] = viewType;
+    mCounts[mSize] = 0;
+    return mSize++;
+  }
+
+  /**
+   * Gets the count for a view type.
+   *
+   * @param viewType the view type
+   * @return the count, or 0 if the view type hasn't been counted
+   */
+  public int get(int viewType) {
+    int index = indexOf(viewType);
+    return index == -1 ? 0 : mCounts[index];
+  }
+
+  /**
+   * Sets the count for a view type.
+   *
+   * @param viewType the view type
+   * @param count    the count
+   */
+  public void set(int viewType, int count) {
+    int index = indexOfOrAdd(viewType);
+    mCounts[index] = count;
+  }
+
+  /**
+   * Add to the count for a view type, which never goes below 0.
+   *
+   * @param viewType the view type
+   * @param delta    the delta
+   */
+  public void add(int viewType, int delta) {
+    int index = indexOfOrAdd(viewType);
+    mCounts[index] = Math.max(0, mCounts[index] + delta);
+  }
+
+  /**
+   * Gets the number of view types counted.
+   *
+   * @return the size
+   */
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * Gets the view type at an index, in the order view types were first counted.
+   *
+   * @param index the index
+   * @return the view type
+   */
+  public int getViewTypeAt(int index) {
+    return mViewTypes[index];
+  }
+
+  /**
+   * Gets the count at an index.
+   *
+   * @param index the index
+   * @return the count
+   */
+  public int getCountAt(int index) {
+    return mCounts[index];
+  }
+
+  /**
+   * Forget every view type.
+   */
+  public void clear() {
+    mSize = 0;
+  }
+
+}
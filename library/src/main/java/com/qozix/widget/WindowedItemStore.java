@@ -0,0 +1,516 @@
+package com.qozix.widget;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of items for an {@link EndlessAdapter} that keeps only the pages near the current focus (generally, the most
+ * recently bound position) in memory.  Once the items held exceed a memory budget, the pages farthest from the focus
+ * are dropped to stubs that remember only how many items they held.  A dropped page is requested from the
+ * {@link PageLoader} again when one of its items is accessed or the focus comes back near it, and its items read as
+ * null until it's been restored - the same way placeholders read for items that haven't been delivered yet.  A page
+ * whose load fails is requested again the next time it's accessed or focused.
+ *
+ * Items can only be appended, set in place, or truncated from the end, which is all trailing population needs.  Pages
+ * are indexed from the first item, so inserting at the start would shift every page; a store can't back an adapter
+ * that {@link EndlessAdapter#prepend(int) prepends}, and inserts anywhere but the end throw
+ * UnsupportedOperationException.  The last page is never dropped, since that's where new items are appended.
+ *
+ * @param <T> the item type
+ */
+public class WindowedItemStore<T> extends AbstractList<T> {
+
+  /**
+   * Restores pages that have been dropped.
+   *
+   * @param <T> the item type
+   */
+  public interface PageLoader<T> {
+    /**
+     * Load the items for a page that has been dropped, then pass them to
+     * {@link WindowedItemStore#onPageLoaded(int, List)}, or call {@link WindowedItemStore#onPageLoadFailed(int)} if
+     * they can't be loaded.  Neither may happen synchronously from within this method, since pages are requested during
+     * binding, when adapters can't notify of changes.
+     *
+     * @param pageIndex     the page index
+     * @param firstPosition the position of the first item on the page
+     * @param count         the number of items on the page
+     */
+    void loadPage(int pageIndex, int firstPosition, int count);
+  }
+
+  /**
+   * Measures the memory cost of an item, in whatever units the memory budget is expressed in.
+   *
+   * @param <T> the item type
+   */
+  public interface Weigher<T> {
+    /**
+     * Weigh long.
+     *
+     * @param item the item, never null
+     * @return the weight
+     */
+    long weigh(T item);
+  }
+
+  /**
+   * The interface On page restored listener.
+   */
+  public interface OnPageRestoredListener {
+    /**
+     * Called when a dropped page has been restored; adapters generally notify that the range changed.
+     *
+     * @param firstPosition the position of the first item on the page
+     * @param count         the number of items on the page
+     */
+    void onPageRestored(int firstPosition, int count);
+  }
+
+  private static class Page {
+    Object[] items;
+    int count;
+    long weight;
+    boolean isLoading;
+    // resident, but only holding the items set since it was dropped; the rest are still to be loaded
+    boolean isPartial;
+  }
+
+  private final int mPageSize;
+  private final List<Page> mPages = new ArrayList<>();
+  private PageLoader<T> mPageLoader;
+  private Weigher<T> mWeigher;
+  private OnPageRestoredListener mOnPageRestoredListener;
+  private long mMemoryBudget = Long.MAX_VALUE;
+  private long mResidentWeight;
+  private int mResidentPageRadius = 1;
+  private int mFocusPosition;
+  private int mSize;
+
+  /**
+   * Instantiates a new Windowed item store.
+   *
+   * @param pageSize the number of items per page
+   */
+  public WindowedItemStore(int pageSize) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("Page size must be positive");
+    }
+    mPageSize = pageSize;
+  }
+
+  /**
+   * Gets page size.
+   *
+   * @return the page size
+   */
+  public int getPageSize() {
+    return mPageSize;
+  }
+
+  /**
+   * Sets page loader.  Without one, dropped pages can't be restored, so nothing is dropped.
+   *
+   * @param pageLoader the page loader
+   */
+  public void setPageLoader(PageLoader<T> pageLoader) {
+    mPageLoader = pageLoader;
+  }
+
+  /**
+   * Sets weigher.  Without one, each item weighs 1, so the memory budget is a number of items.
+   *
+   * @param weigher the weigher
+   */
+  public void setWeigher(Weigher<T> weigher) {
+    mWeigher = weigher;
+    mResidentWeight = 0;
+    for (Page page : mPages) {
+      if (page.items != null) {
+        page.weight = 0;
+        for (int i = 0; i < page.count; i++) {
+          page.weight += weighAt(page, i);
+        }
+        mResidentWeight += page.weight;
+      }
+    }
+    trimToBudget();
+  }
+
+  /**
+   * Sets on page restored listener.
+   *
+   * @param onPageRestoredListener the on page restored listener
+   */
+  public void setOnPageRestoredListener(OnPageRestoredListener onPageRestoredListener) {
+    mOnPageRestoredListener = onPageRestoredListener;
+  }
+
+  /**
+   * Sets the memory budget for resident items, as measured by the {@link Weigher}.
+   *
+   * @param memoryBudget the memory budget
+   */
+  public void setMemoryBudget(long memoryBudget) {
+    mMemoryBudget = memoryBudget;
+    trimToBudget();
+  }
+
+  /**
+   * Gets memory budget.
+   *
+   * @return the memory budget
+   */
+  public long getMemoryBudget() {
+    return mMemoryBudget;
+  }
+
+  /**
+   * Gets the combined weight of all resident items.
+   *
+   * @return the resident weight
+   */
+  public long getResidentWeight() {
+    return mResidentWeight;
+  }
+
+  /**
+   * Sets the number of pages on each side of the focus that are never dropped, and are restored when the focus moves
+   * near them.
+   *
+   * @param residentPageRadius the resident page radius
+   */
+  public void setResidentPageRadius(int residentPageRadius) {
+    mResidentPageRadius = Math.max(0, residentPageRadius);
+  }
+
+  /**
+   * Sets the position the user is looking at - generally called from onBindViewHolder.  Dropped pages near the focus
+   * are requested from the page loader.
+   *
+   * @param position the position
+   */
+  public void setFocusPosition(int position) {
+    mFocusPosition = position;
+    int focusPage = position / mPageSize;
+    int first = Math.max(0, focusPage - mResidentPageRadius);
+    int last = Math.min(mPages.size() - 1, focusPage + mResidentPageRadius);
+    for (int i = first; i <= last; i++) {
+      requestPage(i);
+    }
+    trimToBudget();
+  }
+
+  /**
+   * Gets focus position.
+   *
+   * @return the focus position
+   */
+  public int getFocusPosition() {
+    return mFocusPosition;
+  }
+
+  /**
+   * Is resident boolean.
+   *
+   * @param position the position
+   * @return true if the item at the position is in memory, false if its page has been dropped
+   */
+  public boolean isResident(int position) {
+    checkPosition(position);
+    return mPages.get(position / mPageSize).items != null;
+  }
+
+  /**
+   * Gets the number of pages currently held in memory.
+   *
+   * @return the resident page count
+   */
+  public int getResidentPageCount() {
+    int count = 0;
+    for (Page page : mPages) {
+      if (page.items != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Gets an item, or null if it's a placeholder or its page has been dropped, in which case the page is requested from
+   * the page loader.
+   *
+   * @param position the position
+   * @return the item
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public T get(int position) {
+    checkPosition(position);
+    int pageIndex = position / mPageSize;
+    Page page = mPages.get(pageIndex);
+    if (page.items == null || page.isPartial) {
+      requestPage(pageIndex);
+    }
+    return page.items == null ? null : (T) page.items[position % mPageSize];
+  }
+
+  /**
+   * Sets an item.  Setting an item on a dropped page makes the page resident again, holding just that item, and
+   * requests the rest of it from the page loader.  The page isn't dropped again until they've arrived.
+   *
+   * @param position the position
+   * @param item     the item
+   * @return the previous item
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public T set(int position, T item) {
+    checkPosition(position);
+    int pageIndex = position / mPageSize;
+    Page page = mPages.get(pageIndex);
+    if (page.items == null) {
+      makePartial(pageIndex);
+    }
+    int index = position % mPageSize;
+    T previous = (T) page.items[index];
+    long delta = weigh(item) - weigh(previous);
+    page.items[index] = item;
+    page.weight += delta;
+    mResidentWeight += delta;
+    trimToBudget();
+    return previous;
+  }
+
+  /**
+   * Appends an item.  Only appending is supported.
+   *
+   * @param position the position, which must be the current size
+   * @param item     the item
+   */
+  @Override
+  public void add(int position, T item) {
+    if (position != mSize) {
+      throw new UnsupportedOperationException("Items can only be appended");
+    }
+    Page page = mPages.isEmpty() ? null : mPages.get(mPages.size() - 1);
+    if (page == null || page.count == mPageSize) {
+      page = new Page();
+      page.items = new Object[mPageSize];
+      mPages.add(page);
+    }
+    long weight = weigh(item);
+    page.items[page.count++] = item;
+    page.weight += weight;
+    mResidentWeight += weight;
+    mSize++;
+    modCount++;
+    trimToBudget();
+  }
+
+  /**
+   * Appends whole pages of items that aren't in memory, as if they'd been dropped - e.g., to restore a window of items
+   * saved from further along the list, leaving the pages before it to be requested from the page loader as they're
+   * needed.
+   *
+   * @param pageCount the page count
+   */
+  public void addDroppedPages(int pageCount) {
+    if (mPageLoader == null) {
+      throw new IllegalStateException("Dropped pages can't be restored without a page loader");
+    }
+    if (mSize % mPageSize != 0) {
+      throw new UnsupportedOperationException("Dropped pages can only be appended after a whole page");
+    }
+    for (int i = 0; i < pageCount; i++) {
+      Page page = new Page();
+      page.count = mPageSize;
+      mPages.add(page);
+      mSize += mPageSize;
+    }
+    modCount++;
+  }
+
+  @Override
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * Removes a range of items, which must extend to the end of the list.
+   *
+   * @param fromIndex the from index
+   * @param toIndex   the to index
+   */
+  @Override
+  protected void removeRange(int fromIndex, int toIndex) {
+    if (toIndex != mSize) {
+      throw new UnsupportedOperationException("Items can only be removed from the end");
+    }
+    if (fromIndex >= toIndex) {
+      return;
+    }
+    int pageCount = (fromIndex + mPageSize - 1) / mPageSize;
+    while (mPages.size() > pageCount) {
+      Page page = mPages.remove(mPages.size() - 1);
+      mResidentWeight -= page.weight;
+    }
+    if (fromIndex % mPageSize != 0) {
+      Page page = mPages.get(mPages.size() - 1);
+      int count = fromIndex % mPageSize;
+      if (page.items != null) {
+        for (int i = count; i < page.count; i++) {
+          long weight = weighAt(page, i);
+          page.weight -= weight;
+          mResidentWeight -= weight;
+          page.items[i] = null;
+        }
+      }
+      page.count = count;
+    }
+    mSize = fromIndex;
+    modCount++;
+    // the new last page may have been dropped, but new items are appended to it, so it needs to be resident
+    if (!mPages.isEmpty() && mPages.get(mPages.size() - 1).items == null) {
+      makePartial(mPages.size() - 1);
+    }
+  }
+
+  /**
+   * Remove a single item, which must be the last.
+   *
+   * @param position the position
+   * @return the item
+   */
+  @Override
+  public T remove(int position) {
+    if (position != mSize - 1) {
+      throw new UnsupportedOperationException("Items can only be removed from the end");
+    }
+    T item = get(position);
+    removeRange(position, mSize);
+    return item;
+  }
+
+  /**
+   * Called by the page loader with the items for a page that was requested.  Items that have been set on the page in
+   * the meantime are kept.
+   *
+   * @param pageIndex the page index
+   * @param items     the items
+   */
+  public void onPageLoaded(int pageIndex, List<T> items) {
+    if (pageIndex < 0 || pageIndex >= mPages.size()) {
+      return;
+    }
+    Page page = mPages.get(pageIndex);
+    if (!page.isLoading) {
+      return;
+    }
+    page.isLoading = false;
+    page.isPartial = false;
+    if (page.items == null) {
+      page.items = new Object[mPageSize];
+      page.weight = 0;
+    }
+    int count = Math.min(page.count, items.size());
+    for (int i = 0; i < count; i++) {
+      if (page.items[i] == null) {
+        T item = items.get(i);
+        long weight = weigh(item);
+        page.items[i] = item;
+        page.weight += weight;
+        mResidentWeight += weight;
+      }
+    }
+    if (mOnPageRestoredListener != null) {
+      mOnPageRestoredListener.onPageRestored(pageIndex * mPageSize, page.count);
+    }
+    trimToBudget();
+  }
+
+  /**
+   * Called by the page loader when a page that was requested can't be loaded.  The page is left as it was, dropped or
+   * partial, and requested again the next time one of its items is accessed or the focus comes near it.
+   *
+   * @param pageIndex the page index
+   */
+  public void onPageLoadFailed(int pageIndex) {
+    if (pageIndex < 0 || pageIndex >= mPages.size()) {
+      return;
+    }
+    mPages.get(pageIndex).isLoading = false;
+  }
+
+  private void requestPage(int pageIndex) {
+    Page page = mPages.get(pageIndex);
+    if ((page.items == null || page.isPartial) && !page.isLoading && mPageLoader != null) {
+      page.isLoading = true;
+      mPageLoader.loadPage(pageIndex, pageIndex * mPageSize, page.count);
+    }
+  }
+
+  // makes a dropped page resident and empty, to hold items set before the rest of it is loaded
+  private void makePartial(int pageIndex) {
+    Page page = mPages.get(pageIndex);
+    requestPage(pageIndex);
+    page.items = new Object[mPageSize];
+    page.weight = 0;
+    page.isPartial = true;
+  }
+
+  private void trimToBudget() {
+    while (mResidentWeight > mMemoryBudget) {
+      int pageIndex = findPageToDrop();
+      if (pageIndex < 0) {
+        return;
+      }
+      Page page = mPages.get(pageIndex);
+      page.items = null;
+      mResidentWeight -= page.weight;
+      page.weight = 0;
+    }
+  }
+
+  // the resident page farthest from the focus, outside the resident radius, not the last page and not partial, since
+  // a partial page holds items that can't be loaded yet; -1 if there are none
+  private int findPageToDrop() {
+    if (mPageLoader == null) {
+      return -1;
+    }
+    int focusPage = mFocusPosition / mPageSize;
+    int candidate = -1;
+    int candidateDistance = mResidentPageRadius;
+    for (int i = 0; i < mPages.size() - 1; i++) {
+      Page page = mPages.get(i);
+      if (page.items != null && !page.isPartial) {
+        int distance = Math.abs(i - focusPage);
+        if (distance > candidateDistance) {
+          candidate = i;
+          candidateDistance = distance;
+        }
+      }
+    }
+    return candidate;
+  }
+
+  @SuppressWarnings("unchecked")
+  private long weighAt(Page page, int index) {
+    return weigh((T) page.items[index]);
+  }
+
+  private long weigh(T item) {
+    if (item == null) {
+      return 0;
+    }
+    return mWeigher == null ? 1 : mWeigher.weigh(item);
+  }
+
+  private void checkPosition(int position) {
+    if (position < 0 || position >= mSize) {
+      throw new IndexOutOfBoundsException("Position " + position + " is out of bounds for size " + mSize);
+    }
+  }
+
+}
@@ -0,0 +1,129 @@
+package com.qozix.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EndlessMetricsTest {
+
+  private static final long MILLIS = 1000000;
+
+  private long mNanoTime;
+  private EndlessMetrics mMetrics;
+
+  @Before
+  public void setUp() throws Exception {
+    mMetrics = new EndlessMetrics(new EndlessMetrics.Clock() {
+      @Override
+      public long nanoTime() {
+        return mNanoTime;
+      }
+    });
+  }
+
+  @Test
+  public void populateRate_isPerSecond() throws Exception {
+    for (int i = 0; i < 30; i++) {
+      mMetrics.onPopulate();
+    }
+    mNanoTime = 500 * MILLIS;
+    assertEquals(30, mMetrics.getPopulateCount());
+    assertEquals(60, mMetrics.getPopulateRate(), 0.001);
+  }
+
+  @Test
+  public void fills_areCounted() throws Exception {
+    mMetrics.onFillRequested(0, 10);
+    mMetrics.onFillRequested(10, 4);
+    mMetrics.onPrependRequested(3);
+    assertEquals(2, mMetrics.getFillRequestCount());
+    assertEquals(14, mMetrics.getFillQuantity());
+    assertEquals(2, mMetrics.getFillQuantities().getCount());
+    assertEquals(10, mMetrics.getFillQuantities().getMax());
+    assertEquals(1, mMetrics.getPrependRequestCount());
+    assertEquals(3, mMetrics.getPrependQuantity());
+  }
+
+  @Test
+  public void overFetchRatio_comparesRequestedWithShown() throws Exception {
+    assertEquals(0, mMetrics.getOverFetchRatio(), 0);
+    mMetrics.onFillRequested(0, 20);
+    for (int i = 0; i < 10; i++) {
+      mMetrics.onItemBound(i, false);
+    }
+    // rebinding doesn't count twice
+    mMetrics.onItemBound(3, false);
+    assertEquals(10, mMetrics.getShownItemCount());
+    assertEquals(2, mMetrics.getOverFetchRatio(), 0.001);
+  }
+
+  @Test
+  public void fillToBind_isTimedToFirstContentBind() throws Exception {
+    mMetrics.onFillRequested(10, 5);
+    mNanoTime = 10 * MILLIS;
+    mMetrics.onItemBound(11, true);
+    mNanoTime = 40 * MILLIS;
+    mMetrics.onItemBound(12, false);
+    mNanoTime = 50 * MILLIS;
+    mMetrics.onItemBound(13, false);
+    assertEquals(1, mMetrics.getFillToBindNanos().getCount());
+    assertEquals(40 * MILLIS, mMetrics.getFillToBindNanos().getSum());
+  }
+
+  @Test
+  public void placeholders_areTimedUntilContentIsBound() throws Exception {
+    mMetrics.onItemBound(5, true);
+    mNanoTime = 100 * MILLIS;
+    // still a placeholder - it was on screen since the first bind
+    mMetrics.onItemBound(5, true);
+    mNanoTime = 300 * MILLIS;
+    mMetrics.onItemBound(5, false);
+    mNanoTime = 400 * MILLIS;
+    mMetrics.onItemBound(5, false);
+    assertEquals(1, mMetrics.getPlaceholderOnScreenNanos().getCount());
+    assertEquals(300 * MILLIS, mMetrics.getPlaceholderOnScreenNanos().getSum());
+  }
+
+  @Test
+  public void prepends_shiftTrackedPositions() throws Exception {
+    mMetrics.onFillRequested(10, 5);
+    mMetrics.onItemBound(10, true);
+    mMetrics.onItemsPrepended(20);
+    mNanoTime = 70 * MILLIS;
+    mMetrics.onItemBound(30, false);
+    assertEquals(1, mMetrics.getFillToBindNanos().getCount());
+    assertEquals(1, mMetrics.getPlaceholderOnScreenNanos().getCount());
+    assertEquals(70 * MILLIS, mMetrics.getPlaceholderOnScreenNanos().getMax());
+  }
+
+  @Test
+  public void tracking_isBounded() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      mNanoTime = i;
+      mMetrics.onFillRequested(i, 1);
+    }
+    // the oldest fills were forgotten, the newest weren't
+    mMetrics.onItemBound(0, false);
+    assertEquals(0, mMetrics.getFillToBindNanos().getCount());
+    mMetrics.onItemBound(99, false);
+    assertEquals(1, mMetrics.getFillToBindNanos().getCount());
+  }
+
+  @Test
+  public void reset_startsNewInterval() throws Exception {
+    mMetrics.onPopulate();
+    mMetrics.onFillRequested(0, 10);
+    mMetrics.onItemBound(0, true);
+    mNanoTime = 1000 * MILLIS;
+    mMetrics.reset();
+    mMetrics.onItemBound(0, false);
+    assertEquals(0, mMetrics.getPopulateCount());
+    assertEquals(0, mMetrics.getFillQuantity());
+    assertEquals(0, mMetrics.getElapsedNanos());
+    assertEquals(1, mMetrics.getShownItemCount());
+    assertEquals(0, mMetrics.getPlaceholderOnScreenNanos().getCount());
+    assertEquals(0, mMetrics.getFillToBindNanos().getCount());
+  }
+
+}
@@ -0,0 +1,58 @@
+package com.qozix.widget;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A frame clock whose time only moves when told to, and whose frames are only delivered when asked for.
+ */
+public class FakeFrameClock implements FrameMonitor.FrameClock {
+
+  private long mNanoTime;
+  private final List<FrameMonitor.FrameCallback> mFrameCallbacks = new ArrayList<>();
+
+  @Override
+  public long nanoTime() {
+    return mNanoTime;
+  }
+
+  @Override
+  public void postFrameCallback(FrameMonitor.FrameCallback frameCallback) {
+    mFrameCallbacks.add(frameCallback);
+  }
+
+  @Override
+  public void removeFrameCallback(FrameMonitor.FrameCallback frameCallback) {
+    mFrameCallbacks.remove(frameCallback);
+  }
+
+  /**
+   * Move time forward.
+   *
+   * @param nanos the nanos
+   */
+  public void advance(long nanos) {
+    mNanoTime += nanos;
+  }
+
+  /**
+   * Deliver a frame at the current time to the callbacks posted so far.
+   */
+  public void frame() {
+    List<FrameMonitor.FrameCallback> frameCallbacks = new ArrayList<>(mFrameCallbacks);
+    mFrameCallbacks.clear();
+    for (FrameMonitor.FrameCallback frameCallback : frameCallbacks) {
+      frameCallback.doFrame(mNanoTime);
+    }
+  }
+
+  /**
+   * Gets the number of callbacks waiting for a frame.
+   *
+   * @return the pending callback count
+   */
+  public int getPendingCallbackCount() {
+    return mFrameCallbacks.size();
+  }
+
+}
@@ -0,0 +1,126 @@
+package com.qozix.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameMonitorTest {
+
+  private static final long MILLIS = 1000000;
+  private static final long INTERVAL = FrameMonitor.DEFAULT_FRAME_INTERVAL_NANOS;
+
+  private FakeFrameClock mFrameClock;
+  private FrameMonitor mFrameMonitor;
+
+  @Before
+  public void setUp() throws Exception {
+    mFrameClock = new FakeFrameClock();
+    mFrameMonitor = new FrameMonitor(mFrameClock);
+    mFrameMonitor.start();
+    mFrameClock.frame();
+  }
+
+  private void work(int kind, long nanos) {
+    mFrameMonitor.beginWork(kind);
+    mFrameClock.advance(nanos);
+    mFrameMonitor.endWork();
+  }
+
+  private void finishFrame(long frameNanos, long elapsedNanos) {
+    mFrameClock.advance(frameNanos - elapsedNanos);
+    mFrameClock.frame();
+  }
+
+  @Test
+  public void smoothFrames_arentJanky() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      work(FrameMonitor.WORK_BIND, 2 * MILLIS);
+      finishFrame(INTERVAL, 2 * MILLIS);
+    }
+    assertEquals(10, mFrameMonitor.getFrameCount());
+    assertEquals(0, mFrameMonitor.getJankyFrameCount());
+    assertEquals(20 * MILLIS, mFrameMonitor.getWorkNanos(FrameMonitor.WORK_BIND));
+    assertEquals(0, mFrameMonitor.getJankRatio(), 0);
+  }
+
+  @Test
+  public void jankyFrame_isAttributedToDominantWork() throws Exception {
+    work(FrameMonitor.WORK_BIND, 5 * MILLIS);
+    work(FrameMonitor.WORK_INFLATE, 30 * MILLIS);
+    work(FrameMonitor.WORK_BIND, 5 * MILLIS);
+    finishFrame(3 * INTERVAL, 40 * MILLIS);
+    assertEquals(1, mFrameMonitor.getJankyFrameCount());
+    assertEquals(1, mFrameMonitor.getJankyFrameCount(FrameMonitor.WORK_INFLATE));
+    assertEquals(0, mFrameMonitor.getJankyFrameCount(FrameMonitor.WORK_BIND));
+    assertEquals(2, mFrameMonitor.getDroppedFrameCount());
+    assertEquals(1, mFrameMonitor.getJankRatio(), 0);
+  }
+
+  @Test
+  public void jankWithoutWork_isUnattributed() throws Exception {
+    finishFrame(2 * INTERVAL, 0);
+    assertEquals(1, mFrameMonitor.getJankyFrameCount());
+    assertEquals(1, mFrameMonitor.getUnattributedJankyFrameCount());
+  }
+
+  @Test
+  public void nestedWork_isTimedExclusively() throws Exception {
+    mFrameMonitor.beginWork(FrameMonitor.WORK_POPULATE);
+    mFrameClock.advance(MILLIS);
+    mFrameMonitor.beginWork(FrameMonitor.WORK_FILL);
+    assertEquals(FrameMonitor.WORK_FILL, mFrameMonitor.getCurrentWork());
+    mFrameClock.advance(40 * MILLIS);
+    mFrameMonitor.endWork();
+    assertEquals(FrameMonitor.WORK_POPULATE, mFrameMonitor.getCurrentWork());
+    mFrameClock.advance(2 * MILLIS);
+    mFrameMonitor.endWork();
+    assertEquals(FrameMonitor.WORK_NONE, mFrameMonitor.getCurrentWork());
+    finishFrame(3 * INTERVAL, 43 * MILLIS);
+    assertEquals(3 * MILLIS, mFrameMonitor.getWorkNanos(FrameMonitor.WORK_POPULATE));
+    assertEquals(40 * MILLIS, mFrameMonitor.getWorkNanos(FrameMonitor.WORK_FILL));
+    assertEquals(1, mFrameMonitor.getJankyFrameCount(FrameMonitor.WORK_FILL));
+  }
+
+  @Test
+  public void unfinishedWork_endsAtFrame() throws Exception {
+    mFrameMonitor.beginWork(FrameMonitor.WORK_INFLATE);
+    mFrameClock.advance(30 * MILLIS);
+    mFrameClock.frame();
+    assertEquals(FrameMonitor.WORK_NONE, mFrameMonitor.getCurrentWork());
+    assertEquals(30 * MILLIS, mFrameMonitor.getWorkNanos(FrameMonitor.WORK_INFLATE));
+    assertEquals(1, mFrameMonitor.getJankyFrameCount(FrameMonitor.WORK_INFLATE));
+    // work in one frame doesn't count towards the next
+    finishFrame(3 * INTERVAL, 0);
+    assertEquals(1, mFrameMonitor.getUnattributedJankyFrameCount());
+  }
+
+  @Test
+  public void stop_stopsObservingFrames() throws Exception {
+    assertEquals(1, mFrameClock.getPendingCallbackCount());
+    mFrameMonitor.stop();
+    assertFalse(mFrameMonitor.isRunning());
+    assertEquals(0, mFrameClock.getPendingCallbackCount());
+    work(FrameMonitor.WORK_BIND, 50 * MILLIS);
+    assertEquals(0, mFrameMonitor.getWorkNanos(FrameMonitor.WORK_BIND));
+    // the gap while stopped isn't a frame
+    mFrameMonitor.start();
+    mFrameClock.frame();
+    assertEquals(0, mFrameMonitor.getFrameCount());
+  }
+
+  @Test
+  public void reset_startsNewSession() throws Exception {
+    work(FrameMonitor.WORK_FILL, 30 * MILLIS);
+    finishFrame(2 * INTERVAL, 30 * MILLIS);
+    mFrameMonitor.reset();
+    assertEquals(0, mFrameMonitor.getFrameCount());
+    assertEquals(0, mFrameMonitor.getJankyFrameCount());
+    assertEquals(0, mFrameMonitor.getJankyFrameCount(FrameMonitor.WORK_FILL));
+    assertEquals(0, mFrameMonitor.getWorkNanos(FrameMonitor.WORK_FILL));
+    // the first frame after a reset only marks the start of the next
+    finishFrame(INTERVAL, 0);
+    assertEquals(0, mFrameMonitor.getFrameCount());
+  }
+
+}
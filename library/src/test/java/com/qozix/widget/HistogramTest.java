@@ -0,0 +1,62 @@
+package com.qozix.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+  @Test
+  public void buckets_arePowersOfTwo() throws Exception {
+    assertEquals(0, Histogram.getBucketIndex(0));
+    assertEquals(1, Histogram.getBucketIndex(1));
+    assertEquals(2, Histogram.getBucketIndex(2));
+    assertEquals(2, Histogram.getBucketIndex(3));
+    assertEquals(3, Histogram.getBucketIndex(4));
+    assertEquals(10, Histogram.getBucketIndex(1023));
+    assertEquals(11, Histogram.getBucketIndex(1024));
+    assertEquals(63, Histogram.getBucketIndex(Long.MAX_VALUE));
+    assertEquals(1023, Histogram.getBucketUpperBound(10));
+  }
+
+  @Test
+  public void summary_isExact() throws Exception {
+    Histogram histogram = new Histogram();
+    histogram.record(5);
+    histogram.record(100);
+    histogram.record(-3);
+    assertEquals(3, histogram.getCount());
+    assertEquals(105, histogram.getSum());
+    assertEquals(0, histogram.getMin());
+    assertEquals(100, histogram.getMax());
+    assertEquals(35, histogram.getMean(), 0.001);
+    assertEquals(1, histogram.getCountInBucket(0));
+  }
+
+  @Test
+  public void percentile_isBucketUpperBound() throws Exception {
+    Histogram histogram = new Histogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i);
+    }
+    // the 50th value is 50, which falls in [32, 63]
+    assertEquals(63, histogram.getPercentile(50));
+    // the 99th is 99, in [64, 127], but nothing larger than 100 was recorded
+    assertEquals(100, histogram.getPercentile(99));
+    assertEquals(1, histogram.getPercentile(0));
+  }
+
+  @Test
+  public void empty_readsAsZero() throws Exception {
+    Histogram histogram = new Histogram();
+    assertEquals(0, histogram.getMin());
+    assertEquals(0, histogram.getMean(), 0);
+    assertEquals(0, histogram.getPercentile(90));
+    histogram.record(7);
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMax());
+    assertEquals(0, histogram.getCountInBucket(3));
+  }
+
+}
@@ -0,0 +1,107 @@
+package com.qozix.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NotificationBatchTest {
+
+  private List<String> mDispatched;
+  private NotificationBatch mNotificationBatch;
+
+  @Before
+  public void setUp() throws Exception {
+    mDispatched = new ArrayList<>();
+    mNotificationBatch = new NotificationBatch(new NotificationBatch.Target() {
+      @Override
+      public void notifyItemRangeInserted(int positionStart, int itemCount) {
+        mDispatched.add("inserted " + positionStart + " " + itemCount);
+      }
+
+      @Override
+      public void notifyItemRangeChanged(int positionStart, int itemCount) {
+        mDispatched.add("changed " + positionStart + " " + itemCount);
+      }
+
+      @Override
+      public void notifyItemRangeRemoved(int positionStart, int itemCount) {
+        mDispatched.add("removed " + positionStart + " " + itemCount);
+      }
+    });
+  }
+
+  @Test
+  public void appendedInserts_areDispatchedAsOneRange() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      mNotificationBatch.notifyItemInserted(20 + i);
+    }
+    assertEquals(1, mNotificationBatch.getPendingCount());
+    mNotificationBatch.dispatch();
+    assertEquals(1, mDispatched.size());
+    assertEquals("inserted 20 100", mDispatched.get(0));
+    assertEquals(0, mNotificationBatch.getPendingCount());
+  }
+
+  @Test
+  public void changedPlaceholders_areDispatchedAsOneRange() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      mNotificationBatch.notifyItemChanged(30 + i);
+    }
+    mNotificationBatch.notifyItemChanged(35);
+    mNotificationBatch.notifyItemChanged(29);
+    mNotificationBatch.dispatch();
+    assertEquals(1, mDispatched.size());
+    assertEquals("changed 29 11", mDispatched.get(0));
+  }
+
+  @Test
+  public void nonContiguousNotifications_keepTheirOrder() throws Exception {
+    mNotificationBatch.notifyItemChanged(3);
+    mNotificationBatch.notifyItemChanged(4);
+    mNotificationBatch.notifyItemInserted(10);
+    mNotificationBatch.notifyItemInserted(11);
+    mNotificationBatch.notifyItemChanged(7);
+    mNotificationBatch.dispatch();
+    assertEquals(3, mDispatched.size());
+    assertEquals("changed 3 2", mDispatched.get(0));
+    assertEquals("inserted 10 2", mDispatched.get(1));
+    assertEquals("changed 7 1", mDispatched.get(2));
+  }
+
+  @Test
+  public void changeToJustInsertedItem_isDropped() throws Exception {
+    mNotificationBatch.notifyItemRangeInserted(10, 5);
+    mNotificationBatch.notifyItemChanged(12);
+    mNotificationBatch.notifyItemChanged(15);
+    mNotificationBatch.dispatch();
+    assertEquals(2, mDispatched.size());
+    assertEquals("inserted 10 5", mDispatched.get(0));
+    assertEquals("changed 15 1", mDispatched.get(1));
+  }
+
+  @Test
+  public void repeatedRemovals_areDispatchedAsOneRange() throws Exception {
+    mNotificationBatch.notifyItemRemoved(8);
+    mNotificationBatch.notifyItemRemoved(8);
+    mNotificationBatch.notifyItemRemoved(7);
+    mNotificationBatch.dispatch();
+    assertEquals(1, mDispatched.size());
+    assertEquals("removed 7 3", mDispatched.get(0));
+  }
+
+  @Test
+  public void manyNotifications_growStorage() throws Exception {
+    for (int i = 0; i < 50; i++) {
+      mNotificationBatch.notifyItemChanged(i * 2);
+    }
+    assertEquals(50, mNotificationBatch.getPendingCount());
+    mNotificationBatch.dispatch();
+    assertEquals(50, mDispatched.size());
+    assertEquals("changed 98 1", mDispatched.get(49));
+  }
+
+}
@@ -0,0 +1,157 @@
+package com.qozix.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PlaceholderSlotsTest {
+
+  @Test
+  public void appendedReservations_areOneRange() throws Exception {
+    PlaceholderSlots slots = new PlaceholderSlots();
+    for (int i = 0; i < 5000; i++) {
+      slots.reserve(100 + i);
+    }
+    assertEquals(5000, slots.size());
+    assertEquals(1, slots.getRangeCount());
+    assertTrue(slots.isPlaceholder(100));
+    assertTrue(slots.isPlaceholder(5099));
+    assertFalse(slots.isPlaceholder(99));
+    assertFalse(slots.isPlaceholder(5100));
+  }
+
+  @Test
+  public void poll_resolvesInPositionOrder() throws Exception {
+    PlaceholderSlots slots = new PlaceholderSlots();
+    slots.reserve(10, 2);
+    slots.reserve(0, 1);
+    // the second reservation shifted the first down by one
+    assertEquals(0, slots.poll());
+    assertEquals(11, slots.poll());
+    assertEquals(12, slots.poll());
+    assertEquals(PlaceholderSlots.NO_POSITION, slots.poll());
+    assertTrue(slots.isEmpty());
+    assertEquals(0, slots.getRangeCount());
+  }
+
+  @Test
+  public void resolve_splitsRangeWithoutShifting() throws Exception {
+    PlaceholderSlots slots = new PlaceholderSlots();
+    slots.reserve(0, 30);
+    assertEquals(10, slots.resolve(10, 10));
+    assertEquals(20, slots.size());
+    assertEquals(2, slots.getRangeCount());
+    assertTrue(slots.isPlaceholder(9));
+    assertFalse(slots.isPlaceholder(10));
+    assertFalse(slots.isPlaceholder(19));
+    assertTrue(slots.isPlaceholder(20));
+    assertTrue(slots.resolve(29));
+    assertFalse(slots.resolve(29));
+    assertEquals(19, slots.size());
+  }
+
+  @Test
+  public void resolve_spanningRanges() throws Exception {
+    PlaceholderSlots slots = new PlaceholderSlots();
+    slots.reserve(0, 5);
+    slots.reserve(10, 5);
+    slots.reserve(20, 5);
+    assertEquals(3, slots.getRangeCount());
+    assertEquals(5, slots.resolve(3, 10));
+    assertEquals(10, slots.size());
+    assertEquals(3, slots.getRangeCount());
+    assertEquals(0, slots.getFirst());
+    assertTrue(slots.isPlaceholder(2));
+    assertFalse(slots.isPlaceholder(3));
+    assertTrue(slots.isPlaceholder(13));
+    assertTrue(slots.isPlaceholder(24));
+  }
+
+  @Test
+  public void insertBefore_shiftsSlots() throws Exception {
+    PlaceholderSlots slots = new PlaceholderSlots();
+    slots.reserve(10, 5);
+    slots.onItemRangeInserted(0, 3);
+    assertFalse(slots.isPlaceholder(10));
+    assertTrue(slots.isPlaceholder(13));
+    assertTrue(slots.isPlaceholder(17));
+    assertEquals(13, slots.poll());
+  }
+
+  @Test
+  public void insertWithin_splitsRange() throws Exception {
+    PlaceholderSlots slots = new PlaceholderSlots();
+    slots.reserve(10, 5);
+    slots.onItemRangeInserted(12, 4);
+    assertEquals(5, slots.size());
+    assertEquals(2, slots.getRangeCount());
+    assertTrue(slots.isPlaceholder(11));
+    assertFalse(slots.isPlaceholder(12));
+    assertFalse(slots.isPlaceholder(15));
+    assertTrue(slots.isPlaceholder(16));
+    assertTrue(slots.isPlaceholder(18));
+    assertFalse(slots.isPlaceholder(19));
+  }
+
+  @Test
+  public void insertAfter_leavesSlots() throws Exception {
+    PlaceholderSlots slots = new PlaceholderSlots();
+    slots.reserve(10, 5);
+    slots.onItemRangeInserted(15, 5);
+    assertEquals(1, slots.getRangeCount());
+    assertTrue(slots.isPlaceholder(14));
+    assertFalse(slots.isPlaceholder(15));
+  }
+
+  @Test
+  public void reserveAdjacent_mergesRanges() throws Exception {
+    PlaceholderSlots slots = new PlaceholderSlots();
+    slots.reserve(10, 5);
+    slots.reserve(10, 2);
+    slots.reserve(17, 3);
+    assertEquals(1, slots.getRangeCount());
+    assertEquals(10, slots.size());
+    assertEquals(10, slots.getFirst());
+    assertTrue(slots.isPlaceholder(19));
+  }
+
+  @Test
+  public void remove_dropsAndShiftsSlots() throws Exception {
+    PlaceholderSlots slots = new PlaceholderSlots();
+    slots.reserve(0, 5);
+    slots.reserve(10, 5);
+    assertEquals(4, slots.onItemRangeRemoved(3, 9));
+    assertEquals(6, slots.size());
+    // the remains of both ranges now touch, and are merged
+    assertEquals(1, slots.getRangeCount());
+    assertTrue(slots.isPlaceholder(0));
+    assertTrue(slots.isPlaceholder(5));
+    assertFalse(slots.isPlaceholder(6));
+  }
+
+  @Test
+  public void removeWithin_shrinksRange() throws Exception {
+    PlaceholderSlots slots = new PlaceholderSlots();
+    slots.reserve(10, 10);
+    assertEquals(4, slots.onItemRangeRemoved(12, 4));
+    assertEquals(1, slots.getRangeCount());
+    assertEquals(6, slots.size());
+    assertTrue(slots.isPlaceholder(15));
+    assertFalse(slots.isPlaceholder(16));
+  }
+
+  @Test
+  public void manyRanges_growStorage() throws Exception {
+    PlaceholderSlots slots = new PlaceholderSlots();
+    for (int i = 0; i < 100; i++) {
+      slots.reserve(i * 2 + 1 + i);
+      slots.onItemRangeInserted(i * 3 + 2, 1);
+    }
+    assertEquals(100, slots.size());
+    assertEquals(100, slots.getRangeCount());
+    slots.onItemRangeRemoved(0, 300);
+    assertTrue(slots.isEmpty());
+    assertEquals(0, slots.getRangeCount());
+  }
+
+}
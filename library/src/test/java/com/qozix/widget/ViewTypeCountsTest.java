@@ -0,0 +1,61 @@
+package com.qozix.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ViewTypeCountsTest {
+
+  @Test
+  public void unknownViewType_isZero() throws Exception {
+    ViewTypeCounts counts = new ViewTypeCounts();
+    assertEquals(0, counts.get(7));
+    assertEquals(0, counts.size());
+  }
+
+  @Test
+  public void add_accumulatesPerViewType() throws Exception {
+    ViewTypeCounts counts = new ViewTypeCounts();
+    counts.add(0, 1);
+    counts.add(1, 2);
+    counts.add(0, 3);
+    assertEquals(4, counts.get(0));
+    assertEquals(2, counts.get(1));
+    assertEquals(2, counts.size());
+    assertEquals(0, counts.getViewTypeAt(0));
+    assertEquals(4, counts.getCountAt(0));
+    assertEquals(1, counts.getViewTypeAt(1));
+  }
+
+  @Test
+  public void add_neverGoesBelowZero() throws Exception {
+    ViewTypeCounts counts = new ViewTypeCounts();
+    counts.set(3, 1);
+    counts.add(3, -5);
+    assertEquals(0, counts.get(3));
+  }
+
+  @Test
+  public void grows_beyondInitialCapacity() throws Exception {
+    ViewTypeCounts counts = new ViewTypeCounts();
+    for (int viewType = 0; viewType < 20; viewType++) {
+      counts.set(viewType * 10, viewType);
+    }
+    assertEquals(20, counts.size());
+    for (int viewType = 0; viewType < 20; viewType++) {
+      assertEquals(viewType, counts.get(viewType * 10));
+    }
+  }
+
+  @Test
+  public void clear_forgetsViewTypes() throws Exception {
+    ViewTypeCounts counts = new ViewTypeCounts();
+    counts.add(0, 2);
+    counts.clear();
+    assertEquals(0, counts.size());
+    assertEquals(0, counts.get(0));
+    counts.add(0, 1);
+    assertEquals(1, counts.get(0));
+  }
+
+}
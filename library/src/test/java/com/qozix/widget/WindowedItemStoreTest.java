@@ -0,0 +1,250 @@
+package com.qozix.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class WindowedItemStoreTest {
+
+  private static final int PAGE_SIZE = 10;
+
+  private WindowedItemStore<String> mStore;
+  private List<Integer> mRequestedPages = new ArrayList<>();
+  private List<Integer> mRestoredPositions = new ArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    mStore = new WindowedItemStore<>(PAGE_SIZE);
+    mStore.setPageLoader(new WindowedItemStore.PageLoader<String>() {
+      @Override
+      public void loadPage(int pageIndex, int firstPosition, int count) {
+        mRequestedPages.add(pageIndex);
+      }
+    });
+    mStore.setOnPageRestoredListener(new WindowedItemStore.OnPageRestoredListener() {
+      @Override
+      public void onPageRestored(int firstPosition, int count) {
+        mRestoredPositions.add(firstPosition);
+      }
+    });
+  }
+
+  private void append(int count) {
+    for (int i = 0; i < count; i++) {
+      mStore.add("item " + mStore.size());
+    }
+  }
+
+  // appends while the focus follows the end of the list, as it does while scrolling
+  private void appendFollowing(int count) {
+    for (int i = 0; i < count; i++) {
+      mStore.add("item " + mStore.size());
+      mStore.setFocusPosition(mStore.size() - 1);
+    }
+  }
+
+  private List<String> pageOf(int pageIndex) {
+    List<String> items = new ArrayList<>();
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      items.add("item " + (pageIndex * PAGE_SIZE + i));
+    }
+    return items;
+  }
+
+  @Test
+  public void items_areAppendedAndReadBack() throws Exception {
+    append(25);
+    assertEquals(25, mStore.size());
+    assertEquals("item 0", mStore.get(0));
+    assertEquals("item 24", mStore.get(24));
+    assertEquals(3, mStore.getResidentPageCount());
+  }
+
+  @Test
+  public void farPages_areDroppedOnceOverBudget() throws Exception {
+    mStore.setMemoryBudget(30);
+    appendFollowing(100);
+    assertTrue(mStore.getResidentWeight() <= 30);
+    assertFalse(mStore.isResident(0));
+    assertTrue(mStore.isResident(85));
+    assertTrue(mStore.isResident(99));
+    assertEquals(100, mStore.size());
+  }
+
+  @Test
+  public void droppedPages_areRequestedAndRestored() throws Exception {
+    mStore.setMemoryBudget(30);
+    appendFollowing(100);
+    assertNull(mStore.get(5));
+    assertEquals(1, mRequestedPages.size());
+    assertEquals(0, (int) mRequestedPages.get(0));
+    // asking again while the load is in flight doesn't request it twice
+    assertNull(mStore.get(6));
+    assertEquals(1, mRequestedPages.size());
+    mStore.setFocusPosition(5);
+    mStore.onPageLoaded(0, pageOf(0));
+    assertEquals("item 5", mStore.get(5));
+    assertTrue(mRestoredPositions.contains(0));
+    assertTrue(mStore.getResidentWeight() <= 30);
+  }
+
+  @Test
+  public void focus_requestsNearbyDroppedPages() throws Exception {
+    mStore.setMemoryBudget(30);
+    appendFollowing(100);
+    mStore.setFocusPosition(45);
+    assertTrue(mRequestedPages.contains(3));
+    assertTrue(mRequestedPages.contains(4));
+    assertTrue(mRequestedPages.contains(5));
+  }
+
+  @Test
+  public void lastPage_isNeverDropped() throws Exception {
+    mStore.setMemoryBudget(5);
+    append(35);
+    mStore.setFocusPosition(0);
+    assertTrue(mStore.isResident(34));
+    mStore.add("item 35");
+    assertEquals("item 35", mStore.get(35));
+  }
+
+  @Test
+  public void nothing_isDroppedWithoutPageLoader() throws Exception {
+    WindowedItemStore<String> store = new WindowedItemStore<>(PAGE_SIZE);
+    store.setMemoryBudget(5);
+    for (int i = 0; i < 50; i++) {
+      store.add("item " + i);
+    }
+    assertEquals(5, store.getResidentPageCount());
+  }
+
+  @Test
+  public void weigher_measuresBudget() throws Exception {
+    mStore.setWeigher(new WindowedItemStore.Weigher<String>() {
+      @Override
+      public long weigh(String item) {
+        return item.length();
+      }
+    });
+    mStore.add("abc");
+    mStore.add(null);
+    mStore.add("de");
+    assertEquals(5, mStore.getResidentWeight());
+    mStore.set(1, "fghi");
+    assertEquals(9, mStore.getResidentWeight());
+  }
+
+  @Test
+  public void truncation_removesFromEnd() throws Exception {
+    append(35);
+    mStore.subList(12, 35).clear();
+    assertEquals(12, mStore.size());
+    assertEquals(12, mStore.getResidentWeight());
+    append(3);
+    assertEquals("item 14", mStore.get(14));
+  }
+
+  @Test
+  public void truncation_intoDroppedPage_requestsItBack() throws Exception {
+    mStore.setMemoryBudget(30);
+    appendFollowing(100);
+    mStore.subList(25, 100).clear();
+    assertTrue(mStore.isResident(24));
+    assertTrue(mRequestedPages.contains(2));
+    mStore.add("item 25");
+    mStore.onPageLoaded(2, pageOf(2));
+    assertEquals("item 24", mStore.get(24));
+    assertEquals("item 25", mStore.get(25));
+  }
+
+  @Test
+  public void truncation_intoPageInFlight_doesntRequestItTwice() throws Exception {
+    mStore.setMemoryBudget(30);
+    appendFollowing(100);
+    assertNull(mStore.get(25));
+    assertEquals("[2]", mRequestedPages.toString());
+    mStore.subList(25, 100).clear();
+    assertEquals("[2]", mRequestedPages.toString());
+    mStore.onPageLoaded(2, pageOf(2));
+    assertEquals("item 24", mStore.get(24));
+  }
+
+  @Test
+  public void failedLoads_areRequestedAgain() throws Exception {
+    mStore.setMemoryBudget(30);
+    appendFollowing(100);
+    assertNull(mStore.get(5));
+    assertNull(mStore.get(6));
+    assertEquals("[0]", mRequestedPages.toString());
+    mStore.onPageLoadFailed(0);
+    assertNull(mStore.get(5));
+    assertEquals("[0, 0]", mRequestedPages.toString());
+    mStore.onPageLoadFailed(0);
+    mStore.setFocusPosition(5);
+    assertEquals(3, Collections.frequency(mRequestedPages, 0));
+    mStore.onPageLoaded(0, pageOf(0));
+    assertEquals("item 5", mStore.get(5));
+  }
+
+  @Test
+  public void setOnDroppedPage_keepsTheItemAndRequestsTheRest() throws Exception {
+    mStore.setMemoryBudget(30);
+    appendFollowing(100);
+    assertFalse(mStore.isResident(5));
+    assertNull(mStore.set(5, "resolved"));
+    assertTrue(mStore.isResident(5));
+    assertEquals("resolved", mStore.get(5));
+    assertNull(mStore.get(6));
+    assertEquals("[0]", mRequestedPages.toString());
+    // the page holds an item that can't be loaded yet, so it isn't dropped, even far from the focus
+    appendFollowing(30);
+    assertEquals("resolved", mStore.get(5));
+    mStore.onPageLoaded(0, pageOf(0));
+    assertEquals("resolved", mStore.get(5));
+    assertEquals("item 6", mStore.get(6));
+  }
+
+  @Test
+  public void failedLoadOfPartialPage_isRequestedAgain() throws Exception {
+    mStore.setMemoryBudget(30);
+    appendFollowing(100);
+    mStore.set(5, "resolved");
+    mStore.onPageLoadFailed(0);
+    assertNull(mStore.get(6));
+    assertEquals("[0, 0]", mRequestedPages.toString());
+    assertEquals("resolved", mStore.get(5));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void insertion_isNotSupported() throws Exception {
+    append(5);
+    mStore.add(2, "inserted");
+  }
+
+  @Test
+  public void droppedPages_canBeAppendedBeforeAWindow() throws Exception {
+    mStore.addDroppedPages(3);
+    append(15);
+    assertEquals(45, mStore.size());
+    assertFalse(mStore.isResident(29));
+    assertTrue(mStore.isResident(30));
+    assertEquals("item 30", mStore.get(30));
+    assertNull(mStore.get(12));
+    assertEquals("[1]", mRequestedPages.toString());
+    mStore.onPageLoaded(1, pageOf(1));
+    assertEquals("item 12", mStore.get(12));
+    assertEquals("[10]", mRestoredPositions.toString());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void droppedPages_mustStartAtAPage() throws Exception {
+    append(5);
+    mStore.addDroppedPages(1);
+  }
+
+}